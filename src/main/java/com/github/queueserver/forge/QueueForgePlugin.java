@@ -1,8 +1,15 @@
 package com.github.queueserver.forge;
 
+import com.github.queueserver.forge.concurrent.MainThreadExecutor;
+import com.github.queueserver.forge.concurrent.PluginExecutors;
 import com.github.queueserver.forge.config.ConfigManager;
 import com.github.queueserver.forge.database.DatabaseManager;
 import com.github.queueserver.forge.queue.QueueManager;
+import com.github.queueserver.forge.queue.QueueReconciler;
+import com.github.queueserver.forge.dispatch.DispatchTrigger;
+import com.github.queueserver.forge.dispatch.QueueDispatcher;
+import com.github.queueserver.forge.dispatch.SlotLeaseManager;
+import com.github.queueserver.forge.dispatch.TransferRateController;
 import com.github.queueserver.forge.commands.QueueCommands;
 import com.github.queueserver.forge.listeners.PlayerConnectionListener;
 import com.github.queueserver.forge.listeners.ForgeEventListener;
@@ -18,8 +25,16 @@ import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -39,6 +54,11 @@ public class QueueForgePlugin extends JavaPlugin {
     private ConfigManager configManager;
     private DatabaseManager databaseManager;
     private QueueManager queueManager;
+    private QueueDispatcher queueDispatcher;
+    private TransferRateController rateController;
+    private DispatchTrigger dispatchTrigger;
+    private SlotLeaseManager slotLeaseManager;
+    private QueueReconciler queueReconciler;
     private VIPManager vipManager;
     private ServerMonitor serverMonitor;
     private ProxyHttpClient proxyHttpClient;
@@ -49,10 +69,21 @@ public class QueueForgePlugin extends JavaPlugin {
     private volatile boolean serverReady = false;
     private volatile boolean shutdownInProgress = false;
     
+    // 在线玩家，由主线程的加入/离开事件维护，异步线程只读此集合而不调用 Bukkit API
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    
+    // 插件线程运行时
+    private PluginExecutors executors;
+    private MainThreadExecutor mainThread;
+    
     // 定时任务
-    private BukkitTask queueProcessTask;
-    private BukkitTask heartbeatTask;
-    private BukkitTask cleanupTask;
+    private ScheduledFuture<?> queueProcessTask;
+    private ScheduledFuture<?> heartbeatTask;
+    private ScheduledFuture<?> cleanupTask;
+    private ScheduledFuture<?> checkpointTask;
+    private ScheduledFuture<?> timerTask;
+    private ScheduledFuture<?> reconcileTask;
+    private BukkitTask offlineSweepTask;
     
     @Override
     public void onEnable() {
@@ -106,6 +137,15 @@ public class QueueForgePlugin extends JavaPlugin {
             // 取消所有定时任务
             cancelTasks();
             
+            // 执行已提交的主线程工作
+            if (mainThread != null) {
+                mainThread.stop();
+            }
+            
+            if (serverMonitor != null) {
+                serverMonitor.stopMonitoring();
+            }
+            
             // 清理队列
             if (queueManager != null) {
                 queueManager.shutdown();
@@ -116,6 +156,11 @@ public class QueueForgePlugin extends JavaPlugin {
                 proxyHttpClient.shutdown();
             }
             
+            // 等待已提交的异步任务（含数据库写入）完成后再关闭连接池
+            if (executors != null) {
+                executors.shutdown(5, TimeUnit.SECONDS);
+            }
+            
             // 关闭数据库连接
             if (databaseManager != null) {
                 databaseManager.shutdown();
@@ -208,8 +253,16 @@ public class QueueForgePlugin extends JavaPlugin {
         securityManager = new SecurityManager(this);
         getLogger().info("✓ 安全管理器已初始化");
         
+        // 初始化线程运行时，后续组件的异步工作都提交到这里
+        executors = createExecutors();
+        mainThread = new MainThreadExecutor(this, getConfig().getDouble("runtime.main-thread-budget-ms", 2.0), getLogger());
+        getLogger().info("✓ 线程运行时已初始化");
+        
         // 初始化HTTP客户端
         proxyHttpClient = new ProxyHttpClient(this);
+        if (getConfig().getBoolean("proxy.http.preconnect", true)) {
+            proxyHttpClient.preconnect();
+        }
         getLogger().info("✓ HTTP代理客户端已初始化");
         
         // 初始化数据库管理器
@@ -223,6 +276,29 @@ public class QueueForgePlugin extends JavaPlugin {
         
         // 初始化队列管理器
         queueManager = new QueueManager(this);
+        queueManager.recover();
+        if (getConfig().getBoolean("queue.rate-control.enabled", true)) {
+            rateController = new TransferRateController(
+                    getConfig().getInt("queue.rate-control.min-batch", 1),
+                    getConfig().getInt("queue.rate-control.max-batch", 20),
+                    configManager.getQueueProcessInterval() * 1000L,
+                    getConfig().getDouble("queue.rate-control.tps-threshold", 18.0),
+                    getConfig().getDouble("queue.rate-control.decrease-factor", 0.5),
+                    configManager.getQueueProcessInterval() * 1000L,
+                    getLogger());
+            queueDispatcher = new QueueDispatcher(queueManager, rateController);
+        } else {
+            queueDispatcher = new QueueDispatcher(queueManager, configManager::getTransferBatchSize);
+        }
+        if (getConfig().getBoolean("queue.slot-lease.enabled", true)) {
+            slotLeaseManager = new SlotLeaseManager(getConfig().getLong("queue.slot-lease.ttl", 10) * 1000L, getLogger());
+        }
+        // 代理推送玩家到达目标服务器时确认传送完成
+        proxyHttpClient.setArrivalListener(queueManager::confirmTransfer);
+        if (getConfig().getBoolean("queue.reconcile.enabled", true)) {
+            queueReconciler = new QueueReconciler(queueManager, proxyHttpClient,
+                    getConfig().getInt("queue.reconcile.buckets", 64), getLogger());
+        }
         getLogger().info("✓ 队列管理器已初始化");
         
         // 初始化服务器监控器
@@ -236,12 +312,40 @@ public class QueueForgePlugin extends JavaPlugin {
         getLogger().info("所有核心组件初始化完成");
     }
     
+    /**
+     * 创建插件线程运行时
+     * 数据库通道的并发数默认与连接池大小一致，http 通道默认与请求并发上限一致
+     */
+    private PluginExecutors createExecutors() {
+        Map<PluginExecutors.Lane, Integer> concurrency = new EnumMap<>(PluginExecutors.Lane.class);
+        concurrency.put(PluginExecutors.Lane.DB, configManager.getDatabaseType().equalsIgnoreCase("sqlite")
+                ? 1 : configManager.getDatabaseMaxPoolSize());
+        concurrency.put(PluginExecutors.Lane.HTTP, Math.max(1, getConfig().getInt("proxy.http.max-requests", 64)));
+        for (PluginExecutors.Lane lane : PluginExecutors.Lane.values()) {
+            int threads = getConfig().getInt("runtime.lanes." + lane.getLaneName(), 0);
+            if (threads > 0) {
+                concurrency.put(lane, threads);
+            }
+        }
+        
+        return new PluginExecutors(
+                getConfig().getBoolean("runtime.virtual-threads", true),
+                getConfig().getInt("runtime.queue-capacity", 10000),
+                concurrency,
+                getLogger());
+    }
+    
     /**
      * 注册事件监听器
      */
     private void registerListeners() {
         getLogger().info("正在注册事件监听器...");
         
+        // 重载插件时已在线的玩家不会再触发加入事件
+        for (Player player : getServer().getOnlinePlayers()) {
+            onlinePlayers.add(player.getUniqueId());
+        }
+        
         // 玩家连接事件监听器
         getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this), this);
         
@@ -284,39 +388,92 @@ public class QueueForgePlugin extends JavaPlugin {
         // 队列处理任务
         if (configManager.isQueueMode()) {
             int processInterval = configManager.getQueueProcessInterval();
-            queueProcessTask = new BukkitRunnable() {
-                @Override
-                public void run() {
+            if ("event".equalsIgnoreCase(getConfig().getString("queue.dispatch.mode", "event"))) {
+                // 空位信号立即唤醒分发，process-interval 作为兜底轮询间隔
+                long debounce = getConfig().getLong("queue.dispatch.debounce-ms", 200);
+                dispatchTrigger = new DispatchTrigger(() -> {
                     if (!shutdownInProgress && serverReady) {
-                        processQueue();
+                        return processQueue();
                     }
+                    return null;
+                }, debounce, processInterval * 1000L, executors.getTimer(),
+                        executors.lane(PluginExecutors.Lane.DISPATCH), getLogger());
+                dispatchTrigger.start();
+                proxyHttpClient.setSlotListener(dispatchTrigger::signal);
+                if (getConfig().getBoolean("queue.dispatch.long-poll", true)) {
+                    proxyHttpClient.startSlotWatch(getConfig().getInt("queue.dispatch.long-poll-timeout", 25));
                 }
-            }.runTaskTimerAsynchronously(this, 20L * 10, 20L * processInterval);
-            getLogger().info("✓ 队列处理任务已启动 (间隔: " + processInterval + "秒)");
+                getLogger().info("✓ 事件驱动分发已启动 (防抖: " + debounce + "ms, 兜底间隔: " + processInterval + "秒)");
+            } else {
+                queueProcessTask = executors.scheduleAtFixedRate(PluginExecutors.Lane.DISPATCH, () -> {
+                    if (!shutdownInProgress && serverReady) {
+                        processQueue();
+                    }
+                }, 10, processInterval, TimeUnit.SECONDS);
+                getLogger().info("✓ 队列处理任务已启动 (间隔: " + processInterval + "秒)");
+            }
         }
         
         // 心跳任务
         int heartbeatInterval = configManager.getHeartbeatInterval();
-        heartbeatTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!shutdownInProgress) {
-                    sendHeartbeat();
-                }
+        heartbeatTask = executors.scheduleAtFixedRate(PluginExecutors.Lane.HTTP, () -> {
+            if (!shutdownInProgress) {
+                sendHeartbeat();
             }
-        }.runTaskTimerAsynchronously(this, 20L * 30, 20L * heartbeatInterval);
+        }, 30, heartbeatInterval, TimeUnit.SECONDS);
         getLogger().info("✓ 心跳任务已启动 (间隔: " + heartbeatInterval + "秒)");
         
         // 清理任务
-        cleanupTask = new BukkitRunnable() {
+        cleanupTask = executors.scheduleAtFixedRate(PluginExecutors.Lane.DB, () -> {
+            if (!shutdownInProgress) {
+                performCleanup();
+            }
+        }, 5, 10, TimeUnit.MINUTES); // 每10分钟执行一次
+        getLogger().info("✓ 清理任务已启动");
+        
+        // 队列快照任务
+        int checkpointInterval = Math.max(5, getConfig().getInt("queue.persistence.snapshot-interval", 60));
+        checkpointTask = executors.scheduleAtFixedRate(PluginExecutors.Lane.DB, () -> {
+            if (!shutdownInProgress) {
+                queueManager.checkpoint();
+            }
+        }, checkpointInterval, checkpointInterval, TimeUnit.SECONDS);
+        getLogger().info("✓ 队列快照任务已启动 (间隔: " + checkpointInterval + "秒)");
+        
+        // 队列定时器任务（超时、掉线保留、传送确认）
+        timerTask = executors.scheduleAtFixedRate(PluginExecutors.Lane.DISPATCH, () -> {
+            if (!shutdownInProgress) {
+                queueManager.advanceTimers();
+            }
+        }, QueueManager.TIMER_TICK_MILLIS, QueueManager.TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        getLogger().info("✓ 队列定时器已启动");
+        
+        // 队列核对任务，代理不支持摘要时每轮直接跳过
+        if (queueReconciler != null) {
+            int reconcileInterval = Math.max(5, getConfig().getInt("queue.reconcile.interval", 60));
+            reconcileTask = executors.scheduleAtFixedRate(PluginExecutors.Lane.HTTP, () -> {
+                if (!shutdownInProgress && serverReady) {
+                    queueReconciler.reconcile();
+                }
+            }, reconcileInterval, reconcileInterval, TimeUnit.SECONDS);
+            getLogger().info("✓ 队列核对任务已启动 (间隔: " + reconcileInterval + "秒)");
+        }
+        
+        // 离线玩家兜底巡检，访问 Bukkit API 需在主线程执行
+        int sweepInterval = Math.max(1, getConfig().getInt("queue.offline-sweep.interval", 5));
+        int sweepBatch = Math.max(1, getConfig().getInt("queue.offline-sweep.batch-size", 64));
+        offlineSweepTask = new BukkitRunnable() {
             @Override
             public void run() {
                 if (!shutdownInProgress) {
-                    performCleanup();
+                    queueManager.sweepOffline(sweepBatch);
                 }
             }
-        }.runTaskTimerAsynchronously(this, 20L * 60 * 5, 20L * 60 * 10); // 每10分钟执行一次
-        getLogger().info("✓ 清理任务已启动");
+        }.runTaskTimer(this, 20L * sweepInterval, 20L * sweepInterval);
+        getLogger().info("✓ 离线巡检任务已启动 (每" + sweepInterval + "秒检查" + sweepBatch + "人)");
+        
+        // 主线程工作队列，每 tick 在预算内执行异步线程提交的 Bukkit 操作
+        mainThread.start();
         
         // 启动服务器监控
         serverMonitor.startMonitoring();
@@ -350,66 +507,193 @@ public class QueueForgePlugin extends JavaPlugin {
     
     /**
      * 处理队列
+     * 返回的 future 在本轮出队并提交传送请求后完成
      */
-    private void processQueue() {
+    private CompletableFuture<Void> processQueue() {
         try {
-            if (queueManager.hasPlayersInQueue()) {
-                // 查询目标服务器状态
-                proxyHttpClient.getServerStatus().thenAccept(serverStatus -> {
-                    if (serverStatus != null && serverStatus.isOnline() && serverStatus.hasAvailableSlots()) {
-                        // 计算可传送的玩家数量
-                        int availableSlots = serverStatus.getAvailableSlots();
-                        int batchSize = Math.min(availableSlots, configManager.getTransferBatchSize());
-                        
-                        // 传送玩家
-                        for (int i = 0; i < batchSize; i++) {
-                            UUID nextPlayer = queueManager.getNextPlayer();
-                            if (nextPlayer != null) {
-                                transferPlayer(nextPlayer);
-                            } else {
-                                break;
-                            }
-                        }
+            if (!queueManager.hasPlayersInQueue()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            
+            // 查询目标服务器状态
+            return proxyHttpClient.getServerStatus().thenCompose(serverStatus -> {
+                if (rateController != null) {
+                    rateController.onServerStatus(serverStatus != null && serverStatus.isOnline(),
+                            serverStatus != null ? serverStatus.getTps() : 0, System.currentTimeMillis());
+                }
+                
+                if (serverStatus == null || !serverStatus.isOnline() || !serverStatus.hasAvailableSlots()) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                
+                if (slotLeaseManager == null) {
+                    // 按目标服务器空位一次性取出整批在线玩家并传送
+                    transferPlayers(queueDispatcher.dispatch(serverStatus.getAvailableSlots(), this::isOnline,
+                            System.currentTimeMillis()), null);
+                    return CompletableFuture.completedFuture(null);
+                }
+                
+                // 先租下空位，只按租到的数量出队，未用上的位置立即归还
+                return reserveSlots(serverStatus.getAvailableSlots()).thenAccept(lease -> {
+                    if (lease == null) {
+                        return;
                     }
+                    List<QueueManager.QueueEntry> batch = queueDispatcher.dispatch(lease.getGranted(), this::isOnline,
+                            System.currentTimeMillis());
+                    releaseSlots(lease, lease.getGranted() - batch.size());
+                    transferPlayers(batch, lease);
                 });
-            }
+            });
         } catch (Exception e) {
             getLogger().log(Level.WARNING, "处理队列时发生错误", e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+    
+    /**
+     * 租下本轮要使用的空位，没有可用空位或代理拒绝时返回 null
+     * 代理支持租约时由代理批准，否则按状态快照在本地发放
+     */
+    private CompletableFuture<SlotLeaseManager.Lease> reserveSlots(int snapshotSlots) {
+        long now = System.currentTimeMillis();
+        int requested = queueDispatcher.plan(slotLeaseManager.getAvailableSlots(snapshotSlots, now), now);
+        if (requested <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        if (!proxyHttpClient.isSlotLeaseSupported()) {
+            return CompletableFuture.completedFuture(slotLeaseManager.acquireLocal(requested, snapshotSlots, now));
+        }
+        
+        return proxyHttpClient.reserveSlots(requested, slotLeaseManager.getTtlMillis()).thenApply(response -> {
+            if (response == null || !response.isSuccess()) {
+                return null;
+            }
+            return slotLeaseManager.register(response.getLeaseId(), Math.min(response.getGranted(), requested),
+                    response.getExpiresAt(), System.currentTimeMillis());
+        });
+    }
+    
+    /**
+     * 归还租约中未使用的位置
+     */
+    private void releaseSlots(SlotLeaseManager.Lease lease, int count) {
+        if (lease == null || count <= 0) {
+            return;
         }
+        int released = slotLeaseManager.release(lease, count);
+        if (released > 0 && lease.isRemote()) {
+            proxyHttpClient.releaseSlots(lease.getId(), released);
+        }
+    }
+    
+    /**
+     * 获取空位租约账本，未启用租约时为 null
+     */
+    public SlotLeaseManager getSlotLeaseManager() {
+        return slotLeaseManager;
+    }
+    
+    /**
+     * 请求尽快分发队列，未启用事件驱动分发时忽略
+     */
+    public void requestDispatch() {
+        if (dispatchTrigger != null) {
+            dispatchTrigger.signal();
+        }
+    }
+    
+    /**
+     * 获取分发触发器，未启用事件驱动分发时为 null
+     */
+    public DispatchTrigger getDispatchTrigger() {
+        return dispatchTrigger;
+    }
+    
+    /**
+     * 检查队列条目对应的玩家是否在线，在持有队列锁的 HTTP 回调线程上调用
+     */
+    private boolean isOnline(QueueManager.QueueEntry entry) {
+        return onlinePlayers.contains(entry.getPlayerId());
     }
     
     /**
-     * 传送玩家
+     * 记录玩家上线，在主线程的加入事件中调用
      */
-    private void transferPlayer(UUID playerId) {
-        Player player = getServer().getPlayer(playerId);
-        if (player == null || !player.isOnline()) {
+    public void markPlayerOnline(UUID playerId) {
+        onlinePlayers.add(playerId);
+    }
+    
+    /**
+     * 记录玩家下线，在主线程的离开事件中调用
+     */
+    public void markPlayerOffline(UUID playerId) {
+        onlinePlayers.remove(playerId);
+    }
+    
+    /**
+     * 检查玩家是否在线，任意线程可调用
+     */
+    public boolean isPlayerOnline(UUID playerId) {
+        return onlinePlayers.contains(playerId);
+    }
+    
+    /**
+     * 传送一批玩家，代理支持时合并为一次请求
+     * 传送失败的玩家占用的租约位置在整批结果返回后一次归还
+     */
+    private void transferPlayers(List<QueueManager.QueueEntry> batch, SlotLeaseManager.Lease lease) {
+        if (batch.isEmpty()) {
             return;
         }
         
+        // 出队时已确认玩家在线，掉线的由传送失败或离线巡检处理
+        Map<UUID, String> players = new LinkedHashMap<>();
+        for (QueueManager.QueueEntry entry : batch) {
+            players.put(entry.getPlayerId(), entry.getPlayerName());
+        }
+        
         // 通过HTTP请求传送玩家
-        proxyHttpClient.transferPlayer(playerId, player.getName()).thenAccept(success -> {
-            if (success) {
-                // 在主线程执行玩家操作
-                new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        if (player.isOnline()) {
-                            player.sendMessage("§a§l传送成功！");
-                            player.sendMessage("§e正在连接到游戏服务器...");
-                            
-                            // 记录传送日志
-                            getLogger().info("玩家 " + player.getName() + " 已通过队列传送到游戏服务器");
-                        }
-                    }
-                }.runTask(QueueForgePlugin.this);
-            } else {
-                getLogger().warning("传送玩家失败: " + player.getName());
-                player.sendMessage("§c传送失败，请重试或联系管理员");
+        String leaseId = lease != null ? lease.getId() : null;
+        proxyHttpClient.transferPlayers(players, leaseId).thenAccept(results -> {
+            int failed = 0;
+            for (Map.Entry<UUID, Boolean> result : results.entrySet()) {
+                onTransferCompleted(result.getKey(), players.get(result.getKey()), result.getValue());
+                if (!result.getValue()) {
+                    failed++;
+                } else if (lease != null) {
+                    slotLeaseManager.onTransferResult(lease, true);
+                }
             }
+            releaseSlots(lease, failed);
         });
     }
     
+    /**
+     * 处理单个玩家的传送结果，在 HTTP 回调线程上执行
+     */
+    private void onTransferCompleted(UUID playerId, String playerName, boolean success) {
+        if (rateController != null) {
+            rateController.onTransferResult(success, System.currentTimeMillis());
+        }
+        
+        // 失败时玩家回到原排队位置，并由队列通知玩家
+        queueManager.onTransferResult(playerId, success);
+        
+        // 没有到达事件推送时，以代理对传送请求的成功应答作为到达确认
+        if (success && !proxyHttpClient.isEventStreamConnected()) {
+            queueManager.confirmTransfer(playerId);
+        }
+        
+        if (success) {
+            // 消息交给主线程工作队列发送
+            mainThread.sendMessage(playerId, "§a§l传送成功！", "§e正在连接到游戏服务器...");
+            getLogger().info("玩家 " + playerName + " 已通过队列传送到游戏服务器");
+        } else {
+            getLogger().warning("传送玩家失败: " + playerName);
+        }
+    }
+    
     /**
      * 发送心跳
      */
@@ -435,11 +719,6 @@ public class QueueForgePlugin extends JavaPlugin {
                 vipManager.cleanup();
             }
             
-            // 清理队列中的离线玩家
-            if (queueManager != null) {
-                queueManager.removeOfflinePlayers();
-            }
-            
             // 清理数据库连接
             if (databaseManager != null) {
                 databaseManager.cleanup();
@@ -454,14 +733,31 @@ public class QueueForgePlugin extends JavaPlugin {
      * 取消所有任务
      */
     private void cancelTasks() {
-        if (queueProcessTask != null && !queueProcessTask.isCancelled()) {
-            queueProcessTask.cancel();
+        if (queueProcessTask != null) {
+            queueProcessTask.cancel(false);
+        }
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+        }
+        if (cleanupTask != null) {
+            cleanupTask.cancel(false);
+        }
+        if (checkpointTask != null) {
+            checkpointTask.cancel(false);
+        }
+        if (timerTask != null) {
+            timerTask.cancel(false);
         }
-        if (heartbeatTask != null && !heartbeatTask.isCancelled()) {
-            heartbeatTask.cancel();
+        if (reconcileTask != null) {
+            reconcileTask.cancel(false);
         }
-        if (cleanupTask != null && !cleanupTask.isCancelled()) {
-            cleanupTask.cancel();
+        if (dispatchTrigger != null) {
+            proxyHttpClient.stopSlotWatch();
+            dispatchTrigger.stop();
+            dispatchTrigger = null;
+        }
+        if (offlineSweepTask != null && !offlineSweepTask.isCancelled()) {
+            offlineSweepTask.cancel();
         }
         
         // 取消所有插件相关任务
@@ -473,6 +769,20 @@ public class QueueForgePlugin extends JavaPlugin {
         return instance;
     }
     
+    /**
+     * 获取主线程工作队列
+     */
+    public MainThreadExecutor getMainThread() {
+        return mainThread;
+    }
+    
+    /**
+     * 获取插件线程运行时
+     */
+    public PluginExecutors getExecutors() {
+        return executors;
+    }
+    
     public ConfigManager getConfigManager() {
         return configManager;
     }
@@ -485,6 +795,20 @@ public class QueueForgePlugin extends JavaPlugin {
         return queueManager;
     }
     
+    /**
+     * 获取传送速率控制器，未启用时为 null
+     */
+    public TransferRateController getTransferRateController() {
+        return rateController;
+    }
+    
+    /**
+     * 获取队列核对器，未启用时为 null
+     */
+    public QueueReconciler getQueueReconciler() {
+        return queueReconciler;
+    }
+    
     public VIPManager getVipManager() {
         return vipManager;
     }
@@ -1,7 +1,19 @@
 package com.github.queueserver.forge.commands;
 
 import com.github.queueserver.forge.QueueForgePlugin;
+import com.github.queueserver.forge.concurrent.MainThreadExecutor;
+import com.github.queueserver.forge.concurrent.PluginExecutors;
+import com.github.queueserver.forge.dispatch.DispatchTrigger;
+import com.github.queueserver.forge.dispatch.SlotLeaseManager;
+import com.github.queueserver.forge.dispatch.TransferRateController;
+import com.github.queueserver.forge.http.EndpointGuard;
+import com.github.queueserver.forge.http.ProxyEventStream;
+import com.github.queueserver.forge.http.ProxyHttpClient;
+import com.github.queueserver.forge.http.QueueOutbox;
+import com.github.queueserver.forge.http.ResponseCache;
 import com.github.queueserver.forge.queue.QueueManager;
+import com.github.queueserver.forge.queue.QueueReconciler;
+import com.github.queueserver.forge.queue.WaitTimeEstimator;
 import com.github.queueserver.forge.vip.VIPManager;
 import com.github.queueserver.forge.monitor.ServerMonitor;
 
@@ -71,6 +83,7 @@ public class QueueCommands implements CommandExecutor, TabCompleter {
             player.sendMessage("§7您当前在队列中");
             player.sendMessage("§a位置: §f" + position);
             player.sendMessage("§a类型: §f" + (isVip ? "VIP" : "普通"));
+            player.sendMessage("§a预计等待: §f" + formatEstimate(plugin.getQueueManager().estimateWaitTime(playerId)));
             player.sendMessage("§7使用 /leave 离开队列");
             return true;
         }
@@ -117,6 +130,14 @@ public class QueueCommands implements CommandExecutor, TabCompleter {
             sender.sendMessage("§7上次处理: §f" + (timeSince / 1000) + "秒前");
         }
         
+        // 出队速率和预计等待
+        sender.sendMessage("§7出队速率: §fVIP " + String.format("%.1f", plugin.getQueueManager().getDequeueRate(true))
+                + " / 普通 " + String.format("%.1f", plugin.getQueueManager().getDequeueRate(false)) + " 人/分钟");
+        if (sender instanceof Player && plugin.getQueueManager().isPlayerInQueue(((Player) sender).getUniqueId())) {
+            WaitTimeEstimator.Estimate estimate = plugin.getQueueManager().estimateWaitTime(((Player) sender).getUniqueId());
+            sender.sendMessage("§7您的预计等待: §f" + formatEstimate(estimate));
+        }
+        
         // 服务器状态
         ServerMonitor.ServerStatus serverStatus = plugin.getServerMonitor().getServerStatus();
         sender.sendMessage("§7服务器TPS: §f" + String.format("%.1f", serverStatus.getTps()));
@@ -233,6 +254,107 @@ public class QueueCommands implements CommandExecutor, TabCompleter {
         sender.sendMessage("  §7VIP: §f" + queueStats.getVipSize());
         sender.sendMessage("  §7普通: §f" + queueStats.getRegularSize());
         sender.sendMessage("  §7今日处理: §f" + queueStats.getProcessedToday());
+        sender.sendMessage("  §7调度策略: §f" + plugin.getQueueManager().getSchedulerName());
+        
+        QueueManager.TransferStats transfers = plugin.getQueueManager().getTransferStats();
+        sender.sendMessage("§e传送确认:");
+        sender.sendMessage("  §7传送中: §f" + transfers.getInFlight());
+        sender.sendMessage("  §7已到达/已恢复排队/已放弃: §f" + transfers.getConfirmed() + "/"
+                + transfers.getRequeued() + "/" + transfers.getAbandoned());
+        sender.sendMessage("  §7到达延迟 p50/p90/p99: §f" + formatLatency(transfers.getP50LatencyMillis()) + "/"
+                + formatLatency(transfers.getP90LatencyMillis()) + "/" + formatLatency(transfers.getP99LatencyMillis()));
+        
+        TransferRateController rateController = plugin.getTransferRateController();
+        if (rateController != null) {
+            TransferRateController.ControllerState rate = rateController.getState();
+            sender.sendMessage("§e传送速率控制:");
+            sender.sendMessage("  §7阶段: §f" + rate.getPhase().getDescription());
+            sender.sendMessage("  §7每" + rateController.getPeriodMillis() / 1000 + "秒人数: §f" + String.format("%.1f", rate.getWindow())
+                    + " §7(慢启动阈值 " + String.format("%.1f", rate.getSlowStartThreshold()) + ")");
+            sender.sendMessage("  §7目标TPS: §f" + (rate.getLastTps() > 0 ? String.format("%.1f", rate.getLastTps()) : "未知"));
+            sender.sendMessage("  §7传送成功/失败: §f" + rate.getSuccessCount() + "/" + rate.getFailureCount()
+                    + " §7(减速 " + rate.getDecreaseCount() + " 次)");
+        }
+        
+        SlotLeaseManager slotLeaseManager = plugin.getSlotLeaseManager();
+        if (slotLeaseManager != null) {
+            SlotLeaseManager.LeaseStats leases = slotLeaseManager.getStats(System.currentTimeMillis());
+            sender.sendMessage("§e空位租约:");
+            sender.sendMessage("  §7模式: §f" + (plugin.getProxyHttpClient().isSlotLeaseSupported() ? "代理租约" : "本地账本"));
+            sender.sendMessage("  §7有效租约/未用位置/本地占位: §f" + leases.getActiveLeases() + "/"
+                    + leases.getOutstandingSlots() + "/" + leases.getLocalHeldSlots());
+            sender.sendMessage("  §7租到/已用/归还: §f" + leases.getSlotsGranted() + "/" + leases.getSlotsUsed() + "/"
+                    + leases.getSlotsReleased() + " §7(到期作废 " + leases.getLeasesExpired() + ")");
+        }
+        
+        DispatchTrigger dispatchTrigger = plugin.getDispatchTrigger();
+        if (dispatchTrigger != null) {
+            DispatchTrigger.TriggerStats dispatch = dispatchTrigger.getStats();
+            sender.sendMessage("§e事件驱动分发:");
+            sender.sendMessage("  §7空位信号/分发次数: §f" + dispatch.getSignalCount() + "/" + dispatch.getDispatchCount());
+            sender.sendMessage("  §7信号响应延迟中位数: §f"
+                    + (dispatch.getMedianLatencyMillis() >= 0 ? dispatch.getMedianLatencyMillis() + "ms" : "无数据"));
+        }
+        
+        ProxyHttpClient proxyClient = plugin.getProxyHttpClient();
+        sender.sendMessage("§e代理连接: §f" + (proxyClient.getNegotiatedProtocol() != null ? proxyClient.getNegotiatedProtocol() : "未连接")
+                + " §7(连接数 " + proxyClient.getConnectionCount() + ", 消息格式 " + proxyClient.getWireFormat() + ")");
+        
+        ProxyEventStream.StreamStats push = proxyClient.getEventStreamStats();
+        if (push != null) {
+            sender.sendMessage("§e代理事件推送: " + (push.isConnected() ? "§a已连接" : "§c重连中"));
+            sender.sendMessage("  §7事件: §f" + push.getEvents() + " §7(序号 " + push.getLastSequence()
+                    + ", 重复 " + push.getDuplicates() + ", 重新同步 " + push.getResyncs() + ")");
+            sender.sendMessage("  §7连接: §f" + push.getConnects() + " §7次, 免请求的状态查询 §f"
+                    + proxyClient.getPushedStatusReads() + " §7次");
+        }
+        
+        ResponseCache.CacheStats cache = proxyClient.getCacheStats();
+        sender.sendMessage("§e代理查询缓存:");
+        sender.sendMessage("  §7命中/合并/请求: §f" + cache.getHits() + "/" + cache.getCoalesced() + "/" + cache.getFetches()
+                + " §7(节省 " + String.format("%.1f%%", cache.getSavedRate() * 100) + ")");
+        sender.sendMessage("  §7304 重新验证: §f" + cache.getNotModified() + " §7条目 " + cache.getEntries()
+                + ", 进行中 " + cache.getInFlight());
+        
+        QueueOutbox.OutboxStats outbox = proxyClient.getOutboxStats();
+        if (outbox != null) {
+            sender.sendMessage("§e队列变动发件箱:");
+            sender.sendMessage("  §7变动/抵消/已发送: §f" + outbox.getChangesReceived() + "/" + outbox.getChangesCancelled()
+                    + "/" + outbox.getChangesSent() + " §7(待发送 " + outbox.getPendingPlayers() + " 人)");
+            sender.sendMessage("  §7批次: §f" + outbox.getBatchesSent() + " §7(失败重试 " + outbox.getFailedBatches()
+                    + ", 每批平均 " + String.format("%.1f", outbox.getReductionFactor()) + " 条变动)");
+        }
+        
+        QueueReconciler reconciler = plugin.getQueueReconciler();
+        if (reconciler != null) {
+            QueueReconciler.ReconcileStats reconcile = reconciler.getStats();
+            sender.sendMessage("§e队列核对: " + (proxyClient.isQueueDigestSupported() ? "§a已启用" : "§7代理不支持"));
+            sender.sendMessage("  §7轮次/一致/跳过: §f" + reconcile.getRounds() + "/" + reconcile.getMatched()
+                    + "/" + reconcile.getSkipped() + " §7(拉取 " + reconcile.getBucketsFetched() + " 个桶)");
+            sender.sendMessage("  §7修复: §f补发入队 " + reconcile.getPlayersAdded() + " §7人, §f离队 "
+                    + reconcile.getPlayersRemoved() + " §7人");
+        }
+        
+        sender.sendMessage("§e代理端点:");
+        proxyClient.getEndpointStats().forEach((path, endpoint) -> sender.sendMessage("  §7" + path + ": "
+                + (endpoint.getState() == EndpointGuard.State.CLOSED ? "§a" : "§c") + endpoint.getState().getDescription()
+                + " §7超时 §f" + endpoint.getTimeoutMillis() + "ms §7p99 §f" + formatLatency(endpoint.getP99Millis())
+                + " §7(请求 " + endpoint.getRequests() + ", 拒绝 " + endpoint.getRejected()
+                + ", 对冲 " + endpoint.getHedges() + ", 熔断 " + endpoint.getTrips() + " 次)"));
+        
+        PluginExecutors executors = plugin.getExecutors();
+        sender.sendMessage("§e线程运行时: §f" + (executors.isVirtual() ? "虚拟线程" : "平台线程"));
+        executors.getStats().forEach((lane, laneStats) -> sender.sendMessage("  §7" + lane.getLaneName()
+                + ": §f活跃 " + laneStats.getActive() + "/" + laneStats.getConcurrency()
+                + " §7排队 §f" + laneStats.getQueueDepth() + " §7(峰值 " + laneStats.getMaxQueueDepth()
+                + ", 完成 " + laneStats.getCompleted() + ", 溢出 " + laneStats.getOverflow() + ")"));
+        
+        MainThreadExecutor.MainThreadStats mainThread = plugin.getMainThread().getStats();
+        sender.sendMessage("§e主线程工作队列:");
+        sender.sendMessage("  §7排队: §f" + mainThread.getQueueDepth() + " §7(峰值 " + mainThread.getMaxQueueDepth()
+                + ", 完成 " + mainThread.getExecuted() + ", 超出预算 " + mainThread.getOverBudgetTicks() + " 次)");
+        sender.sendMessage("  §7消息: §f" + mainThread.getMessagesSent() + " §7条 (合并 " + mainThread.getMessagesCoalesced()
+                + " 次), 上一 tick 耗时 " + mainThread.getLastTickMicros() + "μs");
         
         sender.sendMessage("§eVIP缓存:");
         sender.sendMessage("  §7缓存大小: §f" + vipStats.getSize());
@@ -266,6 +388,45 @@ public class QueueCommands implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    /**
+     * 格式化预计等待时间
+     */
+    private String formatEstimate(WaitTimeEstimator.Estimate estimate) {
+        if (estimate == null) {
+            return "正在估算...";
+        }
+        
+        String text = "约 " + formatDuration(estimate.getExpectedMillis());
+        if (estimate.getUpperMillis() > 0) {
+            text += " §7(" + formatDuration(estimate.getLowerMillis()) + " ~ " + formatDuration(estimate.getUpperMillis()) + ")";
+        }
+        if (!estimate.isReliable()) {
+            text += " §7[数据较少]";
+        }
+        return text;
+    }
+    
+    /**
+     * 格式化时长
+     */
+    private String formatDuration(long millis) {
+        long seconds = Math.max(0, millis / 1000);
+        if (seconds < 60) {
+            return seconds + "秒";
+        }
+        if (seconds < 3600) {
+            return (seconds / 60) + "分" + (seconds % 60) + "秒";
+        }
+        return (seconds / 3600) + "小时" + (seconds % 3600 / 60) + "分";
+    }
+    
+    /**
+     * 格式化延迟，无数据时显示横线
+     */
+    private String formatLatency(long millis) {
+        return millis >= 0 ? millis + "ms" : "-";
+    }
+    
     /**
      * 发送管理员帮助信息
      */
@@ -0,0 +1,236 @@
+package com.github.queueserver.forge.concurrent;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 主线程工作队列
+ * 异步线程中需要调用 Bukkit API 的工作（发消息等）统一提交到这里，
+ * 每 tick 由一个常驻任务在时间预算内执行，超出预算的顺延到下一 tick，
+ * 一批传送不会变成一批调度器任务
+ *
+ * 同一玩家在执行前收到的多条消息合并为一次发送
+ */
+public class MainThreadExecutor implements Executor {
+
+    private final Plugin plugin;
+    private final Logger logger;
+    private final long budgetNanos;
+
+    // 在主线程上把消息交给玩家，玩家不在线时返回 false
+    private final BiPredicate<UUID, String[]> messageSink;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    // 等待发送的消息，按玩家合并
+    private final Map<UUID, List<String>> pendingMessages = new ConcurrentHashMap<>();
+
+    private BukkitTask drainTask;
+
+    // 统计信息
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong messagesCoalesced = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private volatile long overBudgetTicks = 0;
+    private volatile long lastTickNanos = 0;
+
+    /**
+     * @param budgetMillis 每 tick 最多占用主线程的时间
+     */
+    public MainThreadExecutor(Plugin plugin, double budgetMillis, Logger logger) {
+        this(plugin, budgetMillis, logger, (playerId, lines) -> {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player == null || !player.isOnline()) {
+                return false;
+            }
+            player.sendMessage(lines);
+            return true;
+        });
+    }
+
+    MainThreadExecutor(Plugin plugin, double budgetMillis, Logger logger, BiPredicate<UUID, String[]> messageSink) {
+        this.plugin = plugin;
+        this.logger = logger;
+        this.budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+        this.messageSink = messageSink;
+    }
+
+    /**
+     * 启动每 tick 执行的常驻任务
+     */
+    public void start() {
+        drainTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                drain(budgetNanos);
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    /**
+     * 停止常驻任务并在当前线程执行剩余的工作，只能在主线程调用
+     */
+    public void stop() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        drain(Long.MAX_VALUE);
+    }
+
+    /**
+     * 提交在主线程执行的工作，任意线程可调用
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * 向玩家发送消息，任意线程可调用
+     * 发送前同一玩家的后续消息会并入同一次发送
+     */
+    public void sendMessage(UUID playerId, String... lines) {
+        boolean[] first = {false};
+        pendingMessages.compute(playerId, (id, pending) -> {
+            if (pending == null) {
+                pending = new ArrayList<>();
+                first[0] = true;
+            } else {
+                messagesCoalesced.incrementAndGet();
+            }
+            for (String line : lines) {
+                pending.add(line);
+            }
+            return pending;
+        });
+
+        if (first[0]) {
+            execute(() -> flushMessages(playerId));
+        }
+    }
+
+    private void flushMessages(UUID playerId) {
+        List<String> lines = pendingMessages.remove(playerId);
+        if (lines == null) {
+            return;
+        }
+
+        if (messageSink.test(playerId, lines.toArray(new String[0]))) {
+            messagesSent.addAndGet(lines.size());
+        }
+    }
+
+    /**
+     * 在预算内执行排队的工作
+     */
+    void drain(long budget) {
+        long start = System.nanoTime();
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            depth.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "主线程任务执行失败", e);
+            }
+            executed.incrementAndGet();
+
+            if (System.nanoTime() - start >= budget) {
+                if (!tasks.isEmpty()) {
+                    overBudgetTicks++;
+                }
+                break;
+            }
+        }
+        lastTickNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * 获取主线程队列统计
+     */
+    public MainThreadStats getStats() {
+        return new MainThreadStats(depth.get(), maxDepth.get(), executed.get(), messagesSent.get(),
+                messagesCoalesced.get(), overBudgetTicks, lastTickNanos / 1000);
+    }
+
+    /**
+     * 主线程队列统计信息
+     */
+    public static class MainThreadStats {
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final long executed;
+        private final long messagesSent;
+        private final long messagesCoalesced;
+        private final long overBudgetTicks;
+        private final long lastTickMicros;
+
+        public MainThreadStats(int queueDepth, int maxQueueDepth, long executed, long messagesSent,
+                               long messagesCoalesced, long overBudgetTicks, long lastTickMicros) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.executed = executed;
+            this.messagesSent = messagesSent;
+            this.messagesCoalesced = messagesCoalesced;
+            this.overBudgetTicks = overBudgetTicks;
+            this.lastTickMicros = lastTickMicros;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public long getExecuted() {
+            return executed;
+        }
+
+        public long getMessagesSent() {
+            return messagesSent;
+        }
+
+        /**
+         * 并入已有待发送消息的次数
+         */
+        public long getMessagesCoalesced() {
+            return messagesCoalesced;
+        }
+
+        /**
+         * 用完预算仍有剩余工作、顺延到下一 tick 的次数
+         */
+        public long getOverBudgetTicks() {
+            return overBudgetTicks;
+        }
+
+        /**
+         * 最近一次 tick 的执行耗时（微秒）
+         */
+        public long getLastTickMicros() {
+            return lastTickMicros;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.github.queueserver.forge.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 插件线程运行时
+ * 插件的所有异步工作按用途分到命名的执行通道，每个通道限制并发数并统计排队深度，
+ * 不再占用 Bukkit 异步线程池和公共 ForkJoinPool；定时任务由一个共享计时线程触发后交给对应通道执行
+ *
+ * Java 21 及以上的通道使用虚拟线程，阻塞的 HTTP 和数据库调用不占用平台线程；
+ * Java 17 上使用有界的平台线程池
+ */
+public class PluginExecutors {
+
+    /**
+     * 执行通道
+     * 串行通道固定一个线程，任务依次执行；http 通道是 OkHttp 的调度线程池，
+     * 每个进行中的请求占用一个线程，默认与请求并发上限一致；
+     * stream 通道承载长轮询和事件推送这类长时间占用线程的连接
+     */
+    public enum Lane {
+        DISPATCH("dispatch", 1, 1, true),
+        HTTP("http", 64, 64, false),
+        STREAM("stream", 4, 4, false),
+        DB("db", 2, 8, false),
+        MONITOR("monitor", 1, 1, true);
+
+        private final String laneName;
+        private final int platformThreads;
+        private final int virtualThreads;
+        private final boolean serial;
+
+        Lane(String laneName, int platformThreads, int virtualThreads, boolean serial) {
+            this.laneName = laneName;
+            this.platformThreads = platformThreads;
+            this.virtualThreads = virtualThreads;
+            this.serial = serial;
+        }
+
+        public String getLaneName() {
+            return laneName;
+        }
+
+        /**
+         * 是否为串行通道
+         */
+        public boolean isSerial() {
+            return serial;
+        }
+    }
+
+    private final Logger logger;
+    private final boolean virtual;
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * @param preferVirtual 运行时支持时使用虚拟线程
+     * @param queueCapacity 每个通道的排队上限，排满后串行通道丢弃新任务，其他通道由提交线程直接执行
+     * @param concurrency 各通道的并发数，未指定的通道使用默认值，串行通道忽略此设置
+     */
+    public PluginExecutors(boolean preferVirtual, int queueCapacity, Map<Lane, Integer> concurrency, Logger logger) {
+        this.logger = logger;
+
+        boolean useVirtual = false;
+        for (Lane lane : Lane.values()) {
+            ThreadFactory factory = preferVirtual ? virtualThreadFactory("QueueForge-" + lane.laneName + "-") : null;
+            useVirtual = factory != null;
+            if (factory == null) {
+                factory = platformThreadFactory("QueueForge-" + lane.laneName + "-");
+            }
+
+            int defaultThreads = useVirtual ? lane.virtualThreads : lane.platformThreads;
+            int threads = lane.serial ? 1 : Math.max(1, concurrency.getOrDefault(lane, defaultThreads));
+            lanes.put(lane, new LaneExecutor(lane, threads, Math.max(16, queueCapacity), factory));
+        }
+        this.virtual = useVirtual;
+
+        this.timer = new ScheduledThreadPoolExecutor(1, platformThreadFactory("QueueForge-Timer-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+        logger.info("插件线程运行时已启动 (" + (virtual ? "虚拟线程" : "平台线程") + ")");
+    }
+
+    /**
+     * 通过反射创建虚拟线程工厂，运行在 Java 21 以下时返回 null
+     */
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * 是否使用虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * 获取通道执行器
+     */
+    public ExecutorService lane(Lane lane) {
+        return lanes.get(lane);
+    }
+
+    /**
+     * 延迟后在指定通道执行任务
+     */
+    public ScheduledFuture<?> schedule(Lane lane, Runnable task, long delay, TimeUnit unit) {
+        Executor executor = lanes.get(lane);
+        return timer.schedule(() -> executor.execute(task), delay, unit);
+    }
+
+    /**
+     * 以固定间隔在指定通道执行任务
+     * 上一次执行尚未结束时跳过本次，慢任务不会在通道中堆积
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Lane lane, Runnable task, long initialDelay, long period, TimeUnit unit) {
+        Executor executor = lanes.get(lane);
+        AtomicBoolean running = new AtomicBoolean(false);
+        return timer.scheduleAtFixedRate(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "定时任务执行失败 (" + lane.laneName + ")", e);
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+            }
+        }, initialDelay, period, unit);
+    }
+
+    /**
+     * 获取计时线程，供需要自行调度的组件使用
+     */
+    public ScheduledExecutorService getTimer() {
+        return timer;
+    }
+
+    /**
+     * 获取各通道统计
+     */
+    public Map<Lane, LaneStats> getStats() {
+        Map<Lane, LaneStats> stats = new EnumMap<>(Lane.class);
+        lanes.forEach((lane, executor) -> stats.put(lane, executor.getStats()));
+        return stats;
+    }
+
+    /**
+     * 关闭运行时，等待已提交的任务在超时前完成
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        timer.shutdownNow();
+        lanes.values().forEach(ThreadPoolExecutor::shutdown);
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (LaneExecutor executor : lanes.values()) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    int dropped = executor.shutdownNow().size();
+                    logger.warning("执行通道 " + executor.lane.laneName + " 未能按时结束，丢弃 " + dropped + " 个任务");
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("插件线程运行时已关闭");
+    }
+
+    /**
+     * 通道执行器，记录排队深度峰值和溢出次数
+     * 排满时串行通道拒绝新任务：在提交线程上执行会与通道线程上的任务并发，
+     * 还会阻塞所有定时任务共用的计时线程；被拒绝的分发和监控由下一次信号或定时触发补上
+     * 其他通道由提交线程执行，形成背压而不是丢弃任务
+     */
+    private final class LaneExecutor extends ThreadPoolExecutor {
+        private final Lane lane;
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final AtomicLong overflowCount = new AtomicLong();
+
+        LaneExecutor(Lane lane, int threads, int queueCapacity, ThreadFactory factory) {
+            super(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueCapacity), factory);
+            this.lane = lane;
+            allowCoreThreadTimeOut(true);
+
+            setRejectedExecutionHandler((task, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("执行通道已关闭: " + lane.laneName);
+                }
+                overflowCount.incrementAndGet();
+                if (lane.serial) {
+                    throw new RejectedExecutionException("执行通道已满: " + lane.laneName);
+                }
+                task.run();
+            });
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            super.execute(command);
+            int depth = getQueue().size();
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        LaneStats getStats() {
+            return new LaneStats(getMaximumPoolSize(), getActiveCount(), getQueue().size(), maxDepth.get(),
+                    getCompletedTaskCount(), overflowCount.get());
+        }
+    }
+
+    /**
+     * 通道统计信息
+     */
+    public static class LaneStats {
+        private final int concurrency;
+        private final int active;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final long completed;
+        private final long overflow;
+
+        public LaneStats(int concurrency, int active, int queueDepth, int maxQueueDepth, long completed, long overflow) {
+            this.concurrency = concurrency;
+            this.active = active;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.completed = completed;
+            this.overflow = overflow;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * 排队已满的次数，串行通道丢弃了任务，其他通道由提交线程直接执行
+         */
+        public long getOverflow() {
+            return overflow;
+        }
+    }
+}
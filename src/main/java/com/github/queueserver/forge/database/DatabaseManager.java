@@ -1,12 +1,14 @@
 package com.github.queueserver.forge.database;
 
 import com.github.queueserver.forge.QueueForgePlugin;
+import com.github.queueserver.forge.concurrent.PluginExecutors;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import java.sql.*;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,9 +22,13 @@ public class DatabaseManager {
     private final Logger logger;
     private HikariDataSource dataSource;
     
+    // 数据库写入在插件的 db 通道上执行，并发数与连接池一致
+    private final Executor executor;
+    
     public DatabaseManager(QueueForgePlugin plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
+        this.executor = plugin.getExecutors().lane(PluginExecutors.Lane.DB);
     }
     
     /**
@@ -179,7 +185,7 @@ public class DatabaseManager {
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "记录玩家加入队列失败", e);
             }
-        });
+        }, executor);
     }
     
     /**
@@ -203,7 +209,7 @@ public class DatabaseManager {
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "记录玩家离开队列失败", e);
             }
-        });
+        }, executor);
     }
     
     /**
@@ -227,7 +233,7 @@ public class DatabaseManager {
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "记录玩家传送失败", e);
             }
-        });
+        }, executor);
     }
     
     /**
@@ -264,7 +270,7 @@ public class DatabaseManager {
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "更新VIP记录失败", e);
             }
-        });
+        }, executor);
     }
     
     /**
@@ -304,7 +310,7 @@ public class DatabaseManager {
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "记录队列统计失败", e);
             }
-        });
+        }, executor);
     }
     
     /**
@@ -329,7 +335,7 @@ public class DatabaseManager {
             } catch (SQLException e) {
                 logger.log(Level.WARNING, "清理数据库失败", e);
             }
-        });
+        }, executor);
     }
     
     /**
@@ -0,0 +1,265 @@
+package com.github.queueserver.forge.dispatch;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 事件驱动的分发触发器
+ * 空位信号（长轮询、心跳、新玩家入队）到达时立即唤醒分发；
+ * 两次分发至少间隔一个防抖窗口，窗口内的多个信号合并为一次；
+ * 超过兜底间隔没有分发时按间隔轮询一次，信号丢失也不会停摆
+ *
+ * 一轮分发从动作开始执行到它返回的 future 完成为止，期间的信号留到本轮结束后再触发下一轮，
+ * 因此同一时刻最多只有一轮分发；超过兜底间隔仍未完成的一轮视为丢失，不再等待
+ */
+public class DispatchTrigger {
+
+    // 记录最近多少次信号到分发的延迟
+    private static final int LATENCY_SAMPLES = 256;
+
+    private final Logger logger;
+    private final Supplier<CompletableFuture<?>> dispatchAction;
+    private final long debounceMillis;
+    private final long fallbackMillis;
+    private final ScheduledExecutorService timer;
+    private final Executor executor;
+    private volatile ScheduledFuture<?> fallbackTask;
+    private volatile boolean stopped = false;
+
+    // 以下字段在 lock 内读写
+    private final Object lock = new Object();
+    // 尚未处理的最早信号时间，0 表示没有待处理的信号
+    private long pendingSince = 0;
+    // 已安排下一轮，尚未开始执行
+    private boolean scheduled = false;
+    // 当前一轮的编号，0 表示没有进行中的一轮
+    private long runningRound = 0;
+    private long roundCount = 0;
+    private long lastDispatchTime = 0;
+
+    // 延迟样本读取时加锁
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount = 0;
+
+    private final AtomicLong signalCount = new AtomicLong(0);
+    private final AtomicLong dispatchCount = new AtomicLong(0);
+
+    /**
+     * @param dispatchAction 分发动作，在 executor 上执行，返回的 future 完成时本轮结束
+     * @param debounceMillis 两次分发的最小间隔
+     * @param fallbackMillis 无信号时的兜底轮询间隔
+     * @param timer 计时器，只用于到点后提交分发
+     * @param executor 分发动作的执行器
+     */
+    public DispatchTrigger(Supplier<CompletableFuture<?>> dispatchAction, long debounceMillis, long fallbackMillis,
+                           ScheduledExecutorService timer, Executor executor, Logger logger) {
+        this.logger = logger;
+        this.dispatchAction = dispatchAction;
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.fallbackMillis = Math.max(1000, fallbackMillis);
+        this.timer = timer;
+        this.executor = executor;
+    }
+
+    /**
+     * 启动兜底轮询
+     */
+    public void start() {
+        long checkInterval = Math.max(100, fallbackMillis / 4);
+        fallbackTask = timer.scheduleWithFixedDelay(this::checkFallback, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void checkFallback() {
+        synchronized (lock) {
+            if (scheduled || System.currentTimeMillis() - lastDispatchTime < fallbackMillis) {
+                return;
+            }
+            if (runningRound != 0) {
+                logger.warning("上一轮分发超过 " + fallbackMillis + "ms 未完成，不再等待");
+                runningRound = 0;
+            }
+            scheduled = true;
+        }
+        submitDispatch();
+    }
+
+    /**
+     * 发出空位信号，任意线程可调用
+     */
+    public void signal() {
+        signalCount.incrementAndGet();
+        long now = System.currentTimeMillis();
+
+        long delay;
+        synchronized (lock) {
+            if (pendingSince == 0) {
+                pendingSince = now;
+            }
+            // 已安排或正在进行的一轮结束后会处理此信号
+            if (scheduled || runningRound != 0) {
+                return;
+            }
+            scheduled = true;
+            delay = Math.max(0, lastDispatchTime + debounceMillis - now);
+        }
+        schedule(delay);
+    }
+
+    private void schedule(long delay) {
+        try {
+            if (delay == 0) {
+                submitDispatch();
+            } else {
+                timer.schedule(this::submitDispatch, delay, TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException e) {
+            // 触发器已停止
+            cancelScheduled();
+        }
+    }
+
+    private void submitDispatch() {
+        if (stopped) {
+            cancelScheduled();
+            return;
+        }
+        try {
+            executor.execute(this::runDispatch);
+        } catch (RuntimeException e) {
+            cancelScheduled();
+        }
+    }
+
+    /**
+     * 安排的一轮没能提交，丢弃待处理的信号，由下一个信号或兜底轮询重试
+     */
+    private void cancelScheduled() {
+        synchronized (lock) {
+            scheduled = false;
+            pendingSince = 0;
+        }
+    }
+
+    private void runDispatch() {
+        long now = System.currentTimeMillis();
+        long signalTime;
+        long round;
+        synchronized (lock) {
+            // 兜底轮询没有信号，不计入信号延迟
+            signalTime = pendingSince;
+            pendingSince = 0;
+            scheduled = false;
+            round = ++roundCount;
+            runningRound = round;
+            lastDispatchTime = now;
+        }
+        if (signalTime > 0) {
+            synchronized (latencies) {
+                latencies[latencyCount++ % LATENCY_SAMPLES] = now - signalTime;
+            }
+        }
+
+        dispatchCount.incrementAndGet();
+        CompletableFuture<?> result;
+        try {
+            result = dispatchAction.get();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "分发队列时发生错误", e);
+            result = null;
+        }
+        if (result == null) {
+            finishRound(round);
+            return;
+        }
+        result.whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.log(Level.WARNING, "分发队列时发生错误", error);
+            }
+            finishRound(round);
+        });
+    }
+
+    /**
+     * 一轮分发结束，期间到达的信号触发下一轮
+     */
+    private void finishRound(long round) {
+        long delay;
+        synchronized (lock) {
+            if (runningRound != round) {
+                return;
+            }
+            runningRound = 0;
+            if (pendingSince == 0 || scheduled || stopped) {
+                return;
+            }
+            scheduled = true;
+            delay = Math.max(0, lastDispatchTime + debounceMillis - System.currentTimeMillis());
+        }
+        schedule(delay);
+    }
+
+    /**
+     * 停止触发器
+     */
+    public void stop() {
+        stopped = true;
+        ScheduledFuture<?> task = fallbackTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * 获取触发器统计
+     */
+    public TriggerStats getStats() {
+        long[] sorted;
+        synchronized (latencies) {
+            sorted = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_SAMPLES));
+        }
+        long median = -1;
+        if (sorted.length > 0) {
+            Arrays.sort(sorted);
+            median = sorted[sorted.length / 2];
+        }
+        return new TriggerStats(signalCount.get(), dispatchCount.get(), median);
+    }
+
+    /**
+     * 触发器统计信息
+     */
+    public static class TriggerStats {
+        private final long signalCount;
+        private final long dispatchCount;
+        private final long medianLatencyMillis;
+
+        public TriggerStats(long signalCount, long dispatchCount, long medianLatencyMillis) {
+            this.signalCount = signalCount;
+            this.dispatchCount = dispatchCount;
+            this.medianLatencyMillis = medianLatencyMillis;
+        }
+
+        public long getSignalCount() {
+            return signalCount;
+        }
+
+        public long getDispatchCount() {
+            return dispatchCount;
+        }
+
+        /**
+         * 最近信号到分发的延迟中位数，无数据时为 -1
+         */
+        public long getMedianLatencyMillis() {
+            return medianLatencyMillis;
+        }
+    }
+}
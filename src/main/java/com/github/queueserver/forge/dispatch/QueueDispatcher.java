@@ -0,0 +1,74 @@
+package com.github.queueserver.forge.dispatch;
+
+import com.github.queueserver.forge.queue.QueueManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 队列分发器
+ * 根据目标服务器的空位决定每轮出队的玩家，插件和模拟器共用同一套逻辑
+ */
+public class QueueDispatcher {
+    
+    private final QueueManager queueManager;
+    private final IntSupplier batchSize;
+    private final TransferRateController rateController;
+    
+    /**
+     * @param batchSize 每轮最多传送人数，每次分发时读取，重载配置后立即生效
+     */
+    public QueueDispatcher(QueueManager queueManager, IntSupplier batchSize) {
+        this.queueManager = queueManager;
+        this.batchSize = batchSize;
+        this.rateController = null;
+    }
+    
+    /**
+     * 每轮人数由速率控制器按时间发放的名额决定，分发再频繁也不超过控制器的速率
+     */
+    public QueueDispatcher(QueueManager queueManager, TransferRateController rateController) {
+        this.queueManager = queueManager;
+        this.batchSize = null;
+        this.rateController = rateController;
+    }
+    
+    /**
+     * 本轮最多传送的人数，用于先租下空位再出队
+     */
+    public int plan(int availableSlots, long now) {
+        int limit = rateController != null ? rateController.getBatchLimit(now) : batchSize.getAsInt();
+        return Math.max(0, Math.min(availableSlots, limit));
+    }
+    
+    /**
+     * 按目标服务器空位取出本轮要传送的玩家
+     */
+    public List<QueueManager.QueueEntry> dispatch(int availableSlots, Predicate<QueueManager.QueueEntry> eligible, long now) {
+        int count = rateController != null
+                ? rateController.acquire(availableSlots, now)
+                : plan(availableSlots, now);
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        List<QueueManager.QueueEntry> batch = queueManager.pollBatch(count, eligible);
+        if (rateController != null) {
+            // 在线玩家不足时名额留给下一轮
+            rateController.release(count - batch.size());
+        }
+        return batch;
+    }
+    
+    /**
+     * 检查新连接的玩家是否需要排队
+     * 预留位置只给VIP使用，普通玩家在剩余位置用完时就需要排队
+     */
+    public static boolean shouldQueue(boolean vip, int currentPlayers, int maxPlayers, int vipReservedSlots) {
+        if (vip) {
+            return currentPlayers >= maxPlayers;
+        }
+        return currentPlayers >= maxPlayers - vipReservedSlots;
+    }
+}
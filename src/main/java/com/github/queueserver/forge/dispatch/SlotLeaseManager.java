@@ -0,0 +1,269 @@
+package com.github.queueserver.forge.dispatch;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * 目标服务器空位租约账本
+ * 每轮分发先租下空位再传送，未用上的和传送失败的位置归还，租约到期自动失效
+ *
+ * 代理支持租约时由代理批准租约，代理统一扣减各队列服务器的占用；
+ * 不支持时在本地按状态快照发放租约，传送成功的位置一直占用到租约到期，
+ * 避免目标服务器状态尚未更新时重复分配同一批空位
+ *
+ * 分发回调可能在多个 HTTP 线程上重叠执行，所有方法都是同步的
+ */
+public class SlotLeaseManager {
+
+    private final Logger logger;
+    private final long ttlMillis;
+
+    // 未到期的租约
+    private final Map<String, Lease> leases = new LinkedHashMap<>();
+    private long nextLocalId = 1;
+
+    // 统计信息
+    private long leaseCount = 0;
+    private long slotsGranted = 0;
+    private long slotsUsed = 0;
+    private long slotsReleased = 0;
+    private long leasesExpired = 0;
+
+    /**
+     * @param ttlMillis 租约有效期，应覆盖一次传送及目标服务器状态更新的时间
+     */
+    public SlotLeaseManager(long ttlMillis, Logger logger) {
+        this.logger = logger;
+        this.ttlMillis = Math.max(1000, ttlMillis);
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * 扣除本地租约占用后的可用空位
+     */
+    public synchronized int getAvailableSlots(int snapshotSlots, long now) {
+        expire(now);
+        return Math.max(0, snapshotSlots - getLocalHeldSlots());
+    }
+
+    /**
+     * 在本地按状态快照发放租约，没有可用空位时返回 null
+     */
+    public synchronized Lease acquireLocal(int requested, int snapshotSlots, long now) {
+        int granted = Math.min(requested, getAvailableSlots(snapshotSlots, now));
+        if (granted <= 0) {
+            return null;
+        }
+        return add(new Lease("local-" + nextLocalId++, false, granted, now + ttlMillis));
+    }
+
+    /**
+     * 登记代理批准的租约，批准数为 0 时返回 null
+     */
+    public synchronized Lease register(String leaseId, int granted, long expiresAt, long now) {
+        expire(now);
+        if (leaseId == null || granted <= 0) {
+            return null;
+        }
+        long expiry = expiresAt > now ? expiresAt : now + ttlMillis;
+        return add(new Lease(leaseId, true, granted, expiry));
+    }
+
+    private Lease add(Lease lease) {
+        leases.put(lease.id, lease);
+        leaseCount++;
+        slotsGranted += lease.granted;
+        return lease;
+    }
+
+    /**
+     * 归还租约中尚未使用的位置，返回实际归还的数量
+     */
+    public synchronized int release(Lease lease, int count) {
+        int released = Math.min(count, lease.getUnusedSlots());
+        if (released <= 0) {
+            return 0;
+        }
+        lease.released += released;
+        slotsReleased += released;
+
+        // 本地租约全部归还后不再占位
+        if (!lease.remote && lease.released >= lease.granted) {
+            leases.remove(lease.id);
+        }
+        return released;
+    }
+
+    /**
+     * 记录租约中一次传送的结果，失败的位置立即归还
+     */
+    public synchronized void onTransferResult(Lease lease, boolean success) {
+        if (success) {
+            if (lease.getUnusedSlots() > 0) {
+                lease.used++;
+                slotsUsed++;
+            }
+        } else {
+            release(lease, 1);
+        }
+    }
+
+    /**
+     * 清除到期的租约
+     */
+    private void expire(long now) {
+        Iterator<Lease> iterator = leases.values().iterator();
+        while (iterator.hasNext()) {
+            Lease lease = iterator.next();
+            if (lease.expiresAt <= now) {
+                iterator.remove();
+                if (lease.getUnusedSlots() > 0) {
+                    leasesExpired++;
+                    logger.fine("空位租约 " + lease.id + " 到期，剩余 " + lease.getUnusedSlots() + " 个位置失效");
+                }
+            }
+        }
+    }
+
+    /**
+     * 本地租约仍占用的位置（含已传送但尚未到期的）
+     */
+    private int getLocalHeldSlots() {
+        int held = 0;
+        for (Lease lease : leases.values()) {
+            if (!lease.remote) {
+                held += lease.granted - lease.released;
+            }
+        }
+        return held;
+    }
+
+    /**
+     * 获取租约统计
+     */
+    public synchronized LeaseStats getStats(long now) {
+        expire(now);
+        int outstanding = 0;
+        for (Lease lease : leases.values()) {
+            outstanding += lease.getUnusedSlots();
+        }
+        return new LeaseStats(leases.size(), outstanding, getLocalHeldSlots(),
+                leaseCount, slotsGranted, slotsUsed, slotsReleased, leasesExpired);
+    }
+
+    /**
+     * 空位租约
+     */
+    public static class Lease {
+        private final String id;
+        private final boolean remote;
+        private final int granted;
+        private final long expiresAt;
+
+        // 由账本在同步块内修改
+        private int used = 0;
+        private int released = 0;
+
+        Lease(String id, boolean remote, int granted, long expiresAt) {
+            this.id = id;
+            this.remote = remote;
+            this.granted = granted;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * 是否由代理批准，代理批准的租约需要通知代理归还
+         */
+        public boolean isRemote() {
+            return remote;
+        }
+
+        public int getGranted() {
+            return granted;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        int getUnusedSlots() {
+            return granted - used - released;
+        }
+    }
+
+    /**
+     * 租约统计信息
+     */
+    public static class LeaseStats {
+        private final int activeLeases;
+        private final int outstandingSlots;
+        private final int localHeldSlots;
+        private final long leaseCount;
+        private final long slotsGranted;
+        private final long slotsUsed;
+        private final long slotsReleased;
+        private final long leasesExpired;
+
+        public LeaseStats(int activeLeases, int outstandingSlots, int localHeldSlots, long leaseCount,
+                          long slotsGranted, long slotsUsed, long slotsReleased, long leasesExpired) {
+            this.activeLeases = activeLeases;
+            this.outstandingSlots = outstandingSlots;
+            this.localHeldSlots = localHeldSlots;
+            this.leaseCount = leaseCount;
+            this.slotsGranted = slotsGranted;
+            this.slotsUsed = slotsUsed;
+            this.slotsReleased = slotsReleased;
+            this.leasesExpired = leasesExpired;
+        }
+
+        public int getActiveLeases() {
+            return activeLeases;
+        }
+
+        /**
+         * 已租下但尚未使用或归还的位置
+         */
+        public int getOutstandingSlots() {
+            return outstandingSlots;
+        }
+
+        /**
+         * 本地租约占用的位置，从状态快照的空位中扣除
+         */
+        public int getLocalHeldSlots() {
+            return localHeldSlots;
+        }
+
+        public long getLeaseCount() {
+            return leaseCount;
+        }
+
+        public long getSlotsGranted() {
+            return slotsGranted;
+        }
+
+        public long getSlotsUsed() {
+            return slotsUsed;
+        }
+
+        public long getSlotsReleased() {
+            return slotsReleased;
+        }
+
+        /**
+         * 到期时仍有位置未使用的租约数
+         */
+        public long getLeasesExpired() {
+            return leasesExpired;
+        }
+    }
+}
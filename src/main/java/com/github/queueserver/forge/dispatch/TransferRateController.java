@@ -0,0 +1,258 @@
+package com.github.queueserver.forge.dispatch;
+
+import java.util.logging.Logger;
+
+/**
+ * 传送速率控制器（AIMD）
+ * 以每个周期传送人数为窗口：目标服务器健康且传送成功时加性增长，
+ * TPS 下降或传送失败时乘性减小；目标服务器重启后从最小窗口慢启动
+ *
+ * 传送名额按窗口随时间匀速累积，最多攒满一个窗口，分发时领取；
+ * 事件驱动分发一个周期内可能进行多轮，实际传送速率仍不超过窗口
+ *
+ * 状态变化都在同步方法内完成，可从 HTTP 回调线程调用
+ */
+public class TransferRateController {
+
+    /**
+     * 控制阶段
+     */
+    public enum Phase {
+        SLOW_START("慢启动"),
+        AVOIDANCE("拥塞避免"),
+        PAUSED("目标离线");
+
+        private final String description;
+
+        Phase(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final Logger logger;
+    private final int minWindow;
+    private final int maxWindow;
+    private final double tpsThreshold;
+    private final double decreaseFactor;
+    private final long decreaseCooldownMillis;
+    private final long periodMillis;
+
+    private Phase phase = Phase.SLOW_START;
+    private double window;
+    private double slowStartThreshold;
+    private long lastDecreaseTime = Long.MIN_VALUE;
+    private double lastTps = -1;
+
+    // 已累积、尚未领取的传送名额
+    private double tokens;
+    private long lastRefillTime = Long.MIN_VALUE;
+
+    // 统计信息
+    private long successCount = 0;
+    private long failureCount = 0;
+    private int decreaseCount = 0;
+
+    /**
+     * @param minWindow 每个周期最少传送人数
+     * @param maxWindow 每个周期最多传送人数
+     * @param periodMillis 窗口对应的时长，名额按 窗口/周期 的速率累积
+     * @param tpsThreshold 目标服务器 TPS 低于此值时减速
+     * @param decreaseFactor 乘性减小系数，0 到 1 之间
+     * @param decreaseCooldownMillis 两次减速的最小间隔，避免同一批失败连续减速
+     */
+    public TransferRateController(int minWindow, int maxWindow, long periodMillis, double tpsThreshold,
+                                  double decreaseFactor, long decreaseCooldownMillis, Logger logger) {
+        this.logger = logger;
+        this.minWindow = Math.max(1, minWindow);
+        this.maxWindow = Math.max(this.minWindow, maxWindow);
+        this.tpsThreshold = tpsThreshold;
+        this.decreaseFactor = Math.min(0.95, Math.max(0.1, decreaseFactor));
+        this.decreaseCooldownMillis = Math.max(0, decreaseCooldownMillis);
+        this.periodMillis = Math.max(1, periodMillis);
+        this.window = this.minWindow;
+        this.slowStartThreshold = this.maxWindow;
+        this.tokens = this.minWindow;
+    }
+
+    /**
+     * 当前可领取的传送名额，用于先租下空位再出队
+     */
+    public synchronized int getBatchLimit(long now) {
+        if (phase == Phase.PAUSED) {
+            return 0;
+        }
+        refill(now);
+        return (int) tokens;
+    }
+
+    /**
+     * 领取至多 requested 个传送名额，返回实际领到的数量
+     */
+    public synchronized int acquire(int requested, long now) {
+        int granted = Math.min(Math.max(0, requested), getBatchLimit(now));
+        tokens -= granted;
+        return granted;
+    }
+
+    /**
+     * 归还领取后没有用上的名额
+     */
+    public synchronized void release(int count) {
+        if (count > 0) {
+            tokens = Math.min(window, tokens + count);
+        }
+    }
+
+    private void refill(long now) {
+        if (lastRefillTime != Long.MIN_VALUE && now > lastRefillTime) {
+            tokens += window * (now - lastRefillTime) / periodMillis;
+        }
+        if (lastRefillTime == Long.MIN_VALUE || now > lastRefillTime) {
+            lastRefillTime = now;
+        }
+        tokens = Math.min(tokens, window);
+    }
+
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * 根据目标服务器状态调整
+     *
+     * @param tps 目标服务器 TPS，未上报时传入非正数
+     */
+    public synchronized void onServerStatus(boolean online, double tps, long now) {
+        if (!online) {
+            if (phase != Phase.PAUSED) {
+                // 记住离线前的一半窗口，恢复后慢启动到此为止
+                slowStartThreshold = Math.max(minWindow, window * decreaseFactor);
+                phase = Phase.PAUSED;
+                logger.info("目标服务器离线，暂停传送");
+            }
+            return;
+        }
+
+        if (phase == Phase.PAUSED) {
+            window = minWindow;
+            phase = Phase.SLOW_START;
+            logger.info("目标服务器恢复，传送速率从 " + minWindow + " 人/周期慢启动");
+        }
+
+        if (tps > 0) {
+            lastTps = tps;
+            if (tps < tpsThreshold) {
+                decrease(now, String.format("目标服务器TPS过低 (%.1f)", tps));
+            }
+        }
+    }
+
+    /**
+     * 记录一次传送结果
+     */
+    public synchronized void onTransferResult(boolean success, long now) {
+        if (!success) {
+            failureCount++;
+            decrease(now, "传送失败");
+            return;
+        }
+
+        successCount++;
+        if (phase == Phase.PAUSED || (lastTps > 0 && lastTps < tpsThreshold)) {
+            return;
+        }
+
+        if (phase == Phase.SLOW_START) {
+            // 每成功一人窗口加一，每个周期约翻倍
+            window += 1.0;
+            if (window >= slowStartThreshold) {
+                phase = Phase.AVOIDANCE;
+            }
+        } else {
+            // 每个周期约加一
+            window += 1.0 / window;
+        }
+        window = Math.min(window, maxWindow);
+    }
+
+    private void decrease(long now, String reason) {
+        if (lastDecreaseTime != Long.MIN_VALUE && now - lastDecreaseTime < decreaseCooldownMillis) {
+            return;
+        }
+
+        lastDecreaseTime = now;
+        window = Math.max(minWindow, window * decreaseFactor);
+        slowStartThreshold = window;
+        if (phase == Phase.SLOW_START) {
+            phase = Phase.AVOIDANCE;
+        }
+        decreaseCount++;
+        logger.info(reason + "，传送速率降至 " + (int) window + " 人/周期");
+    }
+
+    /**
+     * 获取控制器状态
+     */
+    public synchronized ControllerState getState() {
+        return new ControllerState(phase, window, slowStartThreshold, lastTps, successCount, failureCount, decreaseCount);
+    }
+
+    /**
+     * 控制器状态
+     */
+    public static class ControllerState {
+        private final Phase phase;
+        private final double window;
+        private final double slowStartThreshold;
+        private final double lastTps;
+        private final long successCount;
+        private final long failureCount;
+        private final int decreaseCount;
+
+        public ControllerState(Phase phase, double window, double slowStartThreshold, double lastTps,
+                               long successCount, long failureCount, int decreaseCount) {
+            this.phase = phase;
+            this.window = window;
+            this.slowStartThreshold = slowStartThreshold;
+            this.lastTps = lastTps;
+            this.successCount = successCount;
+            this.failureCount = failureCount;
+            this.decreaseCount = decreaseCount;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public double getWindow() {
+            return window;
+        }
+
+        public double getSlowStartThreshold() {
+            return slowStartThreshold;
+        }
+
+        /**
+         * 最近一次上报的 TPS，未上报时为 -1
+         */
+        public double getLastTps() {
+            return lastTps;
+        }
+
+        public long getSuccessCount() {
+            return successCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public int getDecreaseCount() {
+            return decreaseCount;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.*;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Utf8;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 代理通信模型的二进制编解码（协议版本 1）
+ * 与代理在就绪响应中协商后，高频的心跳、传送和队列变动消息改用紧凑的二进制格式：
+ * 字段按固定顺序排列不写字段名，UUID 固定 16 字节，整数使用变长编码，
+ * 批量消息中的每项时间戳只记录与整批时间戳的差值
+ *
+ * 格式：
+ * 帧头为魔数 0x51、版本 0x01、消息类型各一字节，之后是消息体；
+ * 无符号整数为 LEB128 变长编码，有符号整数先做 ZigZag 变换；
+ * 字符串为 (UTF-8 字节数 + 1) 的变长整数加内容，0 表示 null；
+ * 布尔字段合并为一个标志字节
+ *
+ * 未登记的类型和无法表示的值（如 playerId 不是 UUID）由调用方改用 JSON
+ */
+final class BinaryCodecs {
+
+    static final MediaType MEDIA_TYPE = MediaType.get("application/x-queue-binary");
+
+    private static final int MAGIC = 0x51;
+    private static final int VERSION = 1;
+
+    // 请求消息类型，响应类型为对应请求类型 | 0x80
+    private static final int HEARTBEAT = 0x01;
+    private static final int PLAYER_TRANSFER = 0x02;
+    private static final int BATCH_TRANSFER = 0x03;
+    private static final int QUEUE_ADD = 0x04;
+    private static final int QUEUE_REMOVE = 0x05;
+    private static final int QUEUE_SYNC = 0x06;
+    private static final int RESPONSE = 0x80;
+
+    // 标志位
+    private static final int FLAG_SUCCESS = 0x01;
+    private static final int FLAG_VIP = 0x01;
+    private static final int FLAG_PLAYER_ID = 0x02;
+    private static final int FLAG_PRESENT = 0x04;
+    // 批量传送中的一项沿用整批的来源、目标服务器和租约
+    private static final int FLAG_INHERIT = 0x01;
+
+    /**
+     * 写出消息体
+     */
+    private interface Encoder<T> {
+        void write(BufferedSink out, T value) throws IOException;
+    }
+
+    /**
+     * 读取消息体，调用时帧头已读过
+     */
+    private interface Decoder<T> {
+        T read(BufferedSource in) throws IOException;
+    }
+
+    private static final class Registration<T> {
+        private final int type;
+        private final Encoder<T> encoder;
+        private final Decoder<T> decoder;
+
+        Registration(int type, Encoder<T> encoder, Decoder<T> decoder) {
+            this.type = type;
+            this.encoder = encoder;
+            this.decoder = decoder;
+        }
+    }
+
+    private final Map<Class<?>, Registration<?>> registrations = new HashMap<>();
+
+    BinaryCodecs() {
+        registerRequests();
+        registerResponses();
+    }
+
+    private <T> void encoder(Class<T> type, int messageType, Encoder<T> encoder) {
+        registrations.put(type, new Registration<>(messageType, encoder, null));
+    }
+
+    private <T> void decoder(Class<T> type, int messageType, Decoder<T> decoder) {
+        registrations.put(type, new Registration<>(messageType, null, decoder));
+    }
+
+    /**
+     * 是否为二进制格式的内容类型
+     */
+    static boolean isBinary(MediaType contentType) {
+        return contentType != null && MEDIA_TYPE.type().equals(contentType.type())
+                && MEDIA_TYPE.subtype().equals(contentType.subtype());
+    }
+
+    /**
+     * 能否按二进制格式读取该类型的响应
+     */
+    boolean canDecode(Class<?> type) {
+        Registration<?> registration = registrations.get(type);
+        return registration != null && registration.decoder != null;
+    }
+
+    /**
+     * 编码为二进制请求体，类型未登记或值无法用二进制表示时返回 null
+     * 请求体在此一次编码完成，重试和对冲时可重复发送
+     */
+    @SuppressWarnings("unchecked")
+    <T> RequestBody requestBody(T value) {
+        if (value == null) {
+            return null;
+        }
+        Registration<T> registration = (Registration<T>) registrations.get(value.getClass());
+        if (registration == null || registration.encoder == null) {
+            return null;
+        }
+
+        Buffer buffer = new Buffer();
+        try {
+            buffer.writeByte(MAGIC);
+            buffer.writeByte(VERSION);
+            buffer.writeByte(registration.type);
+            registration.encoder.write(buffer, value);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        return RequestBody.create(buffer.readByteString(), MEDIA_TYPE);
+    }
+
+    /**
+     * 从响应流读取二进制消息
+     */
+    @SuppressWarnings("unchecked")
+    <T> T read(BufferedSource source, Class<T> type) throws IOException {
+        Registration<T> registration = (Registration<T>) registrations.get(type);
+        if (registration == null || registration.decoder == null) {
+            throw new ProtocolException("不支持二进制格式的响应类型: " + type.getSimpleName());
+        }
+
+        int magic = source.readByte() & 0xFF;
+        int version = source.readByte() & 0xFF;
+        int messageType = source.readByte() & 0xFF;
+        if (magic != MAGIC || version != VERSION) {
+            throw new ProtocolException("二进制消息帧头无效: " + magic + "/" + version);
+        }
+        if (messageType != registration.type) {
+            throw new ProtocolException("二进制消息类型不符: 期望 " + registration.type + ", 实际 " + messageType);
+        }
+        return registration.decoder.read(source);
+    }
+
+    // ---- 请求 ----
+
+    private void registerRequests() {
+        encoder(HeartbeatRequest.class, HEARTBEAT, (out, r) -> {
+            writeString(out, r.getServerName());
+            writeInt(out, r.getOnlinePlayers());
+            writeInt(out, r.getMaxPlayers());
+            // TPS 精确到 0.01
+            writeInt(out, (int) Math.round(r.getTps() * 100));
+            writeVarLong(out, r.getTimestamp());
+        });
+        encoder(PlayerTransferRequest.class, PLAYER_TRANSFER, (out, r) -> {
+            writeUuid(out, r.getPlayerId());
+            writeString(out, r.getPlayerName());
+            writeString(out, r.getSourceServer());
+            writeString(out, r.getTargetServer());
+            writeString(out, r.getLeaseId());
+            writeVarLong(out, r.getTimestamp());
+        });
+        encoder(BatchTransferRequest.class, BATCH_TRANSFER, (out, r) -> {
+            writeString(out, r.getSourceServer());
+            writeString(out, r.getTargetServer());
+            writeString(out, r.getLeaseId());
+            writeVarLong(out, r.getTimestamp());
+            List<PlayerTransferRequest> transfers = r.getTransfers() != null ? r.getTransfers() : List.of();
+            writeVarLong(out, transfers.size());
+            for (PlayerTransferRequest transfer : transfers) {
+                boolean inherit = equals(transfer.getSourceServer(), r.getSourceServer())
+                        && equals(transfer.getTargetServer(), r.getTargetServer())
+                        && equals(transfer.getLeaseId(), r.getLeaseId());
+                out.writeByte(inherit ? FLAG_INHERIT : 0);
+                writeUuid(out, transfer.getPlayerId());
+                writeString(out, transfer.getPlayerName());
+                if (!inherit) {
+                    writeString(out, transfer.getSourceServer());
+                    writeString(out, transfer.getTargetServer());
+                    writeString(out, transfer.getLeaseId());
+                }
+                writeLong(out, transfer.getTimestamp() - r.getTimestamp());
+            }
+        });
+        encoder(QueueAddRequest.class, QUEUE_ADD, (out, r) -> {
+            writeUuid(out, r.getPlayerId());
+            writeString(out, r.getPlayerName());
+            out.writeByte(r.isVip() ? FLAG_VIP : 0);
+            writeVarLong(out, r.getTimestamp());
+        });
+        encoder(QueueRemoveRequest.class, QUEUE_REMOVE, (out, r) -> {
+            writeUuid(out, r.getPlayerId());
+            writeVarLong(out, r.getTimestamp());
+        });
+        encoder(QueueSyncRequest.class, QUEUE_SYNC, (out, r) -> {
+            writeString(out, r.getServerName());
+            writeVarLong(out, r.getEpoch());
+            writeVarLong(out, r.getSequence());
+            writeVarLong(out, r.getTimestamp());
+            List<QueueRemoveRequest> removed = r.getRemoved() != null ? r.getRemoved() : List.of();
+            writeVarLong(out, removed.size());
+            for (QueueRemoveRequest remove : removed) {
+                writeUuid(out, remove.getPlayerId());
+                writeLong(out, remove.getTimestamp() - r.getTimestamp());
+            }
+            List<QueueAddRequest> added = r.getAdded() != null ? r.getAdded() : List.of();
+            writeVarLong(out, added.size());
+            for (QueueAddRequest add : added) {
+                writeUuid(out, add.getPlayerId());
+                writeString(out, add.getPlayerName());
+                out.writeByte(add.isVip() ? FLAG_VIP : 0);
+                writeLong(out, add.getTimestamp() - r.getTimestamp());
+            }
+        });
+    }
+
+    // ---- 响应 ----
+
+    private void registerResponses() {
+        decoder(HeartbeatResponse.class, HEARTBEAT | RESPONSE, in -> {
+            HeartbeatResponse r = new HeartbeatResponse();
+            r.setSuccess((in.readByte() & FLAG_SUCCESS) != 0);
+            r.setMessage(readString(in));
+            r.setAvailableSlots(readInt(in));
+            r.setTimestamp(readVarLong(in));
+            return r;
+        });
+        decoder(PlayerTransferResponse.class, PLAYER_TRANSFER | RESPONSE, in -> readTransferResult(in, false, 0));
+        decoder(BatchTransferResponse.class, BATCH_TRANSFER | RESPONSE, in -> {
+            BatchTransferResponse r = new BatchTransferResponse();
+            r.setSuccess((in.readByte() & FLAG_SUCCESS) != 0);
+            r.setMessage(readString(in));
+            r.setTimestamp(readVarLong(in));
+            int count = readCount(in);
+            List<PlayerTransferResponse> results = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                results.add(readTransferResult(in, true, r.getTimestamp()));
+            }
+            r.setResults(results);
+            return r;
+        });
+        decoder(QueueAddResponse.class, QUEUE_ADD | RESPONSE, in -> {
+            QueueAddResponse r = new QueueAddResponse();
+            r.setSuccess((in.readByte() & FLAG_SUCCESS) != 0);
+            r.setMessage(readString(in));
+            r.setPosition(readInt(in));
+            r.setEstimatedWaitTime(readLong(in));
+            r.setTimestamp(readVarLong(in));
+            return r;
+        });
+        decoder(QueueRemoveResponse.class, QUEUE_REMOVE | RESPONSE, in -> {
+            QueueRemoveResponse r = new QueueRemoveResponse();
+            r.setSuccess((in.readByte() & FLAG_SUCCESS) != 0);
+            r.setMessage(readString(in));
+            r.setTimestamp(readVarLong(in));
+            return r;
+        });
+        decoder(QueueSyncResponse.class, QUEUE_SYNC | RESPONSE, in -> {
+            QueueSyncResponse r = new QueueSyncResponse();
+            r.setSuccess((in.readByte() & FLAG_SUCCESS) != 0);
+            r.setMessage(readString(in));
+            r.setSequence(readVarLong(in));
+            r.setTimestamp(readVarLong(in));
+            return r;
+        });
+    }
+
+    /**
+     * 读取单人传送结果
+     * 在批量响应中时间戳为与整批时间戳的差值，标志字节不含 FLAG_PRESENT 的项为 null
+     */
+    private static PlayerTransferResponse readTransferResult(BufferedSource in, boolean batch, long baseTimestamp)
+            throws IOException {
+        int flags = in.readByte() & 0xFF;
+        if (batch && (flags & FLAG_PRESENT) == 0) {
+            return null;
+        }
+
+        PlayerTransferResponse r = new PlayerTransferResponse();
+        r.setSuccess((flags & FLAG_SUCCESS) != 0);
+        if ((flags & FLAG_PLAYER_ID) != 0) {
+            r.setPlayerId(readUuid(in));
+        }
+        r.setMessage(readString(in));
+        r.setTransferId(readString(in));
+        r.setTimestamp(batch ? baseTimestamp + readLong(in) : readVarLong(in));
+        return r;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    // ---- 基本类型 ----
+
+    private static void writeVarLong(BufferedSink out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(BufferedSource in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readByte() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ProtocolException("变长整数过长");
+    }
+
+    private static void writeLong(BufferedSink out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readLong(BufferedSource in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static void writeInt(BufferedSink out, int value) throws IOException {
+        writeLong(out, value);
+    }
+
+    private static int readInt(BufferedSource in) throws IOException {
+        long value = readLong(in);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new ProtocolException("整数超出范围: " + value);
+        }
+        return (int) value;
+    }
+
+    private static int readCount(BufferedSource in) throws IOException {
+        long count = readVarLong(in);
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new ProtocolException("元素数量无效: " + count);
+        }
+        return (int) count;
+    }
+
+    private static void writeString(BufferedSink out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        writeVarLong(out, Utf8.size(value) + 1);
+        out.writeUtf8(value);
+    }
+
+    private static String readString(BufferedSource in) throws IOException {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > Integer.MAX_VALUE) {
+            throw new ProtocolException("字符串过长: " + length);
+        }
+        return in.readUtf8(length - 1);
+    }
+
+    /**
+     * 写出 UUID 的 16 个字节，playerId 不是合法 UUID 时抛出 IllegalArgumentException
+     */
+    private static void writeUuid(BufferedSink out, String value) throws IOException {
+        if (value == null) {
+            throw new IllegalArgumentException("playerId 为空");
+        }
+        UUID uuid = UUID.fromString(value);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static String readUuid(BufferedSource in) throws IOException {
+        return new UUID(in.readLong(), in.readLong()).toString();
+    }
+}
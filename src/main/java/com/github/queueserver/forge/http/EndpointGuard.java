@@ -0,0 +1,343 @@
+package com.github.queueserver.forge.http;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * 代理端点保护
+ * 每个端点（不含查询参数的路径）独立维护熔断器和延迟统计：
+ * 最近的请求失败比例过高时熔断，熔断期内请求立即失败而不占用连接；
+ * 到期后放行一个探测请求，成功则恢复，失败则继续熔断；
+ * 单次请求的超时按该端点成功请求的 p99 延迟调整，代理变慢时不再每次都等满最大超时
+ */
+public class EndpointGuard {
+
+    // 统计失败比例的最近请求数
+    private static final int WINDOW = 20;
+
+    // 记录最近多少次请求延迟
+    private static final int LATENCY_SAMPLES = 128;
+
+    // 延迟样本少于此数时使用最大超时，不发对冲请求
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED("正常"),
+        OPEN("熔断"),
+        HALF_OPEN("探测中");
+
+        private final String description;
+
+        State(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final Logger logger;
+    private final double failureRatio;
+    private final int minCalls;
+    private final long openMillis;
+    private final long minTimeoutMillis;
+    private final long maxTimeoutMillis;
+    private final double timeoutMultiplier;
+    private final double hedgeRatio;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param failureRatio 窗口内失败比例达到此值时熔断
+     * @param minCalls 窗口内至少有这么多请求才判断失败比例
+     * @param openMillis 熔断持续时间，到期后放行探测请求
+     * @param minTimeoutMillis 自适应超时的下限
+     * @param maxTimeoutMillis 自适应超时的上限，样本不足和探测请求使用此值
+     * @param timeoutMultiplier 超时为 p99 延迟的倍数
+     * @param hedgeRatio 对冲请求占请求总数的上限，0 为不对冲
+     */
+    public EndpointGuard(double failureRatio, int minCalls, long openMillis, long minTimeoutMillis,
+                         long maxTimeoutMillis, double timeoutMultiplier, double hedgeRatio, Logger logger) {
+        this.logger = logger;
+        this.failureRatio = Math.min(1.0, Math.max(0.05, failureRatio));
+        this.minCalls = Math.max(1, Math.min(WINDOW, minCalls));
+        this.openMillis = Math.max(100, openMillis);
+        this.maxTimeoutMillis = Math.max(100, maxTimeoutMillis);
+        this.minTimeoutMillis = Math.max(50, Math.min(minTimeoutMillis, this.maxTimeoutMillis));
+        this.timeoutMultiplier = Math.max(1.0, timeoutMultiplier);
+        this.hedgeRatio = Math.max(0, hedgeRatio);
+    }
+
+    /**
+     * 获取端点，查询参数不区分端点
+     */
+    Endpoint endpoint(String path) {
+        int query = path.indexOf('?');
+        String key = query >= 0 ? path.substring(0, query) : path;
+        return endpoints.computeIfAbsent(key, Endpoint::new);
+    }
+
+    /**
+     * 获取各端点统计，按路径排序
+     */
+    public Map<String, EndpointStats> getStats() {
+        long now = System.currentTimeMillis();
+        Map<String, EndpointStats> stats = new TreeMap<>();
+        endpoints.forEach((path, endpoint) -> stats.put(path, endpoint.getStats(now)));
+        return stats;
+    }
+
+    /**
+     * 单个端点的熔断器与延迟统计
+     */
+    final class Endpoint {
+        private final String path;
+
+        private State state = State.CLOSED;
+        private long openUntil = 0;
+        private boolean probeInFlight = false;
+
+        // 最近请求的结果，true 为失败
+        private final boolean[] outcomes = new boolean[WINDOW];
+        private int outcomeCount = 0;
+        private int failures = 0;
+
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private int latencyCount = 0;
+        private long timeoutMillis;
+        private long hedgeDelayMillis = -1;
+        private long p99Millis = -1;
+
+        // 统计信息
+        private long requests = 0;
+        private long rejected = 0;
+        private long hedges = 0;
+        private long trips = 0;
+
+        Endpoint(String path) {
+            this.path = path;
+            this.timeoutMillis = maxTimeoutMillis;
+        }
+
+        /**
+         * 请求前调用，熔断期内返回 false
+         */
+        synchronized boolean tryAcquire(long now) {
+            if (state == State.OPEN) {
+                if (now < openUntil) {
+                    rejected++;
+                    return false;
+                }
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN) {
+                // 同一时刻只放行一个探测请求
+                if (probeInFlight) {
+                    rejected++;
+                    return false;
+                }
+                probeInFlight = true;
+            }
+            requests++;
+            return true;
+        }
+
+        /**
+         * 本次请求的整体超时，探测请求使用最大超时
+         */
+        synchronized long timeoutMillis() {
+            return state == State.HALF_OPEN ? maxTimeoutMillis : timeoutMillis;
+        }
+
+        /**
+         * 请求成功（收到非 5xx 响应）
+         */
+        synchronized void onSuccess(long latencyMillis) {
+            recordLatency(latencyMillis);
+            if (state == State.HALF_OPEN) {
+                probeInFlight = false;
+                close();
+                logger.info("代理端点 " + path + " 已恢复");
+                return;
+            }
+            recordOutcome(false);
+        }
+
+        /**
+         * 请求失败（网络错误、超时或 5xx 响应）
+         *
+         * @param elapsedMillis 请求耗时，超时失败时计入延迟样本，超时值能随代理变慢而放宽
+         */
+        synchronized void onFailure(long elapsedMillis, boolean timedOut, long now) {
+            if (timedOut) {
+                recordLatency(elapsedMillis);
+            }
+            if (state == State.HALF_OPEN) {
+                probeInFlight = false;
+                trip(now);
+                return;
+            }
+            recordOutcome(true);
+            if (state == State.CLOSED && outcomeCount >= minCalls
+                    && failures >= failureRatio * Math.min(outcomeCount, WINDOW)) {
+                trip(now);
+            }
+        }
+
+        /**
+         * 请求被取消，不计入结果
+         */
+        synchronized void onCancelled() {
+            if (state == State.HALF_OPEN) {
+                probeInFlight = false;
+            }
+        }
+
+        /**
+         * 对冲请求的发送延迟（p95 延迟），样本不足或不允许对冲时返回 -1
+         */
+        synchronized long hedgeDelayMillis() {
+            if (hedgeRatio <= 0 || state != State.CLOSED) {
+                return -1;
+            }
+            return hedgeDelayMillis;
+        }
+
+        /**
+         * 占用一次对冲配额，超过对冲比例上限时返回 false
+         */
+        synchronized boolean tryHedge() {
+            if (state != State.CLOSED || hedges + 1 > requests * hedgeRatio + 1) {
+                return false;
+            }
+            hedges++;
+            return true;
+        }
+
+        private void trip(long now) {
+            state = State.OPEN;
+            openUntil = now + openMillis;
+            trips++;
+            logger.warning("代理端点 " + path + " 失败过多，熔断 " + openMillis + "ms");
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            outcomeCount = 0;
+            failures = 0;
+        }
+
+        private void recordOutcome(boolean failed) {
+            int index = outcomeCount++ % WINDOW;
+            if (outcomeCount > WINDOW && outcomes[index]) {
+                failures--;
+            }
+            outcomes[index] = failed;
+            if (failed) {
+                failures++;
+            }
+        }
+
+        private void recordLatency(long latencyMillis) {
+            latencies[latencyCount++ % LATENCY_SAMPLES] = Math.max(0, latencyMillis);
+
+            // 每 16 个样本重新计算一次分位数
+            if (latencyCount >= MIN_LATENCY_SAMPLES && latencyCount % 16 == 0) {
+                long[] sorted = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_SAMPLES));
+                Arrays.sort(sorted);
+                p99Millis = sorted[(sorted.length - 1) * 99 / 100];
+                hedgeDelayMillis = Math.max(1, sorted[(sorted.length - 1) * 95 / 100]);
+                long adaptive = (long) (p99Millis * timeoutMultiplier);
+                timeoutMillis = Math.max(minTimeoutMillis, Math.min(maxTimeoutMillis, adaptive));
+            }
+        }
+
+        synchronized EndpointStats getStats(long now) {
+            State current = state == State.OPEN && now >= openUntil ? State.HALF_OPEN : state;
+            return new EndpointStats(current, timeoutMillis, p99Millis, requests, rejected, hedges, trips);
+        }
+    }
+
+    /**
+     * 端点熔断期间请求被直接拒绝
+     */
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public CircuitOpenException(String path) {
+            super("代理端点熔断中: " + path);
+        }
+    }
+
+    /**
+     * 端点统计信息
+     */
+    public static class EndpointStats {
+        private final State state;
+        private final long timeoutMillis;
+        private final long p99Millis;
+        private final long requests;
+        private final long rejected;
+        private final long hedges;
+        private final long trips;
+
+        public EndpointStats(State state, long timeoutMillis, long p99Millis, long requests, long rejected,
+                             long hedges, long trips) {
+            this.state = state;
+            this.timeoutMillis = timeoutMillis;
+            this.p99Millis = p99Millis;
+            this.requests = requests;
+            this.rejected = rejected;
+            this.hedges = hedges;
+            this.trips = trips;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * 当前使用的请求超时
+         */
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        /**
+         * 最近请求的 p99 延迟，样本不足时为 -1
+         */
+        public long getP99Millis() {
+            return p99Millis;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * 熔断期间直接拒绝的请求数
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getHedges() {
+            return hedges;
+        }
+
+        /**
+         * 熔断次数
+         */
+        public long getTrips() {
+            return trips;
+        }
+    }
+}
@@ -0,0 +1,629 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.*;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 代理通信模型的 JSON 编解码
+ * 为 http.model 中的类手写流式编解码，不经反射：请求直接写入 okio 输出流，
+ * 响应直接从输入流解析，不生成中间字符串；输出为紧凑格式，值为 null 的字段不输出
+ *
+ * 未登记的类型交给 Gson 处理
+ */
+final class ModelCodecs {
+
+    /**
+     * 写出一个对象
+     */
+    interface Encoder<T> {
+        void write(JsonWriter out, T value) throws IOException;
+    }
+
+    /**
+     * 读取一个对象，调用时读取位置在对象开头
+     */
+    interface Decoder<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    private final Gson fallback;
+    private final Map<Class<?>, Encoder<?>> encoders = new HashMap<>();
+    private final Map<Class<?>, Decoder<?>> decoders = new HashMap<>();
+
+    ModelCodecs(Gson fallback) {
+        this.fallback = fallback;
+        registerRequests();
+        registerResponses();
+    }
+
+    private <T> void encoder(Class<T> type, Encoder<T> encoder) {
+        encoders.put(type, encoder);
+    }
+
+    private <T> void decoder(Class<T> type, Decoder<T> decoder) {
+        decoders.put(type, decoder);
+    }
+
+    /**
+     * 创建直接写入请求流的请求体
+     */
+    <T> RequestBody requestBody(T value, MediaType contentType) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                // 不关闭 writer，输出流由 OkHttp 管理
+                JsonWriter out = new JsonWriter(new SinkWriter(sink));
+                write(out, value);
+                out.flush();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        Encoder<T> encoder = (Encoder<T>) encoders.get(value.getClass());
+        if (encoder != null) {
+            encoder.write(out, value);
+        } else {
+            fallback.toJson(value, value.getClass(), out);
+        }
+    }
+
+    /**
+     * 从响应流解析对象，响应为 null 时返回 null
+     */
+    <T> T read(BufferedSource source, Class<T> type) throws IOException {
+        return read(new SourceReader(source), type);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T read(Reader source, Class<T> type) throws IOException {
+        JsonReader in = new JsonReader(source);
+        in.setLenient(true);
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Decoder<T> decoder = (Decoder<T>) decoders.get(type);
+        return decoder != null ? decoder.read(in) : fallback.fromJson(in, type);
+    }
+
+    // ---- 请求 ----
+
+    private void registerRequests() {
+        encoder(HeartbeatRequest.class, (out, r) -> {
+            out.beginObject();
+            string(out, "serverName", r.getServerName());
+            out.name("onlinePlayers").value(r.getOnlinePlayers());
+            out.name("maxPlayers").value(r.getMaxPlayers());
+            out.name("tps").value(r.getTps());
+            out.name("timestamp").value(r.getTimestamp());
+            out.endObject();
+        });
+        encoder(ServerReadyRequest.class, (out, r) -> {
+            out.beginObject();
+            string(out, "serverName", r.getServerName());
+            out.name("ready").value(r.isReady());
+            out.name("timestamp").value(r.getTimestamp());
+            out.endObject();
+        });
+        encoder(PlayerTransferRequest.class, ModelCodecs::writeTransfer);
+        encoder(BatchTransferRequest.class, (out, r) -> {
+            out.beginObject();
+            string(out, "sourceServer", r.getSourceServer());
+            string(out, "targetServer", r.getTargetServer());
+            string(out, "leaseId", r.getLeaseId());
+            if (r.getTransfers() != null) {
+                out.name("transfers").beginArray();
+                for (PlayerTransferRequest transfer : r.getTransfers()) {
+                    writeTransfer(out, transfer);
+                }
+                out.endArray();
+            }
+            out.name("timestamp").value(r.getTimestamp());
+            out.endObject();
+        });
+        encoder(QueueAddRequest.class, ModelCodecs::writeQueueAdd);
+        encoder(QueueRemoveRequest.class, ModelCodecs::writeQueueRemove);
+        encoder(QueueSyncRequest.class, (out, r) -> {
+            out.beginObject();
+            string(out, "serverName", r.getServerName());
+            out.name("epoch").value(r.getEpoch());
+            out.name("sequence").value(r.getSequence());
+            if (r.getRemoved() != null) {
+                out.name("removed").beginArray();
+                for (QueueRemoveRequest remove : r.getRemoved()) {
+                    writeQueueRemove(out, remove);
+                }
+                out.endArray();
+            }
+            if (r.getAdded() != null) {
+                out.name("added").beginArray();
+                for (QueueAddRequest add : r.getAdded()) {
+                    writeQueueAdd(out, add);
+                }
+                out.endArray();
+            }
+            out.name("timestamp").value(r.getTimestamp());
+            out.endObject();
+        });
+        encoder(SlotReserveRequest.class, (out, r) -> {
+            out.beginObject();
+            string(out, "serverName", r.getServerName());
+            out.name("count").value(r.getCount());
+            out.name("ttlMillis").value(r.getTtlMillis());
+            out.name("timestamp").value(r.getTimestamp());
+            out.endObject();
+        });
+        encoder(SlotReleaseRequest.class, (out, r) -> {
+            out.beginObject();
+            string(out, "leaseId", r.getLeaseId());
+            out.name("count").value(r.getCount());
+            out.name("timestamp").value(r.getTimestamp());
+            out.endObject();
+        });
+    }
+
+    private static void writeTransfer(JsonWriter out, PlayerTransferRequest r) throws IOException {
+        out.beginObject();
+        string(out, "playerId", r.getPlayerId());
+        string(out, "playerName", r.getPlayerName());
+        string(out, "sourceServer", r.getSourceServer());
+        string(out, "targetServer", r.getTargetServer());
+        string(out, "leaseId", r.getLeaseId());
+        out.name("timestamp").value(r.getTimestamp());
+        out.endObject();
+    }
+
+    private static void writeQueueAdd(JsonWriter out, QueueAddRequest r) throws IOException {
+        out.beginObject();
+        string(out, "playerId", r.getPlayerId());
+        string(out, "playerName", r.getPlayerName());
+        out.name("vip").value(r.isVip());
+        out.name("timestamp").value(r.getTimestamp());
+        out.endObject();
+    }
+
+    private static void writeQueueRemove(JsonWriter out, QueueRemoveRequest r) throws IOException {
+        out.beginObject();
+        string(out, "playerId", r.getPlayerId());
+        out.name("timestamp").value(r.getTimestamp());
+        out.endObject();
+    }
+
+    private static void string(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    // ---- 响应 ----
+
+    private void registerResponses() {
+        decoder(HeartbeatResponse.class, in -> {
+            HeartbeatResponse r = new HeartbeatResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "availableSlots": r.setAvailableSlots(in.nextInt()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(ServerReadyResponse.class, in -> {
+            ServerReadyResponse r = new ServerReadyResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "capabilities": r.setCapabilities(readStrings(in)); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(ServerStatusResponse.class, in -> {
+            ServerStatusResponse r = new ServerStatusResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "online": r.setOnline(in.nextBoolean()); return true;
+                    case "currentPlayers": r.setCurrentPlayers(in.nextInt()); return true;
+                    case "maxPlayers": r.setMaxPlayers(in.nextInt()); return true;
+                    case "availableSlots": r.setAvailableSlots(in.nextInt()); return true;
+                    case "tps": r.setTps(in.nextDouble()); return true;
+                    case "status": r.setStatus(in.nextString()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(PlayerTransferResponse.class, ModelCodecs::readTransferResult);
+        decoder(BatchTransferResponse.class, in -> {
+            BatchTransferResponse r = new BatchTransferResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "results":
+                        List<PlayerTransferResponse> results = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            if (in.peek() == JsonToken.NULL) {
+                                in.nextNull();
+                                results.add(null);
+                            } else {
+                                results.add(readTransferResult(in));
+                            }
+                        }
+                        in.endArray();
+                        r.setResults(results);
+                        return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(QueueAddResponse.class, in -> {
+            QueueAddResponse r = new QueueAddResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "position": r.setPosition(in.nextInt()); return true;
+                    case "estimatedWaitTime": r.setEstimatedWaitTime(in.nextLong()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(QueueRemoveResponse.class, in -> {
+            QueueRemoveResponse r = new QueueRemoveResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(QueueSyncResponse.class, in -> {
+            QueueSyncResponse r = new QueueSyncResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "sequence": r.setSequence(in.nextLong()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(QueueDigestResponse.class, in -> {
+            QueueDigestResponse r = new QueueDigestResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "match": r.setMatch(in.nextBoolean()); return true;
+                    case "buckets": r.setBuckets(in.nextInt()); return true;
+                    case "totalCount": r.setTotalCount(in.nextInt()); return true;
+                    case "counts": r.setCounts(readInts(in)); return true;
+                    case "hashes": r.setHashes(readStrings(in)); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(QueueMembersResponse.class, in -> {
+            QueueMembersResponse r = new QueueMembersResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "members":
+                        List<QueueMember> members = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            if (in.peek() == JsonToken.NULL) {
+                                in.nextNull();
+                                continue;
+                            }
+                            QueueMember member = new QueueMember();
+                            readObject(in, field -> {
+                                switch (field) {
+                                    case "playerId": member.setPlayerId(in.nextString()); return true;
+                                    case "vip": member.setVip(in.nextBoolean()); return true;
+                                    default: return false;
+                                }
+                            });
+                            members.add(member);
+                        }
+                        in.endArray();
+                        r.setMembers(members);
+                        return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(QueueInfoResponse.class, in -> {
+            QueueInfoResponse r = new QueueInfoResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "inQueue": r.setInQueue(in.nextBoolean()); return true;
+                    case "position": r.setPosition(in.nextInt()); return true;
+                    case "totalSize": r.setTotalSize(in.nextInt()); return true;
+                    case "estimatedWaitTime": r.setEstimatedWaitTime(in.nextLong()); return true;
+                    case "vip": r.setVip(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(QueueStatsResponse.class, in -> {
+            QueueStatsResponse r = new QueueStatsResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "totalPlayers": r.setTotalPlayers(in.nextInt()); return true;
+                    case "vipPlayers": r.setVipPlayers(in.nextInt()); return true;
+                    case "regularPlayers": r.setRegularPlayers(in.nextInt()); return true;
+                    case "averageWaitTime": r.setAverageWaitTime(in.nextDouble()); return true;
+                    case "lastProcessTime": r.setLastProcessTime(in.nextLong()); return true;
+                    case "processing": r.setProcessing(in.nextBoolean()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(SlotReserveResponse.class, in -> {
+            SlotReserveResponse r = new SlotReserveResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "leaseId": r.setLeaseId(in.nextString()); return true;
+                    case "granted": r.setGranted(in.nextInt()); return true;
+                    case "expiresAt": r.setExpiresAt(in.nextLong()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(SlotReleaseResponse.class, in -> {
+            SlotReleaseResponse r = new SlotReleaseResponse();
+            readObject(in, name -> {
+                switch (name) {
+                    case "success": r.setSuccess(in.nextBoolean()); return true;
+                    case "message": r.setMessage(in.nextString()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+        decoder(ProxyEvent.class, in -> {
+            ProxyEvent r = new ProxyEvent();
+            readObject(in, name -> {
+                switch (name) {
+                    case "seq": r.setSequence(in.nextLong()); return true;
+                    case "type": r.setType(in.nextString()); return true;
+                    case "playerId": r.setPlayerId(in.nextString()); return true;
+                    case "availableSlots": r.setAvailableSlots(in.nextInt()); return true;
+                    case "online": r.setOnline(in.nextBoolean()); return true;
+                    case "currentPlayers": r.setCurrentPlayers(in.nextInt()); return true;
+                    case "maxPlayers": r.setMaxPlayers(in.nextInt()); return true;
+                    case "tps": r.setTps(in.nextDouble()); return true;
+                    case "status": r.setStatus(in.nextString()); return true;
+                    case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                    default: return false;
+                }
+            });
+            return r;
+        });
+    }
+
+    private static PlayerTransferResponse readTransferResult(JsonReader in) throws IOException {
+        PlayerTransferResponse r = new PlayerTransferResponse();
+        readObject(in, name -> {
+            switch (name) {
+                case "success": r.setSuccess(in.nextBoolean()); return true;
+                case "playerId": r.setPlayerId(in.nextString()); return true;
+                case "message": r.setMessage(in.nextString()); return true;
+                case "transferId": r.setTransferId(in.nextString()); return true;
+                case "timestamp": r.setTimestamp(in.nextLong()); return true;
+                default: return false;
+            }
+        });
+        return r;
+    }
+
+    /**
+     * 读取字段值，未知字段返回 false 由调用方跳过
+     */
+    private interface FieldReader {
+        boolean read(String name) throws IOException;
+    }
+
+    /**
+     * 逐个读取对象字段，值为 null 的字段和未知字段跳过
+     */
+    private static void readObject(JsonReader in, FieldReader fields) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if (!fields.read(name)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * 读取整数数组，null 元素读作 -1，保持下标对应
+     */
+    private static List<Integer> readInts(JsonReader in) throws IOException {
+        List<Integer> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                values.add(-1);
+            } else {
+                values.add(in.nextInt());
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else {
+                values.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    /**
+     * 将字符直接按 UTF-8 写入 okio 缓冲，不经过编码器的中间缓冲区
+     */
+    private static final class SinkWriter extends Writer {
+        private final BufferedSink sink;
+
+        SinkWriter(BufferedSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            sink.writeUtf8CodePoint(c);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            sink.writeUtf8(str, off, off + len);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                char c = cbuf[i];
+                if (Character.isHighSurrogate(c) && i + 1 < off + len && Character.isLowSurrogate(cbuf[i + 1])) {
+                    sink.writeUtf8CodePoint(Character.toCodePoint(c, cbuf[++i]));
+                } else {
+                    sink.writeUtf8CodePoint(c);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            // 由 OkHttp 在请求体写完后刷新
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 直接从 okio 缓冲按 UTF-8 解码读取字符
+     * 已读到字符且缓冲为空时立即返回，不为填满数组而阻塞
+     */
+    private static final class SourceReader extends Reader {
+        private final BufferedSource source;
+        private char pendingLowSurrogate = 0;
+
+        SourceReader(BufferedSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            int count = 0;
+            if (pendingLowSurrogate != 0) {
+                cbuf[off + count++] = pendingLowSurrogate;
+                pendingLowSurrogate = 0;
+            }
+
+            while (count < len) {
+                if (count > 0 && source.getBuffer().size() == 0) {
+                    break;
+                }
+                if (source.exhausted()) {
+                    break;
+                }
+
+                int codePoint = source.readUtf8CodePoint();
+                if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    cbuf[off + count++] = (char) codePoint;
+                } else {
+                    cbuf[off + count++] = Character.highSurrogate(codePoint);
+                    char low = Character.lowSurrogate(codePoint);
+                    if (count < len) {
+                        cbuf[off + count++] = low;
+                    } else {
+                        pendingLowSurrogate = low;
+                    }
+                }
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        @Override
+        public void close() {
+            // 由调用方关闭响应体
+        }
+    }
+}
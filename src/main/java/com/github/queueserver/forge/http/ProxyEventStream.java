@@ -0,0 +1,357 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.ProxyEvent;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+import java.io.StringReader;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 代理事件推送通道
+ * 与代理保持一条 WebSocket 连接，目标服务器出现空位、玩家到达目标服务器、
+ * 目标服务器状态变化时由代理立即推送，插件不必轮询
+ *
+ * 事件带有递增的序号：断线后按指数退避重连，并带上最后收到的序号请求补发，重复的事件丢弃；
+ * 序号不连续或代理无法补发（reset 事件）时通知监听器重新同步
+ */
+public class ProxyEventStream {
+
+    public static final String SLOT_FREE = "slot-free";
+    public static final String PLAYER_ARRIVED = "player-arrived";
+    public static final String TARGET_HEALTH = "target-health";
+    // 代理无法从请求的序号补发，之后的事件从 seq 重新计数
+    public static final String RESET = "reset";
+
+    private static final long MIN_BACKOFF_MILLIS = 500;
+
+    /**
+     * 事件监听器，回调在连接的读取线程上依次执行
+     */
+    public interface Listener {
+        void onConnected();
+
+        /**
+         * 收到事件，按序号顺序调用，不含 reset 事件
+         */
+        void onEvent(ProxyEvent event);
+
+        /**
+         * 可能漏掉了事件，需要重新查询状态
+         */
+        void onResync();
+
+        /**
+         * 连接断开，随后会自动重连
+         */
+        void onDisconnected();
+    }
+
+    private final Logger logger;
+    private final OkHttpClient client;
+    private final String url;
+    private final ModelCodecs codecs;
+    private final Listener listener;
+    private final ScheduledExecutorService timer;
+    private final long maxBackoffMillis;
+
+    // 以下字段在 this 上同步
+    private boolean running = false;
+    private WebSocket socket;
+    private ScheduledFuture<?> reconnectTask;
+    private int failures = 0;
+
+    // 只在读取线程上修改
+    private volatile long lastSequence = 0;
+    private volatile boolean connected = false;
+
+    // 统计信息
+    private volatile long connects = 0;
+    private volatile long events = 0;
+    private volatile long duplicates = 0;
+    private volatile long resyncs = 0;
+    private volatile long lastEventTime = 0;
+
+    /**
+     * @param client 不设读取超时、带 ping 间隔的客户端，ping 超时即视为断线
+     * @param url 事件端点地址，重连时附加 after 参数
+     * @param maxBackoffMillis 重连等待时间的上限
+     */
+    ProxyEventStream(OkHttpClient client, String url, ModelCodecs codecs, Listener listener,
+                     ScheduledExecutorService timer, long maxBackoffMillis, Logger logger) {
+        this.logger = logger;
+        this.client = client;
+        this.url = url;
+        this.codecs = codecs;
+        this.listener = listener;
+        this.timer = timer;
+        this.maxBackoffMillis = Math.max(MIN_BACKOFF_MILLIS, maxBackoffMillis);
+    }
+
+    /**
+     * 建立连接，已在运行时忽略
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        connect();
+    }
+
+    /**
+     * 关闭连接并停止重连
+     */
+    public synchronized void stop() {
+        running = false;
+        if (reconnectTask != null) {
+            reconnectTask.cancel(false);
+            reconnectTask = null;
+        }
+        if (socket != null) {
+            socket.close(1000, "shutdown");
+            socket = null;
+        }
+        connected = false;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    private synchronized void connect() {
+        reconnectTask = null;
+        if (!running) {
+            return;
+        }
+        Request request = new Request.Builder()
+                .url(url + (url.contains("?") ? "&" : "?") + "after=" + lastSequence)
+                .build();
+        socket = client.newWebSocket(request, new StreamListener());
+    }
+
+    /**
+     * 断线后按指数退避安排重连，等待时间带 ±20% 抖动，避免多台服务器同时重连
+     */
+    private synchronized void scheduleReconnect() {
+        if (!running || reconnectTask != null) {
+            return;
+        }
+        long backoff = Math.min(maxBackoffMillis, MIN_BACKOFF_MILLIS << Math.min(failures, 16));
+        long delay = (long) (backoff * (0.8 + 0.4 * ThreadLocalRandom.current().nextDouble()));
+        failures++;
+        try {
+            reconnectTask = timer.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 计时器已关闭
+            running = false;
+        }
+    }
+
+    /**
+     * 检查事件序号，返回 false 表示重复事件
+     */
+    private boolean accept(ProxyEvent event) {
+        long sequence = event.getSequence();
+        if (RESET.equals(event.getType())) {
+            lastSequence = sequence;
+            resync();
+            return false;
+        }
+        if (sequence <= 0) {
+            // 代理未编号的事件不参与补发
+            return true;
+        }
+        if (sequence <= lastSequence) {
+            duplicates++;
+            return false;
+        }
+        if (lastSequence > 0 && sequence > lastSequence + 1) {
+            logger.warning("代理事件序号不连续 (" + lastSequence + " -> " + sequence + ")，重新同步");
+            resync();
+        }
+        lastSequence = sequence;
+        return true;
+    }
+
+    private void resync() {
+        resyncs++;
+        listener.onResync();
+    }
+
+    private final class StreamListener extends WebSocketListener {
+
+        private boolean isCurrent(WebSocket webSocket) {
+            synchronized (ProxyEventStream.this) {
+                return running && socket == webSocket;
+            }
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            if (!isCurrent(webSocket)) {
+                webSocket.close(1000, "superseded");
+                return;
+            }
+            synchronized (ProxyEventStream.this) {
+                failures = 0;
+            }
+            connects++;
+            connected = true;
+            logger.info("代理事件推送已连接" + (lastSequence > 0 ? "，从序号 " + lastSequence + " 之后继续" : ""));
+            listener.onConnected();
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            if (!isCurrent(webSocket)) {
+                return;
+            }
+            ProxyEvent event;
+            try {
+                event = codecs.read(new StringReader(text), ProxyEvent.class);
+            } catch (Exception e) {
+                logger.log(Level.FINE, "解析代理事件失败: " + text, e);
+                return;
+            }
+            if (event == null || event.getType() == null || !accept(event)) {
+                return;
+            }
+
+            events++;
+            lastEventTime = System.currentTimeMillis();
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "处理代理事件失败: " + event.getType(), e);
+            }
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            webSocket.close(1000, null);
+            disconnected(webSocket, "代理关闭了事件推送连接 (" + code + (reason.isEmpty() ? "" : " " + reason) + ")");
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            if (response != null && (response.code() == 404 || response.code() == 405)) {
+                // 代理声明支持但实际没有该端点
+                logger.warning("代理服务器不支持事件推送，继续使用轮询");
+                synchronized (ProxyEventStream.this) {
+                    if (socket == webSocket) {
+                        running = false;
+                        socket = null;
+                    }
+                }
+                return;
+            }
+            disconnected(webSocket, "代理事件推送连接断开: "
+                    + (response != null ? "状态码 " + response.code()
+                    : t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName()));
+        }
+
+        private void disconnected(WebSocket webSocket, String message) {
+            synchronized (ProxyEventStream.this) {
+                if (socket != webSocket) {
+                    return;
+                }
+                socket = null;
+            }
+            boolean wasConnected = connected;
+            connected = false;
+            if (wasConnected) {
+                logger.warning(message + "，稍后重连");
+                listener.onDisconnected();
+            } else {
+                logger.fine(message);
+            }
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * 获取推送通道统计
+     */
+    public StreamStats getStats() {
+        return new StreamStats(connected, connects, events, duplicates, resyncs, lastSequence, lastEventTime);
+    }
+
+    /**
+     * 推送通道统计信息
+     */
+    public static class StreamStats {
+        private final boolean connected;
+        private final long connects;
+        private final long events;
+        private final long duplicates;
+        private final long resyncs;
+        private final long lastSequence;
+        private final long lastEventTime;
+
+        public StreamStats(boolean connected, long connects, long events, long duplicates, long resyncs,
+                           long lastSequence, long lastEventTime) {
+            this.connected = connected;
+            this.connects = connects;
+            this.events = events;
+            this.duplicates = duplicates;
+            this.resyncs = resyncs;
+            this.lastSequence = lastSequence;
+            this.lastEventTime = lastEventTime;
+        }
+
+        public boolean isConnected() {
+            return connected;
+        }
+
+        /**
+         * 成功建立连接的次数，大于 1 即发生过重连
+         */
+        public long getConnects() {
+            return connects;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        /**
+         * 重连补发时收到的重复事件数
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * 因漏掉事件而重新同步的次数
+         */
+        public long getResyncs() {
+            return resyncs;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        /**
+         * 最近一次收到事件的时间，从未收到时为 0
+         */
+        public long getLastEventTime() {
+            return lastEventTime;
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package com.github.queueserver.forge.http;
 
 import com.github.queueserver.forge.QueueForgePlugin;
+import com.github.queueserver.forge.concurrent.PluginExecutors;
 import com.github.queueserver.forge.http.model.*;
+import com.github.queueserver.forge.monitor.ServerMonitor;
+import com.github.queueserver.forge.queue.QueueDigest;
+import com.github.queueserver.forge.queue.WaitTimeEstimator;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import okhttp3.*;
 import okhttp3.MediaType;
+import okio.Buffer;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,12 +42,79 @@ public class ProxyHttpClient {
     
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     
+    // 代理在就绪响应中声明支持批量传送
+    public static final String CAPABILITY_BATCH_TRANSFER = "batch-transfer";
+    
+    // 代理在就绪响应中声明支持空位租约
+    public static final String CAPABILITY_SLOT_LEASE = "slot-lease";
+    
+    // 代理在就绪响应中声明支持队列变动批量同步
+    public static final String CAPABILITY_QUEUE_SYNC = "queue-sync";
+    
+    // 代理在就绪响应中声明支持队列摘要核对
+    public static final String CAPABILITY_QUEUE_DIGEST = "queue-digest";
+    
+    // 代理在就绪响应中声明接受二进制消息格式
+    public static final String CAPABILITY_BINARY = "binary-v1";
+    
+    // 代理在就绪响应中声明支持事件推送
+    public static final String CAPABILITY_EVENT_STREAM = "event-stream";
+    
+    // 可缓存的 GET 端点
+    private static final String SERVER_STATUS = "/api/server/status";
+    private static final String QUEUE_STATS = "/api/queue/stats";
+    private static final String QUEUE_INFO = "/api/queue/info?playerId=";
+    
     private final QueueForgePlugin plugin;
     private final Logger logger;
     private final OkHttpClient httpClient;
+    private final Dispatcher streamDispatcher;
     private final Gson gson;
+    private final ModelCodecs codecs;
+    private final BinaryCodecs binaryCodecs;
+    private final boolean binaryEnabled;
+    private final boolean pushEnabled;
     private final String baseUrl;
     private final String authToken;
+    private final PluginExecutors executors;
+    private final ResponseCache responseCache;
+    private final EndpointGuard guard;
+    private final boolean hedgeEnabled;
+    private final QueueOutbox outbox;
+    
+    // 目标服务器出现空位时的回调
+    private volatile Runnable slotListener;
+    
+    // 空位长轮询，推送通道连接期间暂停
+    private volatile boolean slotWatchRunning = false;
+    private volatile Call slotWatchCall;
+    private volatile OkHttpClient slotWatchClient;
+    private volatile int slotWatchTimeout;
+    private final AtomicBoolean slotWatchParked = new AtomicBoolean(false);
+    
+    // 代理事件推送
+    private ProxyEventStream eventStream;
+    private volatile ServerStatusResponse pushedStatus;
+    private volatile Consumer<UUID> arrivalListener;
+    private final AtomicLong pushedStatusReads = new AtomicLong();
+    
+    // 代理是否支持批量传送，由就绪响应决定
+    private volatile boolean batchTransferSupported = false;
+    
+    // 代理是否支持空位租约，由就绪响应决定
+    private volatile boolean slotLeaseSupported = false;
+    
+    // 代理是否支持队列变动批量同步，由就绪响应决定
+    private volatile boolean queueSyncSupported = false;
+    
+    // 代理是否支持队列摘要核对，由就绪响应决定
+    private volatile boolean queueDigestSupported = false;
+    
+    // 是否使用二进制消息格式，由就绪响应决定
+    private volatile boolean binaryProtocol = false;
+    
+    // 最近一次响应使用的协议
+    private volatile Protocol negotiatedProtocol;
     
     public ProxyHttpClient(QueueForgePlugin plugin) {
         this.plugin = plugin;
@@ -36,38 +122,144 @@ public class ProxyHttpClient {
         this.baseUrl = plugin.getConfigManager().getProxyServerUrl();
         this.authToken = plugin.getConfigManager().getProxyServerToken();
         
-        // 创建HTTP客户端
+        // 创建HTTP客户端，回调在插件的 http 通道上执行
+        this.executors = plugin.getExecutors();
+        Dispatcher dispatcher = new Dispatcher(executors.lane(PluginExecutors.Lane.HTTP));
+        dispatcher.setMaxRequests(Math.max(1, plugin.getConfig().getInt("proxy.http.max-requests", 64)));
+        dispatcher.setMaxRequestsPerHost(Math.max(1, plugin.getConfig().getInt("proxy.http.max-requests-per-host", 32)));
+        
         this.httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .protocols(protocols(plugin.getConfig().getString("proxy.http.protocol", "auto"), baseUrl, logger))
+                .connectionPool(new ConnectionPool(
+                        Math.max(1, plugin.getConfig().getInt("proxy.http.pool.max-idle", 5)),
+                        Math.max(1, plugin.getConfig().getLong("proxy.http.pool.keep-alive", 300)), TimeUnit.SECONDS))
                 .connectTimeout(5, TimeUnit.SECONDS)
                 .writeTimeout(10, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
                 .retryOnConnectionFailure(true)
                 .addInterceptor(new AuthInterceptor(authToken))
+                .addInterceptor(new WireFormatFallback())
                 .addInterceptor(new LoggingInterceptor(logger))
                 .build();
         
-        // 创建JSON处理器
+        // 长轮询和事件推送的连接长时间占用线程，使用单独的调度器和 stream 通道，不挤占普通请求
+        this.streamDispatcher = new Dispatcher(executors.lane(PluginExecutors.Lane.STREAM));
+        
+        // 创建JSON处理器，模型类使用手写的流式编解码，Gson 只处理其他类型
         this.gson = new GsonBuilder()
-                .setPrettyPrinting()
                 .setDateFormat("yyyy-MM-dd HH:mm:ss")
                 .create();
+        this.codecs = new ModelCodecs(gson);
+        this.binaryCodecs = new BinaryCodecs();
+        this.binaryEnabled = plugin.getConfig().getBoolean("proxy.http.binary", true);
+        this.pushEnabled = plugin.getConfig().getBoolean("proxy.push.enabled", true);
+        
+        // 状态类 GET 请求的合并与短时缓存
+        this.responseCache = new ResponseCache(plugin.getConfig().getLong("proxy.cache.ttl-ms", 500));
+        
+        // 端点熔断与自适应超时
+        this.guard = new EndpointGuard(
+                plugin.getConfig().getDouble("proxy.resilience.failure-ratio", 0.5),
+                plugin.getConfig().getInt("proxy.resilience.min-calls", 10),
+                plugin.getConfig().getLong("proxy.resilience.open-ms", 5000),
+                plugin.getConfig().getLong("proxy.resilience.min-timeout-ms", 500),
+                plugin.getConfig().getLong("proxy.resilience.max-timeout-ms", 30000),
+                plugin.getConfig().getDouble("proxy.resilience.timeout-multiplier", 3.0),
+                plugin.getConfig().getDouble("proxy.resilience.hedge-ratio", 0.1),
+                logger);
+        this.hedgeEnabled = plugin.getConfig().getBoolean("proxy.resilience.hedge", true);
+        
+        // 入队/离队通知先缓冲合并再整批发送
+        this.outbox = plugin.getConfig().getBoolean("proxy.outbox.enabled", true)
+                ? new QueueOutbox(this::syncQueue, executors.getTimer(),
+                        plugin.getConfig().getLong("proxy.outbox.linger-ms", 50),
+                        plugin.getConfig().getInt("proxy.outbox.max-batch", 500),
+                        "queue-server", logger)
+                : null;
         
         logger.info("HTTP代理客户端已初始化，目标地址: " + baseUrl);
     }
     
+    /**
+     * 按配置选择传输协议
+     * auto：HTTPS 通过 ALPN 协商 HTTP/2，明文使用 HTTP/1.1；
+     * h2c：明文直接使用 HTTP/2（需代理支持 prior knowledge），所有请求复用一条连接；
+     * http1：只使用 HTTP/1.1
+     */
+    static List<Protocol> protocols(String mode, String baseUrl, Logger logger) {
+        switch (mode.toLowerCase(Locale.ROOT)) {
+            case "h2c":
+                if (baseUrl.startsWith("https://")) {
+                    logger.warning("h2c 只适用于明文地址，HTTPS 将通过 ALPN 协商 HTTP/2");
+                    return List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+                }
+                return List.of(Protocol.H2_PRIOR_KNOWLEDGE);
+            case "http1":
+                return List.of(Protocol.HTTP_1_1);
+            case "auto":
+                return List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+            default:
+                logger.warning("未知的代理传输协议: " + mode + "，使用 auto");
+                return List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        }
+    }
+    
+    /**
+     * 预先建立到代理的连接，首个分发或心跳请求不再承担握手延迟
+     * 借用服务器状态查询完成握手，结果同时进入缓存
+     */
+    public void preconnect() {
+        long start = System.currentTimeMillis();
+        getServerStatus().thenAccept(status -> {
+            Protocol protocol = negotiatedProtocol;
+            if (protocol != null) {
+                logger.info("已预先连接代理服务器 (" + protocol + ", " + (System.currentTimeMillis() - start) + "ms)");
+            } else {
+                logger.warning("预先连接代理服务器失败，将在首次请求时重试");
+            }
+        });
+    }
+    
+    /**
+     * 最近一次响应使用的协议，尚未收到响应时为 null
+     */
+    public Protocol getNegotiatedProtocol() {
+        return negotiatedProtocol;
+    }
+    
+    /**
+     * 连接池中到代理的连接数
+     */
+    public int getConnectionCount() {
+        return httpClient.connectionPool().connectionCount();
+    }
+    
     /**
      * 发送心跳
      */
     public CompletableFuture<Boolean> sendHeartbeat() {
         HeartbeatRequest heartbeat = new HeartbeatRequest();
         heartbeat.setServerName("queue-server"); // 固定服务器名称
-        heartbeat.setOnlinePlayers(plugin.getServer().getOnlinePlayers().size());
-        heartbeat.setMaxPlayers(plugin.getServer().getMaxPlayers());
-        heartbeat.setTps(getCurrentTPS());
+        // 使用主线程采样的值，不在 HTTP 线程上访问 Bukkit
+        ServerMonitor monitor = plugin.getServerMonitor();
+        if (monitor != null) {
+            heartbeat.setOnlinePlayers(monitor.getCurrentPlayers());
+            heartbeat.setMaxPlayers(monitor.getMaxPlayers());
+            heartbeat.setTps(monitor.getCurrentTPS());
+        } else {
+            heartbeat.setTps(20.0);
+        }
         heartbeat.setTimestamp(System.currentTimeMillis());
         
         return sendRequest("/api/heartbeat", heartbeat, HeartbeatResponse.class)
-                .thenApply(response -> response != null && response.isSuccess());
+                .thenApply(response -> {
+                    // 心跳响应携带空位信息时顺带唤醒分发
+                    if (response != null && response.getAvailableSlots() > 0) {
+                        notifySlotAvailable();
+                    }
+                    return response != null && response.isSuccess();
+                });
     }
     
     /**
@@ -80,21 +272,66 @@ public class ProxyHttpClient {
         request.setTimestamp(System.currentTimeMillis());
         
         return sendRequest("/api/server/ready", request, ServerReadyResponse.class)
-                .thenApply(response -> response != null && response.isSuccess());
+                .thenApply(response -> {
+                    if (response == null) {
+                        return false;
+                    }
+                    
+                    List<String> capabilities = response.getCapabilities();
+                    batchTransferSupported = capabilities != null && capabilities.contains(CAPABILITY_BATCH_TRANSFER);
+                    if (batchTransferSupported) {
+                        logger.info("代理服务器支持批量传送");
+                    }
+                    slotLeaseSupported = capabilities != null && capabilities.contains(CAPABILITY_SLOT_LEASE);
+                    if (slotLeaseSupported) {
+                        logger.info("代理服务器支持空位租约");
+                    }
+                    queueSyncSupported = capabilities != null && capabilities.contains(CAPABILITY_QUEUE_SYNC);
+                    if (queueSyncSupported) {
+                        logger.info("代理服务器支持队列变动批量同步");
+                    }
+                    queueDigestSupported = capabilities != null && capabilities.contains(CAPABILITY_QUEUE_DIGEST);
+                    if (queueDigestSupported) {
+                        logger.info("代理服务器支持队列摘要核对");
+                    }
+                    binaryProtocol = binaryEnabled && capabilities != null && capabilities.contains(CAPABILITY_BINARY);
+                    if (binaryProtocol) {
+                        logger.info("代理服务器支持二进制消息格式，心跳、传送和队列变动改用二进制发送");
+                    }
+                    if (pushEnabled && capabilities != null && capabilities.contains(CAPABILITY_EVENT_STREAM)) {
+                        logger.info("代理服务器支持事件推送");
+                        startEventStream();
+                    }
+                    return response.isSuccess();
+                });
     }
     
     /**
      * 获取服务器状态
      */
     public CompletableFuture<ServerStatusResponse> getServerStatus() {
-        return sendGetRequest("/api/server/status", ServerStatusResponse.class);
+        // 推送通道连接期间直接使用代理推送的状态
+        ServerStatusResponse pushed = pushedStatus;
+        if (pushed != null && isEventStreamConnected()) {
+            pushedStatusReads.incrementAndGet();
+            return CompletableFuture.completedFuture(pushed);
+        }
+        return sendGetRequest(SERVER_STATUS, ServerStatusResponse.class);
     }
     
     /**
      * 传送玩家
      */
     public CompletableFuture<Boolean> transferPlayer(UUID playerId, String playerName) {
+        return transferPlayer(playerId, playerName, null);
+    }
+    
+    /**
+     * 使用空位租约传送玩家
+     */
+    public CompletableFuture<Boolean> transferPlayer(UUID playerId, String playerName, String leaseId) {
         PlayerTransferRequest request = new PlayerTransferRequest();
+        request.setLeaseId(leaseId);
         request.setPlayerId(playerId.toString());
         request.setPlayerName(playerName);
         request.setSourceServer("queue-server"); // 固定源服务器名称
@@ -102,15 +339,196 @@ public class ProxyHttpClient {
         request.setTimestamp(System.currentTimeMillis());
         
         return sendRequest("/api/player/transfer", request, PlayerTransferResponse.class)
+                .thenApply(response -> {
+                    // 传送改变了目标服务器人数，缓存的状态作废
+                    invalidateServerStatus();
+                    return response != null && response.isSuccess();
+                });
+    }
+    
+    /**
+     * 批量传送玩家，返回每个玩家的传送结果
+     * 代理支持时一次请求传送整批玩家，否则逐个发送单人传送请求
+     *
+     * @param players 玩家 UUID 到名称，按传送顺序排列
+     * @param leaseId 使用的空位租约，未使用租约时为 null
+     */
+    public CompletableFuture<Map<UUID, Boolean>> transferPlayers(Map<UUID, String> players, String leaseId) {
+        if (players.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        if (!batchTransferSupported || players.size() == 1) {
+            return transferIndividually(players, leaseId);
+        }
+        
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setLeaseId(leaseId);
+        request.setSourceServer("queue-server");
+        request.setTargetServer("game");
+        request.setTimestamp(System.currentTimeMillis());
+        for (Map.Entry<UUID, String> player : players.entrySet()) {
+            PlayerTransferRequest item = new PlayerTransferRequest();
+            item.setPlayerId(player.getKey().toString());
+            item.setPlayerName(player.getValue());
+            item.setSourceServer(request.getSourceServer());
+            item.setTargetServer(request.getTargetServer());
+            item.setLeaseId(leaseId);
+            item.setTimestamp(request.getTimestamp());
+            request.getTransfers().add(item);
+        }
+        
+        CompletableFuture<Map<UUID, Boolean>> future = new CompletableFuture<>();
+        Request httpRequest = post("/api/player/transfer/batch", request).build();
+        
+        enqueue(httpRequest, new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                logFailure("批量传送请求失败", e);
+                future.complete(allFailed(players));
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody responseBody = response.body()) {
+                    if (response.code() == 404 || response.code() == 405) {
+                        // 代理声明支持但实际没有该端点，本批及以后改为单人传送
+                        logger.warning("代理服务器不支持批量传送，改为逐个传送");
+                        batchTransferSupported = false;
+                        transferIndividually(players, leaseId).thenAccept(future::complete);
+                        return;
+                    }
+                    
+                    invalidateServerStatus();
+                    if (response.isSuccessful() && responseBody != null) {
+                        BatchTransferResponse result = readBody(responseBody, BatchTransferResponse.class);
+                        future.complete(matchResults(players, result));
+                    } else {
+                        logger.warning("批量传送请求失败, 状态码: " + response.code());
+                        future.complete(allFailed(players));
+                    }
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "解析批量传送响应失败", e);
+                    future.complete(allFailed(players));
+                }
+            }
+        });
+        
+        return future;
+    }
+    
+    /**
+     * 逐个发送单人传送请求
+     */
+    private CompletableFuture<Map<UUID, Boolean>> transferIndividually(Map<UUID, String> players, String leaseId) {
+        Map<UUID, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+        for (Map.Entry<UUID, String> player : players.entrySet()) {
+            futures.put(player.getKey(), transferPlayer(player.getKey(), player.getValue(), leaseId));
+        }
+        
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<UUID, Boolean> results = new LinkedHashMap<>();
+            futures.forEach((playerId, result) -> results.put(playerId, result.join()));
+            return results;
+        });
+    }
+    
+    /**
+     * 将批量响应中的结果对应到玩家，缺失的结果视为失败
+     */
+    private Map<UUID, Boolean> matchResults(Map<UUID, String> players, BatchTransferResponse response) {
+        Map<UUID, Boolean> results = allFailed(players);
+        if (response == null || response.getResults() == null) {
+            return results;
+        }
+        
+        List<UUID> order = new ArrayList<>(players.keySet());
+        List<PlayerTransferResponse> items = response.getResults();
+        for (int i = 0; i < items.size(); i++) {
+            PlayerTransferResponse item = items.get(i);
+            if (item == null) {
+                continue;
+            }
+            
+            UUID playerId = null;
+            if (item.getPlayerId() != null) {
+                try {
+                    playerId = UUID.fromString(item.getPlayerId());
+                } catch (IllegalArgumentException e) {
+                    logger.fine("批量传送结果中的玩家ID无效: " + item.getPlayerId());
+                }
+            } else if (i < order.size()) {
+                playerId = order.get(i);
+            }
+            
+            if (playerId != null && results.containsKey(playerId)) {
+                results.put(playerId, item.isSuccess());
+            }
+        }
+        return results;
+    }
+    
+    private static Map<UUID, Boolean> allFailed(Map<UUID, String> players) {
+        Map<UUID, Boolean> results = new LinkedHashMap<>();
+        for (UUID playerId : players.keySet()) {
+            results.put(playerId, false);
+        }
+        return results;
+    }
+    
+    /**
+     * 代理是否支持批量传送
+     */
+    public boolean isBatchTransferSupported() {
+        return batchTransferSupported;
+    }
+    
+    /**
+     * 代理是否支持空位租约
+     */
+    public boolean isSlotLeaseSupported() {
+        return slotLeaseSupported;
+    }
+    
+    /**
+     * 向代理申请空位租约，请求失败时返回 null
+     */
+    public CompletableFuture<SlotReserveResponse> reserveSlots(int count, long ttlMillis) {
+        SlotReserveRequest request = new SlotReserveRequest();
+        request.setServerName("queue-server");
+        request.setCount(count);
+        request.setTtlMillis(ttlMillis);
+        request.setTimestamp(System.currentTimeMillis());
+        
+        return sendRequest("/api/server/slots/reserve", request, SlotReserveResponse.class);
+    }
+    
+    /**
+     * 归还租约中未使用的位置
+     */
+    public CompletableFuture<Boolean> releaseSlots(String leaseId, int count) {
+        SlotReleaseRequest request = new SlotReleaseRequest();
+        request.setLeaseId(leaseId);
+        request.setCount(count);
+        request.setTimestamp(System.currentTimeMillis());
+        
+        return sendRequest("/api/server/slots/release", request, SlotReleaseResponse.class)
                 .thenApply(response -> response != null && response.isSuccess());
     }
     
     /**
      * 获取玩家队列信息
+     * 代理未提供预计等待时间时使用本地估算值（毫秒）
      */
     public CompletableFuture<QueueInfoResponse> getQueueInfo(UUID playerId) {
-        String url = "/api/queue/info?playerId=" + playerId.toString();
-        return sendGetRequest(url, QueueInfoResponse.class);
+        return sendGetRequest(QUEUE_INFO + playerId, QueueInfoResponse.class).thenApply(response -> {
+            if (response != null && response.isInQueue() && response.getEstimatedWaitTime() <= 0) {
+                WaitTimeEstimator.Estimate estimate = plugin.getQueueManager().estimateWaitTime(playerId);
+                if (estimate != null) {
+                    response.setEstimatedWaitTime(estimate.getExpectedMillis());
+                }
+            }
+            return response;
+        });
     }
     
     /**
@@ -124,7 +542,10 @@ public class ProxyHttpClient {
         request.setTimestamp(System.currentTimeMillis());
         
         return sendRequest("/api/queue/add", request, QueueAddResponse.class)
-                .thenApply(response -> response != null && response.isSuccess());
+                .thenApply(response -> {
+                    invalidateQueue(playerId);
+                    return response != null && response.isSuccess();
+                });
     }
     
     /**
@@ -136,14 +557,444 @@ public class ProxyHttpClient {
         request.setTimestamp(System.currentTimeMillis());
         
         return sendRequest("/api/queue/remove", request, QueueRemoveResponse.class)
-                .thenApply(response -> response != null && response.isSuccess());
+                .thenApply(response -> {
+                    invalidateQueue(playerId);
+                    return response != null && response.isSuccess();
+                });
+    }
+    
+    /**
+     * 通知代理玩家入队，启用发件箱时缓冲合并后发送
+     */
+    public void queuePlayerAdded(UUID playerId, String playerName, boolean isVip) {
+        if (outbox != null) {
+            outbox.playerAdded(playerId, playerName, isVip);
+        } else {
+            addPlayerToQueue(playerId, playerName, isVip);
+        }
+    }
+    
+    /**
+     * 通知代理玩家离队，启用发件箱时缓冲合并后发送
+     */
+    public void queuePlayerRemoved(UUID playerId) {
+        if (outbox != null) {
+            outbox.playerRemoved(playerId);
+        } else {
+            removePlayerFromQueue(playerId);
+        }
+    }
+    
+    /**
+     * 发送一批队列变动，完成值为 false 表示网络或代理故障、需要重试
+     * 代理不支持批量同步时逐条发送，逐条发送不重试
+     */
+    private CompletableFuture<Boolean> syncQueue(QueueSyncRequest request) {
+        if (!queueSyncSupported) {
+            syncIndividually(request);
+            return CompletableFuture.completedFuture(true);
+        }
+        
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        Request httpRequest = post("/api/queue/sync", request).build();
+        
+        enqueue(httpRequest, new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                logFailure("队列变动同步失败", e);
+                future.complete(false);
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody responseBody = response.body()) {
+                    if (response.code() == 404 || response.code() == 405) {
+                        // 代理声明支持但实际没有该端点，本批及以后改为逐条发送
+                        logger.warning("代理服务器不支持队列变动批量同步，改为逐条发送");
+                        queueSyncSupported = false;
+                        syncIndividually(request);
+                        future.complete(true);
+                        return;
+                    }
+                    
+                    if (response.code() >= 500) {
+                        logger.warning("队列变动同步失败, 状态码: " + response.code());
+                        future.complete(false);
+                        return;
+                    }
+                    
+                    invalidateQueue(request);
+                    if (response.isSuccessful() && responseBody != null) {
+                        QueueSyncResponse result = readBody(responseBody, QueueSyncResponse.class);
+                        if (result != null && !result.isSuccess()) {
+                            logger.warning("代理拒绝队列变动批次 " + request.getSequence() + ": " + result.getMessage());
+                        }
+                    } else {
+                        // 请求本身有误，重试也不会成功
+                        logger.warning("队列变动批次 " + request.getSequence() + " 被拒绝, 状态码: " + response.code());
+                    }
+                    future.complete(true);
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "解析队列变动同步响应失败", e);
+                    future.complete(true);
+                }
+            }
+        });
+        
+        return future;
+    }
+    
+    /**
+     * 逐条发送一批队列变动，先移除后加入
+     */
+    private void syncIndividually(QueueSyncRequest request) {
+        for (QueueRemoveRequest remove : request.getRemoved()) {
+            removePlayerFromQueue(UUID.fromString(remove.getPlayerId()));
+        }
+        for (QueueAddRequest add : request.getAdded()) {
+            addPlayerToQueue(UUID.fromString(add.getPlayerId()), add.getPlayerName(), add.isVip());
+        }
+    }
+    
+    /**
+     * 批量同步后使相关缓存作废
+     */
+    private void invalidateQueue(QueueSyncRequest request) {
+        responseCache.invalidate(QUEUE_STATS);
+        request.getRemoved().forEach(remove -> responseCache.invalidate(QUEUE_INFO + remove.getPlayerId()));
+        request.getAdded().forEach(add -> responseCache.invalidate(QUEUE_INFO + add.getPlayerId()));
+    }
+    
+    /**
+     * 发件箱中是否没有待发送或发送中的变动，未启用发件箱时总是 true
+     */
+    public boolean isOutboxIdle() {
+        return outbox == null || outbox.isIdle();
+    }
+    
+    /**
+     * 代理是否支持队列摘要核对
+     */
+    public boolean isQueueDigestSupported() {
+        return queueDigestSupported;
+    }
+    
+    /**
+     * 用本地的总人数和根哈希查询代理端摘要，一致时代理只返回 match
+     * 代理返回 404 时停用摘要核对
+     */
+    public CompletableFuture<QueueDigestResponse> getQueueDigest(int buckets, int totalCount, long rootHash) {
+        String endpoint = "/api/queue/digest?buckets=" + buckets + "&count=" + totalCount + "&hash=" + QueueDigest.toHex(rootHash);
+        return sendUncachedGet(endpoint, QueueDigestResponse.class);
+    }
+    
+    /**
+     * 获取代理端指定桶中的成员
+     */
+    public CompletableFuture<QueueMembersResponse> getQueueMembers(int buckets, Collection<Integer> bucketIds) {
+        StringBuilder endpoint = new StringBuilder("/api/queue/members?buckets=").append(buckets).append("&ids=");
+        int i = 0;
+        for (int bucket : bucketIds) {
+            if (i++ > 0) {
+                endpoint.append(',');
+            }
+            endpoint.append(bucket);
+        }
+        return sendUncachedGet(endpoint.toString(), QueueMembersResponse.class);
+    }
+    
+    /**
+     * 获取发件箱统计，未启用发件箱时为 null
+     */
+    public QueueOutbox.OutboxStats getOutboxStats() {
+        return outbox != null ? outbox.getStats() : null;
+    }
+    
+    /**
+     * 队列变动后使相关缓存作废
+     */
+    private void invalidateQueue(UUID playerId) {
+        responseCache.invalidate(QUEUE_STATS);
+        responseCache.invalidate(QUEUE_INFO + playerId);
     }
     
     /**
      * 获取队列统计信息
      */
     public CompletableFuture<QueueStatsResponse> getQueueStats() {
-        return sendGetRequest("/api/queue/stats", QueueStatsResponse.class);
+        return sendGetRequest(QUEUE_STATS, QueueStatsResponse.class);
+    }
+    
+    /**
+     * 获取 GET 响应缓存统计
+     */
+    public ResponseCache.CacheStats getCacheStats() {
+        return responseCache.getStats();
+    }
+    
+    /**
+     * 设置目标服务器出现空位时的回调
+     */
+    public void setSlotListener(Runnable listener) {
+        this.slotListener = listener;
+    }
+    
+    /**
+     * 目标服务器人数已变，缓存和推送的状态都作废，下一次查询重新请求，直到代理推送新的状态
+     */
+    private void invalidateServerStatus() {
+        pushedStatus = null;
+        responseCache.invalidate(SERVER_STATUS);
+    }
+    
+    private void notifySlotAvailable() {
+        // 出现空位说明目标服务器状态已变，分发时重新查询
+        responseCache.invalidate(SERVER_STATUS);
+        Runnable listener = slotListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * 开始空位长轮询
+     * 代理在目标服务器出现空位或超时后返回，返回后立即发起下一次；
+     * 代理不支持该端点时自动停止，由心跳和兜底轮询代替
+     */
+    public void startSlotWatch(int timeoutSeconds) {
+        if (slotWatchRunning) {
+            return;
+        }
+        slotWatchRunning = true;
+        
+        OkHttpClient longPollClient = httpClient.newBuilder()
+                .dispatcher(streamDispatcher)
+                .readTimeout(timeoutSeconds + 10, TimeUnit.SECONDS)
+                .build();
+        slotWatchClient = longPollClient;
+        slotWatchTimeout = timeoutSeconds;
+        pollSlots(longPollClient, timeoutSeconds);
+    }
+    
+    private void pollSlots(OkHttpClient client, int timeoutSeconds) {
+        if (!slotWatchRunning) {
+            return;
+        }
+        if (isEventStreamConnected()) {
+            // 推送通道断开时由 resumeSlotWatch 恢复；标记后连接已断开则自行恢复
+            slotWatchParked.set(true);
+            if (isEventStreamConnected() || !slotWatchParked.compareAndSet(true, false)) {
+                return;
+            }
+        }
+        
+        Request request = new Request.Builder()
+                .url(baseUrl + "/api/server/slots/wait?timeout=" + timeoutSeconds)
+                .get()
+                .build();
+        
+        long startTime = System.currentTimeMillis();
+        Call call = client.newCall(request);
+        slotWatchCall = call;
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (call.isCanceled()) {
+                    // 推送通道接管时取消了本次轮询
+                    pollSlots(client, timeoutSeconds);
+                } else if (slotWatchRunning) {
+                    logger.fine("空位长轮询失败: " + e.getMessage());
+                    retrySlotWatch(client, timeoutSeconds);
+                }
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody responseBody = response.body()) {
+                    if (response.code() == 404 || response.code() == 405) {
+                        logger.info("代理服务器不支持空位长轮询，改用心跳和定时轮询");
+                        slotWatchRunning = false;
+                        return;
+                    }
+                    
+                    if (response.isSuccessful() && responseBody != null) {
+                        ServerStatusResponse status = codecs.read(responseBody.source(), ServerStatusResponse.class);
+                        if (status != null && status.isOnline() && status.hasAvailableSlots()) {
+                            notifySlotAvailable();
+                        }
+                        
+                        // 空位一直未被填满时代理会立即返回，限制重新发起的频率
+                        if (System.currentTimeMillis() - startTime < 1000) {
+                            executors.schedule(PluginExecutors.Lane.HTTP,
+                                    () -> pollSlots(client, timeoutSeconds), 1, TimeUnit.SECONDS);
+                        } else {
+                            pollSlots(client, timeoutSeconds);
+                        }
+                    } else {
+                        retrySlotWatch(client, timeoutSeconds);
+                    }
+                } catch (Exception e) {
+                    logger.log(Level.FINE, "解析空位长轮询响应失败", e);
+                    retrySlotWatch(client, timeoutSeconds);
+                }
+            }
+        });
+    }
+    
+    /**
+     * 长轮询出错后稍等再重试，避免代理异常时空转
+     */
+    private void retrySlotWatch(OkHttpClient client, int timeoutSeconds) {
+        executors.schedule(PluginExecutors.Lane.HTTP, () -> pollSlots(client, timeoutSeconds), 5, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 推送通道断开后恢复暂停的长轮询
+     */
+    private void resumeSlotWatch() {
+        OkHttpClient client = slotWatchClient;
+        if (slotWatchRunning && client != null && slotWatchParked.compareAndSet(true, false)) {
+            pollSlots(client, slotWatchTimeout);
+        }
+    }
+    
+    /**
+     * 设置玩家到达目标服务器时的回调，由代理推送
+     */
+    public void setArrivalListener(Consumer<UUID> listener) {
+        this.arrivalListener = listener;
+    }
+    
+    /**
+     * 连接代理事件推送，连接期间空位、到达和状态变化由代理推送，不再轮询
+     */
+    private synchronized void startEventStream() {
+        if (eventStream == null) {
+            OkHttpClient streamClient = httpClient.newBuilder()
+                    .dispatcher(streamDispatcher)
+                    .readTimeout(0, TimeUnit.MILLISECONDS)
+                    .pingInterval(Math.max(1, plugin.getConfig().getInt("proxy.push.ping-interval", 15)), TimeUnit.SECONDS)
+                    .build();
+            eventStream = new ProxyEventStream(streamClient, baseUrl + "/api/events?server=queue-server", codecs,
+                    new EventStreamListener(), executors.getTimer(),
+                    plugin.getConfig().getLong("proxy.push.max-backoff-ms", 30000), logger);
+        }
+        eventStream.start();
+    }
+    
+    /**
+     * 推送通道是否已连接
+     */
+    public boolean isEventStreamConnected() {
+        ProxyEventStream stream;
+        synchronized (this) {
+            stream = eventStream;
+        }
+        return stream != null && stream.isConnected();
+    }
+    
+    /**
+     * 获取推送通道统计，未启用时为 null
+     */
+    public synchronized ProxyEventStream.StreamStats getEventStreamStats() {
+        return eventStream != null ? eventStream.getStats() : null;
+    }
+    
+    /**
+     * 直接使用推送状态、未发请求的状态查询次数
+     */
+    public long getPushedStatusReads() {
+        return pushedStatusReads.get();
+    }
+    
+    /**
+     * 处理代理推送的事件
+     */
+    private class EventStreamListener implements ProxyEventStream.Listener {
+        @Override
+        public void onConnected() {
+            // 推送通道接管空位通知，取消进行中的长轮询
+            Call call = slotWatchCall;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+        
+        @Override
+        public void onEvent(ProxyEvent event) {
+            switch (event.getType()) {
+                case ProxyEventStream.TARGET_HEALTH:
+                    ServerStatusResponse status = new ServerStatusResponse();
+                    status.setOnline(event.isOnline());
+                    status.setCurrentPlayers(event.getCurrentPlayers());
+                    status.setMaxPlayers(event.getMaxPlayers());
+                    status.setAvailableSlots(event.getAvailableSlots() >= 0 ? event.getAvailableSlots()
+                            : Math.max(0, event.getMaxPlayers() - event.getCurrentPlayers()));
+                    status.setTps(event.getTps());
+                    status.setStatus(event.getStatus());
+                    status.setTimestamp(event.getTimestamp());
+                    pushedStatus = status;
+                    if (status.isOnline() && status.hasAvailableSlots()) {
+                        notifySlotAvailable();
+                    }
+                    break;
+                case ProxyEventStream.SLOT_FREE:
+                    ServerStatusResponse current = pushedStatus;
+                    if (current != null && event.getAvailableSlots() >= 0) {
+                        pushedStatus = withAvailableSlots(current, event.getAvailableSlots());
+                    }
+                    notifySlotAvailable();
+                    break;
+                case ProxyEventStream.PLAYER_ARRIVED:
+                    Consumer<UUID> listener = arrivalListener;
+                    if (listener != null && event.getPlayerId() != null) {
+                        try {
+                            listener.accept(UUID.fromString(event.getPlayerId()));
+                        } catch (IllegalArgumentException e) {
+                            logger.fine("代理推送的玩家ID无效: " + event.getPlayerId());
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        @Override
+        public void onResync() {
+            // 可能漏掉了状态变化，重新查询一次并尝试分发
+            invalidateServerStatus();
+            notifySlotAvailable();
+        }
+        
+        @Override
+        public void onDisconnected() {
+            pushedStatus = null;
+            resumeSlotWatch();
+        }
+    }
+    
+    private static ServerStatusResponse withAvailableSlots(ServerStatusResponse status, int availableSlots) {
+        ServerStatusResponse copy = new ServerStatusResponse();
+        copy.setOnline(status.isOnline());
+        copy.setCurrentPlayers(status.getCurrentPlayers());
+        copy.setMaxPlayers(status.getMaxPlayers());
+        copy.setAvailableSlots(availableSlots);
+        copy.setTps(status.getTps());
+        copy.setStatus(status.getStatus());
+        copy.setTimestamp(System.currentTimeMillis());
+        return copy;
+    }
+    
+    /**
+     * 停止空位长轮询
+     */
+    public void stopSlotWatch() {
+        slotWatchRunning = false;
+        Call call = slotWatchCall;
+        if (call != null) {
+            call.cancel();
+        }
     }
     
     /**
@@ -153,27 +1004,21 @@ public class ProxyHttpClient {
         CompletableFuture<R> future = new CompletableFuture<>();
         
         try {
-            String jsonBody = gson.toJson(requestData);
-            RequestBody body = RequestBody.create(jsonBody, JSON);
-            
-            Request request = new Request.Builder()
-                    .url(baseUrl + endpoint)
-                    .post(body)
-                    .build();
+            Request request = post(endpoint, requestData).build();
             
-            httpClient.newCall(request).enqueue(new Callback() {
+            enqueue(request, new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
-                    logger.log(Level.WARNING, "HTTP请求失败: " + endpoint, e);
+                    logFailure("HTTP请求失败: " + endpoint, e);
                     future.complete(null);
                 }
                 
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
+                    negotiatedProtocol = response.protocol();
                     try (ResponseBody responseBody = response.body()) {
                         if (response.isSuccessful() && responseBody != null) {
-                            String jsonResponse = responseBody.string();
-                            R result = gson.fromJson(jsonResponse, responseClass);
+                            R result = readBody(responseBody, responseClass);
                             future.complete(result);
                         } else {
                             logger.warning("HTTP请求失败: " + endpoint + ", 状态码: " + response.code());
@@ -194,42 +1039,145 @@ public class ProxyHttpClient {
         return future;
     }
     
+    /**
+     * 构建POST请求
+     * 已协商二进制格式且消息能用二进制表示时使用二进制请求体，否则使用 JSON
+     */
+    private Request.Builder post(String endpoint, Object requestData) {
+        Request.Builder builder = new Request.Builder().url(baseUrl + endpoint);
+        RequestBody body = binaryProtocol ? binaryCodecs.requestBody(requestData) : null;
+        if (body == null) {
+            return builder.post(codecs.requestBody(requestData, JSON));
+        }
+        // 代理拒绝二进制请求体时由 WireFormatFallback 按原消息改用 JSON 重发
+        return builder.post(body)
+                .header("Accept", BinaryCodecs.MEDIA_TYPE + ", application/json")
+                .tag(JsonFallback.class, new JsonFallback(requestData));
+    }
+    
+    /**
+     * 按响应的内容类型解析响应体
+     */
+    private <R> R readBody(ResponseBody responseBody, Class<R> responseClass) throws IOException {
+        if (BinaryCodecs.isBinary(responseBody.contentType())) {
+            return binaryCodecs.read(responseBody.source(), responseClass);
+        }
+        return codecs.read(responseBody.source(), responseClass);
+    }
+    
+    /**
+     * 当前使用的消息格式
+     */
+    public String getWireFormat() {
+        return binaryProtocol ? "binary-v1" : "json";
+    }
+    
     /**
      * 发送GET请求
+     * 同一地址的并发请求合并为一次，有效期内复用缓存的响应体
      */
     private <R> CompletableFuture<R> sendGetRequest(String endpoint, Class<R> responseClass) {
-        CompletableFuture<R> future = new CompletableFuture<>();
+        return responseCache.get(endpoint, previous -> fetch(endpoint, previous))
+                .thenApply(entry -> decode(endpoint, entry, responseClass));
+    }
+    
+    /**
+     * 发送不经缓存的GET请求，用于一次性的大响应
+     */
+    private <R> CompletableFuture<R> sendUncachedGet(String endpoint, Class<R> responseClass) {
+        return fetch(endpoint, null).thenApply(entry -> decode(endpoint, entry, responseClass));
+    }
+    
+    private <R> R decode(String endpoint, ResponseCache.Entry entry, Class<R> responseClass) {
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return codecs.read(new Buffer().write(entry.getBody()), responseClass);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "解析HTTP GET响应失败: " + endpoint, e);
+            return null;
+        }
+    }
+    
+    /**
+     * 请求地址的响应体，有上一次的 ETag 时带上 If-None-Match，代理返回 304 时沿用上一次的响应体
+     * 端点有足够的延迟样本时，超过 p95 延迟仍未返回就再发一个相同请求，先成功的为准
+     */
+    private CompletableFuture<ResponseCache.Entry> fetch(String endpoint, ResponseCache.Entry previous) {
+        CompletableFuture<ResponseCache.Entry> future = new CompletableFuture<>();
         
         try {
-            Request request = new Request.Builder()
+            Request.Builder builder = new Request.Builder()
                     .url(baseUrl + endpoint)
-                    .get()
-                    .build();
+                    .get();
+            if (previous != null && previous.getEtag() != null) {
+                builder.header("If-None-Match", previous.getEtag());
+            }
+            Request request = builder.build();
+            
+            List<Call> calls = new CopyOnWriteArrayList<>();
+            AtomicInteger outstanding = new AtomicInteger(1);
+            AtomicBoolean settled = new AtomicBoolean(false);
             
-            httpClient.newCall(request).enqueue(new Callback() {
+            Callback callback = new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
-                    logger.log(Level.WARNING, "HTTP GET请求失败: " + endpoint, e);
-                    future.complete(null);
+                    if (!call.isCanceled()) {
+                        logFailure("HTTP GET请求失败: " + endpoint, e);
+                    }
+                    finish(null);
                 }
                 
                 @Override
-                public void onResponse(Call call, Response response) throws IOException {
+                public void onResponse(Call call, Response response) {
+                    negotiatedProtocol = response.protocol();
+                    ResponseCache.Entry entry = null;
                     try (ResponseBody responseBody = response.body()) {
-                        if (response.isSuccessful() && responseBody != null) {
-                            String jsonResponse = responseBody.string();
-                            R result = gson.fromJson(jsonResponse, responseClass);
-                            future.complete(result);
+                        if (response.code() == 304 && previous != null) {
+                            entry = previous;
+                        } else if (response.isSuccessful() && responseBody != null) {
+                            entry = new ResponseCache.Entry(responseBody.source().readByteString(), response.header("ETag"));
+                        } else if (response.code() == 404 && endpoint.startsWith("/api/queue/digest")) {
+                            // 代理声明支持但实际没有该端点
+                            logger.warning("代理服务器不支持队列摘要核对，已停用");
+                            queueDigestSupported = false;
                         } else {
                             logger.warning("HTTP GET请求失败: " + endpoint + ", 状态码: " + response.code());
-                            future.complete(null);
                         }
                     } catch (Exception e) {
-                        logger.log(Level.WARNING, "解析HTTP GET响应失败: " + endpoint, e);
+                        if (!call.isCanceled()) {
+                            logger.log(Level.WARNING, "读取HTTP GET响应失败: " + endpoint, e);
+                        }
+                    }
+                    finish(entry);
+                }
+                
+                // 先成功的请求完成结果并取消其余请求，全部失败时以 null 完成
+                private void finish(ResponseCache.Entry entry) {
+                    if (entry != null) {
+                        if (settled.compareAndSet(false, true)) {
+                            future.complete(entry);
+                            calls.forEach(Call::cancel);
+                        }
+                    } else if (outstanding.decrementAndGet() == 0 && settled.compareAndSet(false, true)) {
                         future.complete(null);
                     }
                 }
-            });
+            };
+            
+            calls.add(enqueue(request, callback));
+            
+            long hedgeDelay = hedgeEnabled ? guard.endpoint(endpoint).hedgeDelayMillis() : -1;
+            if (hedgeDelay > 0 && !settled.get()) {
+                ScheduledFuture<?> hedge = executors.schedule(PluginExecutors.Lane.HTTP, () -> {
+                    if (!settled.get() && guard.endpoint(endpoint).tryHedge()) {
+                        outstanding.incrementAndGet();
+                        calls.add(enqueue(request, callback));
+                    }
+                }, hedgeDelay, TimeUnit.MILLISECONDS);
+                future.whenComplete((entry, error) -> hedge.cancel(false));
+            }
             
         } catch (Exception e) {
             logger.log(Level.WARNING, "构建HTTP GET请求失败: " + endpoint, e);
@@ -240,24 +1188,81 @@ public class ProxyHttpClient {
     }
     
     /**
-     * 获取当前TPS
+     * 经端点保护发送请求
+     * 端点熔断时不发请求，直接以 CircuitOpenException 回调失败；
+     * 否则按端点的自适应超时限制整次请求，并把结果计入熔断统计
      */
-    private double getCurrentTPS() {
-        try {
-            // 尝试获取Paper TPS
-            return plugin.getServer().getTPS()[0];
-        } catch (Exception e) {
-            // 如果不支持，返回默认值
-            return 20.0;
+    private Call enqueue(Request request, Callback callback) {
+        EndpointGuard.Endpoint endpoint = guard.endpoint(request.url().encodedPath());
+        Call call = httpClient.newCall(request);
+        if (!endpoint.tryAcquire(System.currentTimeMillis())) {
+            callback.onFailure(call, new EndpointGuard.CircuitOpenException(request.url().encodedPath()));
+            return call;
         }
+        
+        call.timeout().timeout(endpoint.timeoutMillis(), TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (call.isCanceled()) {
+                    endpoint.onCancelled();
+                } else {
+                    endpoint.onFailure((System.nanoTime() - start) / 1_000_000, e instanceof InterruptedIOException,
+                            System.currentTimeMillis());
+                }
+                callback.onFailure(call, e);
+            }
+            
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                if (response.code() >= 500) {
+                    endpoint.onFailure(elapsed, false, System.currentTimeMillis());
+                } else {
+                    endpoint.onSuccess(elapsed);
+                }
+                callback.onResponse(call, response);
+            }
+        });
+        return call;
+    }
+    
+    /**
+     * 记录请求失败，熔断期间的快速失败只记调试日志
+     */
+    private void logFailure(String message, IOException e) {
+        if (e instanceof EndpointGuard.CircuitOpenException) {
+            logger.fine(message + " (" + e.getMessage() + ")");
+        } else {
+            logger.log(Level.WARNING, message, e);
+        }
+    }
+    
+    /**
+     * 获取各代理端点的熔断与超时统计
+     */
+    public Map<String, EndpointGuard.EndpointStats> getEndpointStats() {
+        return guard.getStats();
     }
     
     /**
      * 关闭HTTP客户端
      */
     public void shutdown() {
+        stopSlotWatch();
+        synchronized (this) {
+            if (eventStream != null) {
+                eventStream.stop();
+            }
+        }
+        if (outbox != null) {
+            outbox.close(2000);
+        }
         try {
-            httpClient.dispatcher().executorService().shutdown();
+            // 执行线程归插件线程运行时管理，这里只取消未完成的请求
+            httpClient.dispatcher().cancelAll();
+            streamDispatcher.cancelAll();
             httpClient.connectionPool().evictAll();
             logger.info("HTTP代理客户端已关闭");
         } catch (Exception e) {
@@ -287,6 +1292,44 @@ public class ProxyHttpClient {
         }
     }
     
+    /**
+     * 以二进制发送的请求保留原消息，用于改用 JSON 重发
+     */
+    private static final class JsonFallback {
+        private final Object requestData;
+        
+        JsonFallback(Object requestData) {
+            this.requestData = requestData;
+        }
+    }
+    
+    /**
+     * 消息格式回退拦截器
+     * 代理以 415 拒绝二进制请求体时停用二进制格式，并用 JSON 重发同一请求
+     */
+    private class WireFormatFallback implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            JsonFallback fallback = request.tag(JsonFallback.class);
+            if (response.code() != 415 || fallback == null) {
+                return response;
+            }
+            
+            response.close();
+            if (binaryProtocol) {
+                binaryProtocol = false;
+                logger.warning("代理服务器不接受二进制消息格式，改用 JSON");
+            }
+            return chain.proceed(request.newBuilder()
+                    .post(codecs.requestBody(fallback.requestData, JSON))
+                    .removeHeader("Accept")
+                    .tag(JsonFallback.class, null)
+                    .build());
+        }
+    }
+    
     /**
      * 日志拦截器
      */
@@ -0,0 +1,394 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.QueueAddRequest;
+import com.github.queueserver.forge.http.model.QueueRemoveRequest;
+import com.github.queueserver.forge.http.model.QueueSyncRequest;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 队列成员变动发件箱
+ * 入队和离队不再各自立即通知代理，而是先缓冲一小段时间，按玩家合并后整批发送：
+ * 尚未发出的入队遇到离队时两者抵消，离队后重新入队记为先移除再加入
+ *
+ * 同一时刻只有一批在发送，批次按序号依次发出；发送失败的批次并回缓冲区，
+ * 排在之后发生的变动之前，稍后重试
+ */
+public class QueueOutbox {
+
+    /**
+     * 玩家尚未发出的净变动
+     */
+    private enum Change {
+        ADD,
+        REMOVE,
+        // 离开后重新加入，发送时先移除再加入
+        READD
+    }
+
+    private static final class Pending {
+        private Change change;
+        private String playerName;
+        private boolean vip;
+        private long timestamp;
+
+        Pending(Change change, String playerName, boolean vip, long timestamp) {
+            this.change = change;
+            this.playerName = playerName;
+            this.vip = vip;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final Logger logger;
+    private final Function<QueueSyncRequest, CompletableFuture<Boolean>> sender;
+    private final ScheduledExecutorService timer;
+    private final long lingerMillis;
+    private final long retryMillis;
+    private final int maxBatchSize;
+    private final String serverName;
+
+    // 插件本次启动的时间，与序号一起标识批次
+    private final long epoch = System.currentTimeMillis();
+
+    // 以下字段在 this 上同步
+    private LinkedHashMap<UUID, Pending> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    private boolean flushInFlight = false;
+    private boolean closed = false;
+    private long nextSequence = 1;
+
+    // 统计信息
+    private long changesReceived = 0;
+    private long changesCancelled = 0;
+    private long batchesSent = 0;
+    private long changesSent = 0;
+    private long failedBatches = 0;
+
+    /**
+     * @param sender 发送一批变动，完成值为 false 时表示需要重试
+     * @param timer 计时器，缓冲到期后在其上组装并发出批次
+     * @param lingerMillis 第一条变动到达后等待合并的时间
+     * @param maxBatchSize 单批最多包含的玩家数，缓冲达到此数时立即发送
+     */
+    public QueueOutbox(Function<QueueSyncRequest, CompletableFuture<Boolean>> sender, ScheduledExecutorService timer,
+                       long lingerMillis, int maxBatchSize, String serverName, Logger logger) {
+        this.logger = logger;
+        this.sender = sender;
+        this.timer = timer;
+        this.lingerMillis = Math.max(1, lingerMillis);
+        this.retryMillis = Math.max(1000, this.lingerMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.serverName = serverName;
+    }
+
+    /**
+     * 记录玩家入队，任意线程可调用
+     */
+    public void playerAdded(UUID playerId, String playerName, boolean vip) {
+        synchronized (this) {
+            changesReceived++;
+            merge(pending, playerId, true, playerName, vip, System.currentTimeMillis());
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * 记录玩家离队，任意线程可调用
+     */
+    public void playerRemoved(UUID playerId) {
+        synchronized (this) {
+            changesReceived++;
+            merge(pending, playerId, false, null, false, System.currentTimeMillis());
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * 将一次变动并入缓冲区
+     */
+    private void merge(Map<UUID, Pending> target, UUID playerId, boolean add, String playerName, boolean vip, long timestamp) {
+        Pending current = target.get(playerId);
+        if (current == null) {
+            target.put(playerId, new Pending(add ? Change.ADD : Change.REMOVE, playerName, vip, timestamp));
+            return;
+        }
+
+        if (add) {
+            if (current.change == Change.REMOVE) {
+                // 移到末尾，保持与其他玩家的入队先后
+                target.remove(playerId);
+                target.put(playerId, current);
+                current.change = Change.READD;
+            }
+            current.playerName = playerName;
+            current.vip = vip;
+            current.timestamp = timestamp;
+            return;
+        }
+
+        switch (current.change) {
+            case ADD:
+                // 代理从未得知这次入队，两者抵消
+                target.remove(playerId);
+                changesCancelled += 2;
+                break;
+            case READD:
+                current.change = Change.REMOVE;
+                current.timestamp = timestamp;
+                changesCancelled += 2;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (closed || flushInFlight || pending.isEmpty()) {
+            return;
+        }
+        try {
+            if (pending.size() >= maxBatchSize) {
+                flushScheduled = true;
+                timer.execute(this::flush);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                timer.schedule(this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // 计时器已关闭，剩余变动由 close 发送
+            flushScheduled = false;
+        }
+    }
+
+    /**
+     * 取出一批变动并发送
+     */
+    private void flush() {
+        Map<UUID, Pending> batch;
+        QueueSyncRequest request;
+        synchronized (this) {
+            flushScheduled = false;
+            if (flushInFlight || pending.isEmpty()) {
+                return;
+            }
+            batch = take();
+            request = buildRequest(batch);
+            flushInFlight = true;
+        }
+
+        CompletableFuture<Boolean> result;
+        try {
+            result = sender.apply(request);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "发送队列变动失败", e);
+            result = CompletableFuture.completedFuture(false);
+        }
+        result.whenComplete((success, error) -> onSent(batch, request, error == null && Boolean.TRUE.equals(success)));
+    }
+
+    private synchronized void onSent(Map<UUID, Pending> batch, QueueSyncRequest request, boolean success) {
+        flushInFlight = false;
+        if (success) {
+            batchesSent++;
+            changesSent += request.getRemoved().size() + request.getAdded().size();
+            scheduleFlush();
+            return;
+        }
+
+        failedBatches++;
+        logger.fine("队列变动批次 " + request.getSequence() + " 发送失败，" + retryMillis + "ms 后重试");
+        requeue(batch);
+        if (!closed && !flushScheduled) {
+            try {
+                timer.schedule(this::flush, retryMillis, TimeUnit.MILLISECONDS);
+                flushScheduled = true;
+            } catch (RejectedExecutionException e) {
+                // 计时器已关闭
+            }
+        }
+    }
+
+    /**
+     * 按顺序取出最多一批玩家的变动
+     */
+    private LinkedHashMap<UUID, Pending> take() {
+        if (pending.size() <= maxBatchSize) {
+            LinkedHashMap<UUID, Pending> batch = pending;
+            pending = new LinkedHashMap<>();
+            return batch;
+        }
+
+        LinkedHashMap<UUID, Pending> batch = new LinkedHashMap<>();
+        Iterator<Map.Entry<UUID, Pending>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && batch.size() < maxBatchSize) {
+            Map.Entry<UUID, Pending> entry = iterator.next();
+            batch.put(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    /**
+     * 失败的批次并回缓冲区，之后到达的变动依次叠加在它之上
+     */
+    private void requeue(Map<UUID, Pending> batch) {
+        LinkedHashMap<UUID, Pending> merged = new LinkedHashMap<>(batch);
+        pending.forEach((playerId, later) -> {
+            if (later.change != Change.ADD) {
+                merge(merged, playerId, false, null, false, later.timestamp);
+            }
+            if (later.change != Change.REMOVE) {
+                merge(merged, playerId, true, later.playerName, later.vip, later.timestamp);
+            }
+        });
+        pending = merged;
+    }
+
+    private QueueSyncRequest buildRequest(Map<UUID, Pending> batch) {
+        QueueSyncRequest request = new QueueSyncRequest();
+        request.setServerName(serverName);
+        request.setEpoch(epoch);
+        request.setSequence(nextSequence++);
+        request.setTimestamp(System.currentTimeMillis());
+
+        batch.forEach((playerId, change) -> {
+            if (change.change != Change.ADD) {
+                QueueRemoveRequest remove = new QueueRemoveRequest();
+                remove.setPlayerId(playerId.toString());
+                remove.setTimestamp(change.timestamp);
+                request.getRemoved().add(remove);
+            }
+            if (change.change != Change.REMOVE) {
+                QueueAddRequest add = new QueueAddRequest();
+                add.setPlayerId(playerId.toString());
+                add.setPlayerName(change.playerName);
+                add.setVip(change.vip);
+                add.setTimestamp(change.timestamp);
+                request.getAdded().add(add);
+            }
+        });
+        return request;
+    }
+
+    /**
+     * 停止缓冲并在超时前尽量发出剩余的变动，关闭插件时调用
+     */
+    public void close(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            Map<UUID, Pending> batch;
+            QueueSyncRequest request;
+            synchronized (this) {
+                closed = true;
+                if (pending.isEmpty() || flushInFlight) {
+                    if (!pending.isEmpty()) {
+                        logger.warning("关闭时仍有 " + pending.size() + " 个队列变动未发送");
+                    }
+                    return;
+                }
+                batch = take();
+                request = buildRequest(batch);
+                flushInFlight = true;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            boolean success = false;
+            try {
+                success = remaining > 0 && Boolean.TRUE.equals(sender.apply(request).get(remaining, TimeUnit.MILLISECONDS));
+            } catch (Exception e) {
+                logger.log(Level.FINE, "关闭时发送队列变动失败", e);
+            }
+            onSent(batch, request, success);
+            if (!success) {
+                synchronized (this) {
+                    logger.warning("关闭时仍有 " + pending.size() + " 个队列变动未发送");
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 是否没有待发送或发送中的变动
+     */
+    public synchronized boolean isIdle() {
+        return pending.isEmpty() && !flushInFlight;
+    }
+
+    /**
+     * 获取发件箱统计
+     */
+    public synchronized OutboxStats getStats() {
+        return new OutboxStats(pending.size(), changesReceived, changesCancelled, batchesSent, changesSent, failedBatches);
+    }
+
+    /**
+     * 发件箱统计信息
+     */
+    public static class OutboxStats {
+        private final int pendingPlayers;
+        private final long changesReceived;
+        private final long changesCancelled;
+        private final long batchesSent;
+        private final long changesSent;
+        private final long failedBatches;
+
+        public OutboxStats(int pendingPlayers, long changesReceived, long changesCancelled, long batchesSent,
+                           long changesSent, long failedBatches) {
+            this.pendingPlayers = pendingPlayers;
+            this.changesReceived = changesReceived;
+            this.changesCancelled = changesCancelled;
+            this.batchesSent = batchesSent;
+            this.changesSent = changesSent;
+            this.failedBatches = failedBatches;
+        }
+
+        /**
+         * 尚未发出变动的玩家数
+         */
+        public int getPendingPlayers() {
+            return pendingPlayers;
+        }
+
+        public long getChangesReceived() {
+            return changesReceived;
+        }
+
+        /**
+         * 入队后离队、发出前相互抵消的变动数
+         */
+        public long getChangesCancelled() {
+            return changesCancelled;
+        }
+
+        public long getBatchesSent() {
+            return batchesSent;
+        }
+
+        public long getChangesSent() {
+            return changesSent;
+        }
+
+        public long getFailedBatches() {
+            return failedBatches;
+        }
+
+        /**
+         * 平均每个请求承载的变动数，即请求数的缩减倍数
+         */
+        public double getReductionFactor() {
+            return batchesSent == 0 ? 0 : (double) changesReceived / batchesSent;
+        }
+    }
+}
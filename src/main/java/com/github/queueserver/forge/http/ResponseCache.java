@@ -0,0 +1,263 @@
+package com.github.queueserver.forge.http;
+
+import okio.ByteString;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 代理 GET 响应缓存
+ * 同一地址的并发请求共用一次网络调用；响应体在有效期内直接复用，
+ * 过期后带上 ETag 重新验证，代理返回 304 时沿用缓存的响应体
+ *
+ * 缓存的是原始响应体，每个调用方各自解析，拿到的对象互不影响
+ *
+ * 每个地址的缓存与进行中的请求放在同一个槽位里，由槽位的锁保护；
+ * 失效时槽位代数加一，之前发起的请求完成后只返回给等待者，不再写入缓存
+ */
+public class ResponseCache {
+
+    // 超过此数量时清除已过期的条目
+    private static final int MAX_ENTRIES = 1024;
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    /**
+     * @param ttlMillis 响应体的有效期，0 表示不缓存，只合并并发请求
+     */
+    public ResponseCache(long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    ResponseCache(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = Math.max(0, ttlMillis);
+        this.clock = clock;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * 获取地址的响应体
+     * 缓存有效时直接返回；已有同地址的请求在进行时等待它的结果；
+     * 否则调用 loader 发起请求，loader 收到上一次的条目（可能为 null）用于重新验证，
+     * 内容未变时返回该条目本身；请求失败时返回 null，失败结果不缓存
+     */
+    CompletableFuture<Entry> get(String key, Function<Entry, CompletableFuture<Entry>> loader) {
+        Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+        Entry cached;
+        long generation;
+        CompletableFuture<Entry> future;
+        synchronized (slot) {
+            cached = slot.entry;
+            if (cached != null && clock.getAsLong() - slot.fetchedAt < ttlMillis) {
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(cached);
+            }
+            if (slot.loading != null) {
+                coalesced.incrementAndGet();
+                return slot.loading;
+            }
+            future = new CompletableFuture<>();
+            slot.loading = future;
+            generation = slot.generation;
+        }
+
+        // 在锁外发起请求，loader 同步完成时也不会在持锁时回调
+        fetches.incrementAndGet();
+        CompletableFuture<Entry> load;
+        try {
+            load = loader.apply(cached);
+        } catch (RuntimeException e) {
+            load = CompletableFuture.completedFuture(null);
+        }
+        load.whenComplete((entry, error) -> {
+            Entry result = error == null ? entry : null;
+            if (result != null && result == cached) {
+                notModified.incrementAndGet();
+            }
+            synchronized (slot) {
+                if (slot.loading == future) {
+                    slot.loading = null;
+                }
+                // 请求期间地址已失效时，结果可能早于失效，不写入缓存
+                if (result != null && slot.generation == generation) {
+                    slot.entry = result;
+                    slot.fetchedAt = clock.getAsLong();
+                }
+            }
+            if (slots.size() > MAX_ENTRIES) {
+                purge();
+            }
+            future.complete(result);
+        });
+        return future;
+    }
+
+    /**
+     * 清除已过期且没有进行中请求的槽位
+     */
+    private void purge() {
+        long now = clock.getAsLong();
+        slots.values().removeIf(slot -> {
+            synchronized (slot) {
+                return slot.loading == null && now - slot.fetchedAt >= ttlMillis;
+            }
+        });
+    }
+
+    /**
+     * 使地址的缓存失效，下一次获取会重新请求
+     * 进行中的请求不再被合并，完成后也不写入缓存；保留 ETag，代理内容未变时仍可返回 304
+     */
+    public void invalidate(String key) {
+        Slot slot = slots.get(key);
+        if (slot != null) {
+            synchronized (slot) {
+                slot.generation++;
+                slot.fetchedAt = 0;
+                slot.loading = null;
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        slots.clear();
+    }
+
+    /**
+     * 获取缓存统计
+     */
+    public CacheStats getStats() {
+        int entries = 0;
+        int inFlight = 0;
+        for (Slot slot : slots.values()) {
+            synchronized (slot) {
+                if (slot.entry != null) {
+                    entries++;
+                }
+                if (slot.loading != null) {
+                    inFlight++;
+                }
+            }
+        }
+        return new CacheStats(entries, inFlight, hits.get(), coalesced.get(), fetches.get(), notModified.get());
+    }
+
+    /**
+     * 一个地址的缓存状态，字段都在槽位锁内读写
+     */
+    private static final class Slot {
+        private Entry entry;
+        private long fetchedAt;
+        private CompletableFuture<Entry> loading;
+        // 每次失效加一
+        private long generation;
+    }
+
+    /**
+     * 缓存的响应
+     */
+    static final class Entry {
+        private final ByteString body;
+        private final String etag;
+
+        Entry(ByteString body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+
+        ByteString getBody() {
+            return body;
+        }
+
+        /**
+         * 响应携带的 ETag，没有时为 null
+         */
+        String getEtag() {
+            return etag;
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public static class CacheStats {
+        private final int entries;
+        private final int inFlight;
+        private final long hits;
+        private final long coalesced;
+        private final long fetches;
+        private final long notModified;
+
+        public CacheStats(int entries, int inFlight, long hits, long coalesced, long fetches, long notModified) {
+            this.entries = entries;
+            this.inFlight = inFlight;
+            this.hits = hits;
+            this.coalesced = coalesced;
+            this.fetches = fetches;
+            this.notModified = notModified;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * 在有效期内直接返回缓存的次数
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * 并入进行中请求的次数
+         */
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        /**
+         * 实际发出的请求数
+         */
+        public long getFetches() {
+            return fetches;
+        }
+
+        /**
+         * 代理返回 304、沿用缓存响应体的次数
+         */
+        public long getNotModified() {
+            return notModified;
+        }
+
+        /**
+         * 不发请求就得到结果的比例
+         */
+        public double getSavedRate() {
+            long total = hits + coalesced + fetches;
+            return total == 0 ? 0 : (double) (hits + coalesced) / total;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.queueserver.forge.http.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量玩家传送请求
+ */
+public class BatchTransferRequest {
+    private String sourceServer;
+    private String targetServer;
+    private String leaseId;
+    private List<PlayerTransferRequest> transfers = new ArrayList<>();
+    private long timestamp;
+    
+    // Getters and Setters
+    public String getSourceServer() {
+        return sourceServer;
+    }
+    
+    public void setSourceServer(String sourceServer) {
+        this.sourceServer = sourceServer;
+    }
+    
+    public String getTargetServer() {
+        return targetServer;
+    }
+    
+    public void setTargetServer(String targetServer) {
+        this.targetServer = targetServer;
+    }
+    
+    public List<PlayerTransferRequest> getTransfers() {
+        return transfers;
+    }
+    
+    public void setTransfers(List<PlayerTransferRequest> transfers) {
+        this.transfers = transfers;
+    }
+    
+    /**
+     * 使用的空位租约，代理不支持租约时为空
+     */
+    public String getLeaseId() {
+        return leaseId;
+    }
+    
+    public void setLeaseId(String leaseId) {
+        this.leaseId = leaseId;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
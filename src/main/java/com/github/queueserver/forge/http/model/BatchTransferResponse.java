@@ -0,0 +1,47 @@
+package com.github.queueserver.forge.http.model;
+
+import java.util.List;
+
+/**
+ * 批量玩家传送响应
+ * 每个玩家一条结果，按 playerId 对应，缺少 playerId 时按请求顺序对应
+ */
+public class BatchTransferResponse {
+    private boolean success;
+    private String message;
+    private List<PlayerTransferResponse> results;
+    private long timestamp;
+    
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public List<PlayerTransferResponse> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<PlayerTransferResponse> results) {
+        this.results = results;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -8,6 +8,9 @@ public class HeartbeatResponse {
     private String message;
     private long timestamp;
     
+    // 目标服务器空位数，代理未提供时为 -1
+    private int availableSlots = -1;
+    
     // Getters and Setters
     public boolean isSuccess() {
         return success;
@@ -32,4 +35,12 @@ public class HeartbeatResponse {
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
+    
+    public int getAvailableSlots() {
+        return availableSlots;
+    }
+    
+    public void setAvailableSlots(int availableSlots) {
+        this.availableSlots = availableSlots;
+    }
 }
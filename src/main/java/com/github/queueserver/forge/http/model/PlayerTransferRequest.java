@@ -8,6 +8,7 @@ public class PlayerTransferRequest {
     private String playerName;
     private String sourceServer;
     private String targetServer;
+    private String leaseId;
     private long timestamp;
     
     // Getters and Setters
@@ -43,6 +44,17 @@ public class PlayerTransferRequest {
         this.targetServer = targetServer;
     }
     
+    /**
+     * 使用的空位租约，代理不支持租约时为空
+     */
+    public String getLeaseId() {
+        return leaseId;
+    }
+    
+    public void setLeaseId(String leaseId) {
+        this.leaseId = leaseId;
+    }
+    
     public long getTimestamp() {
         return timestamp;
     }
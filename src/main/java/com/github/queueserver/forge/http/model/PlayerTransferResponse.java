@@ -5,6 +5,7 @@ package com.github.queueserver.forge.http.model;
  */
 public class PlayerTransferResponse {
     private boolean success;
+    private String playerId;
     private String message;
     private String transferId;
     private long timestamp;
@@ -18,6 +19,17 @@ public class PlayerTransferResponse {
         this.success = success;
     }
     
+    /**
+     * 批量传送时标识对应的玩家
+     */
+    public String getPlayerId() {
+        return playerId;
+    }
+    
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+    
     public String getMessage() {
         return message;
     }
@@ -0,0 +1,102 @@
+package com.github.queueserver.forge.http.model;
+
+/**
+ * 代理推送的事件
+ * 不同类型的事件只填写相关字段：slot-free 带 availableSlots，player-arrived 带 playerId，
+ * target-health 带目标服务器的完整状态
+ */
+public class ProxyEvent {
+    private long sequence;
+    private String type;
+    private String playerId;
+    private boolean online;
+    private int currentPlayers;
+    private int maxPlayers;
+    private double tps;
+    private String status;
+    private long timestamp;
+    
+    // 目标服务器空位数，事件未提供时为 -1
+    private int availableSlots = -1;
+    
+    // Getters and Setters
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public String getPlayerId() {
+        return playerId;
+    }
+    
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+    
+    public boolean isOnline() {
+        return online;
+    }
+    
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+    
+    public int getCurrentPlayers() {
+        return currentPlayers;
+    }
+    
+    public void setCurrentPlayers(int currentPlayers) {
+        this.currentPlayers = currentPlayers;
+    }
+    
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+    
+    public void setMaxPlayers(int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+    }
+    
+    public double getTps() {
+        return tps;
+    }
+    
+    public void setTps(double tps) {
+        this.tps = tps;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    public int getAvailableSlots() {
+        return availableSlots;
+    }
+    
+    public void setAvailableSlots(int availableSlots) {
+        this.availableSlots = availableSlots;
+    }
+}
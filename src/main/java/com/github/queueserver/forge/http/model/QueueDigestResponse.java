@@ -0,0 +1,80 @@
+package com.github.queueserver.forge.http.model;
+
+import java.util.List;
+
+/**
+ * 代理端队列摘要响应
+ * 与请求携带的总人数和根哈希一致时 match 为 true，不返回各桶数据
+ */
+public class QueueDigestResponse {
+    private boolean success;
+    private boolean match;
+    private int buckets;
+    private int totalCount;
+    private List<Integer> counts;
+    private List<String> hashes;
+    private long timestamp;
+    
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public boolean isMatch() {
+        return match;
+    }
+    
+    public void setMatch(boolean match) {
+        this.match = match;
+    }
+    
+    public int getBuckets() {
+        return buckets;
+    }
+    
+    public void setBuckets(int buckets) {
+        this.buckets = buckets;
+    }
+    
+    public int getTotalCount() {
+        return totalCount;
+    }
+    
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+    
+    /**
+     * 各桶人数
+     */
+    public List<Integer> getCounts() {
+        return counts;
+    }
+    
+    public void setCounts(List<Integer> counts) {
+        this.counts = counts;
+    }
+    
+    /**
+     * 各桶哈希，16 位十六进制
+     */
+    public List<String> getHashes() {
+        return hashes;
+    }
+    
+    public void setHashes(List<String> hashes) {
+        this.hashes = hashes;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.queueserver.forge.http.model;
+
+/**
+ * 代理端记录的队列成员
+ */
+public class QueueMember {
+    private String playerId;
+    private boolean vip;
+    
+    // Getters and Setters
+    public String getPlayerId() {
+        return playerId;
+    }
+    
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+    
+    public boolean isVip() {
+        return vip;
+    }
+    
+    public void setVip(boolean vip) {
+        this.vip = vip;
+    }
+}
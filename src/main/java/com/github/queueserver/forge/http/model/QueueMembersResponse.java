@@ -0,0 +1,37 @@
+package com.github.queueserver.forge.http.model;
+
+import java.util.List;
+
+/**
+ * 代理端指定桶中的队列成员
+ */
+public class QueueMembersResponse {
+    private boolean success;
+    private List<QueueMember> members;
+    private long timestamp;
+    
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public List<QueueMember> getMembers() {
+        return members;
+    }
+    
+    public void setMembers(List<QueueMember> members) {
+        this.members = members;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.queueserver.forge.http.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 队列成员变动批量同步请求
+ * 代理先处理 removed 再处理 added；同一玩家在两个列表中都出现表示离开后重新加入
+ * epoch 为插件本次启动的时间，与 sequence 一起标识批次，代理可据此去重和发现缺失的批次
+ */
+public class QueueSyncRequest {
+    private String serverName;
+    private long epoch;
+    private long sequence;
+    private List<QueueRemoveRequest> removed = new ArrayList<>();
+    private List<QueueAddRequest> added = new ArrayList<>();
+    private long timestamp;
+    
+    // Getters and Setters
+    public String getServerName() {
+        return serverName;
+    }
+    
+    public void setServerName(String serverName) {
+        this.serverName = serverName;
+    }
+    
+    public long getEpoch() {
+        return epoch;
+    }
+    
+    public void setEpoch(long epoch) {
+        this.epoch = epoch;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    
+    public List<QueueRemoveRequest> getRemoved() {
+        return removed;
+    }
+    
+    public void setRemoved(List<QueueRemoveRequest> removed) {
+        this.removed = removed;
+    }
+    
+    public List<QueueAddRequest> getAdded() {
+        return added;
+    }
+    
+    public void setAdded(List<QueueAddRequest> added) {
+        this.added = added;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.queueserver.forge.http.model;
+
+/**
+ * 队列成员变动批量同步响应
+ */
+public class QueueSyncResponse {
+    private boolean success;
+    private String message;
+    private long sequence;
+    private long timestamp;
+    
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    /**
+     * 代理已处理的批次序号
+     */
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
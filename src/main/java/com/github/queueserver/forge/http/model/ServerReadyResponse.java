@@ -1,11 +1,14 @@
 package com.github.queueserver.forge.http.model;
 
+import java.util.List;
+
 /**
  * 服务器就绪响应
  */
 public class ServerReadyResponse {
     private boolean success;
     private String message;
+    private List<String> capabilities;
     private long timestamp;
     
     // Getters and Setters
@@ -25,6 +28,17 @@ public class ServerReadyResponse {
         this.message = message;
     }
     
+    /**
+     * 代理支持的可选功能，旧版代理不返回此字段
+     */
+    public List<String> getCapabilities() {
+        return capabilities;
+    }
+    
+    public void setCapabilities(List<String> capabilities) {
+        this.capabilities = capabilities;
+    }
+    
     public long getTimestamp() {
         return timestamp;
     }
@@ -0,0 +1,38 @@
+package com.github.queueserver.forge.http.model;
+
+/**
+ * 空位租约归还请求
+ */
+public class SlotReleaseRequest {
+    private String leaseId;
+    private int count;
+    private long timestamp;
+    
+    // Getters and Setters
+    public String getLeaseId() {
+        return leaseId;
+    }
+    
+    public void setLeaseId(String leaseId) {
+        this.leaseId = leaseId;
+    }
+    
+    /**
+     * 归还的未使用位置数
+     */
+    public int getCount() {
+        return count;
+    }
+    
+    public void setCount(int count) {
+        this.count = count;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
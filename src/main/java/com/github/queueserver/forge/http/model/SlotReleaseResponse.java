@@ -0,0 +1,35 @@
+package com.github.queueserver.forge.http.model;
+
+/**
+ * 空位租约归还响应
+ */
+public class SlotReleaseResponse {
+    private boolean success;
+    private String message;
+    private long timestamp;
+    
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
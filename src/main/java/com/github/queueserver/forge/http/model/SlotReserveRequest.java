@@ -0,0 +1,47 @@
+package com.github.queueserver.forge.http.model;
+
+/**
+ * 空位租约申请
+ */
+public class SlotReserveRequest {
+    private String serverName;
+    private int count;
+    private long ttlMillis;
+    private long timestamp;
+    
+    // Getters and Setters
+    public String getServerName() {
+        return serverName;
+    }
+    
+    public void setServerName(String serverName) {
+        this.serverName = serverName;
+    }
+    
+    public int getCount() {
+        return count;
+    }
+    
+    public void setCount(int count) {
+        this.count = count;
+    }
+    
+    /**
+     * 租约有效期，到期未使用的位置由代理收回
+     */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+    
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
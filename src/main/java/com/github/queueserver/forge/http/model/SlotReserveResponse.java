@@ -0,0 +1,68 @@
+package com.github.queueserver.forge.http.model;
+
+/**
+ * 空位租约申请响应
+ */
+public class SlotReserveResponse {
+    private boolean success;
+    private String message;
+    private String leaseId;
+    private int granted;
+    private long expiresAt;
+    private long timestamp;
+    
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public String getLeaseId() {
+        return leaseId;
+    }
+    
+    public void setLeaseId(String leaseId) {
+        this.leaseId = leaseId;
+    }
+    
+    /**
+     * 实际批准的位置数，可能少于申请数
+     */
+    public int getGranted() {
+        return granted;
+    }
+    
+    public void setGranted(int granted) {
+        this.granted = granted;
+    }
+    
+    /**
+     * 租约到期时间，未返回时按申请的有效期计算
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.queueserver.forge.listeners;
 
 import com.github.queueserver.forge.QueueForgePlugin;
+import com.github.queueserver.forge.dispatch.QueueDispatcher;
 import com.github.queueserver.forge.security.SecurityManager;
 
 import org.bukkit.entity.Player;
@@ -12,7 +13,9 @@ import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerKickEvent;
 
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -24,6 +27,9 @@ public class PlayerConnectionListener implements Listener {
     private final QueueForgePlugin plugin;
     private final Logger logger;
     
+    // 登录时取消了掉线保留期的玩家，加入后继续排队而不是视为已通过队列
+    private final Set<UUID> graceReconnects = ConcurrentHashMap.newKeySet();
+    
     public PlayerConnectionListener(QueueForgePlugin plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
@@ -60,7 +66,12 @@ public class PlayerConnectionListener implements Listener {
             // 检查是否已在队列中
             if (plugin.getQueueManager().isPlayerInQueue(player.getUniqueId())) {
                 // 玩家已在队列中，允许连接但显示队列信息
-                logger.info("队列中的玩家重新连接: " + player.getName());
+                if (plugin.getQueueManager().cancelGracePeriod(player.getUniqueId())) {
+                    graceReconnects.add(player.getUniqueId());
+                    logger.info("队列中的玩家在保留期内重新连接: " + player.getName());
+                } else {
+                    logger.info("队列中的玩家重新连接: " + player.getName());
+                }
             } else {
                 // 新玩家，检查是否需要排队
                 if (shouldPlayerQueue(player)) {
@@ -84,9 +95,17 @@ public class PlayerConnectionListener implements Listener {
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         UUID playerId = player.getUniqueId();
-        
-        // 如果玩家在队列中，从队列移除
-        if (plugin.getQueueManager().isPlayerInQueue(playerId)) {
+        plugin.markPlayerOnline(playerId);
+        
+        if (graceReconnects.remove(playerId)) {
+            // 保留期内重连，保留原有位置继续排队
+            int position = plugin.getQueueManager().getPlayerPosition(playerId);
+            player.sendMessage("§e您已重新连接，已为您保留原排队位置");
+            if (position > 0) {
+                player.sendMessage("§e您的位置: §f" + position);
+            }
+        } else if (plugin.getQueueManager().isPlayerInQueue(playerId)) {
+            // 如果玩家在队列中，从队列移除
             plugin.getQueueManager().removePlayer(playerId);
             plugin.getDatabaseManager().recordPlayerTransfer(playerId);
             
@@ -110,11 +129,20 @@ public class PlayerConnectionListener implements Listener {
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
         UUID playerId = player.getUniqueId();
-        
-        // 从队列中移除（如果存在）
-        if (plugin.getQueueManager().isPlayerInQueue(playerId)) {
-            plugin.getQueueManager().removePlayer(playerId);
-            plugin.getDatabaseManager().recordPlayerLeaveQueue(playerId, "QUIT");
+        plugin.markPlayerOffline(playerId);
+        graceReconnects.remove(playerId);
+        
+        // 传送中离开本服不代表已到达，由代理确认或确认超时后恢复排队处理
+        if (plugin.getQueueManager().isInFlight(playerId)) {
+            logger.info("玩家 " + player.getName() + " 在传送中离开，等待代理确认到达");
+        } else if (plugin.getQueueManager().isPlayerInQueue(playerId)) {
+            // 掉线保留期内重连可保留位置，未启用保留期则直接移除
+            if (plugin.getQueueManager().startGracePeriod(playerId)) {
+                logger.info("玩家 " + player.getName() + " 掉线，保留队列位置");
+            } else {
+                plugin.getQueueManager().removePlayer(playerId);
+                plugin.getDatabaseManager().recordPlayerLeaveQueue(playerId, "QUIT");
+            }
         }
         
         logger.info("玩家 " + player.getName() + " 已离开服务器");
@@ -128,8 +156,8 @@ public class PlayerConnectionListener implements Listener {
         Player player = event.getPlayer();
         UUID playerId = player.getUniqueId();
         
-        // 从队列中移除（如果存在）
-        if (plugin.getQueueManager().isPlayerInQueue(playerId)) {
+        // 从队列中移除（如果存在），传送中被代理断开的玩家等待到达确认
+        if (plugin.getQueueManager().isPlayerInQueue(playerId) && !plugin.getQueueManager().isInFlight(playerId)) {
             plugin.getQueueManager().removePlayer(playerId);
             plugin.getDatabaseManager().recordPlayerLeaveQueue(playerId, "KICKED");
         }
@@ -141,22 +169,14 @@ public class PlayerConnectionListener implements Listener {
      * 检查玩家是否需要排队
      */
     private boolean shouldPlayerQueue(Player player) {
-        // VIP玩家检查
-        if (plugin.getVipManager().isVIP(player)) {
-            // VIP玩家有更高的优先级，但仍可能需要排队
-            int currentPlayers = plugin.getServer().getOnlinePlayers().size();
-            int maxPlayers = plugin.getServer().getMaxPlayers();
-            
-            // 给VIP预留一些位置
-            int vipReservedSlots = Math.max(1, maxPlayers / 10); // 预留10%的位置给VIP
-            return currentPlayers >= (maxPlayers - vipReservedSlots);
-        }
-        
-        // 普通玩家检查
         int currentPlayers = plugin.getServer().getOnlinePlayers().size();
         int maxPlayers = plugin.getServer().getMaxPlayers();
         
-        return currentPlayers >= maxPlayers;
+        // 给VIP预留10%的位置
+        int vipReservedSlots = Math.max(1, maxPlayers / 10);
+        
+        return QueueDispatcher.shouldQueue(plugin.getVipManager().isVIP(player),
+                currentPlayers, maxPlayers, vipReservedSlots);
     }
     
     /**
@@ -195,6 +215,9 @@ public class PlayerConnectionListener implements Listener {
                 // 记录到数据库
                 plugin.getDatabaseManager().recordPlayerJoinQueue(playerId, playerName, isVip);
                 
+                // 目标服务器可能已有空位，不必等到下一轮
+                plugin.requestDispatch();
+                
                 logger.info("玩家 " + playerName + " 已添加到队列" + (isVip ? " (VIP)" : ""));
             } else {
                 logger.warning("添加玩家到队列失败: " + playerName);
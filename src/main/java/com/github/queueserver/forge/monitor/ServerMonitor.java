@@ -2,35 +2,42 @@ package com.github.queueserver.forge.monitor;
 
 import com.github.queueserver.forge.QueueForgePlugin;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import org.bukkit.Server;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
 import java.util.logging.Logger;
 
 /**
  * 服务器监控器
  * 监控服务器性能和状态
+ *
+ * TPS 和玩家数由主线程每 tick 采样一次，异步线程（心跳、监控通道）只读取采样结果
  */
 public class ServerMonitor {
     
+    // 无法读取服务器 TPS 时，每隔多少 tick 按实际耗时估算一次
+    private static final int ESTIMATE_WINDOW_TICKS = 20;
+    
     private final QueueForgePlugin plugin;
     private final Logger logger;
-    private final ScheduledExecutorService scheduler;
+    private BukkitTask samplerTask;
     
     // 监控状态
     private volatile boolean monitoring = false;
     private volatile double currentTPS = 20.0;
     private volatile int currentPlayers = 0;
+    private volatile int maxPlayers = 0;
     private volatile long lastUpdate = 0;
     
+    // 以下字段仅主线程使用
+    private long windowStartNanos = 0;
+    private int windowTicks = 0;
+    private double estimatedTPS = 20.0;
+    
     public ServerMonitor(QueueForgePlugin plugin) {
         this.plugin = plugin;
         this.logger = plugin.getLogger();
-        this.scheduler = Executors.newScheduledThreadPool(2, r -> {
-            Thread t = new Thread(r, "QueueForge-ServerMonitor");
-            t.setDaemon(true);
-            return t;
-        });
     }
     
     /**
@@ -43,11 +50,13 @@ public class ServerMonitor {
         
         monitoring = true;
         
-        // TPS监控任务
-        scheduler.scheduleAtFixedRate(this::updateTPS, 0, 1, TimeUnit.SECONDS);
-        
-        // 玩家数量监控任务
-        scheduler.scheduleAtFixedRate(this::updatePlayerCount, 0, 5, TimeUnit.SECONDS);
+        // 在主线程上每 tick 采样
+        samplerTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }.runTaskTimer(plugin, 0L, 1L);
         
         logger.info("服务器监控已启动");
     }
@@ -56,81 +65,57 @@ public class ServerMonitor {
      * 停止监控
      */
     public void stopMonitoring() {
-        monitoring = false;
-        scheduler.shutdown();
+        if (!monitoring) {
+            return;
+        }
         
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+        monitoring = false;
+        if (samplerTask != null) {
+            samplerTask.cancel();
+            samplerTask = null;
         }
         
         logger.info("服务器监控已停止");
     }
     
     /**
-     * 更新TPS
+     * 采样 TPS 和玩家数，只在主线程调用
      */
-    private void updateTPS() {
+    private void sample() {
         try {
-            // 尝试获取Paper TPS
-            double[] tpsArray = plugin.getServer().getTPS();
-            if (tpsArray != null && tpsArray.length > 0) {
-                currentTPS = Math.min(20.0, tpsArray[0]);
-            } else {
-                // 如果无法获取TPS，使用估算方法
-                currentTPS = estimateTPS();
-            }
-            
+            Server server = plugin.getServer();
+            currentTPS = readTPS(server);
+            currentPlayers = server.getOnlinePlayers().size();
+            maxPlayers = server.getMaxPlayers();
             lastUpdate = System.currentTimeMillis();
-            
         } catch (Exception e) {
-            // 如果获取TPS失败，使用默认值
-            currentTPS = 20.0;
+            logger.warning("采样服务器状态失败: " + e.getMessage());
         }
     }
     
     /**
-     * 估算TPS
+     * 读取服务器 TPS，不支持时使用按 tick 间隔估算的值
      */
-    private double estimateTPS() {
-        try {
-            // 简单的TPS估算方法
-            long start = System.nanoTime();
-            
-            // 执行一些轻量级操作
-            int players = plugin.getServer().getOnlinePlayers().size();
-            
-            long end = System.nanoTime();
-            long duration = end - start;
-            
-            // 基于响应时间估算TPS
-            if (duration < 1_000_000) { // < 1ms
-                return 20.0;
-            } else if (duration < 10_000_000) { // < 10ms
-                return 18.0;
-            } else if (duration < 50_000_000) { // < 50ms
-                return 15.0;
-            } else {
-                return 10.0;
-            }
-            
-        } catch (Exception e) {
-            return 20.0;
+    private double readTPS(Server server) {
+        long now = System.nanoTime();
+        if (windowStartNanos == 0) {
+            windowStartNanos = now;
+        } else if (++windowTicks >= ESTIMATE_WINDOW_TICKS) {
+            estimatedTPS = Math.min(20.0, windowTicks * 1_000_000_000.0 / (now - windowStartNanos));
+            windowStartNanos = now;
+            windowTicks = 0;
         }
-    }
-    
-    /**
-     * 更新玩家数量
-     */
-    private void updatePlayerCount() {
+        
         try {
-            currentPlayers = plugin.getServer().getOnlinePlayers().size();
-        } catch (Exception e) {
-            logger.warning("更新玩家数量失败: " + e.getMessage());
+            // 尝试获取Paper TPS
+            double[] tpsArray = server.getTPS();
+            if (tpsArray != null && tpsArray.length > 0) {
+                return Math.min(20.0, tpsArray[0]);
+            }
+        } catch (Exception | NoSuchMethodError e) {
+            // 非 Paper 服务端
         }
+        return estimatedTPS;
     }
     
     /**
@@ -151,7 +136,7 @@ public class ServerMonitor {
      * 获取最大玩家数量
      */
     public int getMaxPlayers() {
-        return plugin.getServer().getMaxPlayers();
+        return maxPlayers;
     }
     
     /**
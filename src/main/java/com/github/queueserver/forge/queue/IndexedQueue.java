@@ -0,0 +1,281 @@
+package com.github.queueserver.forge.queue;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 带顺序统计索引的单层队列
+ * 条目按入队顺序占用槽位，用树状数组(Fenwick)统计存活条目数，
+ * 使排名查询和任意位置移除都为 O(log n)
+ *
+ * 传送中的条目被挂起：继续占着原槽位以便失败后回到原位，但不计入排名和人数
+ *
+ * 非线程安全，由 {@link QueueManager} 的锁保护
+ */
+public final class IndexedQueue {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 槽位数组，null 表示空槽（已移除）
+    private QueueManager.QueueEntry[] slots;
+
+    // 树状数组，下标从1开始
+    private int[] tree;
+
+    // 第一个可能存活的槽位
+    private int head = 0;
+
+    // 下一个可用槽位
+    private int tail = 0;
+
+    // 计入排名的条目数，不含挂起的条目
+    private int size = 0;
+
+    // 占用的槽位数，含挂起的条目
+    private int occupied = 0;
+
+    public IndexedQueue() {
+        this.slots = new QueueManager.QueueEntry[INITIAL_CAPACITY];
+        this.tree = new int[INITIAL_CAPACITY + 1];
+    }
+
+    /**
+     * 追加条目到队尾
+     */
+    public void offer(QueueManager.QueueEntry entry) {
+        if (tail == slots.length) {
+            compact();
+        }
+
+        int slot = tail++;
+        slots[slot] = entry;
+        entry.slot = slot;
+        entry.parked = false;
+        add(slot, 1);
+        size++;
+        occupied++;
+    }
+
+    /**
+     * 取出队首条目
+     */
+    public QueueManager.QueueEntry poll() {
+        QueueManager.QueueEntry entry = peek();
+        if (entry != null) {
+            remove(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 查看队首条目，可能是挂起的条目
+     */
+    public QueueManager.QueueEntry peek() {
+        return occupied == 0 ? null : slots[head];
+    }
+
+    /**
+     * 移除指定条目，O(log n)
+     */
+    public boolean remove(QueueManager.QueueEntry entry) {
+        int slot = entry.slot;
+        if (slot < 0 || slot >= tail || slots[slot] != entry) {
+            return false;
+        }
+
+        slots[slot] = null;
+        entry.slot = -1;
+        if (!entry.parked) {
+            add(slot, -1);
+            size--;
+        }
+        entry.parked = false;
+        occupied--;
+
+        // 跳过队首的空槽，均摊 O(1)
+        while (head < tail && slots[head] == null) {
+            head++;
+        }
+        if (occupied == 0) {
+            head = 0;
+            tail = 0;
+        }
+        return true;
+    }
+
+    /**
+     * 挂起条目，保留槽位但不再计入排名和人数
+     */
+    public boolean park(QueueManager.QueueEntry entry) {
+        if (!contains(entry) || entry.parked) {
+            return false;
+        }
+        entry.parked = true;
+        add(entry.slot, -1);
+        size--;
+        return true;
+    }
+
+    /**
+     * 恢复挂起的条目，回到原来的排名
+     */
+    public boolean unpark(QueueManager.QueueEntry entry) {
+        if (!contains(entry) || !entry.parked) {
+            return false;
+        }
+        entry.parked = false;
+        add(entry.slot, 1);
+        size++;
+        return true;
+    }
+
+    /**
+     * 获取条目在本队列中的排名（从1开始），不在队列中返回 -1
+     * 挂起的条目返回恢复后的排名
+     */
+    public int rankOf(QueueManager.QueueEntry entry) {
+        int slot = entry.slot;
+        if (slot < 0 || slot >= tail || slots[slot] != entry) {
+            return -1;
+        }
+        return entry.parked ? prefixSum(slot) + 1 : prefixSum(slot);
+    }
+
+    /**
+     * 检查条目是否在本队列中
+     */
+    public boolean contains(QueueManager.QueueEntry entry) {
+        int slot = entry.slot;
+        return slot >= 0 && slot < tail && slots[slot] == entry;
+    }
+
+    /**
+     * 计入排名的条目数，不含挂起的条目
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 按队列顺序遍历存活条目，含挂起的条目
+     */
+    public void forEach(Consumer<QueueManager.QueueEntry> action) {
+        for (int i = head; i < tail; i++) {
+            QueueManager.QueueEntry entry = slots[i];
+            if (entry != null) {
+                action.accept(entry);
+            }
+        }
+    }
+
+    /**
+     * 从槽位 from 开始查找第一个满足条件的条目，不修改队列
+     * 扫描代价与被跳过的条目数成正比；找到的条目的 slot + 1 可作为下一次查找的起点
+     */
+    public QueueManager.QueueEntry findFrom(int from, Predicate<QueueManager.QueueEntry> filter) {
+        for (int i = Math.max(from, head); i < tail; i++) {
+            QueueManager.QueueEntry entry = slots[i];
+            if (entry != null && filter.test(entry)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 从槽位 from 开始按顺序收集最多 max 个存活条目，不修改队列
+     * 返回下一次收集的起点，已到队尾时返回 -1
+     * 两次调用之间发生压缩时槽位会重新编号，游标可能跳过或重复少量条目
+     */
+    public int collect(int from, int max, List<QueueManager.QueueEntry> sink) {
+        int i = Math.max(from, head);
+        int collected = 0;
+        for (; i < tail && collected < max; i++) {
+            QueueManager.QueueEntry entry = slots[i];
+            if (entry != null) {
+                sink.add(entry);
+                collected++;
+            }
+        }
+        return i < tail ? i : -1;
+    }
+    
+    /**
+     * 清空队列
+     */
+    public void clear() {
+        for (int i = head; i < tail; i++) {
+            if (slots[i] != null) {
+                slots[i].slot = -1;
+                slots[i].parked = false;
+            }
+        }
+        slots = new QueueManager.QueueEntry[INITIAL_CAPACITY];
+        tree = new int[INITIAL_CAPACITY + 1];
+        head = 0;
+        tail = 0;
+        size = 0;
+        occupied = 0;
+    }
+
+    /**
+     * 压缩存活条目到数组前部，必要时扩容，并线性重建树状数组
+     */
+    private void compact() {
+        int capacity = slots.length;
+        if (occupied * 2 > capacity) {
+            capacity *= 2;
+        } else if (capacity > INITIAL_CAPACITY && occupied * 8 < capacity) {
+            capacity = Math.max(INITIAL_CAPACITY, capacity / 2);
+        }
+
+        QueueManager.QueueEntry[] newSlots = new QueueManager.QueueEntry[capacity];
+        int count = 0;
+        for (int i = head; i < tail; i++) {
+            QueueManager.QueueEntry entry = slots[i];
+            if (entry != null) {
+                entry.slot = count;
+                newSlots[count++] = entry;
+            }
+        }
+
+        // O(n) 构建树状数组
+        int[] newTree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= count && !newSlots[i - 1].parked) {
+                newTree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                newTree[parent] += newTree[i];
+            }
+        }
+
+        slots = newSlots;
+        tree = newTree;
+        head = 0;
+        tail = count;
+    }
+
+    private void add(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * 统计槽位 [0, slot] 内的存活条目数
+     */
+    private int prefixSum(int slot) {
+        int sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
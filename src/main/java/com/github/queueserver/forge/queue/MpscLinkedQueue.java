@@ -0,0 +1,63 @@
+package com.github.queueserver.forge.queue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 无锁多生产者单消费者链表队列
+ * 生产者只做一次 getAndSet，入队顺序即线性化顺序；
+ * 消费者（持有 QueueManager 写锁的线程）按该顺序取出
+ */
+final class MpscLinkedQueue<E> {
+
+    private final AtomicReference<Node<E>> tail;
+
+    // 仅消费者修改，volatile 供其他线程做空检查
+    private volatile Node<E> head;
+
+    MpscLinkedQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * 入队，任意线程可调用，无锁
+     */
+    void offer(E value) {
+        Node<E> node = new Node<>(value);
+        Node<E> prev = tail.getAndSet(node);
+        prev.next = node;
+    }
+
+    /**
+     * 出队，只能由单一消费者调用
+     * 生产者尚未完成链接时可能暂时返回 null，下次再取即可
+     */
+    E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+
+        E value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    /**
+     * 检查是否为空，任意线程可调用
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    private static final class Node<E> {
+        E value;
+        volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.queueserver.forge.queue;
+
+import com.github.queueserver.forge.QueueForgePlugin;
+
+import java.util.UUID;
+
+/**
+ * 插件运行时的队列环境：同步到代理服务器，自动移除记入数据库
+ */
+final class PluginQueueEnvironment implements QueueEnvironment {
+
+    private final QueueForgePlugin plugin;
+
+    PluginQueueEnvironment(QueueForgePlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public boolean isOnline(UUID playerId) {
+        return plugin.isPlayerOnline(playerId);
+    }
+
+    @Override
+    public void onPlayerAdded(QueueManager.QueueEntry entry) {
+        plugin.getProxyHttpClient().queuePlayerAdded(entry.getPlayerId(), entry.getPlayerName(), entry.isVip());
+    }
+
+    @Override
+    public void onPlayerRemoved(QueueManager.QueueEntry entry, String reason) {
+        plugin.getProxyHttpClient().queuePlayerRemoved(entry.getPlayerId());
+        if (reason != null) {
+            plugin.getDatabaseManager().recordPlayerLeaveQueue(entry.getPlayerId(), reason);
+        }
+    }
+
+    @Override
+    public void onTransferRequeued(QueueManager.QueueEntry entry, String reason) {
+        plugin.getMainThread().sendMessage(entry.getPlayerId(), "§e" + reason + "，已为您保留原排队位置");
+    }
+}
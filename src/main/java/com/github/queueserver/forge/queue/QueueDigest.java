@@ -0,0 +1,115 @@
+package com.github.queueserver.forge.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 队列成员摘要
+ * 按 UUID 把成员分到固定数量的桶，每个桶记录人数和成员哈希的异或值，
+ * 与代理端按同样规则计算的摘要比较，只有不一致的桶需要逐个核对成员
+ *
+ * 哈希规则（代理端需一致）：
+ * mix 为 SplitMix64 的终结函数；
+ * 桶号 = mix(msb ^ lsb) 按无符号数对桶数取余；
+ * 成员哈希 = mix(mix(msb) ^ lsb ^ (vip ? 1 : 0))，VIP 变化也会反映在摘要中
+ */
+public final class QueueDigest {
+
+    private final int bucketCount;
+    private final int[] counts;
+    private final long[] hashes;
+
+    public QueueDigest(int bucketCount) {
+        this.bucketCount = Math.max(1, bucketCount);
+        this.counts = new int[this.bucketCount];
+        this.hashes = new long[this.bucketCount];
+    }
+
+    /**
+     * 加入一个成员
+     */
+    public void add(UUID playerId, boolean vip) {
+        int bucket = bucketOf(playerId, bucketCount);
+        counts[bucket]++;
+        hashes[bucket] ^= memberHash(playerId, vip);
+    }
+
+    /**
+     * 成员所在的桶
+     */
+    public static int bucketOf(UUID playerId, int bucketCount) {
+        long h = mix(playerId.getMostSignificantBits() ^ playerId.getLeastSignificantBits());
+        return (int) Long.remainderUnsigned(h, bucketCount);
+    }
+
+    static long memberHash(UUID playerId, boolean vip) {
+        return mix(mix(playerId.getMostSignificantBits()) ^ playerId.getLeastSignificantBits() ^ (vip ? 1 : 0));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public int getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public long getHash(int bucket) {
+        return hashes[bucket];
+    }
+
+    public int getTotalCount() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 全部成员哈希的异或值
+     */
+    public long getRootHash() {
+        long root = 0;
+        for (long hash : hashes) {
+            root ^= hash;
+        }
+        return root;
+    }
+
+    /**
+     * 与另一份摘要比较，返回不一致的桶号
+     * 桶数不同时无法逐桶比较，返回全部桶
+     */
+    public List<Integer> diff(int[] otherCounts, long[] otherHashes) {
+        List<Integer> buckets = new ArrayList<>();
+        boolean comparable = otherCounts.length == bucketCount && otherHashes.length == bucketCount;
+        for (int i = 0; i < bucketCount; i++) {
+            if (!comparable || counts[i] != otherCounts[i] || hashes[i] != otherHashes[i]) {
+                buckets.add(i);
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * 哈希值的十六进制表示，固定 16 位小写
+     */
+    public static String toHex(long hash) {
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * 解析十六进制哈希值
+     */
+    public static long parseHex(String hex) {
+        return Long.parseUnsignedLong(hex, 16);
+    }
+}
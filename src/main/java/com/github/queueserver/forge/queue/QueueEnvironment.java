@@ -0,0 +1,37 @@
+package com.github.queueserver.forge.queue;
+
+import java.util.UUID;
+
+/**
+ * 队列管理器所依赖的外部环境
+ * 插件运行时对接代理服务器、数据库和 Bukkit，模拟器中替换为模拟实现
+ */
+public interface QueueEnvironment {
+
+    /**
+     * 当前时间（毫秒），队列内的时间戳和定时器都以此为准
+     */
+    long currentTimeMillis();
+
+    /**
+     * 检查玩家是否在线
+     */
+    boolean isOnline(UUID playerId);
+
+    /**
+     * 玩家已加入队列
+     */
+    void onPlayerAdded(QueueManager.QueueEntry entry);
+
+    /**
+     * 玩家已离开队列（未被处理）
+     *
+     * @param reason 超时、离线等自动移除的原因，主动移除时为 null
+     */
+    void onPlayerRemoved(QueueManager.QueueEntry entry, String reason);
+
+    /**
+     * 传送失败或超时，玩家已恢复原排队位置
+     */
+    void onTransferRequeued(QueueManager.QueueEntry entry, String reason);
+}
@@ -0,0 +1,379 @@
+package com.github.queueserver.forge.queue;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 队列预写日志
+ * 入队/出队/移除事件追加写入内存映射的日志文件，定期压缩为快照
+ *
+ * 文件按代号成对出现：snapshot-N 是 journal-N 开始时的完整队列，
+ * 恢复时加载最新快照，再按顺序重放代号不小于它的所有日志
+ *
+ * 追加操作非线程安全，由 {@link QueueManager} 的写锁保护
+ */
+public class QueueJournal {
+
+    private static final int JOURNAL_MAGIC = 0x514A4E4C; // "QJNL"
+    private static final int SNAPSHOT_MAGIC = 0x51534E50; // "QSNP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_NAME_BYTES = 64;
+
+    private static final byte TYPE_ENQUEUE = 1;
+    private static final byte TYPE_DEQUEUE = 2;
+    private static final byte TYPE_REMOVE = 3;
+    private static final byte TYPE_CLEAR = 4;
+
+    private final File directory;
+    private final int journalSize;
+    private final Logger logger;
+    private final CRC32C crc = new CRC32C();
+
+    // 记录编码缓冲区，仅在写锁内使用
+    private final byte[] scratch = new byte[1 + 16 + 8 + 1 + 2 + MAX_NAME_BYTES];
+
+    private long generation;
+    private MappedByteBuffer buffer;
+    private int recordsSinceRotate = 0;
+
+    public QueueJournal(File directory, int journalSize, Logger logger) {
+        this.directory = directory;
+        this.journalSize = Math.max(64 * 1024, journalSize);
+        this.logger = logger;
+    }
+
+    /**
+     * 从快照和日志恢复队列，并打开新一代日志
+     * 返回的条目按原始入队顺序排列
+     */
+    public List<QueueManager.QueueEntry> recover() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("无法创建队列持久化目录: " + directory);
+        }
+
+        List<Long> journals = generations("journal-");
+        long snapshotGen = latestGeneration("snapshot-");
+        LinkedHashMap<UUID, QueueManager.QueueEntry> entries = new LinkedHashMap<>();
+        if (snapshotGen >= 0) {
+            readSnapshot(snapshotFile(snapshotGen), entries);
+        }
+
+        long lastGen = Math.max(snapshotGen, 0);
+        for (long gen : journals) {
+            if (gen >= snapshotGen) {
+                replayJournal(journalFile(gen), entries);
+                lastGen = Math.max(lastGen, gen);
+            }
+        }
+
+        // 从新的一代开始写，旧文件在下次快照后清理
+        openJournal(lastGen + 1);
+        recordsSinceRotate = snapshotGen >= 0 || !journals.isEmpty() ? 1 : 0;
+        return new ArrayList<>(entries.values());
+    }
+
+    public void appendEnqueue(QueueManager.QueueEntry entry) {
+        byte[] name = entry.getPlayerName().getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+
+        int length = encodeHeader(TYPE_ENQUEUE, entry.getPlayerId());
+        length = putLong(length, entry.getJoinTime());
+        scratch[length++] = (byte) (entry.isVip() ? 1 : 0);
+        scratch[length++] = (byte) (nameLength >>> 8);
+        scratch[length++] = (byte) nameLength;
+        System.arraycopy(name, 0, scratch, length, nameLength);
+        append(length + nameLength);
+    }
+
+    public void appendDequeue(UUID playerId) {
+        append(encodeHeader(TYPE_DEQUEUE, playerId));
+    }
+
+    public void appendRemove(UUID playerId) {
+        append(encodeHeader(TYPE_REMOVE, playerId));
+    }
+
+    public void appendClear() {
+        scratch[0] = TYPE_CLEAR;
+        append(1);
+    }
+
+    /**
+     * 自上次轮换以来是否有新记录
+     */
+    public boolean hasPendingRecords() {
+        return recordsSinceRotate > 0;
+    }
+
+    /**
+     * 切换到新一代日志，返回新代号，调用方需持有写锁
+     * 之后应在锁外以同一代号调用 {@link #writeSnapshot}
+     */
+    public long rotate() throws IOException {
+        openJournal(generation + 1);
+        recordsSinceRotate = 0;
+        return generation;
+    }
+
+    /**
+     * 写入指定代号的快照并清理更旧的文件，可在锁外调用
+     */
+    public void writeSnapshot(long gen, List<QueueManager.QueueEntry> entries) throws IOException {
+        File target = snapshotFile(gen);
+        File temp = new File(directory, target.getName() + ".tmp");
+
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 64 * 1024), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (QueueManager.QueueEntry entry : entries) {
+                out.writeLong(entry.getPlayerId().getMostSignificantBits());
+                out.writeLong(entry.getPlayerId().getLeastSignificantBits());
+                out.writeLong(entry.getJoinTime());
+                out.writeBoolean(entry.isVip());
+                byte[] name = entry.getPlayerName().getBytes(StandardCharsets.UTF_8);
+                int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+                out.writeShort(nameLength);
+                out.write(name, 0, nameLength);
+            }
+            out.flush();
+            long checksum = checked.getChecksum().getValue();
+            out.writeLong(checksum);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteOlderThan(gen);
+    }
+
+    /**
+     * 将日志刷到磁盘
+     */
+    public void force() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    public void close() {
+        force();
+        buffer = null;
+    }
+
+    private int encodeHeader(byte type, UUID playerId) {
+        scratch[0] = type;
+        int length = putLong(1, playerId.getMostSignificantBits());
+        return putLong(length, playerId.getLeastSignificantBits());
+    }
+
+    private int putLong(int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            scratch[offset++] = (byte) (value >>> (i * 8));
+        }
+        return offset;
+    }
+
+    /**
+     * 追加一条记录：[长度][CRC32C][负载]
+     */
+    private void append(int length) {
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+            if (buffer.remaining() < RECORD_HEADER_SIZE + length + RECORD_HEADER_SIZE) {
+                // 日志写满，切到新一代，旧日志仍参与恢复直到下次快照
+                openJournal(generation + 1);
+            }
+
+            crc.reset();
+            crc.update(scratch, 0, length);
+
+            // 先写负载和校验，最后写长度，长度非零即代表记录完整
+            int position = buffer.position();
+            buffer.position(position + RECORD_HEADER_SIZE);
+            buffer.put(scratch, 0, length);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.putInt(position, length);
+            recordsSinceRotate++;
+
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "队列日志写入失败，持久化已停用", e);
+            buffer = null;
+        }
+    }
+
+    /**
+     * 映射新一代日志文件，旧映射不强制刷盘：进程崩溃后页缓存仍会写回，
+     * 其内容也会被随后的快照覆盖
+     */
+    private void openJournal(long gen) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile(gen).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, journalSize);
+        }
+        buffer.putInt(0, JOURNAL_MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.position(FILE_HEADER_SIZE);
+        generation = gen;
+    }
+
+    /**
+     * 一次性读入快照并校验，避免逐字段的流式解码
+     */
+    private void readSnapshot(File file, Map<UUID, QueueManager.QueueEntry> entries) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        if (data.length < 20 || readInt(data, 0) != SNAPSHOT_MAGIC || readInt(data, 4) != FORMAT_VERSION) {
+            throw new IOException("无法识别的队列快照: " + file.getName());
+        }
+
+        CRC32C check = new CRC32C();
+        check.update(data, 0, data.length - 8);
+        if (readLong(data, data.length - 8) != check.getValue()) {
+            throw new IOException("队列快照校验失败: " + file.getName());
+        }
+
+        int count = readInt(data, 8);
+        int position = 12;
+        for (int i = 0; i < count; i++) {
+            UUID playerId = new UUID(readLong(data, position), readLong(data, position + 8));
+            long joinTime = readLong(data, position + 16);
+            boolean vip = data[position + 24] != 0;
+            int nameLength = ((data[position + 25] & 0xFF) << 8) | (data[position + 26] & 0xFF);
+            String name = new String(data, position + 27, nameLength, StandardCharsets.UTF_8);
+            entries.put(playerId, new QueueManager.QueueEntry(playerId, name, vip, joinTime));
+            position += 27 + nameLength;
+        }
+    }
+
+    /**
+     * 以只读映射重放日志，只会读入实际写过的页
+     */
+    private void replayJournal(File file, Map<UUID, QueueManager.QueueEntry> entries) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.limit() < FILE_HEADER_SIZE || data.getInt(0) != JOURNAL_MAGIC) {
+            logger.warning("跳过损坏的队列日志: " + file.getName());
+            return;
+        }
+
+        CRC32C check = new CRC32C();
+        int position = FILE_HEADER_SIZE;
+        int records = 0;
+        while (position + RECORD_HEADER_SIZE <= data.limit()) {
+            int length = data.getInt(position);
+            if (length <= 0 || length > scratch.length || position + RECORD_HEADER_SIZE + length > data.limit()) {
+                break;
+            }
+
+            data.get(position + RECORD_HEADER_SIZE, scratch, 0, length);
+            check.reset();
+            check.update(scratch, 0, length);
+            if ((int) check.getValue() != data.getInt(position + 4)) {
+                // 崩溃时未写完的尾部记录
+                logger.warning("队列日志 " + file.getName() + " 在偏移 " + position + " 处截断");
+                break;
+            }
+
+            applyRecord(scratch, 0, length, entries);
+            position += RECORD_HEADER_SIZE + length;
+            records++;
+        }
+
+        if (records > 0) {
+            logger.info("已重放队列日志 " + file.getName() + ": " + records + " 条记录");
+        }
+    }
+
+    private void applyRecord(byte[] data, int offset, int length, Map<UUID, QueueManager.QueueEntry> entries) {
+        byte type = data[offset];
+        if (type == TYPE_CLEAR) {
+            entries.clear();
+            return;
+        }
+
+        UUID playerId = new UUID(readLong(data, offset + 1), readLong(data, offset + 9));
+        if (type == TYPE_ENQUEUE) {
+            long joinTime = readLong(data, offset + 17);
+            boolean vip = data[offset + 25] != 0;
+            int nameLength = ((data[offset + 26] & 0xFF) << 8) | (data[offset + 27] & 0xFF);
+            String name = new String(data, offset + 28, Math.min(nameLength, length - 28), StandardCharsets.UTF_8);
+            entries.put(playerId, new QueueManager.QueueEntry(playerId, name, vip, joinTime));
+        } else {
+            entries.remove(playerId);
+        }
+    }
+
+    private void deleteOlderThan(long gen) {
+        for (long old : generations("snapshot-")) {
+            if (old < gen) {
+                snapshotFile(old).delete();
+            }
+        }
+        for (long old : generations("journal-")) {
+            if (old < gen) {
+                // Windows 下仍被映射的文件删除会失败，下次快照时再试
+                journalFile(old).delete();
+            }
+        }
+    }
+
+    private long latestGeneration(String prefix) {
+        List<Long> gens = generations(prefix);
+        return gens.isEmpty() ? -1 : gens.get(gens.size() - 1);
+    }
+
+    private List<Long> generations(String prefix) {
+        List<Long> gens = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) {
+            return gens;
+        }
+        for (String name : names) {
+            if (name.startsWith(prefix) && name.endsWith(".dat")) {
+                try {
+                    gens.add(Long.parseLong(name.substring(prefix.length(), name.length() - 4)));
+                } catch (NumberFormatException ignored) {
+                    // 非本模块的文件
+                }
+            }
+        }
+        Collections.sort(gens);
+        return gens;
+    }
+
+    private File snapshotFile(long gen) {
+        return new File(directory, "snapshot-" + gen + ".dat");
+    }
+
+    private File journalFile(long gen) {
+        return new File(directory, "journal-" + gen + ".dat");
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        return ((long) readInt(data, offset) << 32) | (readInt(data, offset + 4) & 0xFFFFFFFFL);
+    }
+}
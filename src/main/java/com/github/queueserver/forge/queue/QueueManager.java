@@ -1,199 +1,740 @@
 package com.github.queueserver.forge.queue;
 
 import com.github.queueserver.forge.QueueForgePlugin;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.queueserver.forge.queue.scheduler.AgingScheduler;
+import com.github.queueserver.forge.queue.scheduler.DeficitRoundRobinScheduler;
+import com.github.queueserver.forge.queue.scheduler.QueueScheduler;
+import com.github.queueserver.forge.queue.scheduler.StrictPriorityScheduler;
 
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * 队列管理器
  * 处理本地队列逻辑和HTTP同步
+ *
+ * 入队和移除走无锁路径：入队写入 MPSC 暂存队列，移除通过 CAS 打墓碑；
+ * 写锁只在维护顺序索引时短暂持有，日志和HTTP通知都在锁外执行
  */
 public class QueueManager {
     
-    private final QueueForgePlugin plugin;
+    // 定时器刻度，到期任务最多延迟一个刻度
+    public static final long TIMER_TICK_MILLIS = 1000;
+    
+    private static final int TRANSFER_LATENCY_SAMPLES = 1024;
+    
     private final Logger logger;
+    private final QueueEnvironment environment;
+    
+    // 队列存储（带顺序统计索引）
+    private final IndexedQueue vipQueue = new IndexedQueue();
+    private final IndexedQueue regularQueue = new IndexedQueue();
     
-    // 队列存储
-    private final Queue<QueueEntry> vipQueue = new ConcurrentLinkedQueue<>();
-    private final Queue<QueueEntry> regularQueue = new ConcurrentLinkedQueue<>();
+    // 单调递增的排队号
+    private long nextTicket = 0;
     
-    // 队列缓存
-    private final Cache<UUID, QueueEntry> queueCache;
+    // 尚未并入索引的入队、移除、传送完成和传送失败
+    private final MpscLinkedQueue<QueueEntry> pendingAdds = new MpscLinkedQueue<>();
+    private final MpscLinkedQueue<QueueEntry> pendingRemovals = new MpscLinkedQueue<>();
+    private final MpscLinkedQueue<QueueEntry> pendingDepartures = new MpscLinkedQueue<>();
+    private final MpscLinkedQueue<QueueEntry> pendingRequeues = new MpscLinkedQueue<>();
+    
+    // 成员索引，队列中每个玩家都有且仅有一项，不会淘汰或过期
+    private final UuidIndex<QueueEntry> members = new UuidIndex<>();
     
     // 读写锁
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     
+    // 预写日志，未启用持久化时为 null
+    private QueueJournal journal;
+    
+    // 出队调度策略，只在写锁内使用
+    private final QueueScheduler scheduler;
+    
+    // 各队列的出队速率估算
+    private final WaitTimeEstimator vipEstimator;
+    private final WaitTimeEstimator regularEstimator;
+    
+    // 定时器：最长等待、掉线保留、传送确认
+    private final TimingWheel timers;
+    private final long maxWaitMillis;
+    private final long reconnectGraceMillis;
+    private final long transferConfirmMillis;
+    private final int maxTransferAttempts;
+    
+    // 传送中的玩家，确认到达前保留原排队位置
+    private final Map<UUID, InFlightTransfer> inFlight = new ConcurrentHashMap<>();
+    
+    // 出队到到达目标服务器的延迟（环形缓冲）
+    private final long[] transferLatencies = new long[TRANSFER_LATENCY_SAMPLES];
+    private int transferLatencyCount = 0;
+    private long transfersConfirmed = 0;
+    private long transfersRequeued = 0;
+    private long transfersAbandoned = 0;
+    
+    // 成员变动计数，每次加入或移出成员后递增，用于判断两次读取之间成员是否变化
+    private final AtomicLong membershipVersion = new AtomicLong();
+    
+    // 离线巡检游标，仅主线程访问
+    private boolean sweepVip = true;
+    private int sweepSlot = 0;
+    
     // 统计信息
     private long lastProcessTime = 0;
     private int processedToday = 0;
     
     public QueueManager(QueueForgePlugin plugin) {
-        this.plugin = plugin;
-        this.logger = plugin.getLogger();
-        
-        // 初始化缓存
-        this.queueCache = Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(30, TimeUnit.MINUTES)
-                .removalListener((key, value, cause) -> {
-                    if (cause.wasEvicted()) {
-                        logger.info("队列缓存项已过期: " + key);
-                    }
-                })
-                .build();
+        this(plugin.getLogger(), QueueSettings.fromConfig(plugin), new PluginQueueEnvironment(plugin));
+    }
+    
+    public QueueManager(Logger logger, QueueSettings settings, QueueEnvironment environment) {
+        this.logger = logger;
+        this.environment = environment;
+        
+        if (settings.getDataFolder() != null) {
+            this.journal = new QueueJournal(settings.getDataFolder(), settings.getJournalSizeBytes(), logger);
+        }
+        
+        this.vipEstimator = new WaitTimeEstimator(settings.getEtaTimeConstantMillis());
+        this.regularEstimator = new WaitTimeEstimator(settings.getEtaTimeConstantMillis());
         
-        logger.info("队列管理器已初始化");
+        this.timers = new TimingWheel(TIMER_TICK_MILLIS, 512, environment.currentTimeMillis(), logger);
+        this.maxWaitMillis = settings.getMaxWaitMillis();
+        this.reconnectGraceMillis = settings.getReconnectGraceMillis();
+        this.transferConfirmMillis = settings.getTransferConfirmMillis();
+        this.maxTransferAttempts = Math.max(1, settings.getMaxTransferAttempts());
+        
+        this.scheduler = createScheduler(settings.getSchedulerPolicy(), settings.getVipWeight());
+        
+        logger.info("队列管理器已初始化，调度策略: " + scheduler.getName());
     }
     
     /**
-     * 添加玩家到队列
+     * 按配置创建调度策略，VIP权重取自VIP优先级倍数
      */
-    public boolean addPlayer(Player player, boolean isVip) {
-        UUID playerId = player.getUniqueId();
+    private QueueScheduler createScheduler(String policy, double vipWeight) {
+        switch (policy.toLowerCase(Locale.ROOT)) {
+            case "strict":
+                return new StrictPriorityScheduler();
+            case "weighted":
+            case "drr":
+                return new DeficitRoundRobinScheduler(vipWeight);
+            case "aging":
+                return new AgingScheduler(vipWeight);
+            default:
+                logger.warning("未知的调度策略: " + policy + "，使用严格优先");
+                return new StrictPriorityScheduler();
+        }
+    }
+    
+    /**
+     * 从快照和预写日志恢复队列顺序和加入时间，恢复的玩家重新通知代理入队
+     * 应在服务器就绪前调用
+     */
+    public int recover() {
+        if (journal == null) {
+            return 0;
+        }
+        
+        long start = System.nanoTime();
+        List<QueueEntry> recovered;
+        try {
+            recovered = journal.recover();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "恢复队列失败，队列持久化已停用", e);
+            journal = null;
+            return 0;
+        }
         
+        List<QueueEntry> restored = new ArrayList<>(recovered.size());
         lock.writeLock().lock();
         try {
-            // 检查玩家是否已在队列中
-            if (isPlayerInQueue(playerId)) {
-                return false;
+            for (QueueEntry entry : recovered) {
+                if (members.putIfAbsent(entry.getPlayerId(), entry) == null) {
+                    entry.ticket = nextTicket++;
+                    tierOf(entry).offer(entry);
+                    scheduleMaxWait(entry);
+                    restored.add(entry);
+                }
             }
-            
-            // 创建队列条目
-            QueueEntry entry = new QueueEntry(playerId, player.getName(), isVip);
-            
-            // 添加到适当的队列
-            if (isVip) {
-                vipQueue.offer(entry);
-                logger.info("VIP玩家 " + player.getName() + " 已加入队列");
-            } else {
-                regularQueue.offer(entry);
-                logger.info("玩家 " + player.getName() + " 已加入队列");
+            membershipVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        // 代理端的队列镜像不随本服重启恢复，按原顺序补发入队
+        for (QueueEntry entry : restored) {
+            environment.onPlayerAdded(entry);
+        }
+        
+        logger.info(String.format("已恢复 %d 名排队玩家 (%.1fms)", restored.size(), (System.nanoTime() - start) / 1_000_000.0));
+        return restored.size();
+    }
+    
+    /**
+     * 写入快照并压缩预写日志
+     */
+    public void checkpoint() {
+        QueueJournal current;
+        List<QueueEntry> snapshot;
+        long generation;
+        
+        lock.writeLock().lock();
+        try {
+            current = journal;
+            if (current == null) {
+                return;
             }
-            
-            // 添加到缓存
-            queueCache.put(playerId, entry);
-            
-            // 通知代理服务器
-            plugin.getProxyHttpClient().addPlayerToQueue(playerId, player.getName(), isVip);
-            
-            return true;
-            
+            applyPending();
+            if (!current.hasPendingRecords()) {
+                return;
+            }
+            snapshot = snapshotEntries();
+            generation = current.rotate();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "切换队列日志失败", e);
+            return;
         } finally {
             lock.writeLock().unlock();
         }
+        
+        // 快照在锁外写入，期间的变更记录在新一代日志中
+        try {
+            current.writeSnapshot(generation, snapshot);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "写入队列快照失败", e);
+        }
+    }
+    
+    /**
+     * 按排队号合并两个队列，得到全局入队顺序，调用方需持有写锁
+     */
+    private List<QueueEntry> snapshotEntries() {
+        List<QueueEntry> vip = new ArrayList<>(vipQueue.size());
+        List<QueueEntry> regular = new ArrayList<>(regularQueue.size());
+        vipQueue.forEach(vip::add);
+        regularQueue.forEach(regular::add);
+        
+        List<QueueEntry> merged = new ArrayList<>(vip.size() + regular.size());
+        int i = 0;
+        int j = 0;
+        while (i < vip.size() || j < regular.size()) {
+            if (j == regular.size() || (i < vip.size() && vip.get(i).ticket < regular.get(j).ticket)) {
+                merged.add(vip.get(i++));
+            } else {
+                merged.add(regular.get(j++));
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * 添加玩家到队列
+     */
+    public boolean addPlayer(Player player, boolean isVip) {
+        return addPlayer(player.getUniqueId(), player.getName(), isVip);
+    }
+    
+    /**
+     * 添加玩家到队列
+     */
+    public boolean addPlayer(UUID playerId, String playerName, boolean isVip) {
+        // 创建队列条目
+        QueueEntry entry = new QueueEntry(playerId, playerName, isVip, environment.currentTimeMillis());
+        
+        // 原子地占位，已在队列中则失败
+        if (members.putIfAbsent(playerId, entry) != null) {
+            return false;
+        }
+        membershipVersion.incrementAndGet();
+        
+        // 无锁入队，排队号在并入索引时按入队顺序分配
+        pendingAdds.offer(entry);
+        
+        if (isVip) {
+            logger.info("VIP玩家 " + playerName + " 已加入队列");
+        } else {
+            logger.info("玩家 " + playerName + " 已加入队列");
+        }
+        
+        // 通知代理服务器
+        environment.onPlayerAdded(entry);
+        
+        return true;
     }
     
     /**
      * 从队列移除玩家
      */
     public boolean removePlayer(UUID playerId) {
+        QueueEntry entry = members.get(playerId);
+        if (entry == null) {
+            return false;
+        }
+        
+        // 传送中的玩家主动离开时放弃本次传送
+        InFlightTransfer transfer = inFlight.remove(playerId);
+        if (transfer != null && transfer.deadline != null) {
+            transfer.deadline.cancel();
+        }
+        
+        // 等待中或传送中都一次 CAS 转为移除，不经过等待状态，期间不会被再次出队
+        if (!entry.markWithdrawn()) {
+            return false;
+        }
+        completeRemoval(entry, null, "已从队列移除");
+        return true;
+    }
+    
+    /**
+     * 移除等待中的条目，已出队、传送中或已移除时返回 false
+     * 超时、离线等自动移除带有原因，主动移除为 null
+     */
+    private boolean removeEntry(QueueEntry entry, String reason, String message) {
+        if (!entry.markRemoved()) {
+            return false;
+        }
+        completeRemoval(entry, reason, message);
+        return true;
+    }
+    
+    /**
+     * 条目已打上移除墓碑，从成员索引中移除并通知
+     */
+    private void completeRemoval(QueueEntry entry, String reason, String message) {
+        // 打上墓碑后延迟从索引中移除
+        entry.cancelTimers();
+        members.remove(entry.getPlayerId(), entry);
+        membershipVersion.incrementAndGet();
+        pendingRemovals.offer(entry);
+        
+        logger.info("玩家 " + entry.getPlayerName() + " " + message);
+        
+        // 通知代理服务器
+        environment.onPlayerRemoved(entry, reason);
+    }
+    
+    /**
+     * 为条目安排最长等待定时器
+     */
+    private void scheduleMaxWait(QueueEntry entry) {
+        if (maxWaitMillis > 0) {
+            entry.waitTimeout = timers.schedule(entry.getJoinTime() + maxWaitMillis,
+                    () -> removeEntry(entry, "TIMEOUT", "等待超时，已从队列移除"));
+            if (!entry.isWaiting()) {
+                entry.cancelTimers();
+            }
+        }
+    }
+    
+    /**
+     * 玩家掉线后开始保留期，期满仍未重连则失去位置
+     * 未启用保留期或玩家不在队列中时返回 false，由调用方直接移除
+     */
+    public boolean startGracePeriod(UUID playerId) {
+        QueueEntry entry = members.get(playerId);
+        if (entry == null || reconnectGraceMillis <= 0) {
+            return false;
+        }
+        
+        // 已在保留期内时不延长
+        if (entry.graceTimeout == null) {
+            scheduleGrace(entry);
+        }
+        return true;
+    }
+    
+    /**
+     * 为条目安排掉线保留定时器
+     */
+    private void scheduleGrace(QueueEntry entry) {
+        entry.graceTimeout = timers.schedule(environment.currentTimeMillis() + reconnectGraceMillis,
+                () -> removeEntry(entry, "DISCONNECT", "掉线超时，已从队列移除"));
+        
+        // 安排期间条目可能已出队或被移除
+        if (!entry.isWaiting()) {
+            entry.cancelTimers();
+        }
+    }
+    
+    /**
+     * 玩家在保留期内重连，保留原有位置
+     */
+    public boolean cancelGracePeriod(UUID playerId) {
+        QueueEntry entry = members.get(playerId);
+        if (entry == null) {
+            return false;
+        }
+        
+        TimingWheel.Timeout timeout = entry.graceTimeout;
+        entry.graceTimeout = null;
+        return timeout != null && timeout.cancel();
+    }
+    
+    /**
+     * 记录传送请求的结果
+     * 失败的玩家恢复原排队位置；未设置确认超时时，请求成功即视为到达
+     * 玩家已不在传送中（已离开队列或已超时）时返回 false
+     */
+    public boolean onTransferResult(UUID playerId, boolean success) {
+        InFlightTransfer transfer = inFlight.get(playerId);
+        if (transfer == null) {
+            return false;
+        }
+        
+        if (!success) {
+            requeue(transfer, "传送失败");
+        } else if (transferConfirmMillis <= 0) {
+            confirmTransfer(playerId);
+        }
+        return true;
+    }
+    
+    /**
+     * 确认玩家已到达目标服务器，此后才真正离开队列
+     */
+    public boolean confirmTransfer(UUID playerId) {
+        InFlightTransfer transfer = inFlight.remove(playerId);
+        if (transfer == null || !transfer.entry.markArrived()) {
+            return false;
+        }
+        
+        QueueEntry entry = transfer.entry;
+        if (transfer.deadline != null) {
+            transfer.deadline.cancel();
+        }
+        entry.cancelTimers();
+        members.remove(playerId, entry);
+        membershipVersion.incrementAndGet();
+        pendingDepartures.offer(entry);
+        
+        long latency = environment.currentTimeMillis() - transfer.dispatchTime;
+        synchronized (transferLatencies) {
+            transferLatencies[transferLatencyCount++ % TRANSFER_LATENCY_SAMPLES] = latency;
+            transfersConfirmed++;
+        }
+        return true;
+    }
+    
+    /**
+     * 传送失败或超时，玩家回到原来的排队位置
+     * 多次失败后放弃并移出队列
+     */
+    private void requeue(InFlightTransfer transfer, String reason) {
+        QueueEntry entry = transfer.entry;
+        if (!inFlight.remove(entry.getPlayerId(), transfer)) {
+            return;
+        }
+        if (transfer.deadline != null) {
+            transfer.deadline.cancel();
+        }
+        
+        // 多次失败时直接从传送中转为移除，不经过等待状态
+        if (entry.transferAttempts + 1 >= maxTransferAttempts) {
+            if (entry.markRemovedInFlight()) {
+                entry.transferAttempts++;
+                completeRemoval(entry, "TRANSFER_FAILED", "多次传送失败，已从队列移除");
+                synchronized (transferLatencies) {
+                    transfersAbandoned++;
+                }
+            }
+            return;
+        }
+        if (!entry.markRequeued()) {
+            return;
+        }
+        entry.transferAttempts++;
+        
+        // 条目始终占着原槽位，恢复等待状态后并入索引时重新计入排名
+        pendingRequeues.offer(entry);
+        
+        // 传送期间到期的定时器没有生效：最长等待重新安排，掉线保留交给离线巡检
+        TimingWheel.Timeout waitTimeout = entry.waitTimeout;
+        if (waitTimeout != null && waitTimeout.isExpired()) {
+            scheduleMaxWait(entry);
+        }
+        TimingWheel.Timeout graceTimeout = entry.graceTimeout;
+        if (graceTimeout != null && graceTimeout.isExpired()) {
+            entry.graceTimeout = null;
+        }
+        
+        synchronized (transferLatencies) {
+            transfersRequeued++;
+        }
+        logger.info("玩家 " + entry.getPlayerName() + " " + reason + "，已恢复原排队位置");
+        environment.onTransferRequeued(entry, reason);
+    }
+    
+    /**
+     * 获取传送统计
+     */
+    public TransferStats getTransferStats() {
+        long[] sorted;
+        long confirmed;
+        long requeued;
+        long abandoned;
+        synchronized (transferLatencies) {
+            sorted = Arrays.copyOf(transferLatencies, Math.min(transferLatencyCount, TRANSFER_LATENCY_SAMPLES));
+            confirmed = transfersConfirmed;
+            requeued = transfersRequeued;
+            abandoned = transfersAbandoned;
+        }
+        Arrays.sort(sorted);
+        return new TransferStats(inFlight.size(), confirmed, requeued, abandoned,
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99));
+    }
+    
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+    
+    /**
+     * 推进定时器，执行到期的超时任务
+     */
+    public int advanceTimers() {
+        return timers.advance(environment.currentTimeMillis());
+    }
+    
+    /**
+     * 获取下一个要处理的玩家，玩家进入传送中状态
+     */
+    public UUID getNextPlayer() {
+        List<QueueEntry> batch = pollBatch(1, entry -> true);
+        return batch.isEmpty() ? null : batch.get(0).getPlayerId();
+    }
+    
+    /**
+     * 原子地取出最多 n 个符合条件的玩家
+     * 一次加锁、一次统计更新；两个队列之间由调度策略决定先后，不符合条件的玩家保留原位
+     *
+     * 取出的玩家进入传送中状态并继续占着原槽位（不计入人数和排名），确认到达后才离开队列，
+     * 传送失败或超时则恢复等待
+     */
+    public List<QueueEntry> pollBatch(int n, Predicate<QueueEntry> eligible) {
+        if (n <= 0) {
+            return Collections.emptyList();
+        }
+        
+        List<QueueEntry> batch = new ArrayList<>(Math.min(n, 64));
+        Predicate<QueueEntry> candidate = entry -> entry.isWaiting() && eligible.test(entry);
+        
         lock.writeLock().lock();
         try {
-            QueueEntry entry = queueCache.getIfPresent(playerId);
-            if (entry == null) {
-                return false;
-            }
+            applyPending();
             
-            // 从队列中移除
-            boolean removed = false;
-            if (entry.isVip()) {
-                removed = vipQueue.removeIf(e -> e.getPlayerId().equals(playerId));
-            } else {
-                removed = regularQueue.removeIf(e -> e.getPlayerId().equals(playerId));
-            }
+            boolean vipBacklog = !vipQueue.isEmpty();
+            boolean regularBacklog = !regularQueue.isEmpty();
+            long now = environment.currentTimeMillis();
+            
+            int vipCount = 0;
+            int regularCount = 0;
+            QueueEntry vipNext = vipQueue.findFrom(0, candidate);
+            QueueEntry regularNext = regularQueue.findFrom(0, candidate);
             
-            if (removed) {
-                queueCache.invalidate(playerId);
-                logger.info("玩家 " + entry.getPlayerName() + " 已从队列移除");
+            while (batch.size() < n && (vipNext != null || regularNext != null)) {
+                boolean fromVip = regularNext == null
+                        || (vipNext != null && scheduler.selectVip(vipNext, regularNext, now));
+                QueueEntry entry = fromVip ? vipNext : regularNext;
+                IndexedQueue tier = fromVip ? vipQueue : regularQueue;
+                int nextSlot = entry.slot + 1;
+                
+                // 与并发的 removePlayer 竞争，CAS 失败说明已被移除
+                if (entry.markInFlight()) {
+                    tier.park(entry);
+                    batch.add(entry);
+                    scheduler.onDequeued(entry, now);
+                    if (fromVip) {
+                        vipCount++;
+                    } else {
+                        regularCount++;
+                    }
+                }
                 
-                // 通知代理服务器
-                plugin.getProxyHttpClient().removePlayerFromQueue(playerId);
+                if (fromVip) {
+                    vipNext = tier.findFrom(nextSlot, candidate);
+                } else {
+                    regularNext = tier.findFrom(nextSlot, candidate);
+                }
+            }
+            
+            // 没有出队也要记录，队列停滞时速率随之下降
+            vipEstimator.observe(vipCount, now, vipBacklog);
+            regularEstimator.observe(regularCount, now, regularBacklog);
+            
+            if (batch.isEmpty()) {
+                return batch;
             }
             
-            return removed;
+            lastProcessTime = now;
+            processedToday += batch.size();
             
         } finally {
             lock.writeLock().unlock();
         }
+        
+        long now = environment.currentTimeMillis();
+        for (QueueEntry entry : batch) {
+            InFlightTransfer transfer = new InFlightTransfer(entry, now);
+            inFlight.put(entry.getPlayerId(), transfer);
+            if (transferConfirmMillis > 0) {
+                transfer.deadline = timers.schedule(now + transferConfirmMillis, () -> requeue(transfer, "传送超时"));
+            }
+        }
+        
+        if (batch.size() == 1) {
+            logger.info("处理队列玩家: " + batch.get(0).getPlayerName());
+        } else {
+            logger.info("批量处理队列玩家: " + batch.size() + " 人");
+        }
+        return batch;
     }
     
     /**
-     * 获取下一个要处理的玩家
+     * 将暂存的入队和移除并入索引，调用方需持有写锁
      */
-    public UUID getNextPlayer() {
-        lock.writeLock().lock();
-        try {
-            // 优先处理VIP队列
-            QueueEntry entry = vipQueue.poll();
-            if (entry == null) {
-                entry = regularQueue.poll();
+    private void applyPending() {
+        QueueEntry entry;
+        while ((entry = pendingAdds.poll()) != null) {
+            // 入队后立即被移除的条目无需进入索引
+            if (entry.isWaiting()) {
+                entry.ticket = nextTicket++;
+                tierOf(entry).offer(entry);
+                scheduleMaxWait(entry);
+                if (journal != null) {
+                    journal.appendEnqueue(entry);
+                }
             }
-            
-            if (entry != null) {
-                queueCache.invalidate(entry.getPlayerId());
-                lastProcessTime = System.currentTimeMillis();
-                processedToday++;
-                
-                logger.info("处理队列玩家: " + entry.getPlayerName());
-                return entry.getPlayerId();
+        }
+        while ((entry = pendingRemovals.poll()) != null) {
+            if (tierOf(entry).remove(entry) && journal != null) {
+                journal.appendRemove(entry.getPlayerId());
             }
-            
-            return null;
-            
+        }
+        while ((entry = pendingDepartures.poll()) != null) {
+            if (tierOf(entry).remove(entry) && journal != null) {
+                journal.appendDequeue(entry.getPlayerId());
+            }
+        }
+        while ((entry = pendingRequeues.poll()) != null) {
+            // 并入前可能已再次出队或被移除
+            if (entry.isWaiting()) {
+                tierOf(entry).unpark(entry);
+            }
+        }
+    }
+    
+    /**
+     * 确保索引包含所有已完成的入队和移除
+     */
+    private void syncIndex() {
+        if (pendingAdds.isEmpty() && pendingRemovals.isEmpty() && pendingDepartures.isEmpty()
+                && pendingRequeues.isEmpty()) {
+            return;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            applyPending();
         } finally {
             lock.writeLock().unlock();
         }
     }
     
+    /**
+     * 成员变动计数，两次读取相同说明期间没有成员加入或移出
+     */
+    public long getMembershipVersion() {
+        return membershipVersion.get();
+    }
+    
+    /**
+     * 计算当前成员的摘要，包括传送中的玩家
+     */
+    public QueueDigest computeDigest(int bucketCount) {
+        QueueDigest digest = new QueueDigest(bucketCount);
+        members.forEach((playerId, entry) -> digest.add(playerId, entry.isVip()));
+        return digest;
+    }
+    
+    /**
+     * 获取指定桶中的成员
+     */
+    public Map<UUID, QueueEntry> getMembersInBuckets(Set<Integer> buckets, int bucketCount) {
+        Map<UUID, QueueEntry> result = new HashMap<>();
+        members.forEach((playerId, entry) -> {
+            if (buckets.contains(QueueDigest.bucketOf(playerId, bucketCount))) {
+                result.put(playerId, entry);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * 玩家是否已出队、正在等待到达确认
+     */
+    public boolean isInFlight(UUID playerId) {
+        return inFlight.containsKey(playerId);
+    }
+    
     /**
      * 检查玩家是否在队列中
      */
     public boolean isPlayerInQueue(UUID playerId) {
-        return queueCache.getIfPresent(playerId) != null;
+        return members.get(playerId) != null;
     }
     
     /**
      * 获取玩家在队列中的位置
      */
     public int getPlayerPosition(UUID playerId) {
+        syncIndex();
         lock.readLock().lock();
         try {
-            QueueEntry playerEntry = queueCache.getIfPresent(playerId);
+            QueueEntry playerEntry = members.get(playerId);
             if (playerEntry == null) {
                 return -1;
             }
             
-            int position = 1;
+            int rank = tierOf(playerEntry).rankOf(playerEntry);
+            if (rank < 0) {
+                return -1;
+            }
             
-            // 如果是VIP，只计算VIP队列中的位置
-            if (playerEntry.isVip()) {
-                for (QueueEntry entry : vipQueue) {
-                    if (entry.getPlayerId().equals(playerId)) {
-                        return position;
-                    }
-                    position++;
-                }
-            } else {
-                // 如果是普通玩家，先计算所有VIP，再计算普通队列中的位置
-                position += vipQueue.size();
-                
-                for (QueueEntry entry : regularQueue) {
-                    if (entry.getPlayerId().equals(playerId)) {
-                        return position;
-                    }
-                    position++;
-                }
+            // 按调度策略估算两个队列交错后的位置
+            return scheduler.estimatePosition(playerEntry.isVip(), rank, vipQueue.size(), regularQueue.size());
+            
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 获取玩家在所属队列（VIP或普通）中的排名
+     */
+    public int getTierPosition(UUID playerId) {
+        syncIndex();
+        lock.readLock().lock();
+        try {
+            QueueEntry playerEntry = members.get(playerId);
+            if (playerEntry == null) {
+                return -1;
             }
             
-            return -1;
+            return tierOf(playerEntry).rankOf(playerEntry);
             
         } finally {
             lock.readLock().unlock();
@@ -201,9 +742,58 @@ public class QueueManager {
     }
     
     /**
-     * 获取队列总大小
+     * 估算玩家的剩余等待时间
+     * 按玩家在所属队列中的排名和该队列的出队速率计算，数据不足时返回 null
+     */
+    public WaitTimeEstimator.Estimate estimateWaitTime(UUID playerId) {
+        syncIndex();
+        QueueEntry playerEntry;
+        int rank;
+        
+        lock.readLock().lock();
+        try {
+            playerEntry = members.get(playerId);
+            if (playerEntry == null) {
+                return null;
+            }
+            rank = tierOf(playerEntry).rankOf(playerEntry);
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        if (rank < 0) {
+            return null;
+        }
+        return (playerEntry.isVip() ? vipEstimator : regularEstimator).estimate(rank);
+    }
+    
+    /**
+     * 获取队列的出队速率（人/分钟）
+     */
+    public double getDequeueRate(boolean vip) {
+        return (vip ? vipEstimator : regularEstimator).getRatePerMinute();
+    }
+    
+    /**
+     * 获取当前调度策略名称
+     */
+    public String getSchedulerName() {
+        return scheduler.getName();
+    }
+    
+    /**
+     * 获取排在玩家前面的总人数
+     */
+    public int getPlayersAhead(UUID playerId) {
+        int position = getPlayerPosition(playerId);
+        return position > 0 ? position - 1 : -1;
+    }
+    
+    /**
+     * 获取队列总大小，不含传送中的玩家
      */
     public int getTotalQueueSize() {
+        syncIndex();
         lock.readLock().lock();
         try {
             return vipQueue.size() + regularQueue.size();
@@ -216,6 +806,7 @@ public class QueueManager {
      * 获取VIP队列大小
      */
     public int getVipQueueSize() {
+        syncIndex();
         lock.readLock().lock();
         try {
             return vipQueue.size();
@@ -228,6 +819,7 @@ public class QueueManager {
      * 获取普通队列大小
      */
     public int getRegularQueueSize() {
+        syncIndex();
         lock.readLock().lock();
         try {
             return regularQueue.size();
@@ -244,55 +836,62 @@ public class QueueManager {
     }
     
     /**
-     * 移除离线玩家
+     * 离线玩家兜底巡检，每次只检查一小段队列
+     * 掉线玩家通常已由退出事件标记，这里只补上漏掉的（例如重启后恢复的条目）；
+     * 发现离线玩家时开始掉线保留期，未启用保留期则直接移除
+     *
+     * 需要访问 Bukkit API，只能在主线程调用
      */
-    public void removeOfflinePlayers() {
-        lock.writeLock().lock();
+    public int sweepOffline(int maxEntries) {
+        List<QueueEntry> slice = new ArrayList<>(maxEntries);
+        
+        syncIndex();
+        lock.readLock().lock();
         try {
-            Set<UUID> toRemove = new HashSet<>();
-            
-            // 检查VIP队列
-            vipQueue.removeIf(entry -> {
-                Player player = plugin.getServer().getPlayer(entry.getPlayerId());
-                if (player == null || !player.isOnline()) {
-                    toRemove.add(entry.getPlayerId());
-                    return true;
-                }
-                return false;
-            });
-            
-            // 检查普通队列
-            regularQueue.removeIf(entry -> {
-                Player player = plugin.getServer().getPlayer(entry.getPlayerId());
-                if (player == null || !player.isOnline()) {
-                    toRemove.add(entry.getPlayerId());
-                    return true;
-                }
-                return false;
-            });
-            
-            // 清理缓存
-            toRemove.forEach(queueCache::invalidate);
-            
-            if (!toRemove.isEmpty()) {
-                logger.info("已清理 " + toRemove.size() + " 个离线玩家");
+            IndexedQueue tier = sweepVip ? vipQueue : regularQueue;
+            sweepSlot = tier.collect(sweepSlot, maxEntries, slice);
+            if (sweepSlot < 0) {
+                // 本队列巡检完毕，切换到另一个队列
+                sweepVip = !sweepVip;
+                sweepSlot = 0;
             }
-            
         } finally {
-            lock.writeLock().unlock();
+            lock.readLock().unlock();
+        }
+        
+        int marked = 0;
+        for (QueueEntry entry : slice) {
+            if (!entry.isWaiting() || entry.graceTimeout != null || environment.isOnline(entry.getPlayerId())) {
+                continue;
+            }
+            if (reconnectGraceMillis > 0) {
+                scheduleGrace(entry);
+                marked++;
+            } else if (removeEntry(entry, "OFFLINE", "已离线，已从队列移除")) {
+                marked++;
+            }
         }
+        return marked;
+    }
+    
+    /**
+     * 获取条目所属的队列
+     */
+    private IndexedQueue tierOf(QueueEntry entry) {
+        return entry.isVip() ? vipQueue : regularQueue;
     }
     
     /**
      * 获取队列统计信息
      */
     public QueueStats getQueueStats() {
+        syncIndex();
         lock.readLock().lock();
         try {
             return new QueueStats(
-                getTotalQueueSize(),
-                getVipQueueSize(),
-                getRegularQueueSize(),
+                vipQueue.size() + regularQueue.size(),
+                vipQueue.size(),
+                regularQueue.size(),
                 lastProcessTime,
                 processedToday
             );
@@ -307,20 +906,54 @@ public class QueueManager {
     public void clearAllQueues() {
         lock.writeLock().lock();
         try {
-            vipQueue.clear();
-            regularQueue.clear();
-            queueCache.invalidateAll();
-            logger.info("所有队列已清空");
+            clearInMemory();
+            if (journal != null) {
+                journal.appendClear();
+            }
         } finally {
             lock.writeLock().unlock();
         }
+        logger.info("所有队列已清空");
+    }
+    
+    /**
+     * 清空内存中的队列，调用方需持有写锁
+     */
+    private void clearInMemory() {
+        applyPending();
+        vipQueue.forEach(QueueEntry::markRemoved);
+        regularQueue.forEach(QueueEntry::markRemoved);
+        vipQueue.forEach(QueueEntry::cancelTimers);
+        regularQueue.forEach(QueueEntry::cancelTimers);
+        vipQueue.clear();
+        regularQueue.clear();
+        members.clear();
+        membershipVersion.incrementAndGet();
+        inFlight.values().forEach(transfer -> {
+            if (transfer.deadline != null) {
+                transfer.deadline.cancel();
+            }
+        });
+        inFlight.clear();
     }
     
     /**
      * 关闭队列管理器
+     * 持久化开启时先写入快照，重启后玩家保留原有位置
      */
     public void shutdown() {
-        clearAllQueues();
+        checkpoint();
+        
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+            clearInMemory();
+        } finally {
+            lock.writeLock().unlock();
+        }
         logger.info("队列管理器已关闭");
     }
     
@@ -328,16 +961,53 @@ public class QueueManager {
      * 队列条目类
      */
     public static class QueueEntry {
+        private static final int WAITING = 0;
+        private static final int REMOVED = 1;
+        private static final int DEQUEUED = 2;
+        private static final int IN_FLIGHT = 3;
+        private static final VarHandle STATE;
+        
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(QueueEntry.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        
         private final UUID playerId;
         private final String playerName;
         private final boolean vip;
         private final long joinTime;
         
+        // 排队号，决定同一队列内的先后顺序
+        long ticket;
+        
+        // 在 IndexedQueue 中的槽位，-1 表示不在队列中
+        int slot = -1;
+        
+        // 传送中被挂起，不计入排名和人数，由 IndexedQueue 维护
+        boolean parked = false;
+        
+        // 已失败的传送次数，仅由赢得状态 CAS 的线程修改
+        int transferAttempts = 0;
+        
+        // 最长等待和掉线保留定时器
+        volatile TimingWheel.Timeout waitTimeout;
+        volatile TimingWheel.Timeout graceTimeout;
+        
+        // 条目状态，通过 CAS 转换：等待与传送中互转，两者都可转为移除，传送中确认到达后出队
+        private volatile int state = WAITING;
+        
         public QueueEntry(UUID playerId, String playerName, boolean vip) {
+            this(playerId, playerName, vip, System.currentTimeMillis());
+        }
+        
+        public QueueEntry(UUID playerId, String playerName, boolean vip, long joinTime) {
             this.playerId = playerId;
             this.playerName = playerName;
             this.vip = vip;
-            this.joinTime = System.currentTimeMillis();
+            this.joinTime = joinTime;
         }
         
         public UUID getPlayerId() {
@@ -359,6 +1029,154 @@ public class QueueManager {
         public long getWaitTime() {
             return System.currentTimeMillis() - joinTime;
         }
+        
+        public long getTicket() {
+            return ticket;
+        }
+        
+        boolean isWaiting() {
+            return state == WAITING;
+        }
+        
+        /**
+         * 取消条目的所有定时器
+         */
+        void cancelTimers() {
+            TimingWheel.Timeout timeout = waitTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            timeout = graceTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+        
+        /**
+         * 打上移除墓碑，只有仍在等待的条目能成功
+         */
+        boolean markRemoved() {
+            return STATE.compareAndSet(this, WAITING, REMOVED);
+        }
+        
+        /**
+         * 标记为传送中，只有仍在等待的条目能成功
+         */
+        boolean markInFlight() {
+            return STATE.compareAndSet(this, WAITING, IN_FLIGHT);
+        }
+        
+        /**
+         * 传送中的条目直接移除，与恢复等待和确认到达互斥
+         */
+        boolean markRemovedInFlight() {
+            return STATE.compareAndSet(this, IN_FLIGHT, REMOVED);
+        }
+        
+        /**
+         * 玩家主动离开，等待中或传送中都直接打上移除墓碑
+         */
+        boolean markWithdrawn() {
+            while (true) {
+                int current = state;
+                if (current != WAITING && current != IN_FLIGHT) {
+                    return false;
+                }
+                if (STATE.compareAndSet(this, current, REMOVED)) {
+                    return true;
+                }
+            }
+        }
+        
+        /**
+         * 传送失败，恢复等待
+         */
+        boolean markRequeued() {
+            return STATE.compareAndSet(this, IN_FLIGHT, WAITING);
+        }
+        
+        /**
+         * 确认到达目标服务器，离开队列
+         */
+        boolean markArrived() {
+            return STATE.compareAndSet(this, IN_FLIGHT, DEQUEUED);
+        }
+        
+        /**
+         * 是否正在传送中
+         */
+        public boolean isInFlight() {
+            return state == IN_FLIGHT;
+        }
+    }
+    
+    /**
+     * 传送中的玩家
+     */
+    private static class InFlightTransfer {
+        private final QueueEntry entry;
+        private final long dispatchTime;
+        private volatile TimingWheel.Timeout deadline;
+        
+        InFlightTransfer(QueueEntry entry, long dispatchTime) {
+            this.entry = entry;
+            this.dispatchTime = dispatchTime;
+        }
+    }
+    
+    /**
+     * 传送统计信息类
+     */
+    public static class TransferStats {
+        private final int inFlight;
+        private final long confirmed;
+        private final long requeued;
+        private final long abandoned;
+        private final long p50LatencyMillis;
+        private final long p90LatencyMillis;
+        private final long p99LatencyMillis;
+        
+        public TransferStats(int inFlight, long confirmed, long requeued, long abandoned,
+                             long p50LatencyMillis, long p90LatencyMillis, long p99LatencyMillis) {
+            this.inFlight = inFlight;
+            this.confirmed = confirmed;
+            this.requeued = requeued;
+            this.abandoned = abandoned;
+            this.p50LatencyMillis = p50LatencyMillis;
+            this.p90LatencyMillis = p90LatencyMillis;
+            this.p99LatencyMillis = p99LatencyMillis;
+        }
+        
+        public int getInFlight() {
+            return inFlight;
+        }
+        
+        public long getConfirmed() {
+            return confirmed;
+        }
+        
+        public long getRequeued() {
+            return requeued;
+        }
+        
+        public long getAbandoned() {
+            return abandoned;
+        }
+        
+        /**
+         * 出队到到达的延迟分位数，无数据时为 -1
+         */
+        public long getP50LatencyMillis() {
+            return p50LatencyMillis;
+        }
+        
+        public long getP90LatencyMillis() {
+            return p90LatencyMillis;
+        }
+        
+        public long getP99LatencyMillis() {
+            return p99LatencyMillis;
+        }
     }
     
     /**
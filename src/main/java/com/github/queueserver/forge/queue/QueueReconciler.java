@@ -0,0 +1,312 @@
+package com.github.queueserver.forge.queue;
+
+import com.github.queueserver.forge.http.ProxyHttpClient;
+import com.github.queueserver.forge.http.model.QueueDigestResponse;
+import com.github.queueserver.forge.http.model.QueueMember;
+import com.github.queueserver.forge.http.model.QueueMembersResponse;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 本地队列与代理端镜像的定期核对
+ * 先用总人数和根哈希比较，一致时只花一次很小的请求；不一致时取代理端各桶摘要，
+ * 只拉取不一致的桶的成员，按本地队列补发入队或离队，修复丢失的通知
+ *
+ * 本地队列为准；一轮核对期间成员有变动或发件箱仍有未发出的变动时放弃本轮，
+ * 避免把正在途中的变动当作差异；传送中的玩家不做修复
+ */
+public class QueueReconciler {
+
+    /**
+     * 核对用到的代理端操作，运行时由 ProxyHttpClient 提供
+     */
+    interface Mirror {
+        boolean isQueueDigestSupported();
+
+        boolean isOutboxIdle();
+
+        CompletableFuture<QueueDigestResponse> getQueueDigest(int buckets, int totalCount, long rootHash);
+
+        CompletableFuture<QueueMembersResponse> getQueueMembers(int buckets, Collection<Integer> bucketIds);
+
+        void queuePlayerAdded(UUID playerId, String playerName, boolean vip);
+
+        void queuePlayerRemoved(UUID playerId);
+    }
+
+    private final Logger logger;
+    private final QueueManager queueManager;
+    private final Mirror proxyClient;
+    private final int bucketCount;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // 统计信息
+    private final AtomicLong rounds = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong bucketsFetched = new AtomicLong();
+    private final AtomicLong playersAdded = new AtomicLong();
+    private final AtomicLong playersRemoved = new AtomicLong();
+    private volatile long lastRepairTime = 0;
+
+    public QueueReconciler(QueueManager queueManager, ProxyHttpClient proxyClient, int bucketCount, Logger logger) {
+        this(queueManager, new Mirror() {
+            @Override
+            public boolean isQueueDigestSupported() {
+                return proxyClient.isQueueDigestSupported();
+            }
+
+            @Override
+            public boolean isOutboxIdle() {
+                return proxyClient.isOutboxIdle();
+            }
+
+            @Override
+            public CompletableFuture<QueueDigestResponse> getQueueDigest(int buckets, int totalCount, long rootHash) {
+                return proxyClient.getQueueDigest(buckets, totalCount, rootHash);
+            }
+
+            @Override
+            public CompletableFuture<QueueMembersResponse> getQueueMembers(int buckets, Collection<Integer> bucketIds) {
+                return proxyClient.getQueueMembers(buckets, bucketIds);
+            }
+
+            @Override
+            public void queuePlayerAdded(UUID playerId, String playerName, boolean vip) {
+                proxyClient.queuePlayerAdded(playerId, playerName, vip);
+            }
+
+            @Override
+            public void queuePlayerRemoved(UUID playerId) {
+                proxyClient.queuePlayerRemoved(playerId);
+            }
+        }, bucketCount, logger);
+    }
+
+    QueueReconciler(QueueManager queueManager, Mirror proxyClient, int bucketCount, Logger logger) {
+        this.logger = logger;
+        this.queueManager = queueManager;
+        this.proxyClient = proxyClient;
+        this.bucketCount = Math.max(1, Math.min(4096, bucketCount));
+    }
+
+    /**
+     * 执行一轮核对，上一轮尚未结束时跳过
+     */
+    public void reconcile() {
+        if (!proxyClient.isQueueDigestSupported() || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        CompletableFuture<Void> round;
+        try {
+            round = runRound();
+        } catch (RuntimeException e) {
+            round = CompletableFuture.failedFuture(e);
+        }
+        round.whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.log(Level.WARNING, "队列核对失败", error);
+            }
+            running.set(false);
+        });
+    }
+
+    private CompletableFuture<Void> runRound() {
+        if (!proxyClient.isOutboxIdle()) {
+            skipped.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        rounds.incrementAndGet();
+        long version = queueManager.getMembershipVersion();
+        QueueDigest local = queueManager.computeDigest(bucketCount);
+
+        return proxyClient.getQueueDigest(bucketCount, local.getTotalCount(), local.getRootHash())
+                .thenCompose(remote -> {
+                    if (remote == null || !remote.isSuccess()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (remote.isMatch()) {
+                        matched.incrementAndGet();
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    List<Integer> buckets = diff(local, remote);
+                    if (buckets.isEmpty()) {
+                        matched.incrementAndGet();
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    bucketsFetched.addAndGet(buckets.size());
+                    return proxyClient.getQueueMembers(bucketCount, buckets).thenAccept(response -> {
+                        if (response != null && response.isSuccess() && response.getMembers() != null) {
+                            repair(new HashSet<>(buckets), response.getMembers(), version);
+                        }
+                    });
+                });
+    }
+
+    /**
+     * 找出与代理端不一致的桶，代理返回的数据不完整时视为全部不一致
+     */
+    private List<Integer> diff(QueueDigest local, QueueDigestResponse remote) {
+        List<Integer> counts = remote.getCounts();
+        List<String> hashes = remote.getHashes();
+        if (remote.getBuckets() != bucketCount || counts == null || hashes == null) {
+            return local.diff(new int[0], new long[0]);
+        }
+
+        int[] remoteCounts = new int[counts.size()];
+        long[] remoteHashes = new long[hashes.size()];
+        for (int i = 0; i < remoteCounts.length; i++) {
+            remoteCounts[i] = counts.get(i);
+        }
+        try {
+            for (int i = 0; i < remoteHashes.length; i++) {
+                remoteHashes[i] = QueueDigest.parseHex(hashes.get(i));
+            }
+        } catch (NumberFormatException e) {
+            return local.diff(new int[0], new long[0]);
+        }
+        return local.diff(remoteCounts, remoteHashes);
+    }
+
+    /**
+     * 按本地队列修复不一致的桶
+     */
+    private void repair(Set<Integer> buckets, List<QueueMember> remoteMembers, long version) {
+        // 取得代理数据期间本地有变动，本轮结果不可靠
+        if (queueManager.getMembershipVersion() != version || !proxyClient.isOutboxIdle()) {
+            skipped.incrementAndGet();
+            return;
+        }
+
+        Map<UUID, QueueManager.QueueEntry> localMembers = queueManager.getMembersInBuckets(buckets, bucketCount);
+        Set<UUID> seen = new HashSet<>();
+        int added = 0;
+        int removed = 0;
+
+        for (QueueMember member : remoteMembers) {
+            UUID playerId;
+            try {
+                playerId = UUID.fromString(member.getPlayerId());
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (!buckets.contains(QueueDigest.bucketOf(playerId, bucketCount))) {
+                continue;
+            }
+            seen.add(playerId);
+
+            QueueManager.QueueEntry entry = localMembers.get(playerId);
+            if (entry == null) {
+                proxyClient.queuePlayerRemoved(playerId);
+                removed++;
+            } else if (entry.isVip() != member.isVip() && !entry.isInFlight()) {
+                // 等级不一致时重新加入
+                proxyClient.queuePlayerRemoved(playerId);
+                proxyClient.queuePlayerAdded(playerId, entry.getPlayerName(), entry.isVip());
+                removed++;
+                added++;
+            }
+        }
+
+        for (QueueManager.QueueEntry entry : localMembers.values()) {
+            if (!seen.contains(entry.getPlayerId()) && !entry.isInFlight()) {
+                proxyClient.queuePlayerAdded(entry.getPlayerId(), entry.getPlayerName(), entry.isVip());
+                added++;
+            }
+        }
+
+        if (added > 0 || removed > 0) {
+            playersAdded.addAndGet(added);
+            playersRemoved.addAndGet(removed);
+            lastRepairTime = System.currentTimeMillis();
+            logger.info("队列核对修复了 " + buckets.size() + " 个桶: 补发入队 " + added + " 人, 离队 " + removed + " 人");
+        }
+    }
+
+    /**
+     * 获取核对统计
+     */
+    public ReconcileStats getStats() {
+        return new ReconcileStats(rounds.get(), matched.get(), skipped.get(), bucketsFetched.get(),
+                playersAdded.get(), playersRemoved.get(), lastRepairTime);
+    }
+
+    /**
+     * 核对统计信息
+     */
+    public static class ReconcileStats {
+        private final long rounds;
+        private final long matched;
+        private final long skipped;
+        private final long bucketsFetched;
+        private final long playersAdded;
+        private final long playersRemoved;
+        private final long lastRepairTime;
+
+        public ReconcileStats(long rounds, long matched, long skipped, long bucketsFetched,
+                              long playersAdded, long playersRemoved, long lastRepairTime) {
+            this.rounds = rounds;
+            this.matched = matched;
+            this.skipped = skipped;
+            this.bucketsFetched = bucketsFetched;
+            this.playersAdded = playersAdded;
+            this.playersRemoved = playersRemoved;
+            this.lastRepairTime = lastRepairTime;
+        }
+
+        public long getRounds() {
+            return rounds;
+        }
+
+        /**
+         * 摘要一致、无需修复的轮数
+         */
+        public long getMatched() {
+            return matched;
+        }
+
+        /**
+         * 因变动仍在途中而放弃的轮数
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * 拉取成员的桶数
+         */
+        public long getBucketsFetched() {
+            return bucketsFetched;
+        }
+
+        public long getPlayersAdded() {
+            return playersAdded;
+        }
+
+        public long getPlayersRemoved() {
+            return playersRemoved;
+        }
+
+        /**
+         * 最近一次修复的时间，从未修复时为 0
+         */
+        public long getLastRepairTime() {
+            return lastRepairTime;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.queueserver.forge.queue;
+
+import com.github.queueserver.forge.QueueForgePlugin;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.File;
+
+/**
+ * 队列管理器设置
+ * 插件从配置文件读取，模拟器直接构造
+ */
+public class QueueSettings {
+
+    // 持久化目录，为 null 时不持久化
+    private File dataFolder = null;
+    private int journalSizeBytes = 16 * 1024 * 1024;
+
+    private long etaTimeConstantMillis = 300_000;
+
+    private long maxWaitMillis = 0;
+    private long reconnectGraceMillis = 60_000;
+    private long transferConfirmMillis = 30_000;
+    private int maxTransferAttempts = 3;
+
+    private String schedulerPolicy = "strict";
+    private double vipWeight = 2.0;
+
+    /**
+     * 从插件配置读取
+     */
+    public static QueueSettings fromConfig(QueueForgePlugin plugin) {
+        FileConfiguration config = plugin.getConfig();
+        QueueSettings settings = new QueueSettings();
+
+        if (config.getBoolean("queue.persistence.enabled", true)) {
+            settings.setDataFolder(new File(plugin.getDataFolder(), "queue-data"));
+            settings.setJournalSizeBytes(config.getInt("queue.persistence.journal-size-mb", 16) * 1024 * 1024);
+        }
+
+        settings.setEtaTimeConstantMillis(config.getLong("queue.eta.time-constant", 300) * 1000L);
+
+        settings.setMaxWaitMillis(config.getLong("queue.timeouts.max-wait", 0) * 1000L);
+        settings.setReconnectGraceMillis(config.getLong("queue.timeouts.reconnect-grace", 60) * 1000L);
+        settings.setTransferConfirmMillis(config.getLong("queue.timeouts.transfer-confirm", 30) * 1000L);
+        settings.setMaxTransferAttempts(config.getInt("queue.timeouts.transfer-attempts", 3));
+
+        settings.setSchedulerPolicy(config.getString("queue.scheduler", "strict"));
+        settings.setVipWeight(plugin.getVipManager().getVipPriorityMultiplier());
+        return settings;
+    }
+
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    public void setDataFolder(File dataFolder) {
+        this.dataFolder = dataFolder;
+    }
+
+    public int getJournalSizeBytes() {
+        return journalSizeBytes;
+    }
+
+    public void setJournalSizeBytes(int journalSizeBytes) {
+        this.journalSizeBytes = journalSizeBytes;
+    }
+
+    public long getEtaTimeConstantMillis() {
+        return etaTimeConstantMillis;
+    }
+
+    public void setEtaTimeConstantMillis(long etaTimeConstantMillis) {
+        this.etaTimeConstantMillis = etaTimeConstantMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getReconnectGraceMillis() {
+        return reconnectGraceMillis;
+    }
+
+    public void setReconnectGraceMillis(long reconnectGraceMillis) {
+        this.reconnectGraceMillis = reconnectGraceMillis;
+    }
+
+    public long getTransferConfirmMillis() {
+        return transferConfirmMillis;
+    }
+
+    public void setTransferConfirmMillis(long transferConfirmMillis) {
+        this.transferConfirmMillis = transferConfirmMillis;
+    }
+
+    public int getMaxTransferAttempts() {
+        return maxTransferAttempts;
+    }
+
+    public void setMaxTransferAttempts(int maxTransferAttempts) {
+        this.maxTransferAttempts = maxTransferAttempts;
+    }
+
+    public String getSchedulerPolicy() {
+        return schedulerPolicy;
+    }
+
+    public void setSchedulerPolicy(String schedulerPolicy) {
+        this.schedulerPolicy = schedulerPolicy;
+    }
+
+    public double getVipWeight() {
+        return vipWeight;
+    }
+
+    public void setVipWeight(double vipWeight) {
+        this.vipWeight = vipWeight;
+    }
+}
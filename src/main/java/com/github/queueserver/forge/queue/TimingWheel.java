@@ -0,0 +1,240 @@
+package com.github.queueserver.forge.queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 哈希时间轮
+ * 定时任务按到期刻度散列到固定数量的槽位中，调度和取消都是 O(1)，
+ * 每推进一个刻度只处理一个槽位，与定时任务总数无关
+ *
+ * 调度和取消可在任意线程调用（经无锁暂存队列交给驱动线程），
+ * 时间轮本身不创建线程，由调用方定期执行 {@link #advance(long)} 推进，
+ * 任务在推进线程上执行，应尽量轻量
+ */
+public final class TimingWheel {
+
+    private final Logger logger;
+    private final long tickMillis;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final long startTime;
+
+    // 下一个待处理的刻度，仅推进线程访问
+    private long currentTick = 0;
+
+    // 新调度和已取消的任务，由推进线程并入或移出槽位
+    private final MpscLinkedQueue<Timeout> pendingTimeouts = new MpscLinkedQueue<>();
+    private final MpscLinkedQueue<Timeout> cancelledTimeouts = new MpscLinkedQueue<>();
+
+    /**
+     * @param tickMillis 刻度长度，任务最多晚一个刻度执行
+     * @param wheelSize 槽位数量，向上取整为2的幂
+     * @param startTime 起始时间
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startTime, Logger logger) {
+        this.logger = logger;
+        this.tickMillis = Math.max(1, tickMillis);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = startTime;
+    }
+
+    /**
+     * 在 deadline 时刻执行任务，任意线程可调用
+     */
+    public Timeout schedule(long deadline, Runnable task) {
+        Timeout timeout = new Timeout(this, deadline, task);
+        pendingTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * 推进到 now，执行所有到期任务，返回执行的任务数
+     * 同一时刻只允许一个线程推进
+     */
+    public synchronized int advance(long now) {
+        int expired = 0;
+        long targetTick = (now - startTime) / tickMillis;
+
+        while (currentTick <= targetTick) {
+            transferPending();
+            processCancelled();
+
+            Bucket bucket = buckets[(int) (currentTick & mask)];
+            expired += bucket.expire(currentTick);
+            currentTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * 将新调度的任务放入槽位
+     */
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            // 已过期的任务放入当前槽位，本刻度内执行
+            long ticks = Math.max(currentTick, (timeout.deadline - startTime + tickMillis - 1) / tickMillis);
+            timeout.expireTick = ticks;
+            buckets[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 将已取消的任务移出槽位，释放引用
+     */
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final TimingWheel wheel;
+        private final long deadline;
+        private Runnable task;
+
+        // 以下字段仅推进线程访问
+        private long expireTick;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private volatile int state = INIT;
+
+        private Timeout(TimingWheel wheel, long deadline, Runnable task) {
+            this.wheel = wheel;
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * 取消任务，已执行或已取消时返回 false
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+                return false;
+            }
+            task = null;
+            wheel.cancelledTimeouts.offer(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private void expire() {
+            Runnable action = task;
+            if (!STATE.compareAndSet(this, INIT, EXPIRED)) {
+                return;
+            }
+            task = null;
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                wheel.logger.log(Level.WARNING, "定时任务执行失败", e);
+            }
+        }
+    }
+
+    /**
+     * 槽位，双向链表存放散列到此处的任务
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * 执行本刻度到期的任务，后续轮次的任务保留
+         */
+        int expire(long tick) {
+            int expired = 0;
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.expireTick <= tick) {
+                    remove(timeout);
+                    if (!timeout.isCancelled()) {
+                        timeout.expire();
+                        expired++;
+                    }
+                }
+                timeout = next;
+            }
+            return expired;
+        }
+    }
+}
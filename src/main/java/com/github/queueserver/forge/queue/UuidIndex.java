@@ -0,0 +1,334 @@
+package com.github.queueserver.forge.queue;
+
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * 以UUID为键的成员索引
+ * UUID 拆成两个 long 存放在开放寻址（线性探测）表中，不淘汰、不过期，
+ * 每个条目约占 16 字节键 + 一个引用，远小于 Caffeine 节点加 UUID 对象的开销
+ *
+ * 表按哈希分段，每段一把 StampedLock：写操作只锁所在段，读操作走乐观读
+ */
+public final class UuidIndex<V> {
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final int SEGMENT_MASK = SEGMENT_COUNT - 1;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+
+    public UuidIndex() {
+        this(1024);
+    }
+
+    @SuppressWarnings("unchecked")
+    public UuidIndex(int expectedSize) {
+        int perSegment = Math.max(MIN_SEGMENT_CAPACITY,
+                tableSizeFor((int) Math.ceil(expectedSize / (double) SEGMENT_COUNT / Segment.LOAD_FACTOR)));
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    /**
+     * 获取键对应的值，不存在返回 null
+     */
+    public V get(UUID key) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        return segments[hash & SEGMENT_MASK].get(msb, lsb, hash);
+    }
+
+    public boolean containsKey(UUID key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 键不存在时放入，返回已存在的值或 null
+     */
+    public V putIfAbsent(UUID key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        return segments[hash & SEGMENT_MASK].putIfAbsent(msb, lsb, hash, value);
+    }
+
+    /**
+     * 仅当键当前映射到指定值时移除
+     */
+    public boolean remove(UUID key, V value) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        return segments[hash & SEGMENT_MASK].remove(msb, lsb, hash, value);
+    }
+
+    /**
+     * 移除键，返回原值或 null
+     */
+    public V remove(UUID key) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        int hash = hash(msb, lsb);
+        Segment<V> segment = segments[hash & SEGMENT_MASK];
+        V current = segment.get(msb, lsb, hash);
+        while (current != null && !segment.remove(msb, lsb, hash, current)) {
+            current = segment.get(msb, lsb, hash);
+        }
+        return current;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 遍历所有映射，逐段加读锁
+     */
+    public void forEach(BiConsumer<UUID, V> action) {
+        for (Segment<V> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 估算表占用的字节数（不含值对象本身）
+     */
+    public long estimatedFootprint() {
+        long bytes = 0;
+        for (Segment<V> segment : segments) {
+            // 每个槽位: 2 个 long + 1 个压缩引用
+            bytes += (long) segment.values.length * (Long.BYTES * 2 + 4);
+        }
+        return bytes;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        return n < 0 ? 1 << 30 : n;
+    }
+
+    /**
+     * 单个分段，键按 [msb, lsb] 交错存放，值为 null 表示空槽
+     */
+    private static final class Segment<V> {
+        static final double LOAD_FACTOR = 0.7;
+
+        private final StampedLock lock = new StampedLock();
+        private volatile long[] keys;
+        private volatile Object[] values;
+        private volatile int size;
+        private int threshold;
+
+        Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        V get(long msb, long lsb, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                V value = find(keys, values, msb, lsb, hash);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, msb, lsb, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        V putIfAbsent(long msb, long lsb, int hash, V value) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = indexOf(msb, lsb, hash);
+                if (slot >= 0) {
+                    return cast(values[slot]);
+                }
+
+                if (size >= threshold) {
+                    allocate(values.length << 1);
+                }
+                insert(keys, values, msb, lsb, hash, value);
+                size++;
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long msb, long lsb, int hash, V expected) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = indexOf(msb, lsb, hash);
+                if (slot < 0 || values[slot] != expected) {
+                    return false;
+                }
+                deleteAt(slot);
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void forEach(BiConsumer<UUID, V> action) {
+            long stamp = lock.readLock();
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        action.accept(new UUID(keys[i << 1], keys[(i << 1) + 1]), cast(values[i]));
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                // 直接换成空表，不能经过会重新插入旧条目的 allocate
+                keys = new long[MIN_SEGMENT_CAPACITY << 1];
+                values = new Object[MIN_SEGMENT_CAPACITY];
+                threshold = (int) (MIN_SEGMENT_CAPACITY * LOAD_FACTOR);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 分配新表并重新插入现有条目，调用方需持有写锁
+         */
+        private void allocate(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+
+            long[] newKeys = new long[capacity << 1];
+            Object[] newValues = new Object[capacity];
+            if (oldValues != null) {
+                for (int i = 0; i < oldValues.length; i++) {
+                    if (oldValues[i] != null) {
+                        long msb = oldKeys[i << 1];
+                        long lsb = oldKeys[(i << 1) + 1];
+                        insert(newKeys, newValues, msb, lsb, hash(msb, lsb), oldValues[i]);
+                    }
+                }
+            }
+
+            keys = newKeys;
+            values = newValues;
+            threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        private int indexOf(long msb, long lsb, int hash) {
+            long[] k = keys;
+            Object[] v = values;
+            int mask = v.length - 1;
+            for (int i = (hash >>> 4) & mask; v[i] != null; i = (i + 1) & mask) {
+                if (k[i << 1] == msb && k[(i << 1) + 1] == lsb) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 线性探测的回移删除，保证后续探测链不断裂
+         */
+        private void deleteAt(int slot) {
+            long[] k = keys;
+            Object[] v = values;
+            int mask = v.length - 1;
+
+            int gap = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mask;
+                if (v[i] == null) {
+                    break;
+                }
+                int home = (hash(k[i << 1], k[(i << 1) + 1]) >>> 4) & mask;
+                // home 不在 (gap, i] 区间内时可以回移到 gap
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    k[gap << 1] = k[i << 1];
+                    k[(gap << 1) + 1] = k[(i << 1) + 1];
+                    v[gap] = v[i];
+                    gap = i;
+                }
+            }
+            v[gap] = null;
+        }
+
+        private static void insert(long[] k, Object[] v, long msb, long lsb, int hash, Object value) {
+            int mask = v.length - 1;
+            int i = (hash >>> 4) & mask;
+            while (v[i] != null) {
+                i = (i + 1) & mask;
+            }
+            k[i << 1] = msb;
+            k[(i << 1) + 1] = lsb;
+            v[i] = value;
+        }
+
+        /**
+         * 乐观读使用的探测，探测步数受表长限制，数组可能被并发替换
+         */
+        private static <V> V find(long[] k, Object[] v, long msb, long lsb, int hash) {
+            if (k.length != v.length << 1) {
+                return null;
+            }
+            int mask = v.length - 1;
+            int i = (hash >>> 4) & mask;
+            for (int probes = 0; probes < v.length; probes++) {
+                Object value = v[i];
+                if (value == null) {
+                    return null;
+                }
+                if (k[i << 1] == msb && k[(i << 1) + 1] == lsb) {
+                    return cast(value);
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> V cast(Object value) {
+            return (V) value;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.queueserver.forge.queue;
+
+/**
+ * 等待时间估算器
+ * 对单个队列的出队速率做时间衰减的指数加权平均（EWMA），
+ * 同时跟踪加权方差，按排名 O(1) 给出预计等待时间及置信区间
+ *
+ * 只在队列非空期间计时，空闲时段不会拉低速率
+ */
+public class WaitTimeEstimator {
+
+    // 95% 置信区间
+    private static final double Z_SCORE = 1.96;
+    private static final int MIN_SAMPLES = 3;
+
+    private final double timeConstantMillis;
+
+    private double rate = 0.0; // 人/毫秒
+    private double variance = 0.0;
+    private double lastAlpha = 1.0;
+    private long lastObservation = -1;
+    private int samples = 0;
+
+    /**
+     * @param timeConstantMillis 衰减时间常数，越大越平滑
+     */
+    public WaitTimeEstimator(long timeConstantMillis) {
+        this.timeConstantMillis = Math.max(1000, timeConstantMillis);
+    }
+
+    /**
+     * 记录一次出队观测
+     *
+     * @param dequeued 本次出队人数
+     * @param now 当前时间
+     * @param backlog 观测前队列是否有人等待，无人等待时只重置计时起点
+     */
+    public synchronized void observe(int dequeued, long now, boolean backlog) {
+        if (!backlog || lastObservation < 0) {
+            lastObservation = now;
+            return;
+        }
+
+        long elapsed = now - lastObservation;
+        if (elapsed <= 0) {
+            // 同一时刻的多次观测合并到下一次
+            return;
+        }
+        lastObservation = now;
+
+        double sample = dequeued / (double) elapsed;
+        double alpha = 1.0 - Math.exp(-elapsed / timeConstantMillis);
+
+        if (samples == 0) {
+            rate = sample;
+            variance = 0.0;
+        } else {
+            double delta = sample - rate;
+            rate += alpha * delta;
+            variance = (1.0 - alpha) * (variance + alpha * delta * delta);
+        }
+        lastAlpha = alpha;
+        samples++;
+    }
+
+    /**
+     * 估算排在第 rank 位的玩家的等待时间，数据不足时返回 null
+     */
+    public synchronized Estimate estimate(int rank) {
+        if (samples == 0 || rate <= 0.0 || rank <= 0) {
+            return null;
+        }
+
+        // EWMA 的有效样本数约为 (2 - α) / α
+        double standardError = Math.sqrt(variance * lastAlpha / (2.0 - lastAlpha));
+        double upperRate = rate + Z_SCORE * standardError;
+        double lowerRate = rate - Z_SCORE * standardError;
+
+        long expected = Math.round(rank / rate);
+        long lower = Math.round(rank / upperRate);
+        long upper = lowerRate > 0.0 ? Math.round(rank / lowerRate) : -1;
+
+        return new Estimate(expected, lower, upper, samples >= MIN_SAMPLES);
+    }
+
+    /**
+     * 当前出队速率（人/分钟）
+     */
+    public synchronized double getRatePerMinute() {
+        return rate * 60_000.0;
+    }
+
+    public synchronized int getSamples() {
+        return samples;
+    }
+
+    public synchronized void reset() {
+        rate = 0.0;
+        variance = 0.0;
+        lastAlpha = 1.0;
+        lastObservation = -1;
+        samples = 0;
+    }
+
+    /**
+     * 等待时间估算结果（毫秒）
+     */
+    public static class Estimate {
+        private final long expectedMillis;
+        private final long lowerMillis;
+        private final long upperMillis;
+        private final boolean reliable;
+
+        public Estimate(long expectedMillis, long lowerMillis, long upperMillis, boolean reliable) {
+            this.expectedMillis = expectedMillis;
+            this.lowerMillis = lowerMillis;
+            this.upperMillis = upperMillis;
+            this.reliable = reliable;
+        }
+
+        public long getExpectedMillis() {
+            return expectedMillis;
+        }
+
+        public long getLowerMillis() {
+            return lowerMillis;
+        }
+
+        /**
+         * 置信区间上界，速率可能为零时返回 -1
+         */
+        public long getUpperMillis() {
+            return upperMillis;
+        }
+
+        /**
+         * 样本是否足够，不足时仅供参考
+         */
+        public boolean isReliable() {
+            return reliable;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.queueserver.forge.queue.scheduler;
+
+import com.github.queueserver.forge.queue.QueueManager;
+
+/**
+ * 等待时间老化调度
+ * 比较两个队首的加权等待时间，VIP的等待时间乘以优先级倍数，O(1)
+ * 普通玩家等待足够久后一定会排到VIP前面，不会饿死
+ */
+public class AgingScheduler implements QueueScheduler {
+
+    private final double vipWeight;
+
+    /**
+     * @param vipWeight VIP等待时间的放大倍数，即VIP优先级倍数
+     */
+    public AgingScheduler(double vipWeight) {
+        this.vipWeight = vipWeight > 0 ? vipWeight : 1.0;
+    }
+
+    @Override
+    public boolean selectVip(QueueManager.QueueEntry vipHead, QueueManager.QueueEntry regularHead, long now) {
+        double vipAge = Math.max(0, now - vipHead.getJoinTime()) * vipWeight;
+        double regularAge = Math.max(0, now - regularHead.getJoinTime());
+        return vipAge >= regularAge;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("等待老化 (VIP %.1f 倍)", vipWeight);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.queueserver.forge.queue.scheduler;
+
+import com.github.queueserver.forge.queue.QueueManager;
+
+/**
+ * 差额轮询（DRR）加权公平调度
+ * 两个队列轮流获得与权重成正比的额度，每出队一人消耗一点额度，O(1)
+ * 两个队列都有人时，VIP与普通的出队人数之比趋近于权重之比
+ */
+public class DeficitRoundRobinScheduler implements QueueScheduler {
+
+    private final double vipWeight;
+
+    // 归一化后的每轮额度，较小的一方为 1
+    private final double vipQuantum;
+    private final double regularQuantum;
+
+    private double vipDeficit = 0.0;
+    private double regularDeficit = 0.0;
+    private boolean vipTurn = false;
+
+    /**
+     * @param vipWeight VIP相对普通玩家的权重，即VIP优先级倍数
+     */
+    public DeficitRoundRobinScheduler(double vipWeight) {
+        this.vipWeight = vipWeight > 0 ? vipWeight : 1.0;
+        this.vipQuantum = Math.max(1.0, this.vipWeight);
+        this.regularQuantum = Math.max(1.0, 1.0 / this.vipWeight);
+    }
+
+    @Override
+    public boolean selectVip(QueueManager.QueueEntry vipHead, QueueManager.QueueEntry regularHead, long now) {
+        // 额度至少为 1，最多补充两次即可选出
+        while (true) {
+            if (vipTurn) {
+                if (vipDeficit >= 1.0) {
+                    return true;
+                }
+                vipTurn = false;
+                regularDeficit += regularQuantum;
+            } else {
+                if (regularDeficit >= 1.0) {
+                    return false;
+                }
+                vipTurn = true;
+                vipDeficit += vipQuantum;
+            }
+        }
+    }
+
+    @Override
+    public void onDequeued(QueueManager.QueueEntry entry, long now) {
+        // 只有一方有人时不经过 selectVip，额度不欠账
+        if (entry.isVip()) {
+            vipDeficit = Math.max(0.0, vipDeficit - 1.0);
+        } else {
+            regularDeficit = Math.max(0.0, regularDeficit - 1.0);
+        }
+    }
+
+    @Override
+    public int estimatePosition(boolean vip, int tierRank, int vipSize, int regularSize) {
+        // 按权重比例估算对方队列在此之前会出队的人数
+        if (vip) {
+            return tierRank + Math.min(regularSize, (int) ((tierRank - 1) / vipWeight));
+        }
+        return tierRank + Math.min(vipSize, (int) Math.ceil(tierRank * vipWeight));
+    }
+
+    @Override
+    public String getName() {
+        return String.format("加权轮询 (VIP %.1f : 普通 1)", vipWeight);
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.queueserver.forge.queue.scheduler;
+
+import com.github.queueserver.forge.queue.QueueManager;
+
+/**
+ * 队列调度策略
+ * 两个队列都有候选玩家时决定先服务哪一方；只有一方有候选时直接服务该方，不询问策略
+ *
+ * 只在 {@link QueueManager} 的写锁内调用，实现无需线程安全
+ */
+public interface QueueScheduler {
+
+    /**
+     * 选择下一个出队的队列
+     *
+     * @param vipHead VIP队列的候选玩家
+     * @param regularHead 普通队列的候选玩家
+     * @param now 当前时间
+     * @return true 表示服务VIP队列
+     */
+    boolean selectVip(QueueManager.QueueEntry vipHead, QueueManager.QueueEntry regularHead, long now);
+
+    /**
+     * 玩家实际出队后回调
+     */
+    default void onDequeued(QueueManager.QueueEntry entry, long now) {
+    }
+
+    /**
+     * 按所属队列排名估算全局位置（从1开始）
+     * 默认按严格优先计算：普通玩家排在所有VIP之后
+     */
+    default int estimatePosition(boolean vip, int tierRank, int vipSize, int regularSize) {
+        return vip ? tierRank : vipSize + tierRank;
+    }
+
+    /**
+     * 策略名称，用于显示
+     */
+    String getName();
+}
@@ -0,0 +1,20 @@
+package com.github.queueserver.forge.queue.scheduler;
+
+import com.github.queueserver.forge.queue.QueueManager;
+
+/**
+ * 严格优先调度
+ * VIP队列有人时总是先服务VIP，VIP持续涌入时普通玩家可能饿死
+ */
+public class StrictPriorityScheduler implements QueueScheduler {
+
+    @Override
+    public boolean selectVip(QueueManager.QueueEntry vipHead, QueueManager.QueueEntry regularHead, long now) {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "严格优先";
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.queueserver.forge.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MainThreadExecutorTest {
+
+    private static final UUID A = new UUID(0, 1);
+    private static final UUID B = new UUID(0, 2);
+
+    private final Map<UUID, List<List<String>>> delivered = new LinkedHashMap<>();
+    private final Set<UUID> offline = new HashSet<>();
+
+    private MainThreadExecutor executor() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return new MainThreadExecutor(null, 2, logger, (playerId, lines) -> {
+            if (offline.contains(playerId)) {
+                return false;
+            }
+            delivered.computeIfAbsent(playerId, id -> new ArrayList<>()).add(List.of(lines));
+            return true;
+        });
+    }
+
+    private static void busy(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void drainStopsAtTheBudgetAndResumesNextTick() {
+        MainThreadExecutor executor = executor();
+        AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                busy(2_000_000);
+                ran.incrementAndGet();
+            });
+        }
+
+        // 1ms 预算：第一个任务跑完就超出预算
+        executor.drain(1_000_000);
+        assertEquals(1, ran.get());
+        assertEquals(4, executor.getStats().getQueueDepth());
+        assertEquals(1, executor.getStats().getOverBudgetTicks());
+
+        executor.drain(Long.MAX_VALUE);
+        assertEquals(5, ran.get());
+        assertEquals(0, executor.getStats().getQueueDepth());
+        assertEquals(5, executor.getStats().getMaxQueueDepth());
+        assertEquals(1, executor.getStats().getOverBudgetTicks());
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheDrain() {
+        MainThreadExecutor executor = executor();
+        AtomicInteger ran = new AtomicInteger();
+        executor.execute(() -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute(ran::incrementAndGet);
+
+        executor.drain(Long.MAX_VALUE);
+        assertEquals(1, ran.get());
+        assertEquals(2, executor.getStats().getExecuted());
+    }
+
+    @Test
+    void messagesForOnePlayerAreSentTogether() {
+        MainThreadExecutor executor = executor();
+        executor.sendMessage(A, "one");
+        executor.sendMessage(B, "hello");
+        executor.sendMessage(A, "two", "three");
+
+        // 每个玩家只排一个发送任务
+        assertEquals(2, executor.getStats().getQueueDepth());
+        executor.drain(Long.MAX_VALUE);
+
+        assertEquals(List.of(List.of("one", "two", "three")), delivered.get(A));
+        assertEquals(List.of(List.of("hello")), delivered.get(B));
+        assertEquals(4, executor.getStats().getMessagesSent());
+        assertEquals(1, executor.getStats().getMessagesCoalesced());
+
+        // 发送之后的消息重新排队
+        executor.sendMessage(A, "four");
+        executor.drain(Long.MAX_VALUE);
+        assertEquals(List.of("four"), delivered.get(A).get(1));
+    }
+
+    @Test
+    void messagesToOfflinePlayersAreDropped() {
+        MainThreadExecutor executor = executor();
+        offline.add(A);
+        executor.sendMessage(A, "lost");
+        executor.drain(Long.MAX_VALUE);
+
+        assertEquals(0, executor.getStats().getMessagesSent());
+        offline.clear();
+        executor.sendMessage(A, "next");
+        executor.drain(Long.MAX_VALUE);
+        assertEquals(List.of(List.of("next")), delivered.get(A));
+    }
+}
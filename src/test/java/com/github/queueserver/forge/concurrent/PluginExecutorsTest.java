@@ -0,0 +1,190 @@
+package com.github.queueserver.forge.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PluginExecutorsTest {
+
+    // 通道排队上限的下限
+    private static final int CAPACITY = 16;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PluginExecutors executors;
+
+    private PluginExecutors start(Map<PluginExecutors.Lane, Integer> concurrency) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        executors = new PluginExecutors(false, CAPACITY, concurrency, logger);
+        return executors;
+    }
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        executors.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 占住通道唯一的线程并排满队列
+     */
+    private void fill(ExecutorService lane, AtomicInteger ran) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        lane.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < CAPACITY; i++) {
+            lane.execute(ran::incrementAndGet);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void serialLaneRejectsOverflowInsteadOfRunningOnTheCaller() throws InterruptedException {
+        PluginExecutors executors = start(Map.of());
+        ExecutorService dispatch = executors.lane(PluginExecutors.Lane.DISPATCH);
+        AtomicInteger ran = new AtomicInteger();
+        fill(dispatch, ran);
+
+        Thread caller = Thread.currentThread();
+        AtomicInteger onCaller = new AtomicInteger();
+        assertThrows(RejectedExecutionException.class, () -> dispatch.execute(() -> {
+            if (Thread.currentThread() == caller) {
+                onCaller.incrementAndGet();
+            }
+        }));
+        assertEquals(0, onCaller.get());
+
+        PluginExecutors.LaneStats stats = executors.getStats().get(PluginExecutors.Lane.DISPATCH);
+        assertEquals(1, stats.getConcurrency());
+        assertEquals(1, stats.getOverflow());
+        assertEquals(CAPACITY, stats.getMaxQueueDepth());
+
+        release.countDown();
+        assertTrue(waitFor(() -> ran.get() == CAPACITY));
+    }
+
+    @Test
+    void serialLanesIgnoreConfiguredConcurrency() {
+        PluginExecutors executors = start(Map.of(PluginExecutors.Lane.MONITOR, 8, PluginExecutors.Lane.DB, 3));
+        assertEquals(1, executors.getStats().get(PluginExecutors.Lane.MONITOR).getConcurrency());
+        assertEquals(3, executors.getStats().get(PluginExecutors.Lane.DB).getConcurrency());
+    }
+
+    @Test
+    void otherLanesApplyBackpressureOnTheCaller() throws InterruptedException {
+        PluginExecutors executors = start(Map.of(PluginExecutors.Lane.DB, 1));
+        ExecutorService db = executors.lane(PluginExecutors.Lane.DB);
+        fill(db, new AtomicInteger());
+
+        Thread caller = Thread.currentThread();
+        AtomicInteger onCaller = new AtomicInteger();
+        db.execute(() -> {
+            if (Thread.currentThread() == caller) {
+                onCaller.incrementAndGet();
+            }
+        });
+        assertEquals(1, onCaller.get());
+        assertEquals(1, executors.getStats().get(PluginExecutors.Lane.DB).getOverflow());
+    }
+
+    @Test
+    void fixedRateTaskSkipsWhileThePreviousRunIsBusy() throws InterruptedException {
+        PluginExecutors executors = start(Map.of());
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch firstRun = new CountDownLatch(1);
+        ScheduledFuture<?> future = executors.scheduleAtFixedRate(PluginExecutors.Lane.MONITOR, () -> {
+            if (runs.incrementAndGet() == 1) {
+                firstRun.countDown();
+                await(release);
+            }
+        }, 0, 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(firstRun.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        // 第一次执行未结束，期间的触发都被跳过，没有在通道中堆积
+        assertEquals(1, runs.get());
+        assertEquals(0, executors.getStats().get(PluginExecutors.Lane.MONITOR).getQueueDepth());
+
+        release.countDown();
+        assertTrue(waitFor(() -> runs.get() >= 3));
+        future.cancel(false);
+    }
+
+    @Test
+    void fixedRateTaskKeepsRunningAfterAnException() throws InterruptedException {
+        PluginExecutors executors = start(Map.of());
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> future = executors.scheduleAtFixedRate(PluginExecutors.Lane.MONITOR, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, 0, 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(waitFor(() -> runs.get() >= 3));
+        future.cancel(false);
+    }
+
+    @Test
+    void delayedTaskRunsOnItsLane() throws InterruptedException {
+        PluginExecutors executors = start(Map.of());
+        CountDownLatch done = new CountDownLatch(1);
+        String[] threadName = new String[1];
+        executors.schedule(PluginExecutors.Lane.DB, () -> {
+            threadName[0] = Thread.currentThread().getName();
+            done.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(threadName[0].startsWith("QueueForge-db-"));
+    }
+
+    @Test
+    void shutdownDropsWorkThatDoesNotFinishInTime() throws InterruptedException {
+        PluginExecutors executors = start(Map.of());
+        ExecutorService dispatch = executors.lane(PluginExecutors.Lane.DISPATCH);
+        AtomicInteger ran = new AtomicInteger();
+        fill(dispatch, ran);
+
+        long start = System.nanoTime();
+        executors.shutdown(50, TimeUnit.MILLISECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+        assertEquals(0, ran.get());
+        assertTrue(dispatch.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> dispatch.execute(ran::incrementAndGet));
+        assertTrue(executors.getTimer().isShutdown());
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.queueserver.forge.dispatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchTriggerTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService lane = Executors.newSingleThreadExecutor();
+    private DispatchTrigger trigger;
+
+    private DispatchTrigger trigger(Supplier<CompletableFuture<?>> action, long debounceMillis, long fallbackMillis) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        trigger = new DispatchTrigger(action, debounceMillis, fallbackMillis, timer, lane, logger);
+        return trigger;
+    }
+
+    @AfterEach
+    void stop() {
+        if (trigger != null) {
+            trigger.stop();
+        }
+        timer.shutdownNow();
+        lane.shutdownNow();
+    }
+
+    @Test
+    void signalsWithinTheDebounceWindowCoalesce() throws InterruptedException {
+        AtomicInteger rounds = new AtomicInteger();
+        DispatchTrigger trigger = trigger(() -> {
+            rounds.incrementAndGet();
+            return null;
+        }, 200, 60_000);
+
+        trigger.signal();
+        assertTrue(waitFor(() -> rounds.get() == 1));
+
+        // 上一轮刚结束，之后的信号在窗口结束时合并为一轮
+        for (int i = 0; i < 10; i++) {
+            trigger.signal();
+        }
+        assertTrue(waitFor(() -> rounds.get() == 2));
+        Thread.sleep(300);
+        assertEquals(2, rounds.get());
+
+        DispatchTrigger.TriggerStats stats = trigger.getStats();
+        assertEquals(11, stats.getSignalCount());
+        assertEquals(2, stats.getDispatchCount());
+    }
+
+    @Test
+    void nextRoundWaitsForThePreviousOneToComplete() throws InterruptedException {
+        List<CompletableFuture<Void>> rounds = new CopyOnWriteArrayList<>();
+        DispatchTrigger trigger = trigger(() -> {
+            CompletableFuture<Void> round = new CompletableFuture<>();
+            rounds.add(round);
+            return round;
+        }, 20, 60_000);
+
+        trigger.signal();
+        assertTrue(waitFor(() -> rounds.size() == 1));
+
+        // 动作已返回但本轮未完成，期间的信号不开始新一轮
+        trigger.signal();
+        trigger.signal();
+        Thread.sleep(200);
+        assertEquals(1, rounds.size());
+
+        rounds.get(0).complete(null);
+        assertTrue(waitFor(() -> rounds.size() == 2));
+
+        // 异常结束同样算作本轮完成
+        trigger.signal();
+        rounds.get(1).completeExceptionally(new IllegalStateException("boom"));
+        assertTrue(waitFor(() -> rounds.size() == 3));
+    }
+
+    @Test
+    void fallbackPollRunsWithoutSignals() throws InterruptedException {
+        AtomicInteger rounds = new AtomicInteger();
+        DispatchTrigger trigger = trigger(() -> {
+            rounds.incrementAndGet();
+            return null;
+        }, 200, 1000);
+        trigger.start();
+
+        assertTrue(waitFor(() -> rounds.get() >= 2));
+        DispatchTrigger.TriggerStats stats = trigger.getStats();
+        assertEquals(0, stats.getSignalCount());
+        // 兜底轮询不计入信号延迟
+        assertEquals(-1, stats.getMedianLatencyMillis());
+    }
+
+    @Test
+    void fallbackStopsWaitingForALostRound() throws InterruptedException {
+        AtomicInteger rounds = new AtomicInteger();
+        DispatchTrigger trigger = trigger(() -> {
+            rounds.incrementAndGet();
+            return new CompletableFuture<>();
+        }, 20, 1000);
+        trigger.start();
+
+        trigger.signal();
+        assertTrue(waitFor(() -> rounds.get() == 1));
+        assertTrue(waitFor(() -> rounds.get() == 2));
+    }
+
+    @Test
+    void latencyMeasuresTheDebounceWait() throws InterruptedException {
+        AtomicInteger rounds = new AtomicInteger();
+        DispatchTrigger trigger = trigger(() -> {
+            rounds.incrementAndGet();
+            return null;
+        }, 200, 60_000);
+
+        trigger.signal();
+        assertTrue(waitFor(() -> rounds.get() == 1));
+        trigger.signal();
+        assertTrue(waitFor(() -> rounds.get() == 2));
+
+        // 两个样本：立即分发约 0ms，等防抖窗口的约 200ms，中位数取后者
+        long median = trigger.getStats().getMedianLatencyMillis();
+        assertTrue(median >= 150 && median < 1000, "median " + median);
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
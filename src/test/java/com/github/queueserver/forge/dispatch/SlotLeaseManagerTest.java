@@ -0,0 +1,96 @@
+package com.github.queueserver.forge.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlotLeaseManagerTest {
+
+    private static SlotLeaseManager manager(long ttlMillis) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return new SlotLeaseManager(ttlMillis, logger);
+    }
+
+    @Test
+    void overlappingRoundsDoNotShareSnapshotSlots() {
+        SlotLeaseManager manager = manager(10_000);
+
+        // 两轮分发看到同一个快照：5 个空位
+        SlotLeaseManager.Lease first = manager.acquireLocal(3, 5, 0);
+        SlotLeaseManager.Lease second = manager.acquireLocal(3, 5, 10);
+        assertEquals(3, first.getGranted());
+        assertEquals(2, second.getGranted());
+        assertNull(manager.acquireLocal(1, 5, 20));
+        assertFalse(first.isRemote());
+    }
+
+    @Test
+    void unusedAndFailedSlotsAreReturned() {
+        SlotLeaseManager manager = manager(10_000);
+        SlotLeaseManager.Lease lease = manager.acquireLocal(4, 4, 0);
+
+        manager.onTransferResult(lease, true);
+        manager.onTransferResult(lease, false);
+        assertEquals(2, manager.release(lease, 5));
+        // 已全部用完或归还
+        assertEquals(0, manager.release(lease, 1));
+
+        // 成功传送的位置一直占用到租约到期
+        assertEquals(3, manager.getAvailableSlots(4, 100));
+        SlotLeaseManager.LeaseStats stats = manager.getStats(100);
+        assertEquals(1, stats.getLocalHeldSlots());
+        assertEquals(0, stats.getOutstandingSlots());
+        assertEquals(1, stats.getSlotsUsed());
+        assertEquals(3, stats.getSlotsReleased());
+    }
+
+    @Test
+    void fullyReleasedLocalLeaseStopsHoldingSlots() {
+        SlotLeaseManager manager = manager(10_000);
+        SlotLeaseManager.Lease lease = manager.acquireLocal(2, 2, 0);
+        manager.release(lease, 2);
+
+        assertEquals(2, manager.getAvailableSlots(2, 1));
+        assertEquals(0, manager.getStats(1).getActiveLeases());
+    }
+
+    @Test
+    void expiredLeasesFreeTheirSlots() {
+        SlotLeaseManager manager = manager(5_000);
+        SlotLeaseManager.Lease lease = manager.acquireLocal(3, 3, 0);
+        manager.onTransferResult(lease, true);
+
+        assertEquals(0, manager.getAvailableSlots(3, 4_999));
+        assertEquals(3, manager.getAvailableSlots(3, 5_000));
+        // 到期时仍有两个位置未使用
+        assertEquals(1, manager.getStats(5_000).getLeasesExpired());
+    }
+
+    @Test
+    void remoteLeasesDoNotReduceLocalCapacity() {
+        SlotLeaseManager manager = manager(5_000);
+        SlotLeaseManager.Lease lease = manager.register("lease-1", 4, 2_000, 0);
+
+        assertTrue(lease.isRemote());
+        assertEquals(2_000, lease.getExpiresAt());
+        assertEquals(4, manager.getAvailableSlots(4, 1));
+        assertEquals(4, manager.getStats(1).getOutstandingSlots());
+
+        // 代理没有给出到期时间时使用本地有效期
+        assertEquals(5_100, manager.register("lease-2", 1, 0, 100).getExpiresAt());
+        assertNull(manager.register("lease-3", 0, 2_000, 100));
+        assertNull(manager.register(null, 2, 2_000, 100));
+    }
+
+    @Test
+    void ttlHasAFloor() {
+        assertEquals(1000, manager(10).getTtlMillis());
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.queueserver.forge.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransferRateControllerTest {
+
+    private static final long PERIOD = 1000;
+    private static final long COOLDOWN = 5000;
+
+    private static TransferRateController controller(int minWindow, int maxWindow) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return new TransferRateController(minWindow, maxWindow, PERIOD, 18.0, 0.5, COOLDOWN, logger);
+    }
+
+    private static void succeed(TransferRateController controller, int count, long now) {
+        for (int i = 0; i < count; i++) {
+            controller.onTransferResult(true, now);
+        }
+    }
+
+    @Test
+    void slowStartGrowsByOnePerSuccessUpToTheThreshold() {
+        TransferRateController controller = controller(2, 10);
+        assertEquals(2, controller.getState().getWindow(), 1e-9);
+
+        succeed(controller, 3, 0);
+        assertEquals(5, controller.getState().getWindow(), 1e-9);
+        assertEquals(TransferRateController.Phase.SLOW_START, controller.getState().getPhase());
+
+        // 到达阈值后转入拥塞避免，窗口不超过上限
+        succeed(controller, 20, 0);
+        assertEquals(10, controller.getState().getWindow(), 1e-9);
+        assertEquals(TransferRateController.Phase.AVOIDANCE, controller.getState().getPhase());
+    }
+
+    @Test
+    void avoidanceAddsAboutOnePerWindowOfSuccesses() {
+        TransferRateController controller = controller(2, 100);
+        succeed(controller, 18, 0);
+        controller.onTransferResult(false, 0);
+        TransferRateController.ControllerState state = controller.getState();
+        assertEquals(10, state.getWindow(), 1e-9);
+        assertEquals(TransferRateController.Phase.AVOIDANCE, state.getPhase());
+
+        succeed(controller, 10, 0);
+        assertEquals(11, controller.getState().getWindow(), 0.1);
+    }
+
+    @Test
+    void failureHalvesTheWindowOncePerCooldown() {
+        TransferRateController controller = controller(2, 100);
+        succeed(controller, 14, 0);
+        assertEquals(16, controller.getState().getWindow(), 1e-9);
+
+        // 第一次减速不受冷却限制
+        controller.onTransferResult(false, 0);
+        assertEquals(8, controller.getState().getWindow(), 1e-9);
+        assertEquals(8, controller.getState().getSlowStartThreshold(), 1e-9);
+
+        // 同一批的其他失败落在冷却期内
+        controller.onTransferResult(false, 10);
+        controller.onTransferResult(false, COOLDOWN - 1);
+        assertEquals(8, controller.getState().getWindow(), 1e-9);
+
+        controller.onTransferResult(false, COOLDOWN);
+        assertEquals(4, controller.getState().getWindow(), 1e-9);
+        assertEquals(2, controller.getState().getDecreaseCount());
+        assertEquals(4, controller.getState().getFailureCount());
+
+        // 不低于最小窗口
+        controller.onTransferResult(false, 2 * COOLDOWN);
+        controller.onTransferResult(false, 3 * COOLDOWN);
+        assertEquals(2, controller.getState().getWindow(), 1e-9);
+    }
+
+    @Test
+    void lowTpsDecreasesAndHoldsTheWindow() {
+        TransferRateController controller = controller(2, 100);
+        succeed(controller, 8, 0);
+        assertEquals(10, controller.getState().getWindow(), 1e-9);
+
+        controller.onServerStatus(true, 12.0, 1000);
+        assertEquals(5, controller.getState().getWindow(), 1e-9);
+        assertEquals(12.0, controller.getState().getLastTps(), 1e-9);
+
+        // TPS 恢复前成功也不增长
+        succeed(controller, 5, 1000);
+        assertEquals(5, controller.getState().getWindow(), 1e-9);
+
+        controller.onServerStatus(true, 19.9, 2000);
+        succeed(controller, 5, 2000);
+        assertEquals(6, controller.getState().getWindow(), 0.1);
+    }
+
+    @Test
+    void offlineTargetPausesAndRestartsFromTheMinimum() {
+        TransferRateController controller = controller(2, 100);
+        succeed(controller, 14, 0);
+
+        controller.onServerStatus(false, -1, 0);
+        assertEquals(TransferRateController.Phase.PAUSED, controller.getState().getPhase());
+        assertEquals(0, controller.getBatchLimit(10_000));
+
+        // 慢启动到离线前窗口的一半为止
+        controller.onServerStatus(true, -1, 10_000);
+        assertEquals(TransferRateController.Phase.SLOW_START, controller.getState().getPhase());
+        assertEquals(2, controller.getState().getWindow(), 1e-9);
+        succeed(controller, 6, 10_000);
+        assertEquals(8, controller.getState().getWindow(), 1e-9);
+        assertEquals(TransferRateController.Phase.AVOIDANCE, controller.getState().getPhase());
+    }
+
+    @Test
+    void tokensAccrueOverThePeriodAndCapAtTheWindow() {
+        TransferRateController controller = controller(4, 4);
+        assertEquals(4, controller.acquire(10, 0));
+        assertEquals(0, controller.acquire(1, 0));
+
+        // 半个周期累积半个窗口
+        assertEquals(2, controller.acquire(10, PERIOD / 2));
+        controller.release(1);
+        assertEquals(1, controller.getBatchLimit(PERIOD / 2));
+
+        // 空闲再久也只攒满一个窗口
+        assertEquals(4, controller.getBatchLimit(100 * PERIOD));
+    }
+}
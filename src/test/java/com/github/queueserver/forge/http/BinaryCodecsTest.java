@@ -0,0 +1,293 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.*;
+
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.Utf8;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按类注释中的格式说明独立实现代理一侧的读写，与插件的编解码互相校验
+ */
+class BinaryCodecsTest {
+
+    private static final String A = "3f1c1c52-7a0e-4d6b-9a51-0c2f6c1d7e01";
+    private static final String B = "8b9e4a10-55f3-4c2e-bb0f-2a9d6e7c1f02";
+
+    private final BinaryCodecs codecs = new BinaryCodecs();
+
+    // ---- 代理一侧的读写 ----
+
+    private static long varLong(Buffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readByte() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long zigZag(Buffer in) throws IOException {
+        long raw = varLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static String string(Buffer in) throws IOException {
+        long length = varLong(in);
+        return length == 0 ? null : in.readUtf8(length - 1);
+    }
+
+    private static String uuid(Buffer in) throws IOException {
+        return new UUID(in.readLong(), in.readLong()).toString();
+    }
+
+    private static void putVarLong(Buffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static void putZigZag(Buffer out, long value) {
+        putVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void putString(Buffer out, String value) {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        putVarLong(out, Utf8.size(value) + 1);
+        out.writeUtf8(value);
+    }
+
+    private static void putUuid(Buffer out, String value) {
+        UUID uuid = UUID.fromString(value);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static Buffer frame(int type) {
+        return new Buffer().writeByte(0x51).writeByte(1).writeByte(type);
+    }
+
+    /**
+     * 编码请求并读过帧头，返回消息体
+     */
+    private Buffer encode(Object value, int expectedType) throws IOException {
+        RequestBody body = codecs.requestBody(value);
+        assertNotNull(body);
+        assertTrue(BinaryCodecs.isBinary(body.contentType()));
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        assertEquals(0x51, buffer.readByte() & 0xFF);
+        assertEquals(1, buffer.readByte() & 0xFF);
+        assertEquals(expectedType, buffer.readByte() & 0xFF);
+        return buffer;
+    }
+
+    private static PlayerTransferRequest transfer(String playerId, String target, long timestamp) {
+        PlayerTransferRequest r = new PlayerTransferRequest();
+        r.setPlayerId(playerId);
+        r.setPlayerName("玩家😀");
+        r.setSourceServer("lobby");
+        r.setTargetServer(target);
+        r.setLeaseId("lease-1");
+        r.setTimestamp(timestamp);
+        return r;
+    }
+
+    // ---- 请求 ----
+
+    @Test
+    void heartbeatRequest() throws IOException {
+        HeartbeatRequest r = new HeartbeatRequest();
+        r.setServerName("lobby");
+        r.setOnlinePlayers(37);
+        r.setMaxPlayers(100);
+        r.setTps(19.756);
+        r.setTimestamp(Long.MAX_VALUE);
+
+        Buffer in = encode(r, 0x01);
+        assertEquals("lobby", string(in));
+        assertEquals(37, zigZag(in));
+        assertEquals(100, zigZag(in));
+        assertEquals(1976, zigZag(in));
+        assertEquals(Long.MAX_VALUE, varLong(in));
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void batchTransferInheritsSharedFieldsAndStoresTimestampDeltas() throws IOException {
+        BatchTransferRequest r = new BatchTransferRequest();
+        r.setSourceServer("lobby");
+        r.setTargetServer("survival");
+        r.setLeaseId("lease-1");
+        r.setTimestamp(1_700_000_000_000L);
+        r.setTransfers(List.of(
+                transfer(A, "survival", 1_700_000_000_250L),
+                transfer(B, "creative", 1_699_999_999_900L)));
+
+        Buffer in = encode(r, 0x03);
+        assertEquals("lobby", string(in));
+        assertEquals("survival", string(in));
+        assertEquals("lease-1", string(in));
+        assertEquals(1_700_000_000_000L, varLong(in));
+        assertEquals(2, varLong(in));
+
+        assertEquals(0x01, in.readByte());
+        assertEquals(A, uuid(in));
+        assertEquals("玩家😀", string(in));
+        assertEquals(250, zigZag(in));
+
+        // 目标服务器不同，不沿用整批的字段
+        assertEquals(0x00, in.readByte());
+        assertEquals(B, uuid(in));
+        assertEquals("玩家😀", string(in));
+        assertEquals("lobby", string(in));
+        assertEquals("creative", string(in));
+        assertEquals("lease-1", string(in));
+        assertEquals(-100, zigZag(in));
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void queueSyncRequest() throws IOException {
+        QueueRemoveRequest remove = new QueueRemoveRequest();
+        remove.setPlayerId(B);
+        remove.setTimestamp(95);
+        QueueAddRequest add = new QueueAddRequest();
+        add.setPlayerId(A);
+        add.setPlayerName(null);
+        add.setVip(true);
+        add.setTimestamp(130);
+
+        QueueSyncRequest r = new QueueSyncRequest();
+        r.setServerName("lobby");
+        r.setEpoch(3);
+        r.setSequence(300);
+        r.setTimestamp(100);
+        r.setRemoved(List.of(remove));
+        r.setAdded(List.of(add));
+
+        Buffer in = encode(r, 0x06);
+        assertEquals("lobby", string(in));
+        assertEquals(3, varLong(in));
+        assertEquals(300, varLong(in));
+        assertEquals(100, varLong(in));
+        assertEquals(1, varLong(in));
+        assertEquals(B, uuid(in));
+        assertEquals(-5, zigZag(in));
+        assertEquals(1, varLong(in));
+        assertEquals(A, uuid(in));
+        assertNull(string(in));
+        assertEquals(0x01, in.readByte());
+        assertEquals(30, zigZag(in));
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void valuesWithoutBinaryFormFallBackToJson() {
+        QueueRemoveRequest notUuid = new QueueRemoveRequest();
+        notUuid.setPlayerId("Steve");
+        assertNull(codecs.requestBody(notUuid));
+        assertNull(codecs.requestBody(new QueueRemoveRequest()));
+        assertNull(codecs.requestBody(new SlotReserveRequest()));
+        assertNull(codecs.requestBody(null));
+    }
+
+    // ---- 响应 ----
+
+    @Test
+    void batchTransferResponseWithMissingResult() throws IOException {
+        Buffer in = frame(0x83).writeByte(0x01);
+        putString(in, null);
+        putVarLong(in, 1000);
+        putVarLong(in, 2);
+        in.writeByte(0x04 | 0x02 | 0x01);
+        putUuid(in, A);
+        putString(in, "已传送");
+        putString(in, "t-1");
+        putZigZag(in, -3);
+        in.writeByte(0);
+
+        BatchTransferResponse r = codecs.read(in, BatchTransferResponse.class);
+        assertTrue(r.isSuccess());
+        assertNull(r.getMessage());
+        assertEquals(1000, r.getTimestamp());
+        assertEquals(2, r.getResults().size());
+        PlayerTransferResponse first = r.getResults().get(0);
+        assertTrue(first.isSuccess());
+        assertEquals(A, first.getPlayerId());
+        assertEquals("已传送", first.getMessage());
+        assertEquals("t-1", first.getTransferId());
+        assertEquals(997, first.getTimestamp());
+        assertNull(r.getResults().get(1));
+    }
+
+    @Test
+    void singleResponses() throws IOException {
+        Buffer transfer = frame(0x82).writeByte(0);
+        putString(transfer, "目标已满");
+        putString(transfer, null);
+        putVarLong(transfer, 42);
+        PlayerTransferResponse failed = codecs.read(transfer, PlayerTransferResponse.class);
+        assertFalse(failed.isSuccess());
+        assertNull(failed.getPlayerId());
+        assertEquals("目标已满", failed.getMessage());
+        assertEquals(42, failed.getTimestamp());
+
+        Buffer add = frame(0x84).writeByte(0x01);
+        putString(add, null);
+        putZigZag(add, 17);
+        putZigZag(add, -1);
+        putVarLong(add, 7);
+        QueueAddResponse added = codecs.read(add, QueueAddResponse.class);
+        assertTrue(added.isSuccess());
+        assertEquals(17, added.getPosition());
+        assertEquals(-1, added.getEstimatedWaitTime());
+        assertEquals(7, added.getTimestamp());
+
+        Buffer heartbeat = frame(0x81).writeByte(0x01);
+        putString(heartbeat, "ok");
+        putZigZag(heartbeat, 3);
+        putVarLong(heartbeat, 9);
+        HeartbeatResponse beat = codecs.read(heartbeat, HeartbeatResponse.class);
+        assertEquals(3, beat.getAvailableSlots());
+        assertEquals("ok", beat.getMessage());
+    }
+
+    @Test
+    void rejectsMalformedFrames() {
+        Buffer badMagic = new Buffer().writeByte(0x52).writeByte(1).writeByte(0x85);
+        assertThrows(ProtocolException.class, () -> codecs.read(badMagic, QueueRemoveResponse.class));
+
+        Buffer wrongType = frame(0x84);
+        assertThrows(ProtocolException.class, () -> codecs.read(wrongType, QueueRemoveResponse.class));
+
+        assertFalse(codecs.canDecode(ServerStatusResponse.class));
+        assertThrows(ProtocolException.class, () -> codecs.read(frame(0x81), ServerStatusResponse.class));
+
+        Buffer outOfRange = frame(0x81).writeByte(0);
+        putString(outOfRange, null);
+        putZigZag(outOfRange, Integer.MAX_VALUE + 1L);
+        putVarLong(outOfRange, 0);
+        assertThrows(ProtocolException.class, () -> codecs.read(outOfRange, HeartbeatResponse.class));
+    }
+}
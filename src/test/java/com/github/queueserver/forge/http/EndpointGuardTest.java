@@ -0,0 +1,188 @@
+package com.github.queueserver.forge.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EndpointGuardTest {
+
+    private static final long OPEN_MILLIS = 1_000;
+    private static final long MAX_TIMEOUT = 30_000;
+
+    /**
+     * 失败过半熔断，至少 4 次请求，超时为 p99 的 3 倍，对冲上限 10%
+     */
+    private static EndpointGuard guard() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return new EndpointGuard(0.5, 4, OPEN_MILLIS, 200, MAX_TIMEOUT, 3.0, 0.1, logger);
+    }
+
+    private static void succeed(EndpointGuard.Endpoint endpoint, int count, long latencyMillis) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(endpoint.tryAcquire(0));
+            endpoint.onSuccess(latencyMillis);
+        }
+    }
+
+    private static EndpointGuard.State state(EndpointGuard.Endpoint endpoint, long now) {
+        return endpoint.getStats(now).getState();
+    }
+
+    @Test
+    void queryStringDoesNotSplitEndpoints() {
+        EndpointGuard guard = guard();
+        assertSame(guard.endpoint("/api/queue/info"), guard.endpoint("/api/queue/info?playerId=1"));
+    }
+
+    @Test
+    void tripsOnlyAfterMinimumCallsAndFailureRatio() {
+        EndpointGuard.Endpoint endpoint = guard().endpoint("/api/server/status");
+        endpoint.tryAcquire(0);
+        endpoint.onFailure(10, false, 0);
+        endpoint.tryAcquire(0);
+        endpoint.onFailure(10, false, 0);
+        // 只有 2 次请求，不足以判断
+        assertEquals(EndpointGuard.State.CLOSED, state(endpoint, 0));
+
+        succeed(endpoint, 1, 10);
+        endpoint.tryAcquire(0);
+        endpoint.onFailure(10, false, 100);
+        assertEquals(EndpointGuard.State.OPEN, state(endpoint, 100));
+
+        // 熔断期内直接拒绝
+        assertFalse(endpoint.tryAcquire(500));
+        assertEquals(1, endpoint.getStats(500).getRejected());
+        assertEquals(1, endpoint.getStats(500).getTrips());
+    }
+
+    @Test
+    void onlyTheLastTwentyCallsCount() {
+        EndpointGuard.Endpoint endpoint = guard().endpoint("/api/server/status");
+        // 三分之一失败，不会熔断
+        for (int i = 0; i < 30; i++) {
+            endpoint.tryAcquire(0);
+            if (i % 3 == 2) {
+                endpoint.onFailure(10, false, 0);
+            } else {
+                endpoint.onSuccess(10);
+            }
+        }
+        succeed(endpoint, 20, 10);
+
+        // 之前的失败已移出窗口，要连续失败 10 次才熔断
+        for (int i = 0; i < 9; i++) {
+            endpoint.tryAcquire(0);
+            endpoint.onFailure(10, false, 0);
+        }
+        assertEquals(EndpointGuard.State.CLOSED, state(endpoint, 0));
+        endpoint.tryAcquire(0);
+        endpoint.onFailure(10, false, 0);
+        assertEquals(EndpointGuard.State.OPEN, state(endpoint, 0));
+    }
+
+    @Test
+    void halfOpenLetsExactlyOneProbeThrough() {
+        EndpointGuard.Endpoint endpoint = tripped();
+        long later = 100 + OPEN_MILLIS;
+
+        assertTrue(endpoint.tryAcquire(later));
+        assertFalse(endpoint.tryAcquire(later));
+        // 探测请求使用最大超时
+        assertEquals(MAX_TIMEOUT, endpoint.timeoutMillis());
+
+        endpoint.onSuccess(10);
+        assertEquals(EndpointGuard.State.CLOSED, state(endpoint, later));
+        assertTrue(endpoint.tryAcquire(later));
+        assertTrue(endpoint.tryAcquire(later));
+    }
+
+    @Test
+    void failedProbeReopensAndCancelledProbeFreesTheSlot() {
+        EndpointGuard.Endpoint endpoint = tripped();
+        long later = 100 + OPEN_MILLIS;
+
+        assertTrue(endpoint.tryAcquire(later));
+        endpoint.onCancelled();
+        assertTrue(endpoint.tryAcquire(later));
+        endpoint.onFailure(10, false, later);
+
+        assertEquals(EndpointGuard.State.OPEN, state(endpoint, later));
+        assertFalse(endpoint.tryAcquire(later + OPEN_MILLIS - 1));
+        assertEquals(2, endpoint.getStats(later).getTrips());
+    }
+
+    private static EndpointGuard.Endpoint tripped() {
+        EndpointGuard.Endpoint endpoint = guard().endpoint("/api/server/status");
+        for (int i = 0; i < 4; i++) {
+            endpoint.tryAcquire(0);
+            endpoint.onFailure(10, false, 100);
+        }
+        assertEquals(EndpointGuard.State.OPEN, state(endpoint, 100));
+        return endpoint;
+    }
+
+    @Test
+    void timeoutFollowsP99WithinBounds() {
+        EndpointGuard.Endpoint endpoint = guard().endpoint("/api/server/status");
+        // 样本不足时使用最大超时
+        succeed(endpoint, 15, 100);
+        assertEquals(MAX_TIMEOUT, endpoint.timeoutMillis());
+
+        succeed(endpoint, 17, 100);
+        assertEquals(300, endpoint.timeoutMillis());
+        assertEquals(100, endpoint.getStats(0).getP99Millis());
+
+        // 很快的端点不低于下限
+        EndpointGuard.Endpoint fast = guard().endpoint("/api/fast");
+        succeed(fast, 32, 5);
+        assertEquals(200, fast.timeoutMillis());
+    }
+
+    @Test
+    void timeoutsWidenTheTimeoutAgain() {
+        EndpointGuard.Endpoint endpoint = guard().endpoint("/api/server/status");
+        succeed(endpoint, 32, 100);
+        assertEquals(300, endpoint.timeoutMillis());
+
+        // 代理变慢：超时的请求按耗时计入样本，超时随之放宽
+        for (int i = 0; i < 16; i++) {
+            endpoint.onFailure(300, true, 0);
+        }
+        assertEquals(900, endpoint.timeoutMillis());
+    }
+
+    @Test
+    void hedgesStayWithinTheQuota() {
+        EndpointGuard.Endpoint endpoint = guard().endpoint("/api/server/status");
+        assertEquals(-1, endpoint.hedgeDelayMillis());
+
+        succeed(endpoint, 32, 100);
+        assertEquals(100, endpoint.hedgeDelayMillis());
+
+        // 32 次请求，10% 配额外加 1 次
+        int hedges = 0;
+        while (endpoint.tryHedge()) {
+            hedges++;
+        }
+        assertEquals(4, hedges);
+
+        succeed(endpoint, 10, 100);
+        assertTrue(endpoint.tryHedge());
+        assertFalse(endpoint.tryHedge());
+        assertEquals(5, endpoint.getStats(0).getHedges());
+    }
+
+    @Test
+    void noHedgingWhileTheBreakerIsNotClosed() {
+        EndpointGuard.Endpoint endpoint = tripped();
+        assertEquals(-1, endpoint.hedgeDelayMillis());
+        assertFalse(endpoint.tryHedge());
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+
+import okhttp3.MediaType;
+import okio.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以 Gson 的反射编解码为基准，检查手写编解码的输出和解析结果与之一致
+ */
+class ModelCodecsTest {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final Gson gson = new Gson();
+    private final ModelCodecs codecs = new ModelCodecs(gson);
+
+    private String encode(Object value) throws IOException {
+        Buffer buffer = new Buffer();
+        codecs.requestBody(value, JSON).writeTo(buffer);
+        return buffer.readUtf8();
+    }
+
+    private void assertEncodesLikeGson(Object value) throws IOException {
+        assertEquals(gson.toJsonTree(value), JsonParser.parseString(encode(value)));
+    }
+
+    private <T> T decode(String json, Class<T> type) throws IOException {
+        return codecs.read(new Buffer().writeUtf8(json), type);
+    }
+
+    private <T> void assertDecodesLikeGson(T value, Class<T> type) throws IOException {
+        T decoded = decode(gson.toJson(value), type);
+        assertEquals(gson.toJsonTree(value), gson.toJsonTree(decoded));
+    }
+
+    private static PlayerTransferRequest transfer(String playerId, String name) {
+        PlayerTransferRequest r = new PlayerTransferRequest();
+        r.setPlayerId(playerId);
+        r.setPlayerName(name);
+        r.setSourceServer("lobby");
+        r.setTargetServer("survival");
+        r.setTimestamp(1_700_000_000_123L);
+        return r;
+    }
+
+    private static QueueAddRequest add(String playerId, boolean vip) {
+        QueueAddRequest r = new QueueAddRequest();
+        r.setPlayerId(playerId);
+        r.setPlayerName("玩家" + playerId);
+        r.setVip(vip);
+        r.setTimestamp(42);
+        return r;
+    }
+
+    @Test
+    void requestsMatchGsonOutput() throws IOException {
+        HeartbeatRequest heartbeat = new HeartbeatRequest();
+        heartbeat.setServerName("lobby");
+        heartbeat.setOnlinePlayers(37);
+        heartbeat.setMaxPlayers(100);
+        heartbeat.setTps(19.75);
+        heartbeat.setTimestamp(1_700_000_000_000L);
+        assertEncodesLikeGson(heartbeat);
+
+        BatchTransferRequest batch = new BatchTransferRequest();
+        batch.setSourceServer("lobby");
+        batch.setTargetServer("survival");
+        batch.setLeaseId("lease-1");
+        batch.setTransfers(List.of(transfer("a", "Alice"), transfer("b", "Bob")));
+        batch.setTimestamp(7);
+        assertEncodesLikeGson(batch);
+
+        QueueRemoveRequest remove = new QueueRemoveRequest();
+        remove.setPlayerId("c");
+        remove.setTimestamp(9);
+        QueueSyncRequest sync = new QueueSyncRequest();
+        sync.setServerName("lobby");
+        sync.setEpoch(3);
+        sync.setSequence(11);
+        sync.setAdded(List.of(add("a", true), add("b", false)));
+        sync.setRemoved(List.of(remove));
+        sync.setTimestamp(12);
+        assertEncodesLikeGson(sync);
+    }
+
+    @Test
+    void nullFieldsAreOmitted() throws IOException {
+        PlayerTransferRequest r = transfer("a", null);
+        String json = encode(r);
+        assertFalse(json.contains("playerName"));
+        assertFalse(json.contains("leaseId"));
+        assertFalse(json.contains(" "));
+        assertEncodesLikeGson(r);
+    }
+
+    @Test
+    void supplementaryCharactersSurviveTheOkioWriterAndReader() throws IOException {
+        PlayerTransferRequest r = transfer("a", "名字😀\"\\\n");
+        String json = encode(r);
+        assertEquals(r.getPlayerName(), gson.fromJson(json, PlayerTransferRequest.class).getPlayerName());
+
+        PlayerTransferResponse response = new PlayerTransferResponse();
+        response.setPlayerId("a");
+        response.setMessage("😀😀 已传送");
+        assertDecodesLikeGson(response, PlayerTransferResponse.class);
+    }
+
+    @Test
+    void responsesMatchGsonParsing() throws IOException {
+        ServerStatusResponse status = new ServerStatusResponse();
+        status.setOnline(true);
+        status.setCurrentPlayers(97);
+        status.setMaxPlayers(100);
+        status.setAvailableSlots(3);
+        status.setTps(19.8);
+        status.setStatus("ONLINE");
+        status.setTimestamp(5);
+        assertDecodesLikeGson(status, ServerStatusResponse.class);
+
+        PlayerTransferResponse ok = new PlayerTransferResponse();
+        ok.setSuccess(true);
+        ok.setPlayerId("a");
+        ok.setTransferId("t-1");
+        BatchTransferResponse batch = new BatchTransferResponse();
+        batch.setSuccess(true);
+        batch.setResults(List.of(ok));
+        batch.setTimestamp(8);
+        assertDecodesLikeGson(batch, BatchTransferResponse.class);
+
+        QueueDigestResponse digest = new QueueDigestResponse();
+        digest.setSuccess(true);
+        digest.setBuckets(4);
+        digest.setTotalCount(10);
+        digest.setCounts(List.of(1, 2, 3, 4));
+        digest.setHashes(List.of("a1", "b2", "c3", "d4"));
+        assertDecodesLikeGson(digest, QueueDigestResponse.class);
+
+        SlotReserveResponse lease = new SlotReserveResponse();
+        lease.setSuccess(true);
+        lease.setLeaseId("lease-9");
+        lease.setGranted(5);
+        lease.setExpiresAt(1234);
+        assertDecodesLikeGson(lease, SlotReserveResponse.class);
+    }
+
+    @Test
+    void unknownAndNullFieldsAreSkipped() throws IOException {
+        QueueInfoResponse r = decode("{\"inQueue\":true,\"extra\":{\"nested\":[1,2,{}]},"
+                + "\"message\":null,\"position\":4,\"future\":\"x\"}", QueueInfoResponse.class);
+        assertTrue(r.isInQueue());
+        assertEquals(4, r.getPosition());
+        assertNull(r.getMessage());
+    }
+
+    @Test
+    void digestCountsKeepIndexesForNullElements() throws IOException {
+        QueueDigestResponse r = decode("{\"counts\":[1,null,3],\"hashes\":[\"a\",null]}", QueueDigestResponse.class);
+        assertEquals(Arrays.asList(1, -1, 3), r.getCounts());
+        assertEquals(List.of("a"), r.getHashes());
+    }
+
+    @Test
+    void proxyEventUsesShortSequenceName() throws IOException {
+        ProxyEvent event = codecs.read(new StringReader(
+                "{\"seq\":122,\"type\":\"slot-free\",\"availableSlots\":3}"), ProxyEvent.class);
+        assertEquals(122, event.getSequence());
+        assertEquals("slot-free", event.getType());
+        assertEquals(3, event.getAvailableSlots());
+
+        ProxyEvent arrival = codecs.read(new StringReader("{\"type\":\"player-arrived\",\"playerId\":\"a\"}"), ProxyEvent.class);
+        assertEquals(-1, arrival.getAvailableSlots());
+    }
+
+    @Test
+    void nullBodyAndUnregisteredTypesFallBackToGson() throws IOException {
+        assertNull(decode("null", ServerStatusResponse.class));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = decode("{\"k\":\"v\"}", Map.class);
+        assertEquals("v", map.get("k"));
+        assertEquals("{\"k\":\"v\"}", encode(Map.of("k", "v")));
+    }
+}
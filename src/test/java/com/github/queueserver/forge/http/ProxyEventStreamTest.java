@@ -0,0 +1,160 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.ProxyEvent;
+import com.github.queueserver.forge.simulation.ProxyStandIn;
+import com.google.gson.Gson;
+
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 通过本地代理替身检查推送通道的补发、重连和重新同步
+ */
+class ProxyEventStreamTest {
+
+    private final BlockingQueue<ProxyEvent> events = new LinkedBlockingQueue<>();
+    private final AtomicInteger connects = new AtomicInteger();
+    private final AtomicInteger disconnects = new AtomicInteger();
+    private final AtomicInteger resyncs = new AtomicInteger();
+
+    private ProxyStandIn standIn;
+    private OkHttpClient client;
+    private ScheduledExecutorService timer;
+    private ProxyEventStream stream;
+
+    @BeforeEach
+    void start() throws IOException {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+
+        standIn = new ProxyStandIn(0, 16, logger);
+        standIn.start();
+        client = new OkHttpClient.Builder().pingInterval(1, TimeUnit.SECONDS).build();
+        timer = Executors.newSingleThreadScheduledExecutor();
+        stream = new ProxyEventStream(client, standIn.getBaseUrl() + "/api/events", new ModelCodecs(new Gson()),
+                new ProxyEventStream.Listener() {
+                    @Override
+                    public void onConnected() {
+                        connects.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onEvent(ProxyEvent event) {
+                        events.add(event);
+                    }
+
+                    @Override
+                    public void onResync() {
+                        resyncs.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onDisconnected() {
+                        disconnects.incrementAndGet();
+                    }
+                }, timer, 1000, logger);
+    }
+
+    @AfterEach
+    void stop() {
+        stream.stop();
+        standIn.stop();
+        timer.shutdownNow();
+        client.dispatcher().executorService().shutdownNow();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("等待超时");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private List<Long> take(int count) throws InterruptedException {
+        List<Long> sequences = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProxyEvent event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "缺少第 " + (i + 1) + " 个事件");
+            sequences.add(event.getSequence());
+        }
+        return sequences;
+    }
+
+    private void connect() throws InterruptedException {
+        stream.start();
+        await(() -> stream.isConnected() && standIn.getSubscriberCount() == 1);
+        // 首次连接没有可补发的序号，替身发送 reset 和一条不编号的状态
+        assertEquals(List.of(0L), take(1));
+    }
+
+    @Test
+    void deliversEventsInOrder() throws InterruptedException {
+        connect();
+        standIn.publishSlotFree(1);
+        standIn.publishArrival(UUID.randomUUID());
+        standIn.publishSlotFree(2);
+
+        assertEquals(List.of(1L, 2L, 3L), take(3));
+        assertEquals(1, resyncs.get());
+        assertEquals(3, stream.getStats().getLastSequence());
+    }
+
+    @Test
+    void replaysMissedEventsAfterReconnect() throws InterruptedException {
+        connect();
+        standIn.publishSlotFree(1);
+        assertEquals(List.of(1L), take(1));
+
+        standIn.dropConnections();
+        await(() -> disconnects.get() == 1 && standIn.getSubscriberCount() == 0);
+        standIn.publishSlotFree(1);
+        standIn.publishSlotFree(1);
+
+        await(() -> connects.get() == 2);
+        assertEquals(List.of(2L, 3L), take(2));
+        assertEquals(0, stream.getStats().getDuplicates());
+        assertEquals(1, resyncs.get());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void resyncsWhenProxyCannotReplay() throws InterruptedException {
+        connect();
+        standIn.publishSlotFree(1);
+        standIn.publishSlotFree(1);
+        assertEquals(List.of(1L, 2L), take(2));
+
+        // 代理重启后序号从头开始，客户端请求的序号已无法补发
+        standIn.restart();
+        await(() -> resyncs.get() == 2 && stream.isConnected() && standIn.getSubscriberCount() == 1);
+        assertEquals(List.of(0L), take(1));
+
+        standIn.publishSlotFree(1);
+        assertEquals(List.of(1L), take(1));
+        assertEquals(0, stream.getStats().getDuplicates());
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.queueserver.forge.http;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProxyHttpClientTest {
+
+    private static final Logger LOGGER = Logger.getAnonymousLogger();
+
+    static {
+        LOGGER.setLevel(Level.OFF);
+    }
+
+    /**
+     * 选出的协议列表必须能被 OkHttp 接受
+     */
+    private static List<Protocol> protocols(String mode, String baseUrl) {
+        List<Protocol> protocols = ProxyHttpClient.protocols(mode, baseUrl, LOGGER);
+        new OkHttpClient.Builder().protocols(protocols).build();
+        return protocols;
+    }
+
+    @Test
+    void h2cUsesPriorKnowledgeOnPlaintext() {
+        assertEquals(List.of(Protocol.H2_PRIOR_KNOWLEDGE), protocols("h2c", "http://127.0.0.1:8080"));
+    }
+
+    @Test
+    void h2cOnHttpsFallsBackToAlpn() {
+        assertEquals(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1), protocols("h2c", "https://proxy.example"));
+    }
+
+    @Test
+    void http1PinsHttp11() {
+        assertEquals(List.of(Protocol.HTTP_1_1), protocols("http1", "http://127.0.0.1:8080"));
+    }
+
+    @Test
+    void autoAndUnknownModesNegotiate() {
+        assertEquals(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1), protocols("auto", "http://127.0.0.1:8080"));
+        assertEquals(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1), protocols("spdy", "http://127.0.0.1:8080"));
+    }
+
+    @Test
+    void modeIsCaseInsensitive() {
+        assertEquals(List.of(Protocol.HTTP_1_1), protocols("HTTP1", "http://127.0.0.1:8080"));
+        assertEquals(List.of(Protocol.H2_PRIOR_KNOWLEDGE), protocols("H2C", "http://127.0.0.1:8080"));
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.queueserver.forge.http;
+
+import com.github.queueserver.forge.http.model.QueueAddRequest;
+import com.github.queueserver.forge.http.model.QueueRemoveRequest;
+import com.github.queueserver.forge.http.model.QueueSyncRequest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueOutboxTest {
+
+    private static final UUID A = new UUID(0, 1);
+    private static final UUID B = new UUID(0, 2);
+    private static final UUID C = new UUID(0, 3);
+
+    /**
+     * 只记录任务、由测试手动执行的计时器
+     */
+    private static final class ManualTimer extends ScheduledThreadPoolExecutor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        ManualTimer() {
+            super(1);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            return null;
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private final ManualTimer timer = new ManualTimer();
+    private final List<QueueSyncRequest> sent = new ArrayList<>();
+    private final List<CompletableFuture<Boolean>> results = new ArrayList<>();
+
+    private QueueOutbox outbox(int maxBatchSize) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return new QueueOutbox(request -> {
+            sent.add(request);
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            results.add(result);
+            return result;
+        }, timer, 50, maxBatchSize, "lobby", logger);
+    }
+
+    @AfterEach
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private static List<String> added(QueueSyncRequest request) {
+        List<String> ids = new ArrayList<>();
+        for (QueueAddRequest add : request.getAdded()) {
+            ids.add(add.getPlayerId());
+        }
+        return ids;
+    }
+
+    private static List<String> removed(QueueSyncRequest request) {
+        List<String> ids = new ArrayList<>();
+        for (QueueRemoveRequest remove : request.getRemoved()) {
+            ids.add(remove.getPlayerId());
+        }
+        return ids;
+    }
+
+    private QueueSyncRequest last() {
+        return sent.get(sent.size() - 1);
+    }
+
+    @Test
+    void addFollowedByRemoveCancelsOut() {
+        QueueOutbox outbox = outbox(100);
+        outbox.playerAdded(A, "a", false);
+        outbox.playerRemoved(A);
+        outbox.playerAdded(B, "b", true);
+        timer.runAll();
+
+        assertEquals(1, sent.size());
+        assertEquals(List.of(B.toString()), added(last()));
+        assertEquals(List.of(), removed(last()));
+        assertTrue(last().getAdded().get(0).isVip());
+        assertEquals(2, outbox.getStats().getChangesCancelled());
+    }
+
+    @Test
+    void rejoinIsSentAsRemoveThenAddAtTheNewPosition() {
+        QueueOutbox outbox = outbox(100);
+        outbox.playerRemoved(A);
+        outbox.playerAdded(B, "b", false);
+        outbox.playerAdded(A, "a2", true);
+        timer.runAll();
+
+        assertEquals(List.of(A.toString()), removed(last()));
+        assertEquals(List.of(B.toString(), A.toString()), added(last()));
+        assertEquals("a2", last().getAdded().get(1).getPlayerName());
+
+        // 重新加入后又离开，只剩移除
+        outbox.playerRemoved(C);
+        outbox.playerAdded(C, "c", false);
+        outbox.playerRemoved(C);
+        results.get(0).complete(true);
+        timer.runAll();
+        assertEquals(List.of(C.toString()), removed(last()));
+        assertEquals(List.of(), added(last()));
+    }
+
+    @Test
+    void onlyOneBatchInFlightAndSequencesIncrease() {
+        QueueOutbox outbox = outbox(100);
+        outbox.playerAdded(A, "a", false);
+        timer.runAll();
+        outbox.playerAdded(B, "b", false);
+        timer.runAll();
+        assertEquals(1, sent.size());
+
+        results.get(0).complete(true);
+        timer.runAll();
+        assertEquals(2, sent.size());
+        assertEquals(1, sent.get(0).getSequence());
+        assertEquals(2, sent.get(1).getSequence());
+        assertEquals(sent.get(0).getEpoch(), sent.get(1).getEpoch());
+        assertEquals(List.of(B.toString()), added(last()));
+    }
+
+    @Test
+    void failedBatchIsRetriedAheadOfLaterChanges() {
+        QueueOutbox outbox = outbox(100);
+        outbox.playerAdded(A, "a", false);
+        outbox.playerAdded(B, "b", false);
+        timer.runAll();
+
+        // 发送期间 A 离开、C 加入
+        outbox.playerRemoved(A);
+        outbox.playerAdded(C, "c", false);
+        results.get(0).complete(false);
+        timer.runAll();
+
+        assertEquals(2, sent.size());
+        assertEquals(List.of(A.toString(), B.toString()), added(sent.get(0)));
+        // 失败批次中 A 的入队与之后的离队抵消，B 仍排在之后加入的 C 之前
+        assertEquals(List.of(B.toString(), C.toString()), added(last()));
+        assertEquals(List.of(), removed(last()));
+        assertEquals(1, outbox.getStats().getFailedBatches());
+    }
+
+    @Test
+    void failedRemoveMergesWithLaterRejoin() {
+        QueueOutbox outbox = outbox(100);
+        outbox.playerRemoved(A);
+        timer.runAll();
+        outbox.playerAdded(A, "a", true);
+        results.get(0).completeExceptionally(new RuntimeException("timeout"));
+        timer.runAll();
+
+        assertEquals(List.of(A.toString()), removed(last()));
+        assertEquals(List.of(A.toString()), added(last()));
+        assertTrue(last().getAdded().get(0).isVip());
+    }
+
+    @Test
+    void largeBacklogIsSplitIntoBatches() {
+        QueueOutbox outbox = outbox(2);
+        outbox.playerAdded(A, "a", false);
+        outbox.playerAdded(B, "b", false);
+        outbox.playerAdded(C, "c", false);
+        timer.runAll();
+        assertEquals(List.of(A.toString(), B.toString()), added(last()));
+
+        results.get(0).complete(true);
+        timer.runAll();
+        assertEquals(List.of(C.toString()), added(last()));
+        results.get(1).complete(true);
+        assertTrue(outbox.isIdle());
+        assertEquals(2, outbox.getStats().getBatchesSent());
+        assertEquals(3, outbox.getStats().getChangesSent());
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.queueserver.forge.http;
+
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private static final String KEY = "/api/server/status";
+
+    private long now = 1_000;
+    private final ResponseCache cache = new ResponseCache(500, () -> now);
+
+    // 每次调用 loader 都留下一个由测试手动完成的请求，并记下收到的上一次条目
+    private final List<CompletableFuture<ResponseCache.Entry>> loads = new ArrayList<>();
+    private final List<ResponseCache.Entry> previous = new ArrayList<>();
+    private final Function<ResponseCache.Entry, CompletableFuture<ResponseCache.Entry>> loader = entry -> {
+        previous.add(entry);
+        CompletableFuture<ResponseCache.Entry> load = new CompletableFuture<>();
+        loads.add(load);
+        return load;
+    };
+
+    private static ResponseCache.Entry entry(String body) {
+        return new ResponseCache.Entry(ByteString.encodeUtf8(body), "\"" + body + "\"");
+    }
+
+    private ResponseCache.Entry fill(String body) {
+        CompletableFuture<ResponseCache.Entry> result = cache.get(KEY, loader);
+        ResponseCache.Entry entry = entry(body);
+        loads.get(loads.size() - 1).complete(entry);
+        assertSame(entry, result.join());
+        return entry;
+    }
+
+    @Test
+    void concurrentGetsShareOneRequest() {
+        CompletableFuture<ResponseCache.Entry> first = cache.get(KEY, loader);
+        CompletableFuture<ResponseCache.Entry> second = cache.get(KEY, loader);
+        assertEquals(1, loads.size());
+        assertFalse(second.isDone());
+
+        ResponseCache.Entry entry = entry("a");
+        loads.get(0).complete(entry);
+        assertSame(entry, first.join());
+        assertSame(entry, second.join());
+
+        ResponseCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getFetches());
+        assertEquals(1, stats.getCoalesced());
+        assertEquals(0, stats.getInFlight());
+        assertEquals(1, stats.getEntries());
+    }
+
+    @Test
+    void entryIsReusedUntilTheTtlPasses() {
+        ResponseCache.Entry entry = fill("a");
+
+        now += 499;
+        assertSame(entry, cache.get(KEY, loader).join());
+        assertEquals(1, loads.size());
+        assertEquals(1, cache.getStats().getHits());
+
+        // 过期后带上一次的条目重新请求
+        now += 1;
+        cache.get(KEY, loader);
+        assertEquals(2, loads.size());
+        assertSame(entry, previous.get(1));
+    }
+
+    @Test
+    void notModifiedKeepsTheBodyAndRestartsTheTtl() {
+        ResponseCache.Entry entry = fill("a");
+        now += 600;
+
+        CompletableFuture<ResponseCache.Entry> revalidated = cache.get(KEY, loader);
+        loads.get(1).complete(previous.get(1));
+        assertSame(entry, revalidated.join());
+        assertEquals(1, cache.getStats().getNotModified());
+
+        now += 499;
+        assertSame(entry, cache.get(KEY, loader).join());
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        CompletableFuture<ResponseCache.Entry> failed = cache.get(KEY, loader);
+        loads.get(0).completeExceptionally(new IOException("refused"));
+        assertNull(failed.join());
+
+        cache.get(KEY, loader);
+        assertEquals(2, loads.size());
+        assertNull(previous.get(1));
+    }
+
+    @Test
+    void invalidateForcesARefetchButKeepsTheEtag() {
+        ResponseCache.Entry entry = fill("a");
+        cache.invalidate(KEY);
+
+        cache.get(KEY, loader);
+        assertEquals(2, loads.size());
+        assertSame(entry, previous.get(1));
+    }
+
+    @Test
+    void loadStartedBeforeInvalidateIsNotCached() {
+        CompletableFuture<ResponseCache.Entry> stale = cache.get(KEY, loader);
+        cache.invalidate(KEY);
+
+        // 失效后的请求不再并入之前的请求
+        CompletableFuture<ResponseCache.Entry> fresh = cache.get(KEY, loader);
+        assertEquals(2, loads.size());
+
+        // 旧请求先完成：等待者拿到结果，但缓存里没有它
+        ResponseCache.Entry old = entry("old");
+        loads.get(0).complete(old);
+        assertSame(old, stale.join());
+        assertFalse(fresh.isDone());
+        assertSame(fresh, cache.get(KEY, loader));
+        assertEquals(2, loads.size());
+
+        ResponseCache.Entry current = entry("new");
+        loads.get(1).complete(current);
+        assertSame(current, fresh.join());
+        assertSame(current, cache.get(KEY, loader).join());
+    }
+
+    @Test
+    void invalidateDuringALoadThatFinishesLastIsNotCached() {
+        fill("a");
+        now += 600;
+        CompletableFuture<ResponseCache.Entry> load = cache.get(KEY, loader);
+        cache.invalidate(KEY);
+        loads.get(1).complete(entry("b"));
+        load.join();
+
+        cache.get(KEY, loader);
+        assertEquals(3, loads.size());
+        assertTrue(cache.getStats().getInFlight() > 0);
+    }
+
+    @Test
+    void zeroTtlOnlyCoalesces() {
+        ResponseCache cache = new ResponseCache(0, () -> now);
+        CompletableFuture<ResponseCache.Entry> first = cache.get(KEY, loader);
+        cache.get(KEY, loader);
+        assertEquals(1, loads.size());
+        loads.get(0).complete(entry("a"));
+        first.join();
+
+        cache.get(KEY, loader);
+        assertEquals(2, loads.size());
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedQueueTest {
+
+    private static QueueManager.QueueEntry entry(int i) {
+        return new QueueManager.QueueEntry(UUID.randomUUID(), "player" + i, false);
+    }
+
+    private static List<QueueManager.QueueEntry> fill(IndexedQueue queue, int count) {
+        List<QueueManager.QueueEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QueueManager.QueueEntry entry = entry(i);
+            queue.offer(entry);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Test
+    void ranksFollowInsertionOrder() {
+        IndexedQueue queue = new IndexedQueue();
+        List<QueueManager.QueueEntry> entries = fill(queue, 10);
+
+        assertEquals(10, queue.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, queue.rankOf(entries.get(i)));
+        }
+        assertSame(entries.get(0), queue.peek());
+    }
+
+    @Test
+    void removeInMiddleShiftsLaterRanks() {
+        IndexedQueue queue = new IndexedQueue();
+        List<QueueManager.QueueEntry> entries = fill(queue, 5);
+
+        assertTrue(queue.remove(entries.get(2)));
+        assertFalse(queue.remove(entries.get(2)));
+        assertFalse(queue.contains(entries.get(2)));
+        assertEquals(-1, queue.rankOf(entries.get(2)));
+
+        assertEquals(4, queue.size());
+        assertEquals(2, queue.rankOf(entries.get(1)));
+        assertEquals(3, queue.rankOf(entries.get(3)));
+        assertEquals(4, queue.rankOf(entries.get(4)));
+    }
+
+    @Test
+    void pollReturnsEntriesInOrderAndSkipsRemovedHead() {
+        IndexedQueue queue = new IndexedQueue();
+        List<QueueManager.QueueEntry> entries = fill(queue, 4);
+
+        queue.remove(entries.get(0));
+        assertSame(entries.get(1), queue.poll());
+        assertSame(entries.get(2), queue.poll());
+        assertSame(entries.get(3), queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void ranksSurviveCompactionAndGrowth() {
+        IndexedQueue queue = new IndexedQueue();
+        List<QueueManager.QueueEntry> entries = fill(queue, 1000);
+
+        // 移除所有偶数位置的条目，之后的入队会触发压缩
+        for (int i = 0; i < entries.size(); i += 2) {
+            assertTrue(queue.remove(entries.get(i)));
+        }
+        List<QueueManager.QueueEntry> more = fill(queue, 600);
+
+        assertEquals(1100, queue.size());
+        for (int i = 1; i < entries.size(); i += 2) {
+            assertEquals(i / 2 + 1, queue.rankOf(entries.get(i)));
+        }
+        for (int i = 0; i < more.size(); i++) {
+            assertEquals(500 + i + 1, queue.rankOf(more.get(i)));
+        }
+    }
+
+    @Test
+    void parkedEntryKeepsSlotButLeavesRanking() {
+        IndexedQueue queue = new IndexedQueue();
+        List<QueueManager.QueueEntry> entries = fill(queue, 4);
+
+        assertTrue(queue.park(entries.get(1)));
+        assertFalse(queue.park(entries.get(1)));
+        assertTrue(queue.contains(entries.get(1)));
+        assertEquals(3, queue.size());
+        assertEquals(2, queue.rankOf(entries.get(2)));
+        assertEquals(3, queue.rankOf(entries.get(3)));
+        // 挂起的条目返回恢复后的排名
+        assertEquals(2, queue.rankOf(entries.get(1)));
+
+        assertTrue(queue.unpark(entries.get(1)));
+        assertEquals(4, queue.size());
+        assertEquals(2, queue.rankOf(entries.get(1)));
+        assertEquals(3, queue.rankOf(entries.get(2)));
+    }
+
+    @Test
+    void parkedEntrySurvivesCompaction() {
+        IndexedQueue queue = new IndexedQueue();
+        List<QueueManager.QueueEntry> entries = fill(queue, 64);
+        queue.park(entries.get(10));
+        for (int i = 0; i < 10; i++) {
+            queue.remove(entries.get(i));
+        }
+        fill(queue, 10);
+
+        assertEquals(63, queue.size());
+        assertEquals(1, queue.rankOf(entries.get(10)));
+        assertEquals(1, queue.rankOf(entries.get(11)));
+
+        assertTrue(queue.remove(entries.get(10)));
+        assertEquals(63, queue.size());
+        assertEquals(1, queue.rankOf(entries.get(11)));
+    }
+
+    @Test
+    void clearDetachesEntries() {
+        IndexedQueue queue = new IndexedQueue();
+        List<QueueManager.QueueEntry> entries = fill(queue, 3);
+        queue.park(entries.get(0));
+
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.peek());
+        for (QueueManager.QueueEntry entry : entries) {
+            assertFalse(queue.contains(entry));
+            assertEquals(-1, queue.rankOf(entry));
+        }
+
+        // 清空后条目可以重新入队
+        queue.offer(entries.get(0));
+        assertEquals(1, queue.rankOf(entries.get(0)));
+    }
+}
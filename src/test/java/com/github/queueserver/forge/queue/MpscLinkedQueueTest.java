@@ -0,0 +1,84 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscLinkedQueueTest {
+
+    @Test
+    void singleThreadIsFifo() {
+        MpscLinkedQueue<Integer> queue = new MpscLinkedQueue<>();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        assertFalse(queue.isEmpty());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void concurrentProducersKeepTheirOwnOrder() throws InterruptedException {
+        MpscLinkedQueue<long[]> queue = new MpscLinkedQueue<>();
+        int producers = 8;
+        int perProducer = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    queue.offer(new long[] {producer, i});
+                }
+            });
+        }
+        start.countDown();
+
+        // 消费者与生产者同时运行，每个生产者的元素必须按顺序出现且不丢失
+        List<Long> next = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            next.add(0L);
+        }
+        int received = 0;
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (received < producers * perProducer && System.currentTimeMillis() < deadline) {
+            long[] value = queue.poll();
+            if (value == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = (int) value[0];
+            assertEquals(next.get(producer), value[1]);
+            next.set(producer, value[1] + 1);
+            received++;
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(producers * perProducer, received);
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class QueueDigestTest {
+
+    private static List<UUID> players(int count) {
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            players.add(new UUID(i * 0x9E3779B97F4A7C15L, i));
+        }
+        return players;
+    }
+
+    @Test
+    void digestDoesNotDependOnInsertionOrder() {
+        List<UUID> players = players(200);
+        QueueDigest first = new QueueDigest(16);
+        players.forEach(playerId -> first.add(playerId, false));
+
+        Collections.reverse(players);
+        QueueDigest second = new QueueDigest(16);
+        players.forEach(playerId -> second.add(playerId, false));
+
+        assertEquals(first.getRootHash(), second.getRootHash());
+        assertEquals(List.of(), first.diff(counts(second), hashes(second)));
+        assertEquals(200, first.getTotalCount());
+    }
+
+    @Test
+    void differencesAreConfinedToTheirBuckets() {
+        List<UUID> players = players(500);
+        QueueDigest local = new QueueDigest(64);
+        QueueDigest remote = new QueueDigest(64);
+        for (int i = 0; i < players.size(); i++) {
+            local.add(players.get(i), i == 7);
+            // 代理端缺一人、多一人，另有一人VIP标记不同
+            if (i != 3) {
+                remote.add(players.get(i), false);
+            }
+        }
+        UUID stale = new UUID(-1, -1);
+        remote.add(stale, false);
+
+        List<Integer> expected = new ArrayList<>();
+        for (UUID playerId : List.of(players.get(3), players.get(7), stale)) {
+            int bucket = QueueDigest.bucketOf(playerId, 64);
+            if (!expected.contains(bucket)) {
+                expected.add(bucket);
+            }
+        }
+        Collections.sort(expected);
+
+        assertEquals(expected, local.diff(counts(remote), hashes(remote)));
+        assertNotEquals(local.getRootHash(), remote.getRootHash());
+    }
+
+    @Test
+    void differentBucketCountsCompareAsAllDifferent() {
+        QueueDigest digest = new QueueDigest(4);
+        assertEquals(List.of(0, 1, 2, 3), digest.diff(new int[8], new long[8]));
+    }
+
+    @Test
+    void hashRulesAreStable() {
+        // 代理端按同样规则计算，规则变动会使两端摘要不一致
+        // 期望值按 README 中的规则独立计算
+        UUID playerId = UUID.fromString("00000000-0000-0001-0000-000000000002");
+        assertEquals(QueueDigest.parseHex("ef30b01c2974aeeb"), QueueDigest.memberHash(playerId, false));
+        assertEquals(QueueDigest.parseHex("d9bf17d113f38956"), QueueDigest.memberHash(playerId, true));
+        assertEquals(48, QueueDigest.bucketOf(playerId, 64));
+
+        long hash = QueueDigest.memberHash(playerId, true);
+        assertEquals(16, QueueDigest.toHex(hash).length());
+        assertEquals(hash, QueueDigest.parseHex(QueueDigest.toHex(hash)));
+        assertEquals("0000000000000001", QueueDigest.toHex(1));
+        assertEquals(-1L, QueueDigest.parseHex("ffffffffffffffff"));
+    }
+
+    private static int[] counts(QueueDigest digest) {
+        int[] counts = new int[digest.getBucketCount()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = digest.getCount(i);
+        }
+        return counts;
+    }
+
+    private static long[] hashes(QueueDigest digest) {
+        long[] hashes = new long[digest.getBucketCount()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = digest.getHash(i);
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueJournalTest {
+
+    // 名字为 1 字节的入队记录：8 字节记录头 + 1 类型 + 16 UUID + 8 时间 + 1 VIP + 2 长度 + 1 名字
+    private static final int ENQUEUE_RECORD_SIZE = 37;
+
+    @TempDir
+    File directory;
+
+    private QueueJournal create() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return new QueueJournal(directory, 64 * 1024, logger);
+    }
+
+    private QueueJournal open() throws IOException {
+        QueueJournal journal = create();
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * 模拟重启：用新实例从磁盘恢复
+     */
+    private List<QueueManager.QueueEntry> restart() throws IOException {
+        return create().recover();
+    }
+
+    private static QueueManager.QueueEntry entry(String name, boolean vip) {
+        return new QueueManager.QueueEntry(UUID.randomUUID(), name, vip, 1_700_000_000_000L + name.hashCode());
+    }
+
+    private static List<String> names(List<QueueManager.QueueEntry> entries) {
+        List<String> names = new ArrayList<>();
+        for (QueueManager.QueueEntry entry : entries) {
+            names.add(entry.getPlayerName());
+        }
+        return names;
+    }
+
+    @Test
+    void replaysJournalAfterCrash() throws IOException {
+        QueueJournal journal = open();
+        QueueManager.QueueEntry a = entry("a", false);
+        QueueManager.QueueEntry b = entry("b", true);
+        QueueManager.QueueEntry c = entry("c", false);
+        journal.appendEnqueue(a);
+        journal.appendEnqueue(b);
+        journal.appendEnqueue(c);
+        journal.appendDequeue(a.getPlayerId());
+        // 不写快照、不关闭，模拟进程崩溃
+
+        List<QueueManager.QueueEntry> recovered = restart();
+        assertEquals(List.of("b", "c"), names(recovered));
+        QueueManager.QueueEntry restored = recovered.get(0);
+        assertEquals(b.getPlayerId(), restored.getPlayerId());
+        assertEquals(b.getJoinTime(), restored.getJoinTime());
+        assertTrue(restored.isVip());
+    }
+
+    @Test
+    void clearRecordDropsEarlierEntries() throws IOException {
+        QueueJournal journal = open();
+        journal.appendEnqueue(entry("a", false));
+        journal.appendClear();
+        journal.appendEnqueue(entry("b", false));
+
+        assertEquals(List.of("b"), names(restart()));
+    }
+
+    @Test
+    void stopsAtTornTailRecord() throws IOException {
+        QueueJournal journal = open();
+        journal.appendEnqueue(entry("a", false));
+        journal.appendEnqueue(entry("b", false));
+        journal.appendEnqueue(entry("c", false));
+        journal.close();
+
+        // 破坏第三条记录的负载，校验失败后其余记录丢弃
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "journal-1.dat"), "rw")) {
+            long payload = 8 + 2L * ENQUEUE_RECORD_SIZE + 8;
+            file.seek(payload + 20);
+            int original = file.read();
+            file.seek(payload + 20);
+            file.write(original ^ 0xFF);
+        }
+
+        assertEquals(List.of("a", "b"), names(restart()));
+    }
+
+    @Test
+    void snapshotReplacesOlderGenerations() throws IOException {
+        QueueJournal journal = open();
+        QueueManager.QueueEntry a = entry("a", false);
+        QueueManager.QueueEntry b = entry("b", false);
+        journal.appendEnqueue(a);
+        journal.appendEnqueue(b);
+
+        long generation = journal.rotate();
+        assertFalse(journal.hasPendingRecords());
+        journal.writeSnapshot(generation, List.of(a, b));
+        journal.appendEnqueue(entry("c", false));
+        journal.appendRemove(a.getPlayerId());
+        assertTrue(journal.hasPendingRecords());
+
+        assertFalse(new File(directory, "journal-1.dat").exists());
+        assertTrue(new File(directory, "snapshot-" + generation + ".dat").exists());
+        assertEquals(List.of("b", "c"), names(restart()));
+    }
+
+    @Test
+    void fullJournalRollsOverWithoutLosingRecords() throws IOException {
+        QueueJournal journal = open();
+        // 64KB 的日志约能容纳 1770 条记录，写满后切到新一代
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String name = Integer.toString(i % 10);
+            journal.appendEnqueue(entry(name, false));
+            expected.add(name);
+        }
+
+        assertTrue(directory.list((dir, name) -> name.startsWith("journal-")).length > 2);
+        assertEquals(expected, names(restart()));
+    }
+
+    @Test
+    void corruptSnapshotFailsRecovery() throws IOException {
+        QueueJournal journal = open();
+        QueueManager.QueueEntry a = entry("a", false);
+        journal.appendEnqueue(a);
+        long generation = journal.rotate();
+        journal.writeSnapshot(generation, List.of(a));
+
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "snapshot-" + generation + ".dat"), "rw")) {
+            file.seek(16);
+            int original = file.read();
+            file.seek(16);
+            file.write(original ^ 0x7F);
+        }
+
+        assertThrows(IOException.class, this::restart);
+    }
+}
@@ -0,0 +1,280 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueManagerTest {
+
+    /**
+     * 手动推进时钟、记录通知的环境
+     */
+    private static final class TestEnvironment implements QueueEnvironment {
+        volatile long now = 1_000_000;
+        final Set<UUID> offline = ConcurrentHashMap.newKeySet();
+        final AtomicInteger added = new AtomicInteger();
+        final AtomicInteger removed = new AtomicInteger();
+        final AtomicInteger requeued = new AtomicInteger();
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public boolean isOnline(UUID playerId) {
+            return !offline.contains(playerId);
+        }
+
+        @Override
+        public void onPlayerAdded(QueueManager.QueueEntry entry) {
+            added.incrementAndGet();
+        }
+
+        @Override
+        public void onPlayerRemoved(QueueManager.QueueEntry entry, String reason) {
+            removed.incrementAndGet();
+        }
+
+        @Override
+        public void onTransferRequeued(QueueManager.QueueEntry entry, String reason) {
+            requeued.incrementAndGet();
+        }
+    }
+
+    private final TestEnvironment environment = new TestEnvironment();
+
+    private QueueManager manager(QueueSettings settings) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return new QueueManager(logger, settings, environment);
+    }
+
+    private static List<UUID> addRegular(QueueManager manager, int count) {
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID playerId = UUID.randomUUID();
+            assertTrue(manager.addPlayer(playerId, "p" + i, false));
+            players.add(playerId);
+        }
+        return players;
+    }
+
+    @Test
+    void concurrentAddsAndRemovesKeepPositionsDense() throws Exception {
+        QueueManager manager = manager(new QueueSettings());
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<UUID>>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                List<UUID> kept = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    UUID playerId = UUID.randomUUID();
+                    manager.addPlayer(playerId, "p", i % 5 == 0);
+                    // 重复加入必须失败
+                    assertFalse(manager.addPlayer(playerId, "p", false));
+                    if (i % 3 == 0) {
+                        assertTrue(manager.removePlayer(playerId));
+                    } else {
+                        kept.add(playerId);
+                    }
+                    if (i % 100 == 0) {
+                        // 读路径与并发写交错
+                        manager.getTotalQueueSize();
+                    }
+                }
+                return kept;
+            }));
+        }
+        start.countDown();
+
+        List<UUID> kept = new ArrayList<>();
+        for (Future<List<UUID>> result : results) {
+            kept.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(kept.size(), manager.getTotalQueueSize());
+        assertEquals(threads * perThread, environment.added.get());
+        assertEquals(threads * perThread - kept.size(), environment.removed.get());
+
+        // 每个玩家的位置各不相同，且正好覆盖 1..n
+        Set<Integer> positions = new HashSet<>();
+        for (UUID playerId : kept) {
+            assertTrue(manager.isPlayerInQueue(playerId));
+            assertTrue(positions.add(manager.getPlayerPosition(playerId)));
+        }
+        assertEquals(1, positions.stream().mapToInt(Integer::intValue).min().getAsInt());
+        assertEquals(kept.size(), positions.stream().mapToInt(Integer::intValue).max().getAsInt());
+    }
+
+    @Test
+    void strictPolicyServesVipFirstAndSkipsIneligible() {
+        QueueManager manager = manager(new QueueSettings());
+        List<UUID> regular = addRegular(manager, 3);
+        UUID vip = UUID.randomUUID();
+        manager.addPlayer(vip, "vip", true);
+        environment.offline.add(regular.get(0));
+
+        List<QueueManager.QueueEntry> batch = manager.pollBatch(2, entry -> environment.isOnline(entry.getPlayerId()));
+        assertEquals(vip, batch.get(0).getPlayerId());
+        assertEquals(regular.get(1), batch.get(1).getPlayerId());
+
+        // 不符合条件的玩家保留原位
+        assertEquals(2, manager.getTotalQueueSize());
+        assertEquals(1, manager.getPlayerPosition(regular.get(0)));
+        assertEquals(2, manager.getPlayerPosition(regular.get(2)));
+    }
+
+    @Test
+    void failedTransferReturnsToOriginalPosition() {
+        QueueManager manager = manager(new QueueSettings());
+        List<UUID> players = addRegular(manager, 4);
+
+        UUID first = manager.getNextPlayer();
+        assertEquals(players.get(0), first);
+        assertEquals(1, manager.getPlayerPosition(players.get(1)));
+        assertEquals(3, manager.getTotalQueueSize());
+
+        assertTrue(manager.onTransferResult(first, false));
+        assertEquals(1, environment.requeued.get());
+        assertEquals(4, manager.getTotalQueueSize());
+        assertEquals(1, manager.getPlayerPosition(first));
+        assertEquals(2, manager.getPlayerPosition(players.get(1)));
+
+        // 确认到达后才离开队列
+        assertEquals(first, manager.getNextPlayer());
+        assertTrue(manager.confirmTransfer(first));
+        assertFalse(manager.isPlayerInQueue(first));
+        assertFalse(manager.confirmTransfer(first));
+        assertEquals(3, manager.getTotalQueueSize());
+    }
+
+    @Test
+    void repeatedFailuresAbandonThePlayer() {
+        QueueSettings settings = new QueueSettings();
+        settings.setMaxTransferAttempts(2);
+        QueueManager manager = manager(settings);
+        UUID player = addRegular(manager, 1).get(0);
+
+        manager.getNextPlayer();
+        manager.onTransferResult(player, false);
+        assertTrue(manager.isPlayerInQueue(player));
+        manager.getNextPlayer();
+        manager.onTransferResult(player, false);
+
+        assertFalse(manager.isPlayerInQueue(player));
+        assertEquals(0, manager.getTotalQueueSize());
+        assertEquals(1, manager.getTransferStats().getAbandoned());
+    }
+
+    @Test
+    void leavingDuringTransferRemovesExactlyOnce() {
+        QueueManager manager = manager(new QueueSettings());
+        List<UUID> players = addRegular(manager, 2);
+        UUID first = manager.getNextPlayer();
+
+        assertTrue(manager.removePlayer(first));
+        assertFalse(manager.removePlayer(first));
+        assertFalse(manager.onTransferResult(first, false));
+        assertFalse(manager.confirmTransfer(first));
+
+        assertEquals(1, environment.removed.get());
+        assertEquals(1, manager.getTotalQueueSize());
+        assertEquals(1, manager.getPlayerPosition(players.get(1)));
+        assertEquals(players.get(1), manager.getNextPlayer());
+    }
+
+    @Test
+    void unconfirmedTransferTimesOutAndRequeues() {
+        QueueSettings settings = new QueueSettings();
+        settings.setTransferConfirmMillis(5_000);
+        QueueManager manager = manager(settings);
+        UUID player = addRegular(manager, 1).get(0);
+
+        manager.getNextPlayer();
+        assertTrue(manager.isInFlight(player));
+        environment.now += 4_000;
+        manager.advanceTimers();
+        assertEquals(0, manager.getTotalQueueSize());
+
+        // 没有收到到达确认，超时后恢复排队
+        environment.now += 2_000;
+        manager.advanceTimers();
+        assertFalse(manager.isInFlight(player));
+        assertEquals(1, environment.requeued.get());
+        assertEquals(1, manager.getPlayerPosition(player));
+    }
+
+    @Test
+    void graceKeepsThePlaceUntilItExpires() {
+        QueueSettings settings = new QueueSettings();
+        settings.setReconnectGraceMillis(30_000);
+        QueueManager manager = manager(settings);
+        List<UUID> players = addRegular(manager, 3);
+
+        // 第一名玩家在宽限期内重连，位置不变
+        assertTrue(manager.startGracePeriod(players.get(0)));
+        environment.now += 20_000;
+        manager.advanceTimers();
+        assertTrue(manager.cancelGracePeriod(players.get(0)));
+        assertFalse(manager.cancelGracePeriod(players.get(0)));
+
+        // 第二名玩家没有回来，宽限期到后移除
+        assertTrue(manager.startGracePeriod(players.get(1)));
+        environment.now += 31_000;
+        manager.advanceTimers();
+
+        assertEquals(1, manager.getPlayerPosition(players.get(0)));
+        assertFalse(manager.isPlayerInQueue(players.get(1)));
+        assertEquals(2, manager.getPlayerPosition(players.get(2)));
+        assertEquals(1, environment.removed.get());
+    }
+
+    @Test
+    void maxWaitDropsLongWaitingEntries() {
+        QueueSettings settings = new QueueSettings();
+        settings.setMaxWaitMillis(60_000);
+        QueueManager manager = manager(settings);
+        UUID early = addRegular(manager, 1).get(0);
+        environment.now += 30_000;
+        UUID late = addRegular(manager, 1).get(0);
+        // 入队并入索引时安排定时器
+        assertEquals(2, manager.getTotalQueueSize());
+
+        environment.now += 31_000;
+        manager.advanceTimers();
+        assertFalse(manager.isPlayerInQueue(early));
+        assertEquals(1, manager.getPlayerPosition(late));
+
+        // 传送中到期的最长等待不生效，确认到达后正常出队
+        assertEquals(late, manager.getNextPlayer());
+        environment.now += 29_500;
+        manager.advanceTimers();
+        assertEquals(1, environment.removed.get());
+        assertTrue(manager.confirmTransfer(late));
+        assertFalse(manager.isPlayerInQueue(late));
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.queueserver.forge.queue;
+
+import com.github.queueserver.forge.http.model.QueueDigestResponse;
+import com.github.queueserver.forge.http.model.QueueMember;
+import com.github.queueserver.forge.http.model.QueueMembersResponse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueReconcilerTest {
+
+    private static final int BUCKETS = 16;
+
+    /**
+     * 在内存中维护代理端的队列镜像，按与插件相同的规则计算摘要
+     */
+    private static final class FakeMirror implements QueueReconciler.Mirror {
+        final Map<UUID, Boolean> members = new HashMap<>();
+        boolean supported = true;
+        boolean outboxIdle = true;
+        int digestRequests = 0;
+        int memberRequests = 0;
+        CompletableFuture<QueueDigestResponse> heldDigest;
+
+        @Override
+        public boolean isQueueDigestSupported() {
+            return supported;
+        }
+
+        @Override
+        public boolean isOutboxIdle() {
+            return outboxIdle;
+        }
+
+        @Override
+        public CompletableFuture<QueueDigestResponse> getQueueDigest(int buckets, int totalCount, long rootHash) {
+            digestRequests++;
+            QueueDigest digest = new QueueDigest(buckets);
+            members.forEach(digest::add);
+
+            QueueDigestResponse response = new QueueDigestResponse();
+            response.setSuccess(true);
+            response.setBuckets(buckets);
+            response.setTotalCount(digest.getTotalCount());
+            response.setMatch(digest.getTotalCount() == totalCount && digest.getRootHash() == rootHash);
+            if (!response.isMatch()) {
+                List<Integer> counts = new ArrayList<>();
+                List<String> hashes = new ArrayList<>();
+                for (int i = 0; i < buckets; i++) {
+                    counts.add(digest.getCount(i));
+                    hashes.add(QueueDigest.toHex(digest.getHash(i)));
+                }
+                response.setCounts(counts);
+                response.setHashes(hashes);
+            }
+            if (heldDigest != null) {
+                return heldDigest.thenApply(ignored -> response);
+            }
+            return CompletableFuture.completedFuture(response);
+        }
+
+        @Override
+        public CompletableFuture<QueueMembersResponse> getQueueMembers(int buckets, Collection<Integer> bucketIds) {
+            memberRequests++;
+            List<QueueMember> result = new ArrayList<>();
+            members.forEach((playerId, vip) -> {
+                if (bucketIds.contains(QueueDigest.bucketOf(playerId, buckets))) {
+                    QueueMember member = new QueueMember();
+                    member.setPlayerId(playerId.toString());
+                    member.setVip(vip);
+                    result.add(member);
+                }
+            });
+
+            QueueMembersResponse response = new QueueMembersResponse();
+            response.setSuccess(true);
+            response.setMembers(result);
+            return CompletableFuture.completedFuture(response);
+        }
+
+        @Override
+        public void queuePlayerAdded(UUID playerId, String playerName, boolean vip) {
+            members.put(playerId, vip);
+        }
+
+        @Override
+        public void queuePlayerRemoved(UUID playerId) {
+            members.remove(playerId);
+        }
+    }
+
+    private static final class QuietEnvironment implements QueueEnvironment {
+        @Override
+        public long currentTimeMillis() {
+            return 1_000_000;
+        }
+
+        @Override
+        public boolean isOnline(UUID playerId) {
+            return true;
+        }
+
+        @Override
+        public void onPlayerAdded(QueueManager.QueueEntry entry) {
+        }
+
+        @Override
+        public void onPlayerRemoved(QueueManager.QueueEntry entry, String reason) {
+        }
+
+        @Override
+        public void onTransferRequeued(QueueManager.QueueEntry entry, String reason) {
+        }
+    }
+
+    private final FakeMirror mirror = new FakeMirror();
+    private final QueueManager queueManager;
+    private final QueueReconciler reconciler;
+
+    QueueReconcilerTest() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        queueManager = new QueueManager(logger, new QueueSettings(), new QuietEnvironment());
+        reconciler = new QueueReconciler(queueManager, mirror, BUCKETS, logger);
+    }
+
+    /**
+     * 加入本地队列并同步到代理端镜像
+     */
+    private List<UUID> join(int count, boolean vip) {
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID playerId = UUID.randomUUID();
+            queueManager.addPlayer(playerId, "p" + i, vip);
+            mirror.members.put(playerId, vip);
+            players.add(playerId);
+        }
+        return players;
+    }
+
+    @Test
+    void matchingRoundCostsOneRequest() {
+        join(50, false);
+        reconciler.reconcile();
+
+        assertEquals(1, mirror.digestRequests);
+        assertEquals(0, mirror.memberRequests);
+        assertEquals(1, reconciler.getStats().getMatched());
+    }
+
+    @Test
+    void repairsMissingStaleAndVipMismatches() {
+        List<UUID> players = join(100, false);
+        mirror.members.remove(players.get(0));
+        mirror.members.put(players.get(1), true);
+        UUID stale = UUID.randomUUID();
+        mirror.members.put(stale, false);
+
+        reconciler.reconcile();
+
+        Map<UUID, Boolean> expected = new HashMap<>();
+        players.forEach(playerId -> expected.put(playerId, false));
+        assertEquals(expected, mirror.members);
+        QueueReconciler.ReconcileStats stats = reconciler.getStats();
+        assertEquals(2, stats.getPlayersAdded());
+        assertEquals(2, stats.getPlayersRemoved());
+        assertTrue(stats.getBucketsFetched() <= 3);
+
+        // 修复后下一轮一致
+        reconciler.reconcile();
+        assertEquals(1, reconciler.getStats().getMatched());
+    }
+
+    @Test
+    void skipsWhileTheOutboxHasPendingChanges() {
+        join(5, false);
+        mirror.members.clear();
+        mirror.outboxIdle = false;
+
+        reconciler.reconcile();
+        assertEquals(0, mirror.digestRequests);
+        assertEquals(1, reconciler.getStats().getSkipped());
+        assertTrue(mirror.members.isEmpty());
+    }
+
+    @Test
+    void skipsWhenTheQueueChangesDuringTheRound() {
+        join(5, false);
+        mirror.members.clear();
+        mirror.heldDigest = new CompletableFuture<>();
+
+        reconciler.reconcile();
+        queueManager.addPlayer(UUID.randomUUID(), "late", false);
+        mirror.heldDigest.complete(null);
+
+        assertEquals(1, reconciler.getStats().getSkipped());
+        assertTrue(mirror.members.isEmpty());
+
+        // 上一轮结束后可以开始新一轮
+        mirror.heldDigest = null;
+        reconciler.reconcile();
+        assertEquals(6, mirror.members.size());
+    }
+
+    @Test
+    void inFlightPlayersAreNotAnnouncedAgain() {
+        List<UUID> players = join(3, false);
+        UUID dispatched = queueManager.getNextPlayer();
+        assertEquals(players.get(0), dispatched);
+        // 代理端已经在传送时移除了这名玩家
+        mirror.members.remove(dispatched);
+
+        reconciler.reconcile();
+        assertFalse(mirror.members.containsKey(dispatched));
+        assertEquals(0, reconciler.getStats().getPlayersAdded());
+    }
+
+    @Test
+    void doesNothingWithoutProxySupport() {
+        join(3, false);
+        mirror.members.clear();
+        mirror.supported = false;
+
+        reconciler.reconcile();
+        assertEquals(0, mirror.digestRequests);
+        assertEquals(0, reconciler.getStats().getRounds());
+    }
+}
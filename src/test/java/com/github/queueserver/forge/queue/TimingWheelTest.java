@@ -0,0 +1,115 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static Logger quietLogger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        return logger;
+    }
+
+    @Test
+    void firesAtDeadlineNotBefore() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0, quietLogger());
+        AtomicInteger fired = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.schedule(100, fired::incrementAndGet);
+
+        assertEquals(0, wheel.advance(99));
+        assertFalse(timeout.isExpired());
+        assertEquals(1, wheel.advance(100));
+        assertTrue(timeout.isExpired());
+        assertEquals(1, fired.get());
+
+        // 已执行的任务不会再次执行
+        assertEquals(0, wheel.advance(1000));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void deadlinesBeyondOneRotationWaitForTheirRound() {
+        // 8 个槽位 * 10ms，一圈 80ms
+        TimingWheel wheel = new TimingWheel(10, 8, 0, quietLogger());
+        List<Long> order = new ArrayList<>();
+        for (long deadline : new long[] {250, 10, 170, 90}) {
+            wheel.schedule(deadline, () -> order.add(deadline));
+        }
+
+        wheel.advance(80);
+        assertEquals(List.of(10L), order);
+        wheel.advance(160);
+        assertEquals(List.of(10L, 90L), order);
+        wheel.advance(240);
+        assertEquals(List.of(10L, 90L, 170L), order);
+        wheel.advance(250);
+        assertEquals(List.of(10L, 90L, 170L, 250L), order);
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0, quietLogger());
+        AtomicInteger fired = new AtomicInteger();
+        TimingWheel.Timeout before = wheel.schedule(50, fired::incrementAndGet);
+        wheel.advance(20);
+        TimingWheel.Timeout after = wheel.schedule(60, fired::incrementAndGet);
+
+        // 已并入槽位和仍在暂存队列中的任务都能取消
+        assertTrue(before.cancel());
+        assertTrue(after.cancel());
+        assertFalse(after.cancel());
+
+        assertEquals(0, wheel.advance(100));
+        assertEquals(0, fired.get());
+        assertTrue(before.isCancelled());
+        assertFalse(before.isExpired());
+    }
+
+    @Test
+    void pastDeadlineFiresWithinOneTick() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0, quietLogger());
+        wheel.advance(500);
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(100, fired::incrementAndGet);
+
+        // 刻度 50 已处理，过期任务放入下一个刻度
+        assertEquals(0, wheel.advance(505));
+        assertEquals(1, wheel.advance(510));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void failingTaskDoesNotStopOthers() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0, quietLogger());
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(30, () -> {
+            throw new IllegalStateException("boom");
+        });
+        wheel.schedule(30, fired::incrementAndGet);
+
+        assertEquals(2, wheel.advance(30));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void taskMayScheduleFollowUp() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0, quietLogger());
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(30, () -> wheel.schedule(60, fired::incrementAndGet));
+
+        wheel.advance(30);
+        assertEquals(0, fired.get());
+        wheel.advance(60);
+        assertEquals(1, fired.get());
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidIndexTest {
+
+    @Test
+    void putIfAbsentKeepsFirstValue() {
+        UuidIndex<String> index = new UuidIndex<>();
+        UUID key = UUID.randomUUID();
+
+        assertNull(index.putIfAbsent(key, "a"));
+        assertEquals("a", index.putIfAbsent(key, "b"));
+        assertEquals("a", index.get(key));
+        assertEquals(1, index.size());
+        assertThrows(NullPointerException.class, () -> index.putIfAbsent(UUID.randomUUID(), null));
+    }
+
+    @Test
+    void conditionalRemoveChecksValue() {
+        UuidIndex<String> index = new UuidIndex<>();
+        UUID key = UUID.randomUUID();
+        index.putIfAbsent(key, "a");
+
+        assertFalse(index.remove(key, "b"));
+        assertTrue(index.containsKey(key));
+        assertTrue(index.remove(key, "a"));
+        assertFalse(index.containsKey(key));
+        assertNull(index.remove(key));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomInsertsAndDeletes() {
+        // 小表频繁扩容和回移删除，与 HashMap 的结果逐项比对
+        UuidIndex<Integer> index = new UuidIndex<>(16);
+        Map<UUID, Integer> expected = new HashMap<>();
+        List<UUID> keys = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20000; i++) {
+            if (keys.isEmpty() || random.nextInt(3) != 0) {
+                UUID key = new UUID(random.nextLong(), random.nextLong());
+                keys.add(key);
+                index.putIfAbsent(key, i);
+                expected.putIfAbsent(key, i);
+            } else {
+                UUID key = keys.remove(random.nextInt(keys.size()));
+                assertEquals(expected.remove(key), index.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (Map.Entry<UUID, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), index.get(entry.getKey()));
+        }
+        Map<UUID, Integer> visited = new HashMap<>();
+        index.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void clearEmptiesLargeSegmentsWithoutLooping() {
+        UuidIndex<Integer> index = new UuidIndex<>();
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            UUID key = UUID.randomUUID();
+            keys.add(key);
+            index.putIfAbsent(key, i);
+        }
+
+        // 每段远超 16 个条目，旧实现会在这里死循环
+        assertTimeoutPreemptively(Duration.ofSeconds(5), index::clear);
+        assertEquals(0, index.size());
+        for (UUID key : keys) {
+            assertNull(index.get(key));
+        }
+
+        // 清空后仍可正常写入和扩容
+        for (int i = 0; i < 1000; i++) {
+            index.putIfAbsent(keys.get(i), i);
+        }
+        assertEquals(1000, index.size());
+        assertEquals(999, index.get(keys.get(999)));
+    }
+}
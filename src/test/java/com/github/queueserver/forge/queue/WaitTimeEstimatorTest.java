@@ -0,0 +1,103 @@
+package com.github.queueserver.forge.queue;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WaitTimeEstimatorTest {
+
+    /**
+     * 从 start 起每 interval 毫秒出队 perStep 人，共 steps 次，返回最后一次观测的时间
+     */
+    private static long feed(WaitTimeEstimator estimator, long start, long interval, int perStep, int steps) {
+        estimator.observe(0, start, true);
+        long now = start;
+        for (int i = 0; i < steps; i++) {
+            now += interval;
+            estimator.observe(perStep, now, true);
+        }
+        return now;
+    }
+
+    @Test
+    void noEstimateWithoutSamples() {
+        WaitTimeEstimator estimator = new WaitTimeEstimator(60_000);
+        assertNull(estimator.estimate(5));
+
+        // 第一次观测只确定计时起点
+        estimator.observe(3, 1000, true);
+        assertNull(estimator.estimate(5));
+        assertEquals(0, estimator.getSamples());
+    }
+
+    @Test
+    void steadyRateGivesExactEstimate() {
+        WaitTimeEstimator estimator = new WaitTimeEstimator(60_000);
+        feed(estimator, 0, 1000, 2, 10);
+
+        assertEquals(120.0, estimator.getRatePerMinute(), 1e-9);
+        WaitTimeEstimator.Estimate estimate = estimator.estimate(10);
+        assertEquals(5000, estimate.getExpectedMillis());
+        // 速率没有波动时区间收缩为一点
+        assertEquals(5000, estimate.getLowerMillis());
+        assertEquals(5000, estimate.getUpperMillis());
+        assertTrue(estimate.isReliable());
+        assertNull(estimator.estimate(0));
+    }
+
+    @Test
+    void fewSamplesAreMarkedUnreliable() {
+        WaitTimeEstimator estimator = new WaitTimeEstimator(60_000);
+        feed(estimator, 0, 1000, 1, 2);
+        assertFalse(estimator.estimate(1).isReliable());
+        estimator.observe(1, 3000, true);
+        assertTrue(estimator.estimate(1).isReliable());
+    }
+
+    @Test
+    void idlePeriodsDoNotLowerTheRate() {
+        WaitTimeEstimator estimator = new WaitTimeEstimator(60_000);
+        long now = feed(estimator, 0, 1000, 1, 10);
+
+        // 队列空了一小时，再有人时重新计时
+        estimator.observe(0, now + 3_600_000, false);
+        estimator.observe(1, now + 3_601_000, true);
+
+        assertEquals(60.0, estimator.getRatePerMinute(), 1e-9);
+        assertEquals(11, estimator.getSamples());
+    }
+
+    @Test
+    void noisyRateWidensTheInterval() {
+        WaitTimeEstimator estimator = new WaitTimeEstimator(30_000);
+        estimator.observe(0, 0, true);
+        long now = 0;
+        for (int i = 0; i < 120; i++) {
+            now += 1000;
+            estimator.observe(i % 2 == 0 ? 0 : 4, now, true);
+        }
+
+        WaitTimeEstimator.Estimate estimate = estimator.estimate(20);
+        assertTrue(estimate.getLowerMillis() < estimate.getExpectedMillis());
+        assertTrue(estimate.getUpperMillis() > estimate.getExpectedMillis());
+        // 平均每秒 2 人
+        assertEquals(10_000, estimate.getExpectedMillis(), 2_000);
+    }
+
+    @Test
+    void rateFollowsAChangeAfterAFewTimeConstants() {
+        WaitTimeEstimator estimator = new WaitTimeEstimator(10_000);
+        long now = feed(estimator, 0, 1000, 1, 30);
+        for (int i = 0; i < 60; i++) {
+            now += 1000;
+            estimator.observe(5, now, true);
+        }
+        assertEquals(300.0, estimator.getRatePerMinute(), 1.0);
+
+        estimator.reset();
+        assertNull(estimator.estimate(1));
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.queueserver.forge.queue.scheduler;
+
+import com.github.queueserver.forge.queue.QueueManager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueueSchedulerTest {
+
+    private static QueueManager.QueueEntry entry(boolean vip, long joinTime) {
+        return new QueueManager.QueueEntry(UUID.randomUUID(), vip ? "vip" : "regular", vip, joinTime);
+    }
+
+    /**
+     * 两个队列一直有人时连续出队 n 次，返回VIP出队人数
+     */
+    private static int vipServed(QueueScheduler scheduler, int n) {
+        QueueManager.QueueEntry vip = entry(true, 0);
+        QueueManager.QueueEntry regular = entry(false, 0);
+        int served = 0;
+        for (int i = 0; i < n; i++) {
+            boolean fromVip = scheduler.selectVip(vip, regular, i);
+            scheduler.onDequeued(fromVip ? vip : regular, i);
+            if (fromVip) {
+                served++;
+            }
+        }
+        return served;
+    }
+
+    @Test
+    void strictAlwaysPrefersVip() {
+        assertEquals(100, vipServed(new StrictPriorityScheduler(), 100));
+        assertEquals(8, new StrictPriorityScheduler().estimatePosition(false, 3, 5, 10));
+    }
+
+    @Test
+    void deficitRoundRobinFollowsTheWeight() {
+        assertEquals(200, vipServed(new DeficitRoundRobinScheduler(2.0), 300));
+        assertEquals(250, vipServed(new DeficitRoundRobinScheduler(5.0), 300));
+        assertEquals(150, vipServed(new DeficitRoundRobinScheduler(1.0), 300));
+        // 权重小于 1 时普通玩家占多数
+        assertEquals(100, vipServed(new DeficitRoundRobinScheduler(0.5), 300));
+    }
+
+    @Test
+    void deficitRoundRobinEstimatesInterleavedPosition() {
+        DeficitRoundRobinScheduler scheduler = new DeficitRoundRobinScheduler(2.0);
+        // 普通队列第 3 名之前约有 6 名VIP出队
+        assertEquals(9, scheduler.estimatePosition(false, 3, 20, 10));
+        // VIP不足时以实际人数为限
+        assertEquals(5, scheduler.estimatePosition(false, 3, 2, 10));
+        // VIP第 5 名之前约有 2 名普通玩家出队
+        assertEquals(7, scheduler.estimatePosition(true, 5, 20, 10));
+    }
+
+    @Test
+    void agingLetsLongWaitingRegularPlayersOvertake() {
+        AgingScheduler scheduler = new AgingScheduler(3.0);
+        QueueManager.QueueEntry vip = entry(true, 90_000);
+        QueueManager.QueueEntry regular = entry(false, 0);
+
+        // VIP等待 10 秒按 30 秒计，普通玩家已等待 100 秒
+        assertFalse(scheduler.selectVip(vip, regular, 100_000));
+        // VIP等待 40 秒按 120 秒计，仍少于普通玩家的 130 秒；再过 10 秒VIP优先
+        assertFalse(scheduler.selectVip(vip, regular, 130_000));
+        assertTrue(scheduler.selectVip(vip, regular, 140_000));
+    }
+
+    @Test
+    void nonPositiveWeightsFallBackToOne() {
+        assertEquals(150, vipServed(new DeficitRoundRobinScheduler(0), 300));
+        AgingScheduler aging = new AgingScheduler(-1);
+        assertTrue(aging.selectVip(entry(true, 0), entry(false, 0), 10));
+        assertFalse(aging.selectVip(entry(true, 5), entry(false, 0), 10));
+    }
+}
@@ -0,0 +1,498 @@
+package com.github.queueserver.forge.simulation;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * 本地代理替身
+ * 在本机实现代理的事件推送端点（WebSocket /api/events）和就绪、心跳、状态查询端点，
+ * 用于在没有真实代理的情况下测试推送通道的补发、重连和重新同步
+ *
+ * 事件带有递增的序号，最近的事件保留在补发缓冲区中；客户端带 after 参数重连时补发之后的事件，
+ * 序号已不在缓冲区中（或替身重启过）时先发送 reset 事件再发送当前状态
+ *
+ * 开发工具，位于测试源码中，不打包进插件。用法:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.github.queueserver.forge.simulation.ProxyStandIn -Dexec.args="--port=8080"
+ * 启动后从标准输入读取命令: slot [n] / arrive &lt;uuid&gt; / health &lt;在线&gt; &lt;上限&gt; / drop / restart / quit
+ */
+public class ProxyStandIn {
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final Logger logger;
+    private final int requestedPort;
+    private final int replayCapacity;
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private volatile boolean running = false;
+
+    // 以下字段在 this 上同步
+    private long sequence = 0;
+    private final ArrayDeque<JsonObject> replay = new ArrayDeque<>();
+    private boolean online = true;
+    private int currentPlayers = 0;
+    private int maxPlayers = 100;
+    private double tps = 20.0;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Socket> connections = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param port 监听端口，0 为随机端口
+     * @param replayCapacity 补发缓冲区保留的事件数
+     */
+    public ProxyStandIn(int port, int replayCapacity, Logger logger) {
+        this.logger = logger;
+        this.requestedPort = port;
+        this.replayCapacity = Math.max(1, replayCapacity);
+    }
+
+    /**
+     * 开始监听本机端口
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(requestedPort, 50, InetAddress.getLoopbackAddress());
+        running = true;
+        acceptThread = new Thread(this::acceptLoop, "proxy-stand-in");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * 停止监听并断开所有连接
+     */
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // 关闭时的错误无需处理
+        }
+        dropConnections();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    // ---- 事件 ----
+
+    /**
+     * 目标服务器空出位置
+     */
+    public void publishSlotFree(int slots) {
+        JsonObject event = event("slot-free");
+        synchronized (this) {
+            currentPlayers = Math.max(0, Math.min(maxPlayers, currentPlayers - slots));
+            event.addProperty("availableSlots", maxPlayers - currentPlayers);
+            publish(event);
+        }
+    }
+
+    /**
+     * 玩家到达目标服务器
+     */
+    public void publishArrival(UUID playerId) {
+        JsonObject event = event("player-arrived");
+        event.addProperty("playerId", playerId.toString());
+        synchronized (this) {
+            currentPlayers = Math.min(maxPlayers, currentPlayers + 1);
+            publish(event);
+        }
+    }
+
+    /**
+     * 目标服务器状态变化
+     */
+    public void publishHealth(boolean online, int currentPlayers, int maxPlayers, double tps) {
+        synchronized (this) {
+            this.online = online;
+            this.currentPlayers = currentPlayers;
+            this.maxPlayers = maxPlayers;
+            this.tps = tps;
+            publish(healthEvent());
+        }
+    }
+
+    /**
+     * 模拟代理重启：序号从头开始，补发缓冲区清空，重连的客户端会收到 reset
+     */
+    public void restart() {
+        synchronized (this) {
+            sequence = 0;
+            replay.clear();
+        }
+        dropConnections();
+    }
+
+    /**
+     * 直接断开所有连接，不发送关闭帧，模拟网络中断
+     */
+    public void dropConnections() {
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 关闭时的错误无需处理
+            }
+        }
+    }
+
+    private JsonObject event(String type) {
+        JsonObject event = new JsonObject();
+        event.addProperty("type", type);
+        event.addProperty("timestamp", System.currentTimeMillis());
+        return event;
+    }
+
+    private JsonObject healthEvent() {
+        JsonObject event = event("target-health");
+        event.addProperty("online", online);
+        event.addProperty("currentPlayers", currentPlayers);
+        event.addProperty("maxPlayers", maxPlayers);
+        event.addProperty("availableSlots", Math.max(0, maxPlayers - currentPlayers));
+        event.addProperty("tps", tps);
+        event.addProperty("status", online ? "ONLINE" : "OFFLINE");
+        return event;
+    }
+
+    /**
+     * 编号、写入补发缓冲区并发给所有订阅者，调用方持有 this 的锁，保证各订阅者收到的顺序一致
+     */
+    private void publish(JsonObject event) {
+        event.addProperty("seq", ++sequence);
+        replay.addLast(event);
+        while (replay.size() > replayCapacity) {
+            replay.removeFirst();
+        }
+        String text = event.toString();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.send(text);
+        }
+    }
+
+    // ---- 连接处理 ----
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread thread = new Thread(() -> handle(socket), "proxy-stand-in-conn");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (running) {
+                    logger.warning("接受连接失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            while (running) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return;
+                }
+                Map<String, String> headers = new HashMap<>();
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+                    }
+                }
+
+                String[] parts = requestLine.split(" ");
+                String method = parts[0];
+                String target = parts.length > 1 ? parts[1] : "/";
+                int length = Integer.parseInt(headers.getOrDefault("content-length", "0"));
+                in.readNBytes(length);
+
+                if ("websocket".equalsIgnoreCase(headers.get("upgrade")) && target.startsWith("/api/events")) {
+                    serveEvents(socket, in, out, headers.get("sec-websocket-key"), query(target, "after"));
+                    return;
+                }
+                respond(out, method, target);
+            }
+        } catch (SocketException | EOFException e) {
+            // 连接被关闭
+        } catch (IOException e) {
+            if (running) {
+                logger.warning("处理连接失败: " + e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private void respond(OutputStream out, String method, String target) throws IOException {
+        String path = target.contains("?") ? target.substring(0, target.indexOf('?')) : target;
+        JsonObject body = new JsonObject();
+        int status = 200;
+        if ("POST".equals(method) && "/api/server/ready".equals(path)) {
+            body.addProperty("success", true);
+            JsonArray capabilities = new JsonArray();
+            capabilities.add("event-stream");
+            body.add("capabilities", capabilities);
+        } else if ("POST".equals(method) && "/api/heartbeat".equals(path)) {
+            body.addProperty("success", true);
+        } else if ("GET".equals(method) && "/api/server/status".equals(path)) {
+            synchronized (this) {
+                body = healthEvent();
+            }
+            body.remove("type");
+        } else {
+            status = 404;
+            body.addProperty("success", false);
+            body.addProperty("message", "替身未实现: " + method + " " + path);
+        }
+
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + (status == 200 ? " OK" : " Not Found") + "\r\n"
+                + "Content-Type: application/json; charset=utf-8\r\n"
+                + "Content-Length: " + bytes.length + "\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * 完成 WebSocket 握手，补发或重置后持续推送，直到连接断开
+     */
+    private void serveEvents(Socket socket, InputStream in, OutputStream out, String key, String after) throws IOException {
+        String accept;
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            accept = Base64.getEncoder().encodeToString(
+                    sha1.digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        out.write(("HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        Subscriber subscriber = new Subscriber(out);
+        long resumeFrom = after != null ? Long.parseLong(after) : 0;
+        synchronized (this) {
+            long oldest = replay.isEmpty() ? sequence + 1 : replay.peekFirst().get("seq").getAsLong();
+            if (resumeFrom > 0 && resumeFrom <= sequence && resumeFrom >= oldest - 1) {
+                for (JsonObject event : replay) {
+                    if (event.get("seq").getAsLong() > resumeFrom) {
+                        subscriber.send(event.toString());
+                    }
+                }
+            } else {
+                // 无法补发：告知当前序号，再发送不编号的状态快照
+                JsonObject reset = event("reset");
+                reset.addProperty("seq", sequence);
+                subscriber.send(reset.toString());
+                subscriber.send(healthEvent().toString());
+            }
+            subscribers.add(subscriber);
+        }
+
+        try {
+            readFrames(socket, new DataInputStream(in), subscriber);
+        } finally {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * 读取客户端帧：回应 ping，收到关闭帧时回应并结束
+     */
+    private void readFrames(Socket socket, DataInputStream in, Subscriber subscriber) throws IOException {
+        while (running && !socket.isClosed()) {
+            int first = in.readUnsignedByte();
+            int second = in.readUnsignedByte();
+            int opcode = first & 0x0F;
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+            byte[] mask = new byte[4];
+            if ((second & 0x80) != 0) {
+                in.readFully(mask);
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+
+            switch (opcode) {
+                case 0x8:
+                    subscriber.frame(0x8, payload);
+                    return;
+                case 0x9:
+                    subscriber.frame(0xA, payload);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 一个推送连接，写入按连接串行
+     */
+    private static final class Subscriber {
+        private final OutputStream out;
+
+        Subscriber(OutputStream out) {
+            this.out = out;
+        }
+
+        void send(String text) {
+            frame(0x1, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        synchronized void frame(int opcode, byte[] payload) {
+            try {
+                ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 10);
+                frame.write(0x80 | opcode);
+                if (payload.length < 126) {
+                    frame.write(payload.length);
+                } else if (payload.length < 65536) {
+                    frame.write(126);
+                    frame.write(payload.length >>> 8);
+                    frame.write(payload.length & 0xFF);
+                } else {
+                    frame.write(127);
+                    for (int shift = 56; shift >= 0; shift -= 8) {
+                        frame.write((int) ((long) payload.length >>> shift) & 0xFF);
+                    }
+                }
+                frame.write(payload);
+                out.write(frame.toByteArray());
+                out.flush();
+            } catch (IOException e) {
+                // 连接已断开，由读取线程清理
+            }
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int end = line.length();
+                if (end > 0 && line.charAt(end - 1) == '\r') {
+                    line.setLength(end - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    private static String query(String target, String name) {
+        int start = target.indexOf('?');
+        if (start < 0) {
+            return null;
+        }
+        for (String pair : target.substring(start + 1).split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int replay = 1024;
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "port": port = Integer.parseInt(value); break;
+                case "replay": replay = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("未知参数: " + key);
+            }
+        }
+
+        Logger logger = Logger.getLogger("ProxyStandIn");
+        ProxyStandIn standIn = new ProxyStandIn(port, replay, logger);
+        standIn.start();
+        logger.info("代理替身已启动: " + standIn.getBaseUrl());
+        logger.info("命令: slot [n] / arrive <uuid> / health <在线> <上限> / drop / restart / quit");
+
+        BufferedReader console = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = console.readLine()) != null) {
+            String[] parts = line.trim().split("\\s+");
+            try {
+                switch (parts[0]) {
+                    case "slot": standIn.publishSlotFree(parts.length > 1 ? Integer.parseInt(parts[1]) : 1); break;
+                    case "arrive": standIn.publishArrival(UUID.fromString(parts[1])); break;
+                    case "health": standIn.publishHealth(true, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), 20.0); break;
+                    case "drop": standIn.dropConnections(); break;
+                    case "restart": standIn.restart(); break;
+                    case "quit": standIn.stop(); return;
+                    case "": continue;
+                    default: logger.warning("未知命令: " + parts[0]); continue;
+                }
+                logger.info("序号 " + standIn.getSequence() + ", 订阅者 " + standIn.getSubscriberCount());
+            } catch (RuntimeException e) {
+                logger.warning("命令格式错误: " + e.getMessage());
+            }
+        }
+        standIn.stop();
+    }
+}
@@ -0,0 +1,473 @@
+package com.github.queueserver.forge.simulation;
+
+import com.github.queueserver.forge.dispatch.QueueDispatcher;
+import com.github.queueserver.forge.dispatch.TransferRateController;
+import com.github.queueserver.forge.queue.QueueEnvironment;
+import com.github.queueserver.forge.queue.QueueManager;
+import com.github.queueserver.forge.queue.QueueSettings;
+import com.github.queueserver.forge.queue.WaitTimeEstimator;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 离散事件队列模拟器
+ * 用模拟时钟驱动真实的 QueueManager、调度策略和分发逻辑，
+ * 配合合成的到达/游玩/放弃分布和模拟的目标服务器，几秒内跑完一整天，
+ * 用于在高峰活动前调整传送批量、处理间隔和VIP预留位置
+ *
+ * 相同参数和种子的结果完全一致。开发工具，位于测试源码中，不打包进插件。用法:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.github.queueserver.forge.simulation.QueueSimulator -Dexec.args="--hours=24 --batch-size=5"
+ */
+public class QueueSimulator {
+
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+
+    private final Settings settings;
+    private final Random random;
+
+    // 事件按时间排序，同一时刻按调度顺序执行
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long eventSeq = 0;
+    private long now = 0;
+
+    private final QueueManager queueManager;
+    private final QueueDispatcher dispatcher;
+    private final TransferRateController rateController;
+
+    // 目标服务器
+    private int onlinePlayers = 0;
+    private int transferring = 0;
+
+    private long nextPlayerId = 0;
+    private final Map<UUID, WaitTimeEstimator.Estimate> predictions = new HashMap<>();
+    private final Report report;
+
+    public QueueSimulator(Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.seed);
+        this.report = new Report(settings);
+
+        QueueSettings queueSettings = new QueueSettings();
+        queueSettings.setSchedulerPolicy(settings.scheduler);
+        queueSettings.setVipWeight(settings.vipWeight);
+        queueSettings.setMaxWaitMillis(settings.maxWaitMinutes * MINUTE);
+        queueSettings.setTransferConfirmMillis(0);
+
+        Logger logger = Logger.getLogger("QueueSimulator");
+        logger.setLevel(Level.WARNING);
+
+        this.queueManager = new QueueManager(logger, queueSettings, new SimulatedEnvironment());
+        if (settings.rateControl) {
+            this.rateController = new TransferRateController(1, settings.maxBatchSize,
+                    settings.processIntervalSeconds * SECOND, 18.0, 0.5, settings.processIntervalSeconds * SECOND, logger);
+            this.dispatcher = new QueueDispatcher(queueManager, rateController);
+        } else {
+            this.rateController = null;
+            this.dispatcher = new QueueDispatcher(queueManager, () -> settings.batchSize);
+        }
+    }
+
+    /**
+     * 运行模拟并返回报告
+     */
+    public Report run() {
+        long start = System.nanoTime();
+        long end = settings.hours * HOUR;
+
+        scheduleNextArrival();
+        schedule(settings.processIntervalSeconds * SECOND, this::processQueue);
+        schedule(QueueManager.TIMER_TICK_MILLIS, this::advanceTimers);
+        schedule(0, this::sample);
+
+        while (!events.isEmpty() && events.peek().time <= end) {
+            Event event = events.poll();
+            now = event.time;
+            event.action.run();
+        }
+
+        report.simulatedMillis = end;
+        report.wallMillis = (System.nanoTime() - start) / 1_000_000;
+        report.schedulerName = queueManager.getSchedulerName();
+        return report;
+    }
+
+    private void schedule(long time, Runnable action) {
+        events.add(new Event(time, eventSeq++, action));
+    }
+
+    /**
+     * 非齐次泊松到达，按峰值速率生成后按当前速率稀疏化
+     */
+    private void scheduleNextArrival() {
+        double peakRate = settings.arrivalsPerMinute * settings.peakFactor / MINUTE;
+        long time = now;
+        while (true) {
+            time += (long) Math.ceil(exponential(1.0 / peakRate));
+            if (random.nextDouble() * peakRate <= arrivalRate(time)) {
+                break;
+            }
+        }
+        schedule(time, this::arrive);
+    }
+
+    /**
+     * 到达速率（人/毫秒），在 peak-hour 达到基础速率的 peak-factor 倍
+     */
+    private double arrivalRate(long time) {
+        double hour = (time % (24 * HOUR)) / (double) HOUR;
+        double shape = 0.5 + 0.5 * Math.cos(2 * Math.PI * (hour - settings.peakHour) / 24.0);
+        return settings.arrivalsPerMinute * (1.0 + (settings.peakFactor - 1.0) * shape) / MINUTE;
+    }
+
+    private void arrive() {
+        scheduleNextArrival();
+
+        boolean vip = random.nextDouble() < settings.vipFraction;
+        UUID playerId = new UUID(settings.seed, nextPlayerId++);
+        report.arrivals[tier(vip)]++;
+
+        // 与登录监听器相同的排队判断
+        if (!QueueDispatcher.shouldQueue(vip, onlinePlayers + transferring, settings.capacity, settings.vipReservedSlots)) {
+            report.directJoins[tier(vip)]++;
+            startSession();
+            return;
+        }
+
+        queueManager.addPlayer(playerId, "sim-" + nextPlayerId, vip);
+        report.queued[tier(vip)]++;
+
+        WaitTimeEstimator.Estimate estimate = queueManager.estimateWaitTime(playerId);
+        if (estimate != null) {
+            predictions.put(playerId, estimate);
+        }
+
+        if (settings.patienceMinutes > 0) {
+            schedule(now + (long) exponential(settings.patienceMinutes * MINUTE), () -> {
+                if (queueManager.removePlayer(playerId)) {
+                    report.abandoned[tier(vip)]++;
+                    predictions.remove(playerId);
+                }
+            });
+        }
+    }
+
+    private void processQueue() {
+        schedule(now + settings.processIntervalSeconds * SECOND, this::processQueue);
+        if (rateController != null) {
+            rateController.onServerStatus(true, 20.0, now);
+        }
+
+        int availableSlots = settings.capacity - onlinePlayers - transferring;
+        for (QueueManager.QueueEntry entry : dispatcher.dispatch(availableSlots, entry -> true, now)) {
+            long waited = now - entry.getJoinTime();
+
+            transferring++;
+            schedule(now + settings.transferSeconds * SECOND, () -> {
+                transferring--;
+                boolean success = random.nextDouble() >= settings.transferFailureRate;
+                if (rateController != null) {
+                    rateController.onTransferResult(success, now);
+                }
+
+                // 失败的玩家回到原排队位置，等待时间按最终成功的那次出队计
+                boolean tracked = queueManager.onTransferResult(entry.getPlayerId(), success);
+                if (success && tracked) {
+                    report.waits.get(tier(entry.isVip())).add(waited);
+                    report.transfersPerHour[(int) (now / HOUR)]++;
+                    recordPrediction(entry.getPlayerId(), waited);
+                    startSession();
+                } else if (!success) {
+                    report.failedTransfers++;
+                }
+            });
+        }
+    }
+
+    private void startSession() {
+        onlinePlayers++;
+        schedule(now + (long) exponential(settings.sessionMinutes * MINUTE), () -> onlinePlayers--);
+    }
+
+    private void advanceTimers() {
+        schedule(now + QueueManager.TIMER_TICK_MILLIS, this::advanceTimers);
+        queueManager.advanceTimers();
+    }
+
+    /**
+     * 每分钟记录一次队列长度
+     */
+    private void sample() {
+        schedule(now + MINUTE, this::sample);
+
+        QueueManager.QueueStats stats = queueManager.getQueueStats();
+        int hour = (int) (now / HOUR);
+        report.sampleHour(hour, stats.getVipSize(), stats.getRegularSize(), onlinePlayers);
+    }
+
+    private void recordPrediction(UUID playerId, long actual) {
+        WaitTimeEstimator.Estimate estimate = predictions.remove(playerId);
+        if (estimate == null || actual <= 0) {
+            return;
+        }
+        report.etaErrors.add(Math.abs(estimate.getExpectedMillis() - actual) / (double) actual);
+        if (actual >= estimate.getLowerMillis() && (estimate.getUpperMillis() < 0 || actual <= estimate.getUpperMillis())) {
+            report.etaWithinInterval++;
+        }
+    }
+
+    private double exponential(double mean) {
+        return -mean * Math.log(1.0 - random.nextDouble());
+    }
+
+    private static int tier(boolean vip) {
+        return vip ? 0 : 1;
+    }
+
+    public static void main(String[] args) {
+        Settings settings = Settings.parse(args);
+        new QueueSimulator(settings).run().print(System.out);
+    }
+
+    /**
+     * 模拟环境：模拟时钟，所有玩家视为在线，不对外通知
+     */
+    private class SimulatedEnvironment implements QueueEnvironment {
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public boolean isOnline(UUID playerId) {
+            return true;
+        }
+
+        @Override
+        public void onPlayerAdded(QueueManager.QueueEntry entry) {
+        }
+
+        @Override
+        public void onPlayerRemoved(QueueManager.QueueEntry entry, String reason) {
+            if ("TIMEOUT".equals(reason)) {
+                report.timedOut[tier(entry.isVip())]++;
+                predictions.remove(entry.getPlayerId());
+            } else if ("TRANSFER_FAILED".equals(reason)) {
+                report.transferAbandoned++;
+                predictions.remove(entry.getPlayerId());
+            }
+        }
+
+        @Override
+        public void onTransferRequeued(QueueManager.QueueEntry entry, String reason) {
+        }
+    }
+
+    /**
+     * 模拟事件
+     */
+    private static class Event implements Comparable<Event> {
+        private final long time;
+        private final long seq;
+        private final Runnable action;
+
+        Event(long time, long seq, Runnable action) {
+            this.time = time;
+            this.seq = seq;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int result = Long.compare(time, other.time);
+            return result != 0 ? result : Long.compare(seq, other.seq);
+        }
+    }
+
+    /**
+     * 模拟参数，命令行以 --key=value 覆盖
+     */
+    public static class Settings {
+        long seed = 1;
+        int hours = 24;
+
+        // 到达：基础速率（人/分钟），在 peak-hour 达到 peak-factor 倍
+        double arrivalsPerMinute = 10;
+        double peakFactor = 3;
+        double peakHour = 20;
+        double vipFraction = 0.15;
+
+        // 玩家行为（分钟），patience 为 0 表示从不放弃
+        double sessionMinutes = 45;
+        double patienceMinutes = 20;
+
+        // 目标服务器
+        int capacity = 200;
+        int vipReservedSlots = 20;
+        long transferSeconds = 2;
+        double transferFailureRate = 0;
+
+        // 队列配置
+        int batchSize = 3;
+        long processIntervalSeconds = 5;
+        String scheduler = "strict";
+        double vipWeight = 2.0;
+        long maxWaitMinutes = 0;
+        
+        // 传送速率自适应，启用后 batch-size 不再生效
+        boolean rateControl = false;
+        int maxBatchSize = 20;
+
+        public static Settings parse(String[] args) {
+            Settings settings = new Settings();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+                }
+                String key = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                settings.set(key, value);
+            }
+            return settings;
+        }
+
+        public void set(String key, String value) {
+            switch (key) {
+                case "seed": seed = Long.parseLong(value); break;
+                case "hours": hours = Integer.parseInt(value); break;
+                case "arrivals-per-minute": arrivalsPerMinute = Double.parseDouble(value); break;
+                case "peak-factor": peakFactor = Math.max(1.0, Double.parseDouble(value)); break;
+                case "peak-hour": peakHour = Double.parseDouble(value); break;
+                case "vip-fraction": vipFraction = Double.parseDouble(value); break;
+                case "session-minutes": sessionMinutes = Double.parseDouble(value); break;
+                case "patience-minutes": patienceMinutes = Double.parseDouble(value); break;
+                case "capacity": capacity = Integer.parseInt(value); break;
+                case "vip-reserved-slots": vipReservedSlots = Integer.parseInt(value); break;
+                case "transfer-seconds": transferSeconds = Long.parseLong(value); break;
+                case "transfer-failure-rate": transferFailureRate = Double.parseDouble(value); break;
+                case "batch-size": batchSize = Integer.parseInt(value); break;
+                case "process-interval": processIntervalSeconds = Math.max(1, Long.parseLong(value)); break;
+                case "scheduler": scheduler = value; break;
+                case "vip-weight": vipWeight = Double.parseDouble(value); break;
+                case "max-wait": maxWaitMinutes = Long.parseLong(value); break;
+                case "rate-control": rateControl = Boolean.parseBoolean(value); break;
+                case "max-batch-size": maxBatchSize = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("未知参数: " + key);
+            }
+        }
+    }
+
+    /**
+     * 模拟结果
+     */
+    public static class Report {
+        private static final String[] TIERS = {"VIP", "普通"};
+
+        private final Settings settings;
+
+        private final long[] arrivals = new long[2];
+        private final long[] directJoins = new long[2];
+        private final long[] queued = new long[2];
+        private final long[] abandoned = new long[2];
+        private final long[] timedOut = new long[2];
+        private final List<List<Long>> waits = Arrays.asList(new ArrayList<>(), new ArrayList<>());
+
+        private final List<Double> etaErrors = new ArrayList<>();
+        private long etaWithinInterval = 0;
+        private long failedTransfers = 0;
+        private long transferAbandoned = 0;
+
+        // 每小时的传送数和队列长度
+        private final long[] transfersPerHour;
+        private final long[][] queueLengthSum;
+        private final int[][] queueLengthMax;
+        private final long[] onlineSum;
+        private final int[] samplesPerHour;
+
+        private long simulatedMillis;
+        private long wallMillis;
+        private String schedulerName;
+
+        Report(Settings settings) {
+            this.settings = settings;
+            this.transfersPerHour = new long[settings.hours + 1];
+            this.queueLengthSum = new long[settings.hours + 1][2];
+            this.queueLengthMax = new int[settings.hours + 1][2];
+            this.onlineSum = new long[settings.hours + 1];
+            this.samplesPerHour = new int[settings.hours + 1];
+        }
+
+        private void sampleHour(int hour, int vipSize, int regularSize, int online) {
+            queueLengthSum[hour][0] += vipSize;
+            queueLengthSum[hour][1] += regularSize;
+            queueLengthMax[hour][0] = Math.max(queueLengthMax[hour][0], vipSize);
+            queueLengthMax[hour][1] = Math.max(queueLengthMax[hour][1], regularSize);
+            onlineSum[hour] += online;
+            samplesPerHour[hour]++;
+        }
+
+        /**
+         * 某一队列的等待时间分位数（毫秒），无数据返回 -1
+         */
+        public long getWaitPercentile(boolean vip, double percentile) {
+            List<Long> sorted = new ArrayList<>(waits.get(tier(vip)));
+            if (sorted.isEmpty()) {
+                return -1;
+            }
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+        }
+
+        public long getTransfers() {
+            return waits.get(0).size() + waits.get(1).size();
+        }
+
+        public void print(PrintStream out) {
+            out.printf("=== 队列模拟 (%d 小时, 种子 %d, 用时 %dms) ===%n", settings.hours, settings.seed, wallMillis);
+            String batch = settings.rateControl ? "自适应 (最多 " + settings.maxBatchSize + ")" : String.valueOf(settings.batchSize);
+            out.printf("调度: %s, 批量 %s, 间隔 %ds, 容量 %d (VIP预留 %d)%n",
+                    schedulerName, batch, settings.processIntervalSeconds, settings.capacity, settings.vipReservedSlots);
+            out.printf("吞吐: %d 次传送 (失败 %d, 多次失败移出队列 %d), 平均 %.1f 人/小时%n",
+                    getTransfers(), failedTransfers, transferAbandoned, getTransfers() / (simulatedMillis / (double) HOUR));
+
+            for (int t = 0; t < 2; t++) {
+                boolean vip = t == 0;
+                out.printf("%s: 到达 %d, 直接进入 %d, 排队 %d, 放弃 %d, 超时 %d, 已传送 %d%n",
+                        TIERS[t], arrivals[t], directJoins[t], queued[t], abandoned[t], timedOut[t], waits.get(t).size());
+                out.printf("  等待 p50 %s  p90 %s  p99 %s  最长 %s%n",
+                        formatWait(getWaitPercentile(vip, 50)), formatWait(getWaitPercentile(vip, 90)),
+                        formatWait(getWaitPercentile(vip, 99)), formatWait(getWaitPercentile(vip, 100)));
+            }
+
+            if (!etaErrors.isEmpty()) {
+                List<Double> sorted = new ArrayList<>(etaErrors);
+                Collections.sort(sorted);
+                out.printf("预计等待: 中位误差 %.0f%%, 落在区间内 %.0f%% (%d 个样本)%n",
+                        sorted.get(sorted.size() / 2) * 100, etaWithinInterval * 100.0 / sorted.size(), sorted.size());
+            }
+
+            out.println("小时  传送  在线均值  VIP队列(均/峰)  普通队列(均/峰)");
+            for (int h = 0; h < settings.hours; h++) {
+                int samples = Math.max(1, samplesPerHour[h]);
+                out.printf("%4d  %4d  %8d  %6.1f / %-5d  %6.1f / %-5d%n", h, transfersPerHour[h], onlineSum[h] / samples,
+                        queueLengthSum[h][0] / (double) samples, queueLengthMax[h][0],
+                        queueLengthSum[h][1] / (double) samples, queueLengthMax[h][1]);
+            }
+        }
+
+        private static String formatWait(long millis) {
+            if (millis < 0) {
+                return "-";
+            }
+            long seconds = millis / 1000;
+            return seconds < 60 ? seconds + "s" : (seconds / 60) + "m" + (seconds % 60) + "s";
+        }
+    }
+}
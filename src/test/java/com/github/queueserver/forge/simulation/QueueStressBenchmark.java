@@ -0,0 +1,222 @@
+package com.github.queueserver.forge.simulation;
+
+import com.github.queueserver.forge.queue.QueueEnvironment;
+import com.github.queueserver.forge.queue.QueueManager;
+import com.github.queueserver.forge.queue.QueueSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 队列并发压测
+ * 多个登录线程同时入队和离队，另有一个分发线程不断取出并确认传送，统计不同线程数下的入队/离队吞吐量。
+ * 每个线程数分别以无锁路径和"全局锁"对照组运行，对照组把每次调用连同通知一起放在同一把锁里，
+ * 即改为无锁之前的做法。notify-micros 模拟通知代理服务器的耗时。开发工具，位于测试源码中。用法:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.github.queueserver.forge.simulation.QueueStressBenchmark -Dexec.args="--threads=1,2,4,8 --ops=200000"
+ */
+public class QueueStressBenchmark {
+
+    private int[] threadCounts = {1, 2, 4, 8, 16};
+    private int ops = 200_000;
+    private int rounds = 3;
+    private long notifyMicros = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        QueueStressBenchmark benchmark = new QueueStressBenchmark();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "threads":
+                    String[] parts = value.split(",");
+                    benchmark.threadCounts = new int[parts.length];
+                    for (int i = 0; i < parts.length; i++) {
+                        benchmark.threadCounts[i] = Integer.parseInt(parts[i].trim());
+                    }
+                    break;
+                case "ops": benchmark.ops = Integer.parseInt(value); break;
+                case "rounds": benchmark.rounds = Math.max(1, Integer.parseInt(value)); break;
+                case "notify-micros": benchmark.notifyMicros = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("未知参数: " + key);
+            }
+        }
+        benchmark.run();
+    }
+
+    private void run() throws InterruptedException {
+        System.out.printf("=== 队列并发压测 (%d 核, 每轮 %d 次操作, 取 %d 轮最好成绩, 通知耗时 %dµs) ===%n",
+                Runtime.getRuntime().availableProcessors(), ops, rounds, notifyMicros);
+        System.out.println("线程数  无锁 (次/秒)  全局锁 (次/秒)  分发数");
+
+        // 预热到 JIT 编译完成，避免先跑的线程数吃亏
+        for (int i = 0; i < 5; i++) {
+            measure(threadCounts[0], false);
+            measure(threadCounts[0], true);
+        }
+
+        for (int threads : threadCounts) {
+            Result lockFree = null;
+            Result locked = null;
+            for (int r = 0; r < rounds; r++) {
+                lockFree = best(lockFree, measure(threads, false));
+                locked = best(locked, measure(threads, true));
+            }
+            System.out.printf("%6d  %12.0f  %14.0f  %d%n", threads, lockFree.opsPerSecond, locked.opsPerSecond,
+                    lockFree.dispatched);
+        }
+    }
+
+    private static Result best(Result current, Result candidate) {
+        return current == null || candidate.opsPerSecond > current.opsPerSecond ? candidate : current;
+    }
+
+    /**
+     * 每个登录线程交替入队新玩家、让上一个玩家离队；分发线程同时取出并确认传送
+     */
+    private Result measure(int threads, boolean globalLock) throws InterruptedException {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        QueueSettings settings = new QueueSettings();
+        settings.setTransferConfirmMillis(0);
+        QueueManager queueManager = new QueueManager(logger, settings, new SlowNotifyEnvironment(notifyMicros));
+        ReentrantLock lock = globalLock ? new ReentrantLock() : null;
+
+        int perThread = ops / threads;
+        List<UUID[]> players = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            UUID[] ids = new UUID[perThread];
+            for (int i = 0; i < perThread; i++) {
+                ids[i] = new UUID(t, i);
+            }
+            players.add(ids);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            UUID[] ids = players.get(t);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < ids.length; i++) {
+                    UUID id = ids[i];
+                    if (i % 2 == 0) {
+                        locked(lock, () -> queueManager.addPlayer(id, "player", id.getLeastSignificantBits() % 10 == 0));
+                    } else {
+                        UUID previous = ids[i - 1];
+                        locked(lock, () -> queueManager.removePlayer(previous));
+                    }
+                }
+                done.countDown();
+            }, "stress-" + t);
+            worker.start();
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] dispatched = new long[1];
+        Thread dispatcher = new Thread(() -> {
+            while (running.get()) {
+                locked(lock, () -> {
+                    for (QueueManager.QueueEntry entry : queueManager.pollBatch(16, e -> true)) {
+                        queueManager.onTransferResult(entry.getPlayerId(), true);
+                        dispatched[0]++;
+                    }
+                    return true;
+                });
+                Thread.yield();
+            }
+        }, "stress-dispatch");
+        dispatcher.start();
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        running.set(false);
+        dispatcher.join();
+        queueManager.shutdown();
+
+        return new Result(perThread * (double) threads / (elapsed / 1e9), dispatched[0]);
+    }
+
+    private static void locked(ReentrantLock lock, BooleanSupplier action) {
+        if (lock == null) {
+            action.getAsBoolean();
+            return;
+        }
+        lock.lock();
+        try {
+            action.getAsBoolean();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Result {
+        final double opsPerSecond;
+        final long dispatched;
+
+        Result(double opsPerSecond, long dispatched) {
+            this.opsPerSecond = opsPerSecond;
+            this.dispatched = dispatched;
+        }
+    }
+
+    /**
+     * 压测环境：所有玩家在线，入队和离队通知各耗时 notifyMicros 微秒
+     */
+    private static class SlowNotifyEnvironment implements QueueEnvironment {
+        private final long notifyNanos;
+
+        SlowNotifyEnvironment(long notifyMicros) {
+            this.notifyNanos = notifyMicros * 1000;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public boolean isOnline(UUID playerId) {
+            return true;
+        }
+
+        @Override
+        public void onPlayerAdded(QueueManager.QueueEntry entry) {
+            notifyProxy();
+        }
+
+        @Override
+        public void onPlayerRemoved(QueueManager.QueueEntry entry, String reason) {
+            notifyProxy();
+        }
+
+        @Override
+        public void onTransferRequeued(QueueManager.QueueEntry entry, String reason) {
+            notifyProxy();
+        }
+
+        private void notifyProxy() {
+            if (notifyNanos > 0) {
+                LockSupport.parkNanos(notifyNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.queueserver.forge.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 调度策略对比
+ * 用同一组种子和负载分别以各调度策略运行 QueueSimulator，输出每个队列的等待时间 p50/p99，
+ * 多个种子时取各种子结果的中位数。结果只由参数和种子决定，可重复。用法:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.github.queueserver.forge.simulation.SchedulerBenchmark -Dexec.args="--seeds=5 --hours=24"
+ *
+ * 除 --seeds 和 --schedulers 外的参数原样传给模拟器
+ */
+public class SchedulerBenchmark {
+
+    public static void main(String[] args) {
+        int seeds = 5;
+        List<String> schedulers = Arrays.asList("strict", "weighted", "aging");
+        List<String> simulatorArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--seeds=")) {
+                seeds = Integer.parseInt(arg.substring("--seeds=".length()));
+            } else if (arg.startsWith("--schedulers=")) {
+                schedulers = Arrays.asList(arg.substring("--schedulers=".length()).split(","));
+            } else {
+                simulatorArgs.add(arg);
+            }
+        }
+
+        QueueSimulator.Settings base = QueueSimulator.Settings.parse(simulatorArgs.toArray(new String[0]));
+        System.out.printf("=== 调度策略对比 (%d 小时, 种子 1-%d, 到达 %.0f 人/分钟 x%.0f 高峰, VIP %.0f%%, 批量 %d / %ds) ===%n",
+                base.hours, seeds, base.arrivalsPerMinute, base.peakFactor, base.vipFraction * 100,
+                base.batchSize, base.processIntervalSeconds);
+        System.out.println("调度        VIP p50   VIP p99   普通 p50  普通 p99  传送/天");
+
+        for (String scheduler : schedulers) {
+            long[][] samples = new long[5][seeds];
+            for (int seed = 1; seed <= seeds; seed++) {
+                QueueSimulator.Settings settings = QueueSimulator.Settings.parse(simulatorArgs.toArray(new String[0]));
+                settings.set("scheduler", scheduler);
+                settings.set("seed", String.valueOf(seed));
+                QueueSimulator.Report report = new QueueSimulator(settings).run();
+
+                int i = seed - 1;
+                samples[0][i] = report.getWaitPercentile(true, 50);
+                samples[1][i] = report.getWaitPercentile(true, 99);
+                samples[2][i] = report.getWaitPercentile(false, 50);
+                samples[3][i] = report.getWaitPercentile(false, 99);
+                samples[4][i] = report.getTransfers();
+            }
+
+            System.out.printf("%-10s  %-8s  %-8s  %-8s  %-8s  %d%n", scheduler,
+                    formatWait(median(samples[0])), formatWait(median(samples[1])),
+                    formatWait(median(samples[2])), formatWait(median(samples[3])), median(samples[4]));
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String formatWait(long millis) {
+        if (millis < 0) {
+            return "-";
+        }
+        long seconds = millis / 1000;
+        return seconds < 60 ? seconds + "s" : (seconds / 60) + "m" + (seconds % 60) + "s";
+    }
+}